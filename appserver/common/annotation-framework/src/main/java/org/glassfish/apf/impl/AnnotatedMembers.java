@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.apf.impl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.glassfish.hk2.classmodel.reflect.AnnotatedElement;
+import org.glassfish.hk2.classmodel.reflect.AnnotationType;
+import org.glassfish.hk2.classmodel.reflect.Parameter;
+import org.glassfish.hk2.classmodel.reflect.Type;
+import org.glassfish.hk2.classmodel.reflect.Types;
+
+/**
+ * The fields, methods and constructors which carry annotations, as recorded
+ * by the class model built when the archive was scanned.
+ *
+ * The annotations of a member can then be looked up by reflection only when
+ * the class model says it has some. Members of classes which were not parsed,
+ * such as superclasses from the server class path, are always looked up.
+ */
+class AnnotatedMembers {
+
+    private static final String CONSTRUCTOR = "<init>";
+
+    final Types types;
+
+    /** declaring class name + '#' + member name */
+    private final Set<String> annotated = new HashSet<String>();
+
+    AnnotatedMembers(Types types) {
+        this.types = types;
+        for (Type type : types.getAllTypes()) {
+            if (type instanceof AnnotationType) {
+                for (AnnotatedElement element : ((AnnotationType) type).allAnnotatedTypes()) {
+                    if (element instanceof Parameter) {
+                        element = ((Parameter) element).getMethod();
+                    }
+                    if (element instanceof org.glassfish.hk2.classmodel.reflect.Member) {
+                        Type declaringType = ((org.glassfish.hk2.classmodel.reflect.Member) element).getDeclaringType();
+                        annotated.add(declaringType.getName() + '#' + element.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the member, or one of its parameters, is known to
+     * carry no annotation
+     */
+    boolean mayBeAnnotated(Member member) {
+        String className = member.getDeclaringClass().getName();
+        Type type = types.getBy(className);
+        if (type == null || type.getDefiningURIs().isEmpty()) {
+            return true;
+        }
+
+        String name = member instanceof Constructor ? CONSTRUCTOR : member.getName();
+        return annotated.contains(className + '#' + name);
+    }
+}
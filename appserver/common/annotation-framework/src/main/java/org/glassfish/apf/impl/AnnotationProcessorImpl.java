@@ -16,11 +16,13 @@
 
 package org.glassfish.apf.impl;
 
+import java.util.Collection;
 import java.util.EmptyStackException;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Stack;
@@ -30,6 +32,14 @@ import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.glassfish.apf.ProcessingContext;
@@ -43,6 +53,7 @@ import org.glassfish.apf.ResultType;
 import org.glassfish.apf.HandlerProcessingResult;
 import org.glassfish.apf.ProcessingResult;
 import org.glassfish.apf.Scanner;
+import org.glassfish.hk2.classmodel.reflect.Types;
 import java.util.logging.Level;
 
 
@@ -52,6 +63,16 @@ import java.util.logging.Level;
  */
 public class AnnotationProcessorImpl implements AnnotationProcessor {
 
+    /**
+     * Number of threads introspecting the classes to process, 1 to introspect
+     * them on the processing thread.
+     */
+    public static final String PARALLELISM_PROPERTY = "org.glassfish.apf.parallelism";
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    ExecutorService executorService;
+
     AnnotationProcessorImpl delegate;
     Map<String, List<AnnotationHandler>> handlers =
             new HashMap<String, List<AnnotationHandler>>();
@@ -60,6 +81,7 @@ public class AnnotationProcessorImpl implements AnnotationProcessor {
     Logger logger;
     Stack<StackElement> annotatedElements = new Stack<StackElement>();
     Set<Package> visitedPackages = new HashSet<Package>();
+    AnnotatedMembers annotatedMembers;
 
     /** Creates a new instance of AnnotationProcessorImpl */
     public AnnotationProcessorImpl() {
@@ -69,6 +91,42 @@ public class AnnotationProcessorImpl implements AnnotationProcessor {
     public void setDelegate(AnnotationProcessorImpl delegate) {
         this.delegate = delegate;
     }
+
+    /**
+     * Sets the executor introspecting the classes to process. The executor
+     * belongs to the caller, which shuts it down. Without one, the classes
+     * are introspected on the processing thread.
+     *
+     * @see #createExecutorService()
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Creates an executor for {@link #setExecutorService}, with
+     * {@value #PARALLELISM_PROPERTY} threads at most, which end when idle.
+     *
+     * @return the executor, or null if the classes should be introspected on
+     * the processing thread
+     */
+    public static ExecutorService createExecutorService() {
+        int nThreads = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        if (nThreads <= 1) {
+            return null;
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(nThreads, nThreads,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+                Thread t = new Thread(r);
+                t.setName("annotation-introspector");
+                t.setDaemon(true);
+                t.setContextClassLoader(AnnotationProcessorImpl.class.getClassLoader());
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     public ProcessingContext createContext() {
         ProcessingContext ctx = new ProcessingContextImpl(this);
         ctx.setErrorHandler(new DefaultErrorHandler());
@@ -105,7 +163,7 @@ public class AnnotationProcessorImpl implements AnnotationProcessor {
         ProcessingResultImpl result = new ProcessingResultImpl();
         errorCount=0;
 
-        for (Class c : scanner.getElements()) {
+        for (IntrospectedClass c : introspect(scanner, scanner.getElements())) {
 
             result.add(process(ctx, c));
         }
@@ -128,16 +186,16 @@ public class AnnotationProcessorImpl implements AnnotationProcessor {
         throws AnnotationProcessorException {
 
         ProcessingResultImpl result = new ProcessingResultImpl();
-        for (Class c : classes) {
+        for (IntrospectedClass c : introspect(ctx.getProcessingInput(), Arrays.asList(classes))) {
             result.add(process(ctx, c));
         }
         return result;
     }
 
-    private ProcessingResult process(ProcessingContext ctx, Class c)
+    private ProcessingResult process(ProcessingContext ctx, IntrospectedClass introspected)
         throws AnnotationProcessorException {
 
-        Scanner scanner = ctx.getProcessingInput();
+        Class c = introspected.c;
         ProcessingResultImpl result = new ProcessingResultImpl();
 
         // let's see first if this package is new to us and annotated.
@@ -148,10 +206,9 @@ public class AnnotationProcessorImpl implements AnnotationProcessor {
                     processAnnotations(ctx, ElementType.PACKAGE, classPackage));
         }
 
-        ComponentInfo info = null;
-        try {
-            info = scanner.getComponentInfo(c);
-        } catch (NoClassDefFoundError err) {
+        introspected.rethrowFailure();
+        NoClassDefFoundError err = introspected.notFound;
+        if (err != null) {
             // issue 456: allow verifier to report this issue
             AnnotationProcessorException ape =
                     new AnnotationProcessorException(
@@ -171,12 +228,12 @@ public class AnnotationProcessorImpl implements AnnotationProcessor {
         result.add(c, processAnnotations(ctx, c));
 
         // now dive into the fields.
-        for (Field field : info.getFields()) {
+        for (Field field : introspected.fields) {
             result.add(field,processAnnotations(ctx, ElementType.FIELD, field));
         }
 
         // constructors...
-        for (Constructor constructor : info.getConstructors()) {
+        for (Constructor constructor : introspected.constructors) {
             logStart(ctx.getHandler(), ElementType.CONSTRUCTOR, constructor);
             result.add(constructor, processAnnotations(ctx, constructor));
 
@@ -188,7 +245,7 @@ public class AnnotationProcessorImpl implements AnnotationProcessor {
         }
 
         // methods...
-        for (Method method : info.getMethods()) {
+        for (Method method : introspected.methods) {
             logStart(ctx.getHandler(), ElementType.METHOD, method);
             result.add(method, processAnnotations(ctx, method));
 
@@ -467,6 +524,132 @@ public class AnnotationProcessorImpl implements AnnotationProcessor {
         }
     }
 
+    /**
+     * Introspects the classes to process, on several threads if there are
+     * more than one.
+     *
+     * The components of the classes are looked up, and the annotations of
+     * their members read, ahead of the processing, which stays on the calling
+     * thread since the handlers update the descriptors and the handler stack
+     * of the processing context. Members which the class model of the scanner
+     * records without annotations are left out.
+     */
+    private List<IntrospectedClass> introspect(Scanner scanner, Collection<Class> classes) {
+        AnnotatedMembers members = getAnnotatedMembers(scanner);
+        List<IntrospectedClass> introspected = new ArrayList<IntrospectedClass>(classes.size());
+        for (Class c : classes) {
+            introspected.add(new IntrospectedClass(c));
+        }
+
+        ExecutorService executor = introspected.size() > 1 ? executorService : null;
+        if (executor == null) {
+            for (IntrospectedClass c : introspected) {
+                c.introspect(scanner, members);
+            }
+            return introspected;
+        }
+
+        ClassLoader classLoader = scanner.getClassLoader();
+        List<Future<?>> futures = new ArrayList<Future<?>>(introspected.size());
+        for (IntrospectedClass c : introspected) {
+            try {
+                futures.add(executor.submit(() -> {
+                    Thread thread = Thread.currentThread();
+                    ClassLoader contextClassLoader = thread.getContextClassLoader();
+                    thread.setContextClassLoader(classLoader);
+                    try {
+                        c.introspect(scanner, members);
+                    } finally {
+                        thread.setContextClassLoader(contextClassLoader);
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // the executor was shut down by its owner
+                c.introspect(scanner, members);
+            }
+        }
+
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // introspect() keeps its failures for the processing
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return introspected;
+    }
+
+    private AnnotatedMembers getAnnotatedMembers(Scanner scanner) {
+        Types types = scanner.getTypes();
+        if (types == null) {
+            return null;
+        }
+        if (annotatedMembers == null || annotatedMembers.types != types) {
+            annotatedMembers = new AnnotatedMembers(types);
+        }
+        return annotatedMembers;
+    }
+
+    /**
+     * A class to process, with the members which may carry annotations.
+     */
+    private static class IntrospectedClass {
+        final Class c;
+        List<Field> fields;
+        List<Constructor> constructors;
+        List<Method> methods;
+        NoClassDefFoundError notFound;
+        Throwable failure;
+
+        IntrospectedClass(Class c) {
+            this.c = c;
+        }
+
+        void introspect(Scanner scanner, AnnotatedMembers members) {
+            try {
+                ComponentInfo info = scanner.getComponentInfo(c);
+                fields = annotated(info.getFields(), members);
+                constructors = annotated(info.getConstructors(), members);
+                methods = annotated(info.getMethods(), members);
+            } catch (NoClassDefFoundError err) {
+                notFound = err;
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+        }
+
+        void rethrowFailure() {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+
+        private static <T extends AnnotatedElement & Member> List<T> annotated(T[] elements, AnnotatedMembers members) {
+            List<T> annotated = new ArrayList<T>(elements.length);
+            for (T element : elements) {
+                if (members == null || members.mayBeAnnotated(element)) {
+                    // reads and caches the annotations of the element
+                    element.getAnnotations();
+                    annotated.add(element);
+                }
+            }
+            return annotated;
+        }
+    }
+
     /**
      * @return the top annotated elements stack element type
      */
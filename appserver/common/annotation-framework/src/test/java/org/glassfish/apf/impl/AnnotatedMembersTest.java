@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.apf.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+
+import org.glassfish.hk2.classmodel.reflect.Parser;
+import org.glassfish.hk2.classmodel.reflect.ParsingContext;
+import org.glassfish.hk2.classmodel.reflect.util.AbstractAdapter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnnotatedMembersTest {
+
+    private static AnnotatedMembers members;
+
+    @BeforeAll
+    public static void parseClasses() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Parser parser = new Parser(new ParsingContext.Builder().executorService(executorService).build());
+            parser.parse(new ClassesAdapter(Marker.class, Example.class, Plain.class), null);
+            parser.awaitTermination();
+            members = new AnnotatedMembers(parser.getContext().getTypes());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void keepsAnnotatedMembers() throws Exception {
+        assertTrue(members.mayBeAnnotated(Example.class.getDeclaredField("annotated")));
+        assertTrue(members.mayBeAnnotated(Example.class.getDeclaredMethod("annotated")));
+        assertTrue(members.mayBeAnnotated(Example.class.getDeclaredConstructor(String.class)));
+    }
+
+    @Test
+    public void keepsMembersWithAnnotatedParameters() throws Exception {
+        assertTrue(members.mayBeAnnotated(Example.class.getDeclaredMethod("annotatedParameter", String.class)));
+    }
+
+    @Test
+    public void leavesOutMembersWithoutAnnotations() throws Exception {
+        assertFalse(members.mayBeAnnotated(Example.class.getDeclaredField("plain")));
+        assertFalse(members.mayBeAnnotated(Example.class.getDeclaredMethod("plain")));
+        assertFalse(members.mayBeAnnotated(Plain.class.getDeclaredMethod("plain")));
+        assertFalse(members.mayBeAnnotated(Plain.class.getDeclaredConstructor()));
+    }
+
+    @Test
+    public void keepsMembersOfClassesNotParsed() throws Exception {
+        assertTrue(members.mayBeAnnotated(Object.class.getDeclaredMethod("toString")));
+        assertTrue(members.mayBeAnnotated(AnnotatedMembersTest.class.getDeclaredMethod("parseClasses")));
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+    }
+
+    @Marker
+    static class Example {
+
+        @Marker
+        String annotated;
+
+        String plain;
+
+        @Marker
+        Example(String annotated) {
+            this.annotated = annotated;
+        }
+
+        @Marker
+        void annotated() {
+        }
+
+        void annotatedParameter(@Marker String parameter) {
+        }
+
+        void plain() {
+        }
+    }
+
+    static class Plain {
+
+        Plain() {
+        }
+
+        void plain() {
+        }
+    }
+
+    /**
+     * Hands the class files of the given classes to the parser.
+     */
+    private static class ClassesAdapter extends AbstractAdapter {
+
+        private final List<Class<?>> classes;
+
+        ClassesAdapter(Class<?>... classes) {
+            this.classes = List.of(classes);
+        }
+
+        @Override
+        public URI getURI() {
+            return URI.create("file:/test/classes.jar");
+        }
+
+        @Override
+        public Manifest getManifest() {
+            return new Manifest();
+        }
+
+        @Override
+        public void onSelectedEntries(Selector selector, EntryTask entryTask, Logger logger) throws IOException {
+            for (Class<?> type : classes) {
+                String name = type.getName();
+                try (InputStream in = type.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+                    byte[] classFile = in.readAllBytes();
+                    Entry entry = new Entry(name.replace('.', '/') + ".class", classFile.length, false);
+                    if (selector.isSelected(entry)) {
+                        entryTask.on(entry, new ByteArrayInputStream(classFile));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
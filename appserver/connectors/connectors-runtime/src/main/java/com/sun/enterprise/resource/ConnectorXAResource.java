@@ -25,6 +25,7 @@ import com.sun.enterprise.resource.listener.LocalTxConnectionEventListener;
 import com.sun.enterprise.resource.pool.PoolManager;
 import com.sun.enterprise.transaction.api.JavaEETransaction;
 import com.sun.enterprise.transaction.api.JavaEETransactionManager;
+import com.sun.enterprise.transaction.api.LastAgentResource;
 import com.sun.enterprise.transaction.api.TransactionConstants;
 import com.sun.logging.LogDomains;
 import org.glassfish.resourcebase.resources.api.PoolInfo;
@@ -45,7 +46,7 @@ import java.util.logging.Logger;
  * @author Tony Ng, Jagadish Ramu
  *
  */
-public class ConnectorXAResource implements XAResource {
+public class ConnectorXAResource implements XAResource, LastAgentResource {
 
     private Object userHandle;
     private ResourceSpec spec;
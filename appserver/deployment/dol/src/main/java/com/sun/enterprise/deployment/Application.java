@@ -16,6 +16,8 @@
 
 package com.sun.enterprise.deployment;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -1624,4 +1626,16 @@ public class Application extends CommonResourceBundleDescriptor
     public void setKeepStateResolved(String keepStateResolved) {
         this.keepStateResolved = Boolean.valueOf(keepStateResolved);
     }
+
+    /**
+     * Restores the transient state: the role mapper factory is injected again,
+     * and the role mapper is taken from it on first use.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        entityManagerFactories = new HashMap<String, EntityManagerFactory>();
+        if (habitat != null) {
+            habitat.inject(this);
+        }
+    }
 }
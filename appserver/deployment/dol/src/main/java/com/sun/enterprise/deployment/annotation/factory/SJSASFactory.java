@@ -29,6 +29,7 @@ import org.glassfish.hk2.utilities.BuilderHelper;
 import org.jvnet.hk2.annotations.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
@@ -37,6 +38,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
  * This factory is responsible for initializing a ready to use
@@ -61,6 +63,10 @@ public class SJSASFactory extends Factory {
     private AnnotationProcessorImpl systemProcessor=null;
     private AnnotationProcessorImpl systemProcessorMetaDataComplete=null;
 
+    // introspects the classes for the processors handed out, null to
+    // introspect them on the deploying thread
+    private ExecutorService introspectionExecutor=null;
+
     public AnnotationProcessor getAnnotationProcessor(boolean isMetaDataComplete) {
         AnnotationProcessorImpl processor =
             Factory.getDefaultAnnotationProcessor();
@@ -69,6 +75,7 @@ public class SJSASFactory extends Factory {
         } else {
             processor.setDelegate(systemProcessorMetaDataComplete);
         }
+        processor.setExecutorService(introspectionExecutor);
         return processor;
     }
 
@@ -98,6 +105,7 @@ public class SJSASFactory extends Factory {
         // initialize our system annotation processor...
         systemProcessor = new AnnotationProcessorImpl();
         systemProcessorMetaDataComplete = new AnnotationProcessorImpl();
+        introspectionExecutor = AnnotationProcessorImpl.createExecutorService();
         for (ActiveDescriptor<?> i : locator.getDescriptors(BuilderHelper.createContractFilter(
                 AnnotationHandler.class.getName()))) {
             ActiveDescriptor<AnnotationHandler> descriptor = (ActiveDescriptor<AnnotationHandler>) i;
@@ -124,6 +132,14 @@ public class SJSASFactory extends Factory {
         }
     }
 
+    @SuppressWarnings("unused")
+    @PreDestroy
+    private void preDestroy() {
+        if (introspectionExecutor != null) {
+            introspectionExecutor.shutdown();
+        }
+    }
+
     private class LazyAnnotationHandler implements AnnotationHandler {
         private final ActiveDescriptor<AnnotationHandler> descriptor;
         private AnnotationHandler handler;
@@ -25,6 +25,7 @@ import com.sun.enterprise.deployment.annotation.factory.SJSASFactory;
 import com.sun.enterprise.deployment.annotation.impl.ModuleScanner;
 import com.sun.enterprise.deployment.io.ConfigurationDeploymentDescriptorFile;
 import com.sun.enterprise.deployment.io.DeploymentDescriptorFile;
+import com.sun.enterprise.deployment.io.DescriptorCache;
 import com.sun.enterprise.deployment.util.ComponentPostVisitor;
 import com.sun.enterprise.deployment.util.DOLUtils;
 import com.sun.enterprise.deployment.util.TracerVisitor;
@@ -181,6 +182,9 @@ public abstract class Archivist<T extends BundleDescriptor> {
     @Inject
     ArchiveFactory archiveFactory;
 
+    @Inject
+    DescriptorCache descriptorCache;
+
     protected List<ExtensionsArchivist> extensionsArchivists;
 
     /**
@@ -680,7 +684,7 @@ public abstract class Archivist<T extends BundleDescriptor> {
                 if (archive.getURI() != null) {
                     standardDD.setErrorReportingString(archive.getURI().getSchemeSpecificPart());
                 }
-                T result = standardDD.read(is);
+                T result = descriptorCache == null ? standardDD.read(is) : descriptorCache.read(standardDD, is);
                 ((RootDeploymentDescriptor)result).setClassLoader(classLoader);
                 return result;
             } else {
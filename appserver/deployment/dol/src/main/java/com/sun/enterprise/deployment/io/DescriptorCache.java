@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.deployment.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.logging.Level.FINE;
+
+import com.sun.appserv.server.util.Version;
+import com.sun.enterprise.deployment.util.DOLUtils;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Observable;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.glassfish.api.admin.ServerEnvironment;
+import org.glassfish.deployment.common.Descriptor;
+import org.glassfish.hk2.api.PostConstruct;
+import org.jvnet.hk2.annotations.Optional;
+import org.jvnet.hk2.annotations.Service;
+import org.xml.sax.SAXException;
+
+/**
+ * Persistent cache of the descriptors read from standard deployment descriptor files.
+ *
+ * <p>
+ * The descriptor built from a deployment descriptor file is serialized into {@code generated/descriptor-cache} under a
+ * SHA-256 hash of the file content, the descriptor file type, the validation settings and the server version. Reading
+ * the same file again, typically at server restart, deserializes the descriptor instead of parsing the XML.
+ *
+ * <p>
+ * Only descriptors which survive serialization unchanged are cached: a descriptor which has a transient field set,
+ * unless its class restores it when deserialized, or observers registered, is always parsed. Any failure to use the cache falls back to parsing. Entries which have not
+ * been used for {@value #UNUSED_DAYS} days are deleted.
+ */
+@Service
+@Singleton
+public class DescriptorCache implements PostConstruct {
+
+    private static final Logger LOG = DOLUtils.getDefaultLogger();
+
+    /**
+     * Set to false to parse the deployment descriptors every time.
+     */
+    static final String ENABLED_PROPERTY = "org.glassfish.deployment.descriptorCache";
+
+    private static final String SUFFIX = ".ser";
+    private static final int UNUSED_DAYS = 30;
+
+    /**
+     * Transient instance fields of the classes of the serialized descriptors, see {@link #checkCacheable(Object)}. A
+     * class declaring a readObject method restores its transient fields itself, they are not checked.
+     */
+    private static final ClassValue<Field[]> TRANSIENT_FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            try {
+                type.getDeclaredMethod("readObject", ObjectInputStream.class);
+                return new Field[0];
+            } catch (NoSuchMethodException e) {
+                // check the fields
+            }
+            List<Field> fields = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isTransient(modifiers) && !Modifier.isStatic(modifiers)) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    @Inject
+    @Optional
+    private ServerEnvironment env;
+
+    /** null if the cache is disabled */
+    private File directory;
+
+    @Override
+    public void postConstruct() {
+        if (env == null || !Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return;
+        }
+
+        directory = new File(env.getApplicationStubPath(), "descriptor-cache");
+        deleteUnused();
+    }
+
+    /**
+     * Reads the descriptor from a deployment descriptor file, from the cache if the same file was read before.
+     *
+     * @param ddFile the deployment descriptor file type
+     * @param in the content of the deployment descriptor file
+     * @return the DOL descriptor, a new instance on each call
+     */
+    public <T extends Descriptor> T read(DeploymentDescriptorFile<T> ddFile, InputStream in) throws IOException, SAXException {
+        if (directory == null) {
+            return ddFile.read(in);
+        }
+
+        byte[] content = in.readAllBytes();
+        File entry = new File(directory, hash(ddFile, content) + SUFFIX);
+        if (entry.isFile()) {
+            T descriptor = load(ddFile, entry);
+            if (descriptor != null) {
+                entry.setLastModified(System.currentTimeMillis());
+                return descriptor;
+            }
+        }
+
+        T descriptor = ddFile.read(new ByteArrayInputStream(content));
+        if (descriptor != null) {
+            store(descriptor, entry);
+        }
+        return descriptor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Descriptor> T load(DeploymentDescriptorFile<T> ddFile, File entry) {
+        List<ClassLoader> loaders = Arrays.asList(ddFile.getClass().getClassLoader(), DescriptorCache.class.getClassLoader());
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(entry.toPath()));
+            ObjectInputStream objects = new ObjectInputStream(in) {
+                @Override
+                protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    for (ClassLoader loader : loaders) {
+                        try {
+                            return Class.forName(desc.getName(), false, loader);
+                        } catch (ClassNotFoundException e) {
+                            // try the next one
+                        }
+                    }
+                    return super.resolveClass(desc);
+                }
+            }) {
+            Object descriptor = objects.readObject();
+            LOG.log(FINE, "Read {0} from the descriptor cache {1}", new Object[] { ddFile.getDeploymentDescriptorPath(), entry });
+            return (T) descriptor;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LOG.log(FINE, "Cannot read the descriptor cache " + entry, e);
+            return null;
+        }
+    }
+
+    private void store(Descriptor descriptor, File entry) {
+        Path temp = null;
+        try {
+            if (!entry.getParentFile().mkdirs() && !entry.getParentFile().isDirectory()) {
+                return;
+            }
+
+            temp = Files.createTempFile(directory.toPath(), "descriptor", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp));
+                ObjectOutputStream objects = new ObjectOutputStream(out) {
+                    {
+                        enableReplaceObject(true);
+                    }
+
+                    @Override
+                    protected Object replaceObject(Object object) throws IOException {
+                        checkCacheable(object);
+                        return object;
+                    }
+                }) {
+                objects.writeObject(descriptor);
+            }
+            Files.move(temp, entry.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException | SecurityException e) {
+            LOG.log(FINE, "Cannot write the descriptor cache " + entry, e);
+            if (temp != null) {
+                temp.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * @throws NotSerializableException if the object would not be the same once deserialized
+     */
+    private static void checkCacheable(Object object) throws IOException {
+        if (object instanceof Observable && ((Observable) object).countObservers() > 0) {
+            throw new NotSerializableException(object.getClass().getName() + " has observers");
+        }
+
+        // The JDK classes serialize their transient state themselves
+        for (Class<?> type = object.getClass(); type != null && type.getClassLoader() != null; type = type.getSuperclass()) {
+            for (Field field : TRANSIENT_FIELDS.get(type)) {
+                Object value;
+                try {
+                    value = field.get(object);
+                } catch (IllegalAccessException e) {
+                    throw new NotSerializableException(field.toString());
+                }
+                // null, or zero and false for the primitive types
+                Object defaultValue = Array.get(Array.newInstance(field.getType(), 1), 0);
+                if (value != null && !value.equals(defaultValue)) {
+                    throw new NotSerializableException(field + " is set");
+                }
+            }
+        }
+    }
+
+    private static String hash(DeploymentDescriptorFile<?> ddFile, byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String settings = ddFile.getClass().getName() + '\n' + ddFile.getDeploymentDescriptorPath() + '\n'
+                + ddFile.getArchiveType() + '\n' + ddFile.getXMLValidation() + '\n' + ddFile.getXMLValidationLevel() + '\n'
+                + Version.getFullVersion() + '\n';
+            digest.update(settings.getBytes(UTF_8));
+            digest.update(content);
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteUnused() {
+        File[] entries = directory.listFiles();
+        if (entries == null) {
+            return;
+        }
+
+        long oldest = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(UNUSED_DAYS);
+        for (File entry : entries) {
+            if (entry.lastModified() < oldest || entry.getName().endsWith(".tmp")) {
+                if (!entry.delete()) {
+                    LOG.log(FINE, "Cannot delete {0}", entry);
+                }
+            }
+        }
+    }
+}
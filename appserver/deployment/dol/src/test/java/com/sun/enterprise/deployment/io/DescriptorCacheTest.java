@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.deployment.io;
+
+import com.sun.enterprise.deployment.Application;
+import com.sun.enterprise.deployment.util.DOLUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.glassfish.api.admin.ServerEnvironment;
+import org.glassfish.api.deployment.archive.ArchiveType;
+import org.glassfish.deployment.common.Descriptor;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
+import org.glassfish.internal.api.Globals;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DescriptorCacheTest {
+
+    private static final String APPLICATION_XML = "<application xmlns=\"https://jakarta.ee/xml/ns/jakartaee\" version=\"10\">"
+        + "<display-name>%s</display-name>"
+        + "<module><web><web-uri>web.war</web-uri><context-root>/web</context-root></web></module>"
+        + "<module><ejb>ejb.jar</ejb></module>"
+        + "<library-directory>libs</library-directory>"
+        + "</application>";
+
+    @TempDir
+    static File stubs;
+
+    private static ServiceLocator locator;
+    private static DescriptorCache cache;
+
+    @BeforeAll
+    public static void createCache() {
+        locator = ServiceLocatorUtilities.createAndPopulateServiceLocator(DescriptorCacheTest.class.getName());
+        ServiceLocatorUtilities.addOneConstant(locator, environment(stubs), null, ServerEnvironment.class);
+        ServiceLocatorUtilities.addOneConstant(locator, new ArchiveType("war", ".war") {}, "war", ArchiveType.class);
+        ServiceLocatorUtilities.addOneConstant(locator, new ArchiveType("ejb", ".jar") {}, "ejb", ArchiveType.class);
+        Globals.setDefaultHabitat(locator);
+        cache = locator.getService(DescriptorCache.class);
+    }
+
+    @AfterAll
+    public static void shutdown() {
+        locator.shutdown();
+    }
+
+    @Test
+    public void readsApplicationFromCache() throws Exception {
+        ApplicationDeploymentDescriptorFile ddFile = newDDFile();
+        String xml = String.format(APPLICATION_XML, "cached");
+        Set<File> before = entries();
+        Application parsed = (Application) cache.read(ddFile, stream(xml));
+        File entry = added(before);
+        assertTrue(entry.setLastModified(1000L));
+
+        Application cached = (Application) cache.read(ddFile, stream(xml));
+
+        assertTrue(entry.lastModified() > 1000L, "the descriptor was not read from the cache");
+        assertNotSame(parsed, cached);
+        assertEquals(toXml(ddFile, (Application) ddFile.read(stream(xml))), toXml(ddFile, cached));
+        assertEquals(DOLUtils.warType(), cached.getModuleDescriptorByUri("web.war").getModuleType());
+        assertEquals("libs", cached.getLibraryDirectory());
+        // restored transient state
+        assertTrue(cached.getEntityManagerFactories().isEmpty());
+    }
+
+    @Test
+    public void parsesChangedDescriptor() throws Exception {
+        ApplicationDeploymentDescriptorFile ddFile = newDDFile();
+        cache.read(ddFile, stream(String.format(APPLICATION_XML, "before")));
+        Set<File> before = entries();
+
+        Application changed = (Application) cache.read(ddFile, stream(String.format(APPLICATION_XML, "after")));
+
+        assertEquals("after", changed.getDisplayName());
+        added(before);
+    }
+
+    @Test
+    public void parsesWhenCacheEntryIsUnreadable() throws Exception {
+        ApplicationDeploymentDescriptorFile ddFile = newDDFile();
+        String xml = String.format(APPLICATION_XML, "stale");
+        Set<File> before = entries();
+        cache.read(ddFile, stream(xml));
+        File entry = added(before);
+        Files.write(entry.toPath(), "not a descriptor".getBytes(UTF_8));
+
+        Application parsed = (Application) cache.read(ddFile, stream(xml));
+
+        assertEquals(toXml(ddFile, (Application) ddFile.read(stream(xml))), toXml(ddFile, parsed));
+        // written again
+        byte[] content = Files.readAllBytes(entry.toPath());
+        assertEquals((byte) 0xAC, content[0]);
+        assertEquals((byte) 0xED, content[1]);
+    }
+
+    private static ApplicationDeploymentDescriptorFile newDDFile() {
+        ApplicationDeploymentDescriptorFile ddFile = new ApplicationDeploymentDescriptorFile();
+        ddFile.setXMLValidation(false);
+        return ddFile;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toXml(DeploymentDescriptorFile<?> ddFile, Descriptor descriptor) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((DeploymentDescriptorFile<Descriptor>) ddFile).write(descriptor, out);
+        return out.toString(UTF_8);
+    }
+
+    private static ByteArrayInputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(UTF_8));
+    }
+
+    private static Set<File> entries() {
+        File[] files = new File(stubs, "descriptor-cache").listFiles();
+        return files == null ? new HashSet<>() : new HashSet<>(Arrays.asList(files));
+    }
+
+    private static File added(Set<File> before) {
+        Set<File> added = entries();
+        added.removeAll(before);
+        assertEquals(1, added.size(), "new cache entries");
+        return added.iterator().next();
+    }
+
+    private static ServerEnvironment environment(File stubs) {
+        return (ServerEnvironment) Proxy.newProxyInstance(ServerEnvironment.class.getClassLoader(),
+            new Class<?>[] {ServerEnvironment.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getApplicationStubPath":
+                        return stubs;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "ServerEnvironment[" + stubs + "]";
+                    default:
+                        return null;
+                }
+            });
+    }
+}
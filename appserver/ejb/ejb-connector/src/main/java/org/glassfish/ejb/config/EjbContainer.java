@@ -55,6 +55,8 @@ public interface EjbContainer extends ConfigBeanProxy, PropertyBag, ConfigExtens
     int DEFAULT_THREAD_QUEUE_CAPACITY = Integer.MAX_VALUE;
     boolean DEFAULT_ALLOW_CORE_THREAD_TIMEOUT = false;
     boolean DEFAULT_PRESTART_ALL_CORE_THREADS = false;
+    boolean DEFAULT_USE_VIRTUAL_THREADS = false;
+    int DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY = 1024;
 
     /**
      * Gets the value of the steadyPoolSize property.
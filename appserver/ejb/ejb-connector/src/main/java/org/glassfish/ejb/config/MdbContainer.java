@@ -116,7 +116,14 @@ public interface MdbContainer extends ConfigBeanProxy, PropertyBag, ConfigExtens
             dataType = NonNegativeInteger.class,
             description =
                 "Deprecated. Specifies the maximum number of RuntimeException occurrences allowed from a message-driven bean's " +
-                "method when container-managed transactions are used") })
+                "method when container-managed transactions are used"),
+        @PropertyDesc(
+            name = "adaptive-concurrency",
+            defaultValue = "false",
+            dataType = Boolean.class,
+            description =
+                "Adjusts the number of messages delivered concurrently to a message-driven bean between steady-pool-size " +
+                "and max-pool-size, based on the observed delivery latency and error rate") })
     @Element
     List<Property> getProperty();
 }
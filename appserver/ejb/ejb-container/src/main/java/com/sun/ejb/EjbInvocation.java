@@ -63,19 +63,100 @@ public class EjbInvocation extends ComponentInvocation
 
     private TransactionOperationsManager transactionOperationsManager;
 
+    // True once this invocation was handed back to its EjbInvocationFactory in
+    // the recycle debug mode. Such invocations are never reused, so any later
+    // access through the InvocationContext API is a use-after-recycle bug.
+    private boolean recycled;
+
     EjbInvocation(String compEnvId, Container container) {
+        initialize(compEnvId, container);
+    }
+
+    /**
+     * (Re)initializes the identity of this invocation. Called on construction and when a recycled invocation is handed out
+     * by the {@link EjbInvocationFactory} again.
+     */
+    final void initialize(String compEnvId, Container container) {
         super.componentId = compEnvId;
         super.container = container;
         super.setComponentInvocationType(ComponentInvocation.ComponentInvocationType.EJB_INVOCATION);
 
-        EjbBundleDescriptor ejbBundleDesc = container.getEjbDescriptor().getEjbBundleDescriptor();
-        moduleName = ejbBundleDesc.getModuleName();
-        appName = ejbBundleDesc.getApplication().getAppName();
+        if (container != null) {
+            EjbBundleDescriptor ejbBundleDesc = container.getEjbDescriptor().getEjbBundleDescriptor();
+            moduleName = ejbBundleDesc.getModuleName();
+            appName = ejbBundleDesc.getApplication().getAppName();
+        }
 
         // By default we enable TransactionOperationsManager checks. But EjbInvocation.clone()
         // clears transactionOperationsManager so that, be default, cloned invocations
         // doesn't enforce Transaction Operations checks.
         transactionOperationsManager = this;
+        recycled = false;
+    }
+
+    /**
+     * Resets all state of the finished call so that this object looks like a newly created invocation.
+     *
+     * @param poison true to mark this invocation as unusable, see {@link #checkNotRecycled()}
+     */
+    final void recycle(boolean poison) {
+        clearInvocationState();
+        super.componentId = null;
+        super.container = null;
+        appName = null;
+        moduleName = null;
+
+        context = null;
+        transactionOperationsManager = null;
+        ejbObject = null;
+        isLocal = false;
+        isRemote = false;
+        invocationInfo = null;
+        isBusinessInterface = false;
+        isWebService = false;
+        isTimerCallback = false;
+        isMessageDriven = false;
+        isHome = false;
+        clientInterface = null;
+        method = null;
+        ejb = null;
+        exception = null;
+        exceptionFromBeanMethod = null;
+        clientTx = null;
+        transactionAttribute = Container.TX_NOT_INITIALIZED;
+        containerStartsTx = false;
+        originalContextClassLoader = null;
+        methodParams = null;
+        timer = null;
+        preInvokeTxStatus = null;
+        foundInTxCache = false;
+        useFastPath = false;
+        cmcLock = null;
+        doTxProcessingInPostInvoke = false;
+        invId = 0L;
+        yetToSubmitStatus = true;
+        asyncFuture = null;
+        wasCancelCalled = false;
+        webServiceMethod = null;
+        holdingSFSBSerializedLock = false;
+        interceptorIndex = 0;
+        beanMethod = null;
+        webServiceContext = null;
+        message = null;
+        soapMessage = null;
+        contextData = null;
+
+        recycled = poison;
+    }
+
+    /**
+     * @throws IllegalStateException if this invocation was recycled in the debug mode of the {@link EjbInvocationFactory}
+     */
+    private void checkNotRecycled() {
+        if (recycled) {
+            throw new IllegalStateException("EjbInvocation " + System.identityHashCode(this)
+                + " was used after the call it belonged to had completed");
+        }
     }
 
     /**
@@ -430,6 +511,7 @@ public class EjbInvocation extends ComponentInvocation
      */
     @Override
     public Object getTarget() {
+        checkNotRecycled();
         return this.ejb;
     }
 
@@ -447,6 +529,7 @@ public class EjbInvocation extends ComponentInvocation
      */
     @Override
     public Method getMethod() {
+        checkNotRecycled();
         return getBeanMethod();
     }
 
@@ -465,6 +548,7 @@ public class EjbInvocation extends ComponentInvocation
      */
     @Override
     public Object[] getParameters() {
+        checkNotRecycled();
         return this.methodParams;
     }
 
@@ -474,6 +558,7 @@ public class EjbInvocation extends ComponentInvocation
      */
     @Override
     public void setParameters(Object[] params) {
+        checkNotRecycled();
         InterceptorUtil.checkSetParameters(params, getMethod());
         this.methodParams = params;
     }
@@ -495,6 +580,7 @@ public class EjbInvocation extends ComponentInvocation
      */
     @Override
     public Map<String, Object> getContextData() {
+        checkNotRecycled();
         if (this.contextData == null) {
             if (webServiceContext != null)
                 this.contextData = webServiceContext.getMessageContext();
@@ -546,6 +632,7 @@ public class EjbInvocation extends ComponentInvocation
      */
     @Override
     public Object proceed() throws Exception {
+        checkNotRecycled();
         try {
             //TODO: Internal error if getInterceptorChain() is null
             interceptorIndex++;
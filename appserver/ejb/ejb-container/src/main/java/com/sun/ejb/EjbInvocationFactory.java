@@ -16,31 +16,100 @@
 
 package com.sun.ejb;
 
+import java.util.ArrayDeque;
+
 /**
+ * Creates the {@link EjbInvocation}s of one container.
+ * <p>
+ * If the system property {@value #RECYCLE_PROP} is <code>true</code>, finished invocations handed to
+ * {@link #release(EjbInvocation)} are reset and kept in a small per-thread pool from which the next
+ * {@link #create()} on that thread is served, so the common local and remote call paths do not allocate
+ * a new invocation per call. With {@value #RECYCLE_DEBUG_PROP} also set, released invocations are
+ * reset and poisoned instead of being reused, and any further use of them through the
+ * <code>InvocationContext</code> API fails with an {@link IllegalStateException}.
+ *
  * @author Mahesh Kannan
  *         Date: Jan 30, 2008
  */
 public class EjbInvocationFactory {
 
+    public static final String RECYCLE_PROP = "com.sun.ejb.EjbInvocation.recycle";
+
+    public static final String RECYCLE_DEBUG_PROP = "com.sun.ejb.EjbInvocation.recycleDebug";
+
+    private static final boolean RECYCLE = Boolean.getBoolean(RECYCLE_PROP);
+
+    private static final boolean RECYCLE_DEBUG = Boolean.getBoolean(RECYCLE_DEBUG_PROP);
+
+    // Enough for a few nested local calls on the same thread.
+    static final int MAX_POOLED_PER_THREAD = 4;
+
+    // Recycled invocations don't reference any container, so they can be
+    // shared by all containers used on the thread.
+    private static final ThreadLocal<ArrayDeque<EjbInvocation>> pool = ThreadLocal.withInitial(ArrayDeque::new);
+
     private String compEnvId;
 
     private Container container;
 
+    private final boolean recycle;
+
+    private final boolean recycleDebug;
+
     public EjbInvocationFactory(String compEnvId, Container container) {
+        this(compEnvId, container, RECYCLE, RECYCLE_DEBUG);
+    }
+
+    EjbInvocationFactory(String compEnvId, Container container, boolean recycle, boolean recycleDebug) {
         this.compEnvId = compEnvId;
         this.container = container;
+        this.recycle = recycle;
+        this.recycleDebug = recycleDebug;
     }
 
     public EjbInvocation create() {
+        if (recycle && !recycleDebug) {
+            EjbInvocation ejbInv = pool.get().pollFirst();
+            if (ejbInv != null) {
+                ejbInv.initialize(compEnvId, container);
+                return ejbInv;
+            }
+        }
         return new EjbInvocation(compEnvId, container);
     }
 
     public <C extends ComponentContext> EjbInvocation create(Object ejb, C ctx) {
-        EjbInvocation ejbInv = new EjbInvocation(compEnvId, container);
+        EjbInvocation ejbInv = create();
         ejbInv.ejb = ejb;
         ejbInv.instance = ejb;
         ejbInv.context = ctx;
 
         return ejbInv;
     }
+
+    /**
+     * Hands back an invocation whose call has completed, including postInvoke. The caller must not
+     * touch the invocation afterwards. Does nothing unless recycling is enabled.
+     */
+    public void release(EjbInvocation ejbInv) {
+        if (!recycle) {
+            return;
+        }
+
+        // The Future returned to the client still refers to an asynchronous invocation.
+        if (ejbInv.getEjbFutureTask() != null) {
+            return;
+        }
+
+        if (recycleDebug) {
+            ejbInv.recycle(true);
+            return;
+        }
+
+        ArrayDeque<EjbInvocation> invocations = pool.get();
+        if (invocations.size() < MAX_POOLED_PER_THREAD) {
+            ejbInv.recycle(false);
+            invocations.addFirst(ejbInv);
+        }
+    }
 }
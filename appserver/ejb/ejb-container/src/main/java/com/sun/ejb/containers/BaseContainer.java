@@ -1973,7 +1973,20 @@ public abstract class BaseContainer implements Container, EjbContainerFacade, Ja
      * webservice invocation info and one for everything else. That might change in the future.
      */
     private InvocationInfo getInvocationInfo(EjbInvocation inv) {
-        return inv.isWebService ? webServiceInvocationInfoMap.get(inv.method) : invocationInfoMap.get(inv.method);
+        if (inv.isWebService) {
+            return webServiceInvocationInfoMap.get(inv.method);
+        }
+        return getInvocationInfo(proxyInvocationInfoMap, invocationInfoMap, inv.method);
+    }
+
+    /**
+     * Looks the method up in the snapshot made for the proxies first. The snapshot misses the infos added after the
+     * container initialized, like the ones of the message listener methods of an MDB, so those are looked up in the
+     * map of all infos.
+     */
+    static InvocationInfo getInvocationInfo(MethodMap snapshot, Map<Method, InvocationInfo> invocationInfos, Method method) {
+        InvocationInfo info = snapshot == null ? null : snapshot.get(method);
+        return info == null ? invocationInfos.get(method) : info;
     }
 
     private Throwable mapRemoteException(EjbInvocation inv) {
@@ -2476,6 +2489,11 @@ public abstract class BaseContainer implements Container, EjbContainerFacade, Ja
             return inv.transactionAttribute;
         }
 
+        if (inv.invocationInfo != null && inv.invocationInfo.method == inv.method) {
+            inv.transactionAttribute = inv.invocationInfo.txAttr;
+            return inv.transactionAttribute;
+        }
+
         int txAttr = getTxAttr(inv.method, inv.getMethodInterface());
         inv.transactionAttribute = txAttr;
         return inv.transactionAttribute;
@@ -3212,6 +3230,14 @@ public abstract class BaseContainer implements Container, EjbContainerFacade, Ja
         return invFactory.create(ejb, context);
     }
 
+    /**
+     * Returns an invocation whose call has completed, including postInvoke, to the
+     * invocation factory. The caller must not use the invocation afterwards.
+     */
+    protected void releaseEjbInvocation(EjbInvocation inv) {
+        invFactory.release(inv);
+    }
+
     // default impl
     protected EJBLocalHomeInvocationHandler getEJBLocalHomeInvocationHandler(Class homeIntfClass) throws Exception {
         return new EJBLocalHomeInvocationHandler(ejbDescriptor, homeIntfClass);
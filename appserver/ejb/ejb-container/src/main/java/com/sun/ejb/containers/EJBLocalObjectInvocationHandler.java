@@ -174,8 +174,10 @@ public final class EJBLocalObjectInvocationHandler extends EJBLocalObjectImpl im
                 container.postInvoke(inv);
             }
 
-            if (inv.exception != null) {
-                InvocationHandlerUtil.throwLocalException(inv.exception, method.getExceptionTypes());
+            Throwable exception = inv.exception;
+            container.releaseEjbInvocation(inv);
+            if (exception != null) {
+                InvocationHandlerUtil.throwLocalException(exception, method.getExceptionTypes());
             }
             return returnValue;
         } finally {
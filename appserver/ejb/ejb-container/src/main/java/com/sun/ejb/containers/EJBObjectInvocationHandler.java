@@ -184,9 +184,11 @@ public final class EJBObjectInvocationHandler
                 }
             }
 
-            if (inv.exception != null) {
+            Throwable exception = inv.exception;
+            container.releaseEjbInvocation(inv);
+            if (exception != null) {
                 InvocationHandlerUtil.throwRemoteException
-                    (inv.exception, method.getExceptionTypes());
+                    (exception, method.getExceptionTypes());
             }
 
             return returnValue;
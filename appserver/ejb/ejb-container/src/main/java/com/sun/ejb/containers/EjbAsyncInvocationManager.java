@@ -119,7 +119,7 @@ public class EjbAsyncInvocationManager {
         futureTask.getEjbAsyncTask().initialize(asyncInv);
 
         EjbContainerUtil ejbContainerUtil = EjbContainerUtilImpl.getInstance();
-        return ejbContainerUtil.getThreadPoolExecutor(null).submit(futureTask.getEjbAsyncTask());
+        return ejbContainerUtil.getAsyncExecutor().submit(futureTask.getEjbAsyncTask());
     }
 
     public void cleanupContainerTasks(Container container) {
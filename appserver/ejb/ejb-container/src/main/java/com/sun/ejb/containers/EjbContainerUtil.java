@@ -31,6 +31,7 @@ import jakarta.transaction.Transaction;
 
 import java.util.Timer;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.glassfish.api.invocation.ComponentInvocation;
@@ -58,6 +59,10 @@ public interface EjbContainerUtil {
 
     String DEFAULT_THREAD_POOL_NAME = "__ejb-thread-pool";
 
+    String ASYNC_THREAD_NAME_PREFIX = "__ejb-async-";
+
+    String EJB_CONTAINER_MONITORING_NODE = "ejb-container";
+
     // Used by the TimerService upgrade
     long MINIMUM_TIMER_DELIVERY_INTERVAL = 1000;
 
@@ -134,6 +139,11 @@ public interface EjbContainerUtil {
 
     ThreadPoolExecutor getThreadPoolExecutor(String poolName);
 
+    /**
+     * @return executor running asynchronous business method invocations
+     */
+    ExecutorService getAsyncExecutor();
+
     JavaEEIOUtils getJavaEEIOUtils();
 
     Deployment getDeployment();
@@ -19,6 +19,7 @@ package com.sun.ejb.containers;
 
 import com.sun.ejb.base.io.EJBObjectInputStreamHandler;
 import com.sun.ejb.base.io.EJBObjectOutputStreamHandler;
+import com.sun.ejb.monitoring.stats.EjbAsyncExecutorStatsProvider;
 import com.sun.enterprise.admin.monitor.callflow.Agent;
 import com.sun.enterprise.config.serverbeans.Config;
 import com.sun.enterprise.config.serverbeans.Domain;
@@ -48,8 +49,10 @@ import java.util.Timer;
 import java.util.Vector;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -64,6 +67,8 @@ import org.glassfish.ejb.config.EjbContainer;
 import org.glassfish.ejb.config.EjbTimerService;
 import org.glassfish.ejb.spi.CMPDeployer;
 import org.glassfish.enterprise.iiop.api.GlassFishORBHelper;
+import org.glassfish.external.probe.provider.PluginPoint;
+import org.glassfish.external.probe.provider.StatsProviderManager;
 import org.glassfish.flashlight.provider.ProbeProviderFactory;
 import org.glassfish.hk2.api.PostConstruct;
 import org.glassfish.hk2.api.PreDestroy;
@@ -86,6 +91,10 @@ public class EjbContainerUtilImpl implements PostConstruct, PreDestroy, EjbConta
 
     private ThreadPoolExecutor defaultThreadPoolExecutor;
 
+    private ExecutorService asyncExecutor;
+
+    private EjbAsyncExecutorStatsProvider asyncExecutorStatsProvider;
+
     @Inject
     private ServiceLocator services;
 
@@ -168,6 +177,7 @@ public class EjbContainerUtilImpl implements PostConstruct, PreDestroy, EjbConta
         }
 
         defaultThreadPoolExecutor = createThreadPoolExecutor(DEFAULT_THREAD_POOL_NAME);
+        asyncExecutor = createAsyncExecutor(ASYNC_THREAD_NAME_PREFIX);
 
         //avoid starting JDK timer in application class loader.  The life of _timer
         //field is longer than deployed apps, and any reference to app class loader
@@ -190,6 +200,14 @@ public class EjbContainerUtilImpl implements PostConstruct, PreDestroy, EjbConta
 
     @Override
     public void preDestroy() {
+        if (asyncExecutorStatsProvider != null) {
+            StatsProviderManager.unregister(asyncExecutorStatsProvider);
+            asyncExecutorStatsProvider = null;
+        }
+        if (asyncExecutor != null && asyncExecutor != defaultThreadPoolExecutor) {
+            asyncExecutor.shutdown();
+        }
+        asyncExecutor = null;
         if (defaultThreadPoolExecutor != null) {
             defaultThreadPoolExecutor.shutdown();
             defaultThreadPoolExecutor = null;
@@ -513,6 +531,68 @@ public class EjbContainerUtilImpl implements PostConstruct, PreDestroy, EjbConta
         return result;
     }
 
+    /**
+     * Creates the executor for asynchronous business methods. Unless
+     * {@link RuntimeTagNames#USE_VIRTUAL_THREADS} is set and the JVM supports
+     * virtual threads, this is the default thread pool.
+     */
+    private ExecutorService createAsyncExecutor(String threadNamePrefix) {
+        String val = ejbContainer.getPropertyValue(RuntimeTagNames.USE_VIRTUAL_THREADS);
+        boolean useVirtualThreads = val != null ? Boolean.parseBoolean(val.trim())
+                : EjbContainer.DEFAULT_USE_VIRTUAL_THREADS;
+        if (!useVirtualThreads) {
+            return defaultThreadPoolExecutor;
+        }
+
+        ThreadFactory threadFactory = EjbVirtualThreadExecutor.createVirtualThreadFactory(threadNamePrefix);
+        if (threadFactory == null) {
+            _logger.warning(RuntimeTagNames.USE_VIRTUAL_THREADS
+                    + " is set but virtual threads are not supported by this JVM,"
+                    + " using " + DEFAULT_THREAD_POOL_NAME + " for asynchronous invocations");
+            return defaultThreadPoolExecutor;
+        }
+
+        val = ejbContainer.getPropertyValue(RuntimeTagNames.VIRTUAL_THREAD_MAX_CONCURRENCY);
+        EjbVirtualThreadExecutor result = new EjbVirtualThreadExecutor(threadFactory,
+                initVirtualThreadMaxConcurrency(val));
+
+        asyncExecutorStatsProvider = new EjbAsyncExecutorStatsProvider(result);
+        try {
+            StatsProviderManager.register(EJB_CONTAINER_MONITORING_NODE, PluginPoint.SERVER,
+                    "ejb-container/async-executor", asyncExecutorStatsProvider);
+        } catch (Exception e) {
+            _logger.log(Level.WARNING, "Could not register monitoring for " + result, e);
+            asyncExecutorStatsProvider = null;
+        }
+
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("Created " + result.toString());
+        }
+        return result;
+    }
+
+    static int initVirtualThreadMaxConcurrency(String propertyValue) {
+        int maxConcurrency = EjbContainer.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY;
+        if (propertyValue == null) {
+            return maxConcurrency;
+        }
+        try {
+            int configMaxConcurrency = Integer.parseInt(propertyValue.trim());
+            if (configMaxConcurrency > 0) {
+                maxConcurrency = configMaxConcurrency;
+            } else {
+                _logger.warning(RuntimeTagNames.VIRTUAL_THREAD_MAX_CONCURRENCY
+                        + " <= 0 using default value "
+                        + EjbContainer.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY);
+            }
+        } catch (NumberFormatException e) {
+            _logger.warning(RuntimeTagNames.VIRTUAL_THREAD_MAX_CONCURRENCY
+                    + " is not a number, using default value "
+                    + EjbContainer.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY);
+        }
+        return maxConcurrency;
+    }
+
     static int initCorePoolSize(String propertyValue) {
         int corePoolSize = EjbContainer.DEFAULT_THREAD_CORE_POOL_SIZE;
         if (propertyValue == null) {
@@ -595,6 +675,11 @@ public class EjbContainerUtilImpl implements PostConstruct, PreDestroy, EjbConta
 //        TODO retrieve the named ThreadPoolExecutor
     }
 
+    @Override
+    public ExecutorService getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
     @Override
     public JavaEEIOUtils getJavaEEIOUtils() {
         return javaEEIOUtils;
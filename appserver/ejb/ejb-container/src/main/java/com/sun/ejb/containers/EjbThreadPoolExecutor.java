@@ -62,6 +62,14 @@ public class EjbThreadPoolExecutor extends ThreadPoolExecutor {
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
+        clearThreadTx();
+    }
+
+    /**
+     * Makes sure a transaction leaked by the finished task does not stay
+     * associated with the reused (or next) executor thread.
+     */
+    static void clearThreadTx() {
         try {
             JavaEETransactionManager tm = EjbContainerUtilImpl.getInstance().getTransactionManager();
             if (tm.getTransaction() != null) {
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb.containers;
+
+import com.sun.enterprise.deployment.xml.RuntimeTagNames;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Executor for asynchronous EJB invocations that starts a new (virtual) thread
+ * for every task instead of queueing it for a bounded pool of platform threads.
+ * The number of tasks running concurrently is limited by a fair semaphore; a
+ * task that cannot get a permit parks its own thread until one is released,
+ * so waiting tasks cost no platform thread.
+ * <p>
+ * Threads are created without inheriting inheritable thread locals. The
+ * {@link org.glassfish.api.invocation.ComponentInvocation} is pushed by the
+ * container's preInvoke and the caller's security context is set by
+ * {@link EjbAsyncTask}, exactly as on a pooled thread.
+ */
+public class EjbVirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final Logger _logger = EjbContainerUtilImpl.getLogger();
+
+    private final ThreadFactory threadFactory;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+
+    private final Object terminationLock = new Object();
+    private volatile boolean shutdown;
+
+    public EjbVirtualThreadExecutor(ThreadFactory threadFactory, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be > 0: " + maxConcurrency);
+        }
+        this.threadFactory = threadFactory;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Returns a factory creating virtual threads named after the given prefix,
+     * or <code>null</code> if the running JVM does not support virtual threads.
+     * Looked up reflectively because the server is still compiled for Java 11.
+     */
+    public static ThreadFactory createVirtualThreadFactory(String threadNamePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            Method inherit = builderClass.getMethod("inheritInheritableThreadLocals", boolean.class);
+            Method factory = builderClass.getMethod("factory");
+
+            builder = name.invoke(builder, threadNamePrefix, 1L);
+            builder = inherit.invoke(builder, false);
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "Virtual threads are not available in this JVM", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Ensure that we give out our EjbFutureTask as opposed to JDK's FutureTask
+     */
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        if (callable instanceof EjbAsyncTask) {
+            return ((EjbAsyncTask) callable).getFutureTask();
+        }
+        return super.newTaskFor(callable);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down: " + this);
+        }
+
+        Thread thread = threadFactory.newThread(() -> runTask(command));
+        if (thread == null) {
+            throw new RejectedExecutionException("Could not create thread for " + command);
+        }
+
+        queued.incrementAndGet();
+        try {
+            thread.start();
+        } catch (Throwable t) {
+            queued.decrementAndGet();
+            signalIfTerminated();
+            throw new RejectedExecutionException(t);
+        }
+    }
+
+    private void runTask(Runnable command) {
+        boolean acquired = false;
+        try {
+            permits.acquire();
+            acquired = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        if (!acquired) {
+            signalIfTerminated();
+            return;
+        }
+
+        inFlight.incrementAndGet();
+        try {
+            command.run();
+        } finally {
+            EjbThreadPoolExecutor.clearThreadTx();
+            inFlight.decrementAndGet();
+            completed.incrementAndGet();
+            permits.release();
+            signalIfTerminated();
+        }
+    }
+
+    private void signalIfTerminated() {
+        if (shutdown && isTerminated()) {
+            synchronized (terminationLock) {
+                terminationLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return number of tasks currently executing a bean method
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return number of submitted tasks waiting for a concurrency permit
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return number of tasks that finished executing
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        signalIfTerminated();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        // Tasks are owned by their threads, there is no queue to drain.
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && inFlight.get() == 0 && queued.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminationLock) {
+            while (!isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(terminationLock, remaining);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("EjbVirtualThreadExecutor with ");
+        sb.append(RuntimeTagNames.VIRTUAL_THREAD_MAX_CONCURRENCY).append(" ").append(maxConcurrency).append(" ");
+        sb.append("in-flight ").append(inFlight.get()).append(" ");
+        sb.append("queued ").append(queued.get()).append(" ");
+        return sb.toString();
+    }
+}
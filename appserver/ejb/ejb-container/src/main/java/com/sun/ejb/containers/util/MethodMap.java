@@ -21,9 +21,7 @@ import com.sun.ejb.InvocationInfo;
 
 import java.lang.reflect.Method;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * This is an optimized map for resolving {@link Method} objects.
@@ -37,6 +35,12 @@ import java.util.Set;
  * A MethodMap must be created with an existing Map and is immutable after
  * construction(except for clear()).
  * <p>
+ * Lookups never call {@link Method#hashCode()}. Every entry is stored in an
+ * open addressed table indexed by the method name's cached hash code and its
+ * parameter count. Dynamic proxies pass the same Method instance on every
+ * call, so a lookup is usually resolved by a reference comparison on the
+ * first probe.
+ * <p>
  * It does not support the optional Map operations
  * put, putAll, and remove. NOTE that these operations could
  * be implemented but are not necessary at this point since the main use
@@ -55,12 +59,14 @@ public final class MethodMap extends HashMap<Method, InvocationInfo> {
 
     private final int numBuckets_;
 
-    // Sparse array of method info.  Each element represents one method
-    // or is null.  Array is hashed by a combination of the
+    // Open addressed array of method info.  Each element represents one
+    // method or is null.  Array is hashed by a combination of the
     // method name's hashcode and its parameter length.  See
-    // getBucket() below for more details.
+    // getBucket() below for more details.  Clashing methods are stored
+    // in the next free bucket, so the array always holds every entry
+    // and at least one null element terminating each probe sequence.
     //
-    // Note that reference equality is not very useful on Method since
+    // Note that reference equality alone is not sufficient on Method since
     // it defines the equals() method and each call to Class.getMethods()
     // returns new Method instances.
     private MethodInfo[] methodInfo_;
@@ -68,7 +74,7 @@ public final class MethodMap extends HashMap<Method, InvocationInfo> {
     public MethodMap(Map<Method, InvocationInfo> methodMap) {
         super(methodMap);
 
-        numBuckets_ = methodMap.size() * DEFAULT_BUCKET_MULTIPLIER;
+        numBuckets_ = methodMap.size() * DEFAULT_BUCKET_MULTIPLIER + 1;
 
         buildLookupTable(methodMap);
     }
@@ -81,7 +87,8 @@ public final class MethodMap extends HashMap<Method, InvocationInfo> {
             throw new IllegalArgumentException("Invalid value of numBuckets = " + numBuckets);
         }
 
-        numBuckets_ = numBuckets;
+        // Open addressing needs at least one free bucket.
+        numBuckets_ = Math.max(numBuckets, methodMap.size() + 1);
         buildLookupTable(methodMap);
     }
 
@@ -108,8 +115,7 @@ public final class MethodMap extends HashMap<Method, InvocationInfo> {
     public InvocationInfo get(Object key) {
         if (key instanceof Method) {
             Method m = (Method) key;
-            Class<?>[] paramTypes = m.getParameterTypes();
-            return get(m, paramTypes.length);
+            return get(m, m.getParameterCount());
         }
         return null;
     }
@@ -121,15 +127,23 @@ public final class MethodMap extends HashMap<Method, InvocationInfo> {
             throw new IllegalStateException("invalid numParams = " + numParams);
         }
 
-        InvocationInfo value = null;
-        MethodInfo methodInfo = methodInfo_[getBucket(m, numParams)];
-        if (methodInfo != null) {
+        Class<?> declaringClass = null;
+        for (int bucket = getBucket(m, numParams);; bucket = nextBucket(bucket)) {
+            MethodInfo methodInfo = methodInfo_[bucket];
+            if (methodInfo == null) {
+                return null;
+            }
+            if (methodInfo.method == m) {
+                return methodInfo.value;
+            }
+            if (declaringClass == null) {
+                declaringClass = m.getDeclaringClass();
+            }
             // Declaring classes must be the same for methods to be equal.
-            if (methodInfo.declaringClass == m.getDeclaringClass()) {
-                value = methodInfo.value;
+            if (methodInfo.declaringClass == declaringClass && methodInfo.method.equals(m)) {
+                return methodInfo.value;
             }
         }
-        return value == null ? super.get(m) : value;
     }
 
     @Override
@@ -142,7 +156,6 @@ public final class MethodMap extends HashMap<Method, InvocationInfo> {
 
     private void buildLookupTable(Map<Method, InvocationInfo> methodMap) {
         methodInfo_ = new MethodInfo[numBuckets_];
-        Set<Integer> occupied = new HashSet<>();
         for (Entry<Method, InvocationInfo> entry : methodMap.entrySet()) {
             Object nextObj = entry.getKey();
             Method next = null;
@@ -155,29 +168,25 @@ public final class MethodMap extends HashMap<Method, InvocationInfo> {
                     "invalid key type = " + nextObj.getClass() + " key must be of type java.lang.reflect.Method");
             }
 
-            int bucket = getBucket(next);
-            if (occupied.contains(bucket)) {
-                // there's a clash for this bucket, so null it out and
-                // defer to backing HashMap for results.
-                methodInfo_[bucket] = null;
-            } else {
-                MethodInfo methodInfo = new MethodInfo();
-                methodInfo.value = entry.getValue();
-
-                // cache declaring class so we can avoid the method call
-                // during lookup operation.
-                methodInfo.declaringClass = next.getDeclaringClass();
-                methodInfo_[bucket] = methodInfo;
-                occupied.add(bucket);
+            // if there's a clash for this bucket, use the next free one.
+            int bucket = getBucket(next, next.getParameterCount());
+            while (methodInfo_[bucket] != null) {
+                bucket = nextBucket(bucket);
             }
+
+            MethodInfo methodInfo = new MethodInfo();
+            methodInfo.method = next;
+            methodInfo.value = entry.getValue();
+
+            // cache declaring class so we can avoid the method call
+            // during lookup operation.
+            methodInfo.declaringClass = next.getDeclaringClass();
+            methodInfo_[bucket] = methodInfo;
         }
     }
 
-    private int getBucket(Method m) {
-        // note : getParameterTypes is guaranteed to be 0-length array
-        // (as opposed to null) for a method with no arguments.
-        Class<?>[] paramTypes = m.getParameterTypes();
-        return getBucket(m, paramTypes.length);
+    private int nextBucket(int bucket) {
+        return bucket + 1 == numBuckets_ ? 0 : bucket + 1;
     }
 
     private int getBucket(Method m, int numParams) {
@@ -209,11 +218,12 @@ public final class MethodMap extends HashMap<Method, InvocationInfo> {
         hashCode = (hashCode >= 0) ? hashCode : (hashCode * -1);
         hashCode = (hashCode > numParams) ?
             (hashCode - numParams) : (hashCode + numParams);
-        return (hashCode % numBuckets_);
+        return Math.floorMod(hashCode, numBuckets_);
     }
 
 
     private static class MethodInfo {
+        public Method method;
         public Class<?> declaringClass;
         public InvocationInfo value;
     }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb.monitoring.stats;
+
+import com.sun.ejb.containers.EjbVirtualThreadExecutor;
+
+import org.glassfish.external.statistics.CountStatistic;
+import org.glassfish.external.statistics.RangeStatistic;
+import org.glassfish.external.statistics.impl.BoundedRangeStatisticImpl;
+import org.glassfish.external.statistics.impl.CountStatisticImpl;
+import org.glassfish.gmbal.AMXMetadata;
+import org.glassfish.gmbal.Description;
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedObject;
+
+/**
+ * Statistics of the virtual thread executor running asynchronous EJB methods.
+ */
+@AMXMetadata(type="ejb-async-executor-mon", group="monitoring", isSingleton=true)
+@ManagedObject
+@Description("EJB Asynchronous Executor Statistics")
+public class EjbAsyncExecutorStatsProvider {
+
+    private final EjbVirtualThreadExecutor delegate;
+
+    private final BoundedRangeStatisticImpl inFlight;
+    private final BoundedRangeStatisticImpl queued;
+    private final CountStatisticImpl completed = new CountStatisticImpl(
+            "TotalTasksCompleted", "count", "Number of asynchronous invocations completed");
+
+    public EjbAsyncExecutorStatsProvider(EjbVirtualThreadExecutor delegate) {
+        this.delegate = delegate;
+
+        long now = System.currentTimeMillis();
+        inFlight = new BoundedRangeStatisticImpl(
+            0, 0, 0, delegate.getMaxConcurrency(), 0,
+            "NumTasksInFlight", "count", "Number of asynchronous invocations currently executing",
+            now, now);
+        queued = new BoundedRangeStatisticImpl(
+            0, 0, 0, Long.MAX_VALUE, 0,
+            "NumTasksQueued", "count", "Number of asynchronous invocations waiting for a concurrency permit",
+            now, now);
+    }
+
+    @ManagedAttribute(id="numtasksinflight")
+    @Description("Number of asynchronous invocations currently executing")
+    public RangeStatistic getNumTasksInFlight() {
+        inFlight.setCurrent(delegate.getInFlightCount());
+        return inFlight;
+    }
+
+    @ManagedAttribute(id="numtasksqueued")
+    @Description("Number of asynchronous invocations waiting for a concurrency permit")
+    public RangeStatistic getNumTasksQueued() {
+        queued.setCurrent(delegate.getQueuedCount());
+        return queued;
+    }
+
+    @ManagedAttribute(id="totaltaskscompleted")
+    @Description("Number of asynchronous invocations completed")
+    public CountStatistic getTotalTasksCompleted() {
+        completed.setCount(delegate.getCompletedCount());
+        return completed;
+    }
+}
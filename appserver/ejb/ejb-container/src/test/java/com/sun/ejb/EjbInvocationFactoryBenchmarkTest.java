@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Bytes allocated per create/release of an invocation, with and without recycling.
+ * <p>
+ * Excluded from the default build, run it with {@code mvn test -Pbenchmark}.
+ */
+public class EjbInvocationFactoryBenchmarkTest {
+
+    @Test
+    public void createRelease_allocationByRecycling() throws Exception {
+        Options options = new OptionsBuilder()
+            .include(getClass().getName() + ".*")
+            .warmupIterations(1).warmupTime(TimeValue.milliseconds(200L))
+            .measurementIterations(1).measurementTime(TimeValue.milliseconds(500L))
+            .forks(1).timeout(TimeValue.seconds(10L))
+            .timeUnit(TimeUnit.NANOSECONDS)
+            .mode(Mode.AverageTime).shouldFailOnError(true)
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        assertThat(results, hasSize(2));
+        Map<String, Double> allocatedBytes = new HashMap<>();
+        for (RunResult result : results) {
+            allocatedBytes.put(result.getParams().getParam("recycle"), allocatedBytes(result));
+        }
+        assertThat(allocatedBytes.get("true"), lessThan(allocatedBytes.get("false")));
+    }
+
+
+    @Benchmark
+    public EjbInvocation createRelease(FactoryState state) {
+        EjbInvocation ejbInv = state.factory.create();
+        ejbInv.methodParams = state.params;
+        state.factory.release(ejbInv);
+        return ejbInv;
+    }
+
+
+    private static double allocatedBytes(RunResult result) {
+        for (Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+            if (entry.getKey().endsWith("gc.alloc.rate.norm")) {
+                return entry.getValue().getScore();
+            }
+        }
+        return fail("No allocation rate in " + result.getSecondaryResults().keySet());
+    }
+
+
+    @State(Scope.Thread)
+    public static class FactoryState {
+
+        @Param({"false", "true"})
+        public boolean recycle;
+
+        EjbInvocationFactory factory;
+        Object[] params;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            factory = new EjbInvocationFactory("benchmark", null, recycle, false);
+            params = new Object[] {"param"};
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb;
+
+import com.sun.ejb.containers.EJBLocalRemoteObject;
+import com.sun.ejb.containers.EjbAsyncTask;
+import com.sun.ejb.containers.EjbFutureTask;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class EjbInvocationFactoryTest {
+
+    private static final String COMPONENT_ID = "componentId";
+
+    /** A SOAPMessage cannot be created without a SAAJ implementation */
+    private static final Set<String> NOT_SAMPLED = Set.of("soapMessage");
+
+    @Test
+    public void recycleResetsEveryField() throws Exception {
+        EjbInvocation fresh = new EjbInvocationFactory(COMPONENT_ID, null, false, false).create();
+        EjbInvocation ejbInv = new EjbInvocationFactory(COMPONENT_ID, null, false, false).create();
+        List<Field> fields = fields();
+        for (Field field : fields) {
+            Object sample = sample(field, field.get(ejbInv));
+            field.set(ejbInv, sample);
+            assertNotEquals(field.get(fresh), field.get(ejbInv), field.toString());
+        }
+
+        ejbInv.recycle(false);
+        ejbInv.initialize(COMPONENT_ID, null);
+
+        for (Field field : fields) {
+            Object expected = field.get(fresh);
+            Object actual = field.get(ejbInv);
+            if (expected == fresh) {
+                assertSame(ejbInv, actual, field.toString());
+            } else if (expected == null && actual instanceof Map) {
+                assertTrue(((Map<?, ?>) actual).isEmpty(), field.toString());
+            } else {
+                assertEquals(expected, actual, field.toString());
+            }
+        }
+    }
+
+    @Test
+    public void recycledInvocationForgetsTheAuthorization() throws Exception {
+        onNewThread(() -> {
+            EjbInvocationFactory factory = new EjbInvocationFactory(COMPONENT_ID, null, true, false);
+            EjbInvocation ejbInv = factory.create();
+            ejbInv.setAuth(true);
+            factory.release(ejbInv);
+
+            EjbInvocation reused = factory.create();
+            assertSame(ejbInv, reused);
+            assertNull(reused.getAuth());
+            return null;
+        });
+    }
+
+    @Test
+    public void poolHoldsAFewInvocationsPerThread() throws Exception {
+        onNewThread(() -> {
+            EjbInvocationFactory factory = new EjbInvocationFactory(COMPONENT_ID, null, true, false);
+            int count = EjbInvocationFactory.MAX_POOLED_PER_THREAD + 2;
+            Map<EjbInvocation, Boolean> released = new IdentityHashMap<>();
+            for (int i = 0; i < count; i++) {
+                released.put(factory.create(), Boolean.TRUE);
+            }
+            released.keySet().forEach(factory::release);
+
+            int reused = 0;
+            for (int i = 0; i < count; i++) {
+                if (released.containsKey(factory.create())) {
+                    reused++;
+                }
+            }
+            assertEquals(EjbInvocationFactory.MAX_POOLED_PER_THREAD, reused);
+            return null;
+        });
+    }
+
+    @Test
+    public void asynchronousInvocationIsNotReused() throws Exception {
+        onNewThread(() -> {
+            EjbInvocationFactory factory = new EjbInvocationFactory(COMPONENT_ID, null, true, false);
+            EjbInvocation ejbInv = factory.create();
+            EjbFutureTask<Object> future = new EjbFutureTask<>(new EjbAsyncTask<>(), null);
+            ejbInv.setEjbFutureTask(future);
+            factory.release(ejbInv);
+
+            assertNotSame(ejbInv, factory.create());
+            assertSame(future, ejbInv.getEjbFutureTask());
+            return null;
+        });
+    }
+
+    @Test
+    public void invocationIsNotReusedWithoutRecycling() throws Exception {
+        onNewThread(() -> {
+            EjbInvocationFactory factory = new EjbInvocationFactory(COMPONENT_ID, null, false, false);
+            EjbInvocation ejbInv = factory.create();
+            ejbInv.methodParams = new Object[] {"param"};
+            factory.release(ejbInv);
+
+            assertNotSame(ejbInv, factory.create());
+            assertEquals(1, ejbInv.getParameters().length);
+            return null;
+        });
+    }
+
+    @Test
+    public void poisonedInvocationCannotBeUsed() throws Exception {
+        onNewThread(() -> {
+            EjbInvocationFactory factory = new EjbInvocationFactory(COMPONENT_ID, null, true, true);
+            EjbInvocation ejbInv = factory.create();
+            factory.release(ejbInv);
+
+            assertThrows(IllegalStateException.class, ejbInv::getTarget);
+            assertThrows(IllegalStateException.class, ejbInv::getMethod);
+            assertThrows(IllegalStateException.class, ejbInv::getParameters);
+            assertThrows(IllegalStateException.class, () -> ejbInv.setParameters(new Object[0]));
+            assertThrows(IllegalStateException.class, ejbInv::getContextData);
+            assertThrows(IllegalStateException.class, ejbInv::proceed);
+            assertNotSame(ejbInv, factory.create());
+            return null;
+        });
+    }
+
+    /**
+     * Runs the check with the empty pool of a new thread.
+     */
+    private static void onNewThread(Callable<Void> check) throws Exception {
+        FutureTask<Void> task = new FutureTask<>(check);
+        Thread thread = new Thread(task);
+        thread.start();
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The instance fields of an invocation, including those inherited from ComponentInvocation.
+     */
+    private static List<Field> fields() {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> type = EjbInvocation.class; type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()
+                    || NOT_SAMPLED.contains(field.getName())) {
+                    continue;
+                }
+                assertFalse(Modifier.isFinal(field.getModifiers()), field.toString());
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * A value of the type of the field which differs from the current one.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object sample(Field field, Object current) throws Exception {
+        Class<?> type = field.getType();
+        if (type == boolean.class || type == Boolean.class) {
+            return !Boolean.TRUE.equals(current);
+        } else if (type == int.class || type == Integer.class) {
+            return current == null ? 1 : (Integer) current + 1;
+        } else if (type == long.class) {
+            return (Long) current + 1;
+        } else if (type.isEnum()) {
+            for (Object constant : type.getEnumConstants()) {
+                if (constant != current) {
+                    return constant;
+                }
+            }
+        } else if (type == String.class) {
+            return "dirty";
+        } else if (type == Object.class) {
+            return new Object();
+        } else if (type == Object[].class) {
+            return new Object[] {"dirty"};
+        } else if (type == Class.class) {
+            return String.class;
+        } else if (type == Method.class) {
+            return Object.class.getMethod("toString");
+        } else if (type == Throwable.class) {
+            return new Exception("dirty");
+        } else if (type == ClassLoader.class) {
+            return new ClassLoader() {
+            };
+        } else if (type == Map.class) {
+            return new HashMap<>(Map.of(String.class, "dirty"));
+        } else if (type == EJBLocalRemoteObject.class) {
+            return new EJBLocalRemoteObject() {
+            };
+        } else if (type == EjbFutureTask.class) {
+            return new EjbFutureTask(new EjbAsyncTask(), null);
+        } else if (type.isInterface()) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return type.getSimpleName() + " proxy";
+                    default:
+                        throw new UnsupportedOperationException(method.toString());
+                }
+            });
+        } else if (!Modifier.isAbstract(type.getModifiers())) {
+            return type.getDeclaredConstructor().newInstance();
+        }
+        return fail("No sample value for " + field);
+    }
+}
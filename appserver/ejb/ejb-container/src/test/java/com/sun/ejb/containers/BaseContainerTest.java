@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb.containers;
+
+import com.sun.ejb.InvocationInfo;
+import com.sun.ejb.containers.util.MethodMap;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class BaseContainerTest {
+
+    @Test
+    public void findsInvocationInfosAddedAfterTheSnapshot() throws Exception {
+        Method business = Business.class.getMethod("business");
+        Method onMessage = Listener.class.getMethod("onMessage", String.class);
+        InvocationInfo businessInfo = new InvocationInfo();
+        InvocationInfo onMessageInfo = new InvocationInfo();
+        Map<Method, InvocationInfo> invocationInfos = new HashMap<>();
+        invocationInfos.put(business, businessInfo);
+
+        MethodMap snapshot = new MethodMap(invocationInfos);
+        // Like the message listener methods, which an MDB registers once the container initialized
+        invocationInfos.put(onMessage, onMessageInfo);
+
+        assertSame(businessInfo, BaseContainer.getInvocationInfo(snapshot, invocationInfos, business));
+        assertSame(onMessageInfo, BaseContainer.getInvocationInfo(snapshot, invocationInfos, onMessage));
+        assertSame(onMessageInfo, BaseContainer.getInvocationInfo(null, invocationInfos, onMessage));
+        assertNull(BaseContainer.getInvocationInfo(snapshot, invocationInfos, Object.class.getMethod("toString")));
+    }
+
+    public interface Business {
+
+        void business();
+    }
+
+    public interface Listener {
+
+        void onMessage(String message);
+    }
+}
@@ -178,6 +178,54 @@ public class EjbContainerUtilImplTest {
         validateLogContents(expectedMessage);
     }
 
+    @Test
+    public void testInitVirtualThreadMaxConcurrency() {
+        String val = "200";
+        int expect = 200;
+        int actual = EjbContainerUtilImpl.initVirtualThreadMaxConcurrency(val);
+
+        assertThat(actual, is(expect));
+    }
+
+    @Test
+    public void testInitVirtualThreadMaxConcurrencyWithNull() {
+        String val = null;
+        int expect = EjbContainer.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY;
+        int actual = EjbContainerUtilImpl.initVirtualThreadMaxConcurrency(val);
+
+        assertThat(actual, is(expect));
+    }
+
+    @Test
+    public void testInitVirtualThreadMaxConcurrencyWithLowerNum() throws IOException {
+        String val = "0";
+        int expect = EjbContainer.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY;
+        String[] expectedMessage = { "WARNING",
+                RuntimeTagNames.VIRTUAL_THREAD_MAX_CONCURRENCY
+                        + " <= 0 using default value "
+                        + EjbContainer.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY };
+        int actual = EjbContainerUtilImpl.initVirtualThreadMaxConcurrency(val);
+
+        assertThat(actual, is(expect));
+        handler.flush();
+        validateLogContents(expectedMessage);
+    }
+
+    @Test
+    public void testInitVirtualThreadMaxConcurrencyWithParseFail() throws IOException {
+        String val = "a";
+        int expect = EjbContainer.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY;
+        String[] expectedMessage = { "WARNING",
+                RuntimeTagNames.VIRTUAL_THREAD_MAX_CONCURRENCY
+                        + " is not a number, using default value "
+                        + EjbContainer.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENCY };
+        int actual = EjbContainerUtilImpl.initVirtualThreadMaxConcurrency(val);
+
+        assertThat(actual, is(expect));
+        handler.flush();
+        validateLogContents(expectedMessage);
+    }
+
     @Test
     public void testInitKeepAliveSeconds() {
         String val = "10";
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ejb.containers.util;
+
+import com.sun.ejb.InvocationInfo;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MethodMapTest {
+
+    /** Names with the same hash code */
+    private static final String[] SAME_HASH = {"AaAa", "AaBB", "BBAa", "BBBB"};
+
+    @Test
+    public void findsMethodsWithTheSameNameHash() throws Exception {
+        assertEquals("AaAa".hashCode(), "BBBB".hashCode());
+        Map<Method, InvocationInfo> infos = infos(Business.class, SAME_HASH);
+
+        MethodMap methodMap = new MethodMap(infos);
+        assertFound(infos, methodMap);
+    }
+
+    @Test
+    public void findsMethodsWhoseNameHashIsMinValue() throws Exception {
+        assertEquals(Integer.MIN_VALUE, "polygenelubricants".hashCode());
+        Map<Method, InvocationInfo> infos = infos(Business.class, "polygenelubricants", "AaAa");
+        infos.put(Business.class.getMethod("polygenelubricants", String.class), new InvocationInfo());
+
+        for (int numBuckets = 1; numBuckets <= 10; numBuckets++) {
+            assertFound(infos, new MethodMap(infos, numBuckets));
+        }
+    }
+
+    @Test
+    public void wrapsAroundTheEndOfTheTable() throws Exception {
+        Map<Method, InvocationInfo> infos = infos(Business.class, SAME_HASH);
+
+        // All methods share the last of the five buckets, so the probes continue at the first one
+        MethodMap methodMap = new MethodMap(infos, 1);
+        assertFound(infos, methodMap);
+        assertNull(methodMap.get(Business.class.getMethod("BBBB", String.class)));
+    }
+
+    @Test
+    public void findsEqualMethodInstances() throws Exception {
+        Map<Method, InvocationInfo> infos = infos(Business.class, SAME_HASH);
+        MethodMap methodMap = new MethodMap(infos);
+
+        for (Map.Entry<Method, InvocationInfo> entry : infos.entrySet()) {
+            Method equal = Business.class.getMethod(entry.getKey().getName());
+            assertNotSame(entry.getKey(), equal);
+            assertSame(entry.getValue(), methodMap.get(equal));
+            assertSame(entry.getValue(), methodMap.get(equal, 0));
+        }
+    }
+
+    @Test
+    public void returnsNullForMissingKeys() throws Exception {
+        Map<Method, InvocationInfo> infos = infos(Business.class, "AaAa", "AaBB");
+        MethodMap methodMap = new MethodMap(infos);
+
+        // Same name hash, other name
+        assertNull(methodMap.get(Business.class.getMethod("BBBB")));
+        // Same name, other parameters
+        assertNull(methodMap.get(Business.class.getMethod("BBBB", String.class)));
+        // Same name and parameters, other declaring class
+        assertNull(methodMap.get(Other.class.getMethod("AaAa")));
+        assertNull(methodMap.get("AaAa"));
+        assertNull(methodMap.get(null));
+
+        methodMap.clear();
+        assertNull(methodMap.get(Business.class.getMethod("AaAa")));
+    }
+
+    @Test
+    public void isImmutable() throws Exception {
+        Map<Method, InvocationInfo> infos = infos(Business.class, "AaAa");
+        MethodMap methodMap = new MethodMap(infos);
+        Method method = Business.class.getMethod("AaBB");
+
+        assertThrows(UnsupportedOperationException.class, () -> methodMap.put(method, new InvocationInfo()));
+        assertThrows(UnsupportedOperationException.class, () -> methodMap.putAll(infos));
+        assertThrows(UnsupportedOperationException.class, () -> methodMap.remove(method));
+        assertThrows(IllegalArgumentException.class, () -> new MethodMap(infos, 0));
+    }
+
+    private static Map<Method, InvocationInfo> infos(Class<?> type, String... names) throws Exception {
+        Map<Method, InvocationInfo> infos = new HashMap<>();
+        for (String name : names) {
+            infos.put(type.getMethod(name), new InvocationInfo());
+        }
+        return infos;
+    }
+
+    private static void assertFound(Map<Method, InvocationInfo> infos, MethodMap methodMap) {
+        assertEquals(infos.size(), methodMap.size());
+        for (Map.Entry<Method, InvocationInfo> entry : infos.entrySet()) {
+            Method method = entry.getKey();
+            assertSame(entry.getValue(), methodMap.get(method), method.toString());
+            assertSame(entry.getValue(), methodMap.get(method, method.getParameterCount()), method.toString());
+        }
+    }
+
+    public interface Business {
+
+        void AaAa();
+
+        void AaBB();
+
+        void BBAa();
+
+        void BBBB();
+
+        void BBBB(String parameter);
+
+        void polygenelubricants();
+
+        void polygenelubricants(String parameter);
+    }
+
+    public interface Other {
+
+        void AaAa();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ejb.deployment.io;
+
+import com.sun.enterprise.deployment.io.DeploymentDescriptorFile;
+import com.sun.enterprise.deployment.io.DescriptorCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.glassfish.api.admin.ServerEnvironment;
+import org.glassfish.deployment.common.Descriptor;
+import org.glassfish.ejb.deployment.descriptor.EjbBundleDescriptorImpl;
+import org.glassfish.ejb.deployment.descriptor.EjbSessionDescriptor;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
+import org.glassfish.internal.api.Globals;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads ejb-jar.xml through the {@link DescriptorCache}, and compares the cached descriptor with a fresh parse.
+ */
+public class EjbDescriptorCacheTest {
+
+    private static final String EJB_JAR_XML = "<ejb-jar xmlns=\"https://jakarta.ee/xml/ns/jakartaee\" version=\"4.0\">"
+        + "<display-name>%s</display-name>"
+        + "<enterprise-beans><session>"
+        + "<ejb-name>Hello</ejb-name>"
+        + "<business-local>example.Hello</business-local>"
+        + "<ejb-class>example.HelloBean</ejb-class>"
+        + "<session-type>Stateless</session-type>"
+        + "<env-entry><env-entry-name>greeting</env-entry-name><env-entry-type>java.lang.String</env-entry-type>"
+        + "<env-entry-value>hello</env-entry-value></env-entry>"
+        + "</session></enterprise-beans>"
+        + "<assembly-descriptor><container-transaction>"
+        + "<method><ejb-name>Hello</ejb-name><method-name>*</method-name></method>"
+        + "<trans-attribute>RequiresNew</trans-attribute>"
+        + "</container-transaction></assembly-descriptor>"
+        + "</ejb-jar>";
+
+    @TempDir
+    static File stubs;
+
+    private static ServiceLocator locator;
+    private static DescriptorCache cache;
+
+    @BeforeAll
+    public static void createCache() {
+        locator = ServiceLocatorUtilities.createAndPopulateServiceLocator(EjbDescriptorCacheTest.class.getName());
+        ServiceLocatorUtilities.addOneConstant(locator, environment(stubs), null, ServerEnvironment.class);
+        Globals.setDefaultHabitat(locator);
+        cache = locator.getService(DescriptorCache.class);
+    }
+
+    @AfterAll
+    public static void shutdown() {
+        locator.shutdown();
+    }
+
+    @Test
+    public void readsEjbJarFromCache() throws Exception {
+        EjbDeploymentDescriptorFile ddFile = newDDFile();
+        String xml = String.format(EJB_JAR_XML, "cached");
+        Set<File> before = entries();
+        EjbBundleDescriptorImpl parsed = (EjbBundleDescriptorImpl) cache.read(ddFile, stream(xml));
+        File entry = added(before);
+        assertTrue(entry.setLastModified(1000L));
+
+        EjbBundleDescriptorImpl cached = (EjbBundleDescriptorImpl) cache.read(ddFile, stream(xml));
+
+        assertTrue(entry.lastModified() > 1000L, "the descriptor was not read from the cache");
+        assertNotSame(parsed, cached);
+        assertEquals(toXml(ddFile, (Descriptor) ddFile.read(stream(xml))), toXml(ddFile, cached));
+        EjbSessionDescriptor hello = (EjbSessionDescriptor) cached.getEjbByName("Hello");
+        assertTrue(hello.isStateless());
+        assertEquals("example.HelloBean", hello.getEjbClassName());
+        assertEquals(1, hello.getEnvironmentProperties().size());
+    }
+
+    @Test
+    public void parsesChangedEjbJar() throws Exception {
+        EjbDeploymentDescriptorFile ddFile = newDDFile();
+        cache.read(ddFile, stream(String.format(EJB_JAR_XML, "before")));
+        Set<File> before = entries();
+
+        EjbBundleDescriptorImpl changed = (EjbBundleDescriptorImpl) cache.read(ddFile,
+            stream(String.format(EJB_JAR_XML, "after")));
+
+        assertEquals("after", changed.getDisplayName());
+        added(before);
+    }
+
+    private static EjbDeploymentDescriptorFile newDDFile() {
+        EjbDeploymentDescriptorFile ddFile = new EjbDeploymentDescriptorFile();
+        ddFile.setXMLValidation(false);
+        return ddFile;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toXml(DeploymentDescriptorFile<?> ddFile, Descriptor descriptor) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((DeploymentDescriptorFile<Descriptor>) ddFile).write(descriptor, out);
+        return out.toString(UTF_8);
+    }
+
+    private static ByteArrayInputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(UTF_8));
+    }
+
+    private static Set<File> entries() {
+        File[] files = new File(stubs, "descriptor-cache").listFiles();
+        return files == null ? new HashSet<>() : new HashSet<>(Arrays.asList(files));
+    }
+
+    private static File added(Set<File> before) {
+        Set<File> added = entries();
+        added.removeAll(before);
+        assertEquals(1, added.size(), "new cache entries");
+        return added.iterator().next();
+    }
+
+    private static ServerEnvironment environment(File stubs) {
+        return (ServerEnvironment) Proxy.newProxyInstance(ServerEnvironment.class.getClassLoader(),
+            new Class<?>[] {ServerEnvironment.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getApplicationStubPath":
+                        return stubs;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "ServerEnvironment[" + stubs + "]";
+                    default:
+                        return null;
+                }
+            });
+    }
+}
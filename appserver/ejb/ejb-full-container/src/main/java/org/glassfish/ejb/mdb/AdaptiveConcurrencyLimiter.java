@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ejb.mdb;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import java.util.logging.Logger;
+
+import com.sun.logging.LogDomains;
+
+/**
+ * Limits the number of messages delivered concurrently to one message-driven bean and adjusts that limit with
+ * an additive-increase / multiplicative-decrease rule.
+ * <p>
+ * Samples are evaluated in windows of at least <code>limit</code> completed deliveries. At the end of a window the
+ * limit is
+ * <ul>
+ * <li>decreased by {@link #DECREASE_FACTOR} when the error rate exceeds {@link #MAX_ERROR_RATE} or the average
+ * delivery latency exceeds {@link #LATENCY_TOLERANCE} times the baseline latency,</li>
+ * <li>increased by the increase step when deliveries had to wait for a permit or all permits were in use,</li>
+ * <li>left unchanged otherwise.</li>
+ * </ul>
+ * The baseline is the lowest window average seen so far, slowly drifting towards the current average so that a
+ * permanent change of the workload is eventually accepted.
+ * <p>
+ * A delivery that cannot get a permit blocks the resource adapter thread, which pushes the backlog back to the
+ * message provider.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final Logger _logger = LogDomains.getLogger(AdaptiveConcurrencyLimiter.class, LogDomains.MDB_LOGGER);
+
+    static final double DECREASE_FACTOR = 0.75;
+    static final double MAX_ERROR_RATE = 0.1;
+    static final double LATENCY_TOLERANCE = 2.0;
+    static final double BASELINE_DRIFT = 0.05;
+    static final int MIN_WINDOW_SAMPLES = 8;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int increaseStep;
+
+    // All fields below are guarded by this
+    private int limit;
+    private int inFlight;
+    private int waiting;
+    private boolean closed;
+
+    private int windowSamples;
+    private int windowErrors;
+    private long windowLatencyNanos;
+    private int windowPeakInFlight;
+    private boolean windowHadWaiters;
+    private double baselineLatencyNanos;
+
+    private long increaseCount;
+    private long decreaseCount;
+
+    /**
+     * Invalid limits are corrected with a warning: the lowest limit is at least 1, the highest limit at least the
+     * lowest, and the increase step at least 1.
+     *
+     * @param name used in log messages
+     * @param minLimit lowest concurrency limit, normally the steady-pool-size
+     * @param maxLimit highest concurrency limit, normally the max-pool-size
+     * @param increaseStep number of permits added when the limit grows, normally the pool-resize-quantity
+     */
+    public AdaptiveConcurrencyLimiter(String name, int minLimit, int maxLimit, int increaseStep) {
+        if (minLimit < 1) {
+            _logger.log(WARNING, "containers.mdb.invalid_value", new Object[] { name, minLimit, "steady-pool-size", 1 });
+            minLimit = 1;
+        }
+        if (maxLimit < minLimit) {
+            _logger.log(WARNING, "containers.mdb.invalid_value", new Object[] { name, maxLimit, "max-pool-size", minLimit });
+            maxLimit = minLimit;
+        }
+        if (increaseStep < 1) {
+            _logger.log(WARNING, "containers.mdb.invalid_value", new Object[] { name, increaseStep, "pool-resize-quantity", 1 });
+            increaseStep = 1;
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.increaseStep = increaseStep;
+        this.limit = minLimit;
+    }
+
+    /**
+     * Waits until the number of deliveries in flight is below the current limit.
+     *
+     * @return true if a permit was taken and {@link #release(long, boolean)} must be called, false if the limiter
+     *         was closed or the thread was interrupted while waiting
+     */
+    public synchronized boolean acquire() {
+        if (inFlight >= limit) {
+            windowHadWaiters = true;
+            waiting++;
+            try {
+                while (inFlight >= limit && !closed) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting--;
+            }
+        }
+        if (closed) {
+            return false;
+        }
+
+        inFlight++;
+        if (inFlight > windowPeakInFlight) {
+            windowPeakInFlight = inFlight;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a permit taken by {@link #acquire()} and records the outcome of the delivery.
+     *
+     * @param latencyNanos time spent delivering the message
+     * @param failed true if the delivery failed
+     */
+    public synchronized void release(long latencyNanos, boolean failed) {
+        inFlight--;
+
+        windowSamples++;
+        windowLatencyNanos += latencyNanos;
+        if (failed) {
+            windowErrors++;
+        }
+
+        if (windowSamples >= Math.max(limit, MIN_WINDOW_SAMPLES)) {
+            adjustLimit();
+        }
+
+        notifyAll();
+    }
+
+    private void adjustLimit() {
+        double averageLatency = (double) windowLatencyNanos / windowSamples;
+        double errorRate = (double) windowErrors / windowSamples;
+
+        if (baselineLatencyNanos == 0 || averageLatency < baselineLatencyNanos) {
+            baselineLatencyNanos = averageLatency;
+        } else {
+            baselineLatencyNanos += (averageLatency - baselineLatencyNanos) * BASELINE_DRIFT;
+        }
+
+        int oldLimit = limit;
+        if (errorRate > MAX_ERROR_RATE || averageLatency > baselineLatencyNanos * LATENCY_TOLERANCE) {
+            limit = Math.max(minLimit, (int) (limit * DECREASE_FACTOR));
+            if (limit < oldLimit) {
+                decreaseCount++;
+            }
+        } else if (windowHadWaiters || windowPeakInFlight >= limit) {
+            limit = Math.min(maxLimit, limit + increaseStep);
+            if (limit > oldLimit) {
+                increaseCount++;
+            }
+        }
+
+        if (limit != oldLimit) {
+            final int newLimit = limit;
+            _logger.log(FINE, () -> name + ": concurrency limit " + oldLimit + " -> " + newLimit
+                + " (average latency " + (long) averageLatency + " ns, error rate " + errorRate + ")");
+        }
+
+        windowSamples = 0;
+        windowErrors = 0;
+        windowLatencyNanos = 0;
+        windowPeakInFlight = inFlight;
+        windowHadWaiters = waiting > 0;
+    }
+
+    /**
+     * Wakes up all waiting deliveries and lets further deliveries pass without a permit.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    public synchronized int getWaitingCount() {
+        return waiting;
+    }
+
+    public synchronized long getIncreaseCount() {
+        return increaseCount;
+    }
+
+    public synchronized long getDecreaseCount() {
+        return decreaseCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AdaptiveConcurrencyLimiter[" + name + ", limit=" + limit + ", min=" + minLimit + ", max=" + maxLimit
+            + ", inFlight=" + inFlight + ", waiting=" + waiting + "]";
+    }
+}
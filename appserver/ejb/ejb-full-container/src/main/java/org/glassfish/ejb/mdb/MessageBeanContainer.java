@@ -133,9 +133,16 @@ public final class MessageBeanContainer extends BaseContainer implements Message
     // issue 4629. 0 means a bean can remain idle indefinitely.
     private static final int MIN_IDLE_TIMEOUT = 0;
 
+    // Property of mdb-container or enterprise-beans enabling the adaptive
+    // concurrency limit for message delivery.
+    static final String ADAPTIVE_CONCURRENCY_PROP = "adaptive-concurrency";
+
     private TransactedPoolManager transactedPoolManager;
     private final Class<?> messageListenerType_;
 
+    // null unless adaptive concurrency is enabled
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
     MessageBeanContainer(EjbDescriptor ejbDescriptor, ClassLoader classLoader, SecurityManager securityManager) throws Exception {
         super(ContainerType.MESSAGE_DRIVEN, ejbDescriptor, classLoader, securityManager);
 
@@ -284,7 +291,7 @@ public final class MessageBeanContainer extends BaseContainer implements Message
 
     @Override
     protected EjbMonitoringStatsProvider getMonitoringStatsProvider(String appName, String modName, String ejbName) {
-        return new MessageDrivenBeanStatsProvider(getContainerId(), appName, modName, ejbName);
+        return new MessageDrivenBeanStatsProvider(getContainerId(), appName, modName, ejbName, concurrencyLimiter);
     }
 
     @Override
@@ -370,6 +377,21 @@ public final class MessageBeanContainer extends BaseContainer implements Message
                 beanPoolDescriptor.getPoolIdleTimeoutInSeconds(),
                 loader,
                 Boolean.parseBoolean(descriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(SINGLETON_BEAN_POOL_PROP)));
+
+        String adaptive = descriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(ADAPTIVE_CONCURRENCY_PROP);
+        if (adaptive == null) {
+            adaptive = mdbContainer.getPropertyValue(ADAPTIVE_CONCURRENCY_PROP);
+        }
+        if (Boolean.parseBoolean(adaptive)) {
+            concurrencyLimiter =
+                new AdaptiveConcurrencyLimiter(
+                    appEJBName_,
+                    Math.max(1, beanPoolDescriptor.getSteadyPoolSize()),
+                    beanPoolDescriptor.getMaxPoolSize(),
+                    beanPoolDescriptor.getPoolResizeQuantity());
+
+            _logger.log(FINE, () -> appEJBName_ + ": Using adaptive concurrency " + concurrencyLimiter);
+        }
     }
 
     protected static int stringToInt(String val, String appName, Logger logger) {
@@ -678,6 +700,16 @@ public final class MessageBeanContainer extends BaseContainer implements Message
         synchronized (this) {
             numMessageBeanListeners_--;
         }
+        if (listener instanceof MessageBeanListenerImpl) {
+            ((MessageBeanListenerImpl) listener).releaseDeliveryPermit(false);
+        }
+    }
+
+    /**
+     * @return the limiter of concurrent message deliveries, or <code>null</code> if adaptive concurrency is disabled
+     */
+    AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
     }
 
     /**
@@ -995,6 +1027,9 @@ public final class MessageBeanContainer extends BaseContainer implements Message
     protected void doConcreteContainerShutdown(boolean appBeingUndeployed) {
         _logger.log(FINE, "containers.mdb.shutdown_cleanup_start", appEJBName_);
         monitorOn = false;
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.close();
+        }
         cleanupResources();
         _logger.log(FINE, "containers.mdb.shutdown_cleanup_end", appEJBName_);
     }
@@ -1196,8 +1231,11 @@ public final class MessageBeanContainer extends BaseContainer implements Message
         return result;
     }
 
-    public void afterMessageDelivery(ResourceHandle resourceHandle) {
-        afterMessageDeliveryInternal(resourceHandle);
+    /**
+     * @return true if the message was delivered without a system exception and the transaction completed
+     */
+    public boolean afterMessageDelivery(ResourceHandle resourceHandle) {
+        return afterMessageDeliveryInternal(resourceHandle);
     }
 
     private boolean afterMessageDeliveryInternal(ResourceHandle resourceHandle) {
@@ -35,6 +35,11 @@ public class MessageBeanListenerImpl implements MessageBeanListener {
     private MessageBeanContainer messageBeanContainer;
     private ResourceHandle resourceHandle;
 
+    // A message endpoint delivers one message at a time, so the permit of the
+    // adaptive concurrency limiter can be tracked per listener.
+    private boolean deliveryPermitHeld;
+    private long deliveryStartNanos;
+
     MessageBeanListenerImpl(MessageBeanContainer container, ResourceHandle handle) {
         messageBeanContainer = container;
 
@@ -54,8 +59,15 @@ public class MessageBeanListenerImpl implements MessageBeanListener {
 
     @Override
     public void beforeMessageDelivery(Method method, boolean txImported) {
+        acquireDeliveryPermit();
         messageBeanContainer.onEnteringContainer(); // Notify Callflow Agent
-        messageBeanContainer.beforeMessageDelivery(method, Message, txImported, resourceHandle);
+        try {
+            messageBeanContainer.beforeMessageDelivery(method, Message, txImported, resourceHandle);
+        } catch (RuntimeException e) {
+            // No afterMessageDelivery will follow
+            releaseDeliveryPermit(false);
+            throw e;
+        }
     }
 
     @Override
@@ -65,11 +77,32 @@ public class MessageBeanListenerImpl implements MessageBeanListener {
 
     @Override
     public void afterMessageDelivery() {
+        boolean success = false;
         try {
-            messageBeanContainer.afterMessageDelivery(resourceHandle);
+            success = messageBeanContainer.afterMessageDelivery(resourceHandle);
         } finally {
             messageBeanContainer.onLeavingContainer(); // Notify Callflow Agent
+            releaseDeliveryPermit(success);
+        }
+    }
+
+    private void acquireDeliveryPermit() {
+        AdaptiveConcurrencyLimiter limiter = messageBeanContainer.getConcurrencyLimiter();
+        if (limiter == null || deliveryPermitHeld) {
+            return;
         }
+
+        deliveryPermitHeld = limiter.acquire();
+        deliveryStartNanos = System.nanoTime();
+    }
+
+    void releaseDeliveryPermit(boolean success) {
+        if (!deliveryPermitHeld) {
+            return;
+        }
+
+        deliveryPermitHeld = false;
+        messageBeanContainer.getConcurrencyLimiter().release(System.nanoTime() - deliveryStartNanos, !success);
     }
 
 }
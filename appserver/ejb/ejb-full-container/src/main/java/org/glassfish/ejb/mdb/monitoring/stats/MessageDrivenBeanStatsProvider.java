@@ -17,6 +17,7 @@
 package org.glassfish.ejb.mdb.monitoring.stats;
 
 import com.sun.ejb.monitoring.stats.EjbMonitoringStatsProvider;
+import org.glassfish.ejb.mdb.AdaptiveConcurrencyLimiter;
 import org.glassfish.external.probe.provider.annotations.*;
 import org.glassfish.external.statistics.*;
 import org.glassfish.external.statistics.impl.*;
@@ -34,9 +35,36 @@ public class MessageDrivenBeanStatsProvider extends EjbMonitoringStatsProvider {
     private CountStatisticImpl messageCount = new CountStatisticImpl("MessageCount",
             "count", "Number of messages received for a message-driven bean");
 
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private BoundedRangeStatisticImpl concurrencyLimit;
+    private BoundedRangeStatisticImpl waitingDeliveries;
+    private CountStatisticImpl concurrencyIncreases = new CountStatisticImpl("ConcurrencyIncreases",
+            "count", "Number of times the adaptive concurrency limit was increased");
+    private CountStatisticImpl concurrencyDecreases = new CountStatisticImpl("ConcurrencyDecreases",
+            "count", "Number of times the adaptive concurrency limit was decreased");
+
     public MessageDrivenBeanStatsProvider(long beanId, String appName, String moduleName,
             String beanName) {
+        this(beanId, appName, moduleName, beanName, null);
+    }
+
+    public MessageDrivenBeanStatsProvider(long beanId, String appName, String moduleName,
+            String beanName, AdaptiveConcurrencyLimiter concurrencyLimiter) {
         super(beanId, appName, moduleName, beanName);
+        this.concurrencyLimiter = concurrencyLimiter;
+
+        long now = System.currentTimeMillis();
+        long min = concurrencyLimiter == null ? 0 : concurrencyLimiter.getMinLimit();
+        long max = concurrencyLimiter == null ? 0 : concurrencyLimiter.getMaxLimit();
+        concurrencyLimit = new BoundedRangeStatisticImpl(
+            min, min, min, max, min,
+            "ConcurrencyLimit", "count", "Number of messages that may be delivered concurrently",
+            now, now);
+        waitingDeliveries = new BoundedRangeStatisticImpl(
+            0, 0, 0, Long.MAX_VALUE, 0,
+            "NumWaitingDeliveries", "count", "Number of message deliveries waiting for the concurrency limit",
+            now, now);
     }
 
     @ManagedAttribute(id="messagecount")
@@ -45,6 +73,42 @@ public class MessageDrivenBeanStatsProvider extends EjbMonitoringStatsProvider {
         return messageCount;
     }
 
+    @ManagedAttribute(id="concurrencylimit")
+    @Description( "Number of messages that may be delivered concurrently when adaptive concurrency is enabled")
+    public RangeStatistic getConcurrencyLimit() {
+        if (concurrencyLimiter != null) {
+            concurrencyLimit.setCurrent(concurrencyLimiter.getLimit());
+        }
+        return concurrencyLimit;
+    }
+
+    @ManagedAttribute(id="numwaitingdeliveries")
+    @Description( "Number of message deliveries waiting for the adaptive concurrency limit")
+    public RangeStatistic getNumWaitingDeliveries() {
+        if (concurrencyLimiter != null) {
+            waitingDeliveries.setCurrent(concurrencyLimiter.getWaitingCount());
+        }
+        return waitingDeliveries;
+    }
+
+    @ManagedAttribute(id="concurrencyincreases")
+    @Description( "Number of times the adaptive concurrency limit was increased")
+    public CountStatistic getConcurrencyIncreases() {
+        if (concurrencyLimiter != null) {
+            concurrencyIncreases.setCount(concurrencyLimiter.getIncreaseCount());
+        }
+        return concurrencyIncreases;
+    }
+
+    @ManagedAttribute(id="concurrencydecreases")
+    @Description( "Number of times the adaptive concurrency limit was decreased")
+    public CountStatistic getConcurrencyDecreases() {
+        if (concurrencyLimiter != null) {
+            concurrencyDecreases.setCount(concurrencyLimiter.getDecreaseCount());
+        }
+        return concurrencyDecreases;
+    }
+
     @ProbeListener("glassfish:ejb:bean:messageDeliveredEvent")
     public void messageDeliveredEvent(
             @ProbeParam("beanId") long beanId,
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.ejb.mdb;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import static org.glassfish.ejb.mdb.AdaptiveConcurrencyLimiter.MIN_WINDOW_SAMPLES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void clampsInvalidLimits() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4, 2, 0);
+        assertEquals(4, limiter.getMinLimit());
+        assertEquals(4, limiter.getMaxLimit());
+        assertEquals(4, limiter.getLimit());
+
+        limiter = new AdaptiveConcurrencyLimiter("test", 0, 0, 1);
+        assertEquals(1, limiter.getMinLimit());
+        assertEquals(1, limiter.getMaxLimit());
+        assertTrue(limiter.acquire());
+    }
+
+    @Test
+    public void growsUpToTheMaxWhileAllPermitsAreInUse() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 4, 2);
+        deliver(limiter, MIN_WINDOW_SAMPLES, LATENCY, false);
+        assertEquals(3, limiter.getLimit());
+        deliver(limiter, MIN_WINDOW_SAMPLES, LATENCY, false);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(2, limiter.getIncreaseCount());
+        assertEquals(0, limiter.getDecreaseCount());
+    }
+
+    @Test
+    public void keepsTheLimitWhilePermitsAreLeft() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 8, 1);
+        // one delivery at a time never uses both permits
+        for (int i = 0; i < 4 * MIN_WINDOW_SAMPLES; i++) {
+            assertTrue(limiter.acquire());
+            limiter.release(LATENCY, false);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getIncreaseCount());
+    }
+
+    @Test
+    public void shrinksWhenDeliveriesFail() {
+        AdaptiveConcurrencyLimiter limiter = grownTo(8);
+        int failures = MIN_WINDOW_SAMPLES / 4;
+        deliver(limiter, MIN_WINDOW_SAMPLES - failures, LATENCY, false);
+        deliver(limiter, failures, LATENCY, true);
+        assertEquals(6, limiter.getLimit());
+        assertEquals(1, limiter.getDecreaseCount());
+    }
+
+    @Test
+    public void shrinksWhenTheLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = grownTo(8);
+        deliver(limiter, MIN_WINDOW_SAMPLES, 3 * LATENCY, false);
+        assertEquals(6, limiter.getLimit());
+        deliver(limiter, MIN_WINDOW_SAMPLES, 3 * LATENCY, false);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(2, limiter.getDecreaseCount());
+    }
+
+    @Test
+    public void neverShrinksBelowTheMin() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 8, 1);
+        for (int i = 0; i < 4; i++) {
+            deliver(limiter, MIN_WINDOW_SAMPLES, LATENCY, true);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getDecreaseCount());
+    }
+
+    @Test
+    public void blocksUntilAPermitIsReleased() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1);
+        assertTrue(limiter.acquire());
+
+        AtomicBoolean acquired = new AtomicBoolean();
+        Thread delivery = new Thread(() -> acquired.set(limiter.acquire()));
+        delivery.start();
+        awaitWaiting(limiter, 1);
+        assertFalse(acquired.get());
+
+        limiter.release(LATENCY, false);
+        delivery.join(TimeUnit.SECONDS.toMillis(10));
+        assertTrue(acquired.get());
+        assertEquals(1, limiter.getInFlightCount());
+        assertEquals(0, limiter.getWaitingCount());
+    }
+
+    @Test
+    public void wakesUpWaitingDeliveriesOnClose() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1);
+        assertTrue(limiter.acquire());
+
+        AtomicBoolean acquired = new AtomicBoolean(true);
+        Thread delivery = new Thread(() -> acquired.set(limiter.acquire()));
+        delivery.start();
+        awaitWaiting(limiter, 1);
+
+        limiter.close();
+        delivery.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(acquired.get());
+        assertFalse(limiter.acquire());
+    }
+
+    /**
+     * Creates a limiter which grows to the given limit in one window with all permits in use.
+     */
+    private static AdaptiveConcurrencyLimiter grownTo(int limit) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, limit, limit);
+        deliver(limiter, MIN_WINDOW_SAMPLES, LATENCY, false);
+        assertEquals(limit, limiter.getLimit());
+        return limiter;
+    }
+
+    /**
+     * Delivers the messages in batches which take all permits.
+     */
+    private static void deliver(AdaptiveConcurrencyLimiter limiter, int messages, long latencyNanos, boolean failed) {
+        while (messages > 0) {
+            int batch = Math.min(messages, limiter.getLimit());
+            for (int i = 0; i < batch; i++) {
+                assertTrue(limiter.acquire());
+            }
+            for (int i = 0; i < batch; i++) {
+                limiter.release(latencyNanos, failed);
+            }
+            messages -= batch;
+        }
+    }
+
+    private static void awaitWaiting(AdaptiveConcurrencyLimiter limiter, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (limiter.getWaitingCount() < waiting) {
+            assertTrue(System.nanoTime() < deadline, "no delivery is waiting");
+            Thread.sleep(1L);
+        }
+    }
+}
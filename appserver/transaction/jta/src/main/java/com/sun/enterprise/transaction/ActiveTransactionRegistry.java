@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The transactions that are currently active, tracked for monitoring.
+ * <p>
+ * The registry is split into stripes selected by the hash code of the transaction, each a concurrent map from the
+ * transaction to the number of times it was added, so that adding and removing are constant time and threads working
+ * on different transactions rarely meet. Like the list it replaces, a transaction added twice has to be removed
+ * twice.
+ * <p>
+ * {@link #toArray()} is weakly consistent: it never blocks writers and contains every transaction that stayed
+ * registered while it ran.
+ */
+final class ActiveTransactionRegistry {
+
+    private static final int MAX_STRIPES = 64;
+
+    private final ConcurrentHashMap<Object, Integer>[] stripes;
+    private final int mask;
+
+    ActiveTransactionRegistry() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    ActiveTransactionRegistry(int concurrency) {
+        int count = 1;
+        while (count < concurrency && count < MAX_STRIPES) {
+            count <<= 1;
+        }
+
+        stripes = new ConcurrentHashMap[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        mask = count - 1;
+    }
+
+    private ConcurrentHashMap<Object, Integer> stripe(Object tx) {
+        int h = tx.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    void add(Object tx) {
+        ConcurrentHashMap<Object, Integer> stripe = stripe(tx);
+        for (;;) {
+            Integer count = stripe.putIfAbsent(tx, 1);
+            if (count == null || stripe.replace(tx, count, count + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if the transaction was registered
+     */
+    boolean remove(Object tx) {
+        ConcurrentHashMap<Object, Integer> stripe = stripe(tx);
+        for (;;) {
+            Integer count = stripe.get(tx);
+            if (count == null) {
+                return false;
+            }
+            if (count == 1 ? stripe.remove(tx, count) : stripe.replace(tx, count, count - 1)) {
+                return true;
+            }
+        }
+    }
+
+    void clear() {
+        for (ConcurrentHashMap<Object, Integer> stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (ConcurrentHashMap<Object, Integer> stripe : stripes) {
+            for (Integer count : stripe.values()) {
+                size += count;
+            }
+        }
+        return size;
+    }
+
+    Object[] toArray() {
+        List<Object> active = new ArrayList<>();
+        for (ConcurrentHashMap<Object, Integer> stripe : stripes) {
+            for (Map.Entry<Object, Integer> entry : stripe.entrySet()) {
+                for (int i = entry.getValue(); i > 0; i--) {
+                    active.add(entry.getKey());
+                }
+            }
+        }
+        return active.toArray();
+    }
+}
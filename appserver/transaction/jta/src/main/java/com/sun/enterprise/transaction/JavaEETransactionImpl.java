@@ -415,6 +415,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                 }
 
                 // call beforeCompletion
+                long beforeCompletionStart = System.nanoTime();
                 for (int i = 0; i < syncs.size(); i++) {
                     try {
                         Synchronization sync = (Synchronization) syncs.elementAt(i);
@@ -446,6 +447,7 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
                     }
 
                 }
+                ((JavaEETransactionManagerSimplified) javaEETM).monitorBeforeCompletion(System.nanoTime() - beforeCompletionStart);
 
                 // check rollbackonly again, in case any of the beforeCompletion
                 // calls marked it for rollback.
@@ -483,8 +485,11 @@ public final class JavaEETransactionImpl extends TimerTask implements JavaEETran
 
                 } else {
                     // do single-phase commit on nonXA resource
-                    if (nonXAResource != null)
+                    if (nonXAResource != null) {
+                        long commitStart = System.nanoTime();
                         nonXAResource.getXAResource().commit(xid, true);
+                        ((JavaEETransactionManagerSimplified) javaEETM).monitorCommit(System.nanoTime() - commitStart);
+                    }
 
                 }
                 // V2-XXX should this be STATUS_NO_TRANSACTION ?
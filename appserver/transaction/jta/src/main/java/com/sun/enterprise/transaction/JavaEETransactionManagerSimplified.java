@@ -20,12 +20,14 @@ package com.sun.enterprise.transaction;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Hashtable;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -98,7 +100,7 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
     @Inject
     protected InvocationManager invMgr;
 
-    private JavaEETransactionManagerDelegate delegate;
+    private volatile JavaEETransactionManagerDelegate delegate;
 
     // Sting Manager for Localization
     private static StringManager sm = StringManager.getManager(JavaEETransactionManagerSimplified.class);
@@ -122,29 +124,31 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
     private int purgeCancelledTtransactions = 0;
 
     // admin and monitoring related parameters
-    private static final Hashtable statusMap = new Hashtable();
-    private List activeTransactions = Collections.synchronizedList(new ArrayList());
+    private static final Map<Integer, String> statusMap;
+    private final ActiveTransactionRegistry activeTransactions = new ActiveTransactionRegistry();
     private boolean monitoringEnabled = false;
 
-    private TransactionServiceProbeProvider monitor;
-    private Hashtable txnTable = null;
+    private final TransactionServiceProbeProvider monitor = new TransactionServiceProbeProvider();
+    private volatile Map<String, Transaction> txnTable = null;
 
     private Cache resourceTable;
 
     private Timer _timer = new Timer("transaction-manager", true);
 
     static {
-        statusMap.put(Status.STATUS_ACTIVE, "Active");
-        statusMap.put(Status.STATUS_MARKED_ROLLBACK, "MarkedRollback");
-        statusMap.put(Status.STATUS_PREPARED, "Prepared");
-        statusMap.put(Status.STATUS_COMMITTED, "Committed");
-        statusMap.put(Status.STATUS_ROLLEDBACK, "RolledBack");
-        statusMap.put(Status.STATUS_UNKNOWN, "UnKnown");
-        statusMap.put(Status.STATUS_NO_TRANSACTION, "NoTransaction");
-        statusMap.put(Status.STATUS_PREPARING, "Preparing");
-        statusMap.put(Status.STATUS_COMMITTING, "Committing");
-        statusMap.put(Status.STATUS_ROLLING_BACK, "RollingBack");
+        Map<Integer, String> statuses = new HashMap<>();
+        statuses.put(Status.STATUS_ACTIVE, "Active");
+        statuses.put(Status.STATUS_MARKED_ROLLBACK, "MarkedRollback");
+        statuses.put(Status.STATUS_PREPARED, "Prepared");
+        statuses.put(Status.STATUS_COMMITTED, "Committed");
+        statuses.put(Status.STATUS_ROLLEDBACK, "RolledBack");
+        statuses.put(Status.STATUS_UNKNOWN, "UnKnown");
+        statuses.put(Status.STATUS_NO_TRANSACTION, "NoTransaction");
+        statuses.put(Status.STATUS_PREPARING, "Preparing");
+        statuses.put(Status.STATUS_COMMITTING, "Committing");
+        statuses.put(Status.STATUS_ROLLING_BACK, "RollingBack");
 
+        statusMap = Collections.unmodifiableMap(statuses);
     }
 
     public JavaEETransactionManagerSimplified() {
@@ -233,8 +237,6 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
         } catch (Exception ex) {
             // ignore
         }
-
-        monitor = new TransactionServiceProbeProvider();
     }
 
     /**
@@ -1042,7 +1044,8 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
      */
     public ArrayList getActiveTransactions() {
         ArrayList tranBeans = new ArrayList();
-        txnTable = new Hashtable();
+        Map<String, Transaction> table = new ConcurrentHashMap<>();
+        txnTable = table;
         Object[] activeCopy = activeTransactions.toArray(); // get the clone of the active transactions
         for (int i = 0; i < activeCopy.length; i++) {
             try {
@@ -1055,7 +1058,7 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
                     if (_logger.isLoggable(Level.FINE))
                         _logger.log(Level.FINE, "TM: Adding txnId " + tBean.getId() + " to txnTable");
 
-                    txnTable.put(tBean.getId(), tran);
+                    table.put(tBean.getId(), tran);
                     tranBeans.add(tBean);
                 }
             } catch (Exception ex) {
@@ -1088,18 +1091,19 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
      */
     public void forceRollback(String txnId) throws IllegalStateException, SystemException {
         // XXX - WORK AROUND MONITORING BUG
-        if (txnTable == null || txnTable.size() == 0)
+        if (txnTable == null || txnTable.isEmpty())
             getActiveTransactions();
         // XXX - WORK AROUND MONITORING BUG
 
-        if (txnTable == null || txnTable.get(txnId) == null) {
+        Transaction tran = txnTable == null ? null : txnTable.get(txnId);
+        if (tran == null) {
             String result = sm.getString("transaction.monitor.rollback_invalid_id");
             throw new IllegalStateException(result);
         } else {
             if (_logger.isLoggable(Level.FINE))
                 _logger.log(Level.FINE, "TM: Marking txnId " + txnId + " for rollback");
 
-            ((Transaction) txnTable.get(txnId)).setRollbackOnly();
+            tran.setRollbackOnly();
         }
 
     }
@@ -1112,14 +1116,20 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
 
     private void _monitorTxCompleted(Object obj, boolean committed) {
         if (obj != null) {
+            long startTime = 0;
             if (obj instanceof JavaEETransactionImpl) {
                 JavaEETransactionImpl t = (JavaEETransactionImpl) obj;
+                startTime = t.getStartTime();
                 if (!t.isLocalTx()) {
                     obj = t.getJTSTx();
                 }
             }
             if (activeTransactions.remove(obj)) {
                 if (committed) {
+                    if (startTime > 0) {
+                        monitor.transactionTimeEvent(
+                                TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - startTime));
+                    }
                     monitor.transactionCommittedEvent();
                 } else {
                     monitor.transactionRolledbackEvent();
@@ -1167,7 +1177,7 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
     /************************* Helper Methods ***********************************/
     /****************************************************************************/
     public static String getStatusAsString(int status) {
-        return (String) statusMap.get(status);
+        return statusMap.get(status);
     }
 
     private void delistComponentResources(ComponentInvocation inv, boolean suspend) throws InvocationException {
@@ -1377,7 +1387,7 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
     /**
      * Called by JavaEETransactionImpl also
      */
-    synchronized JavaEETransactionManagerDelegate getDelegate() {
+    JavaEETransactionManagerDelegate getDelegate() {
         JavaEETransactionManagerDelegate d = delegates.get();
         return (d == null) ? delegate : d;
     }
@@ -1441,6 +1451,18 @@ public class JavaEETransactionManagerSimplified implements JavaEETransactionMana
         }
     }
 
+    void monitorBeforeCompletion(long elapsedNanos) {
+        if (monitoringEnabled) {
+            monitor.beforeCompletionTimeEvent(elapsedNanos);
+        }
+    }
+
+    void monitorCommit(long elapsedNanos) {
+        if (monitoringEnabled) {
+            monitor.commitTimeEvent(elapsedNanos);
+        }
+    }
+
     public void monitorTxBegin(Transaction tx) {
         if (monitoringEnabled) {
             activeTransactions.add(tx);
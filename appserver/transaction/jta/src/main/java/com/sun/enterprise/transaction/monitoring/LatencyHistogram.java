@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of the latencies of one phase of transaction completion.
+ * <p>
+ * The latencies are counted in buckets whose bounds are the powers of two in microseconds, so the percentiles are
+ * known to within a factor of two. Recording never blocks: every bucket and total is a {@link LongAdder}, so threads
+ * completing transactions at the same time do not contend on a single counter.
+ */
+public final class LatencyHistogram {
+
+    // Bucket 0 counts latencies below 1 microsecond, bucket i those from 2^(i-1) up to 2^i microseconds.
+    // The last bucket also counts anything longer than about 6 days.
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int bucket = Math.min(Long.SIZE - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        updateMin(nanos);
+        updateMax(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @return the shortest latency recorded in nanoseconds, or 0 if none was recorded
+     */
+    public long getMinNanos() {
+        long min = minNanos.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the latency below which the given share of the recorded latencies fall.
+     *
+     * @param percentile the share, between 0 and 100
+     * @return the upper bound in microseconds of the bucket holding the percentile, never more than the longest latency
+     * recorded; 0 if none was recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        int bucket = 0;
+        for (; bucket < BUCKETS - 1; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                break;
+            }
+        }
+        return Math.min(1L << bucket, TimeUnit.NANOSECONDS.toMicros(getMaxNanos()));
+    }
+
+    private void updateMin(long value) {
+        long current;
+        while (value < (current = minNanos.get()) && !minNanos.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    private void updateMax(long value) {
+        long current;
+        while (value > (current = maxNanos.get()) && !maxNanos.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+}
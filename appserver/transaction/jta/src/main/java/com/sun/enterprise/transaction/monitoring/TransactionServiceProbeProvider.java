@@ -48,4 +48,40 @@ public class TransactionServiceProbeProvider {
     @Probe(name = "freeze")
     public void freezeEvent(@ProbeParam("isFrozen") boolean b) {
     }
+
+    @Probe(name = "transactiontime")
+    public void transactionTimeEvent(@ProbeParam("elapsedNanos") long elapsedNanos) {
+    }
+
+    @Probe(name = "beforecompletiontime")
+    public void beforeCompletionTimeEvent(@ProbeParam("elapsedNanos") long elapsedNanos) {
+    }
+
+    @Probe(name = "preparetime")
+    public void prepareTimeEvent(@ProbeParam("resourceType") String resourceType, @ProbeParam("elapsedNanos") long elapsedNanos) {
+    }
+
+    @Probe(name = "logforcetime")
+    public void logForceTimeEvent(@ProbeParam("elapsedNanos") long elapsedNanos) {
+    }
+
+    @Probe(name = "committime")
+    public void commitTimeEvent(@ProbeParam("elapsedNanos") long elapsedNanos) {
+    }
+
+    @Probe(name = "recoverystarted")
+    public void recoveryStartedEvent(@ProbeParam("resources") int resources) {
+    }
+
+    @Probe(name = "recoveryscanned")
+    public void recoveryScannedEvent(@ProbeParam("inDoubt") int inDoubt, @ProbeParam("elapsedMillis") long elapsedMillis) {
+    }
+
+    @Probe(name = "recoveryresolved")
+    public void recoveryResolvedEvent() {
+    }
+
+    @Probe(name = "recoverycompleted")
+    public void recoveryCompletedEvent(@ProbeParam("elapsedMillis") long elapsedMillis) {
+    }
 }
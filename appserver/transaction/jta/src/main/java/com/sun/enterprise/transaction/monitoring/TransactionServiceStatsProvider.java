@@ -17,15 +17,23 @@
 
 package com.sun.enterprise.transaction.monitoring;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
 import org.glassfish.external.statistics.StringStatistic;
+import org.glassfish.external.statistics.TimeStatistic;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
 import org.glassfish.external.statistics.impl.StringStatisticImpl;
+import org.glassfish.external.statistics.impl.TimeStatisticImpl;
 import org.glassfish.gmbal.AMXMetadata;
 import org.glassfish.gmbal.Description;
 import org.glassfish.gmbal.ManagedAttribute;
@@ -62,6 +70,36 @@ public class TransactionServiceStatsProvider {
 
     private StringStatisticImpl state = new StringStatisticImpl("State", "String", "Indicates if the transaction service has been frozen.");
 
+    private CountStatisticImpl recoveryResourceCount = new CountStatisticImpl("RecoveryResourceCount", "count",
+            "Provides the number of resources that transaction recovery has started to recover.");
+
+    private CountStatisticImpl recoveryScannedCount = new CountStatisticImpl("RecoveryScannedCount", "count",
+            "Provides the number of resources that transaction recovery has scanned for in-doubt transactions.");
+
+    private CountStatisticImpl recoveryInDoubtCount = new CountStatisticImpl("RecoveryInDoubtCount", "count",
+            "Provides the number of in-doubt transaction branches that transaction recovery has found.");
+
+    private CountStatisticImpl recoveryResolvedCount = new CountStatisticImpl("RecoveryResolvedCount", "count",
+            "Provides the number of in-doubt transaction branches that transaction recovery has resolved.");
+
+    private CountStatisticImpl recoveryScanTime = new CountStatisticImpl("RecoveryScanTime", "millisecond",
+            "Provides the time taken by the longest scan of a resource for in-doubt transactions.");
+
+    private CountStatisticImpl recoveryTime = new CountStatisticImpl("RecoveryTime", "millisecond",
+            "Provides the time taken by the last completed transaction recovery.");
+
+    private StringStatisticImpl phaseLatencies = new StringStatisticImpl("PhaseLatencies", "List",
+            "Provides the distribution of the time taken by each phase of transaction completion, in microseconds.");
+
+    private final long startTime = System.currentTimeMillis();
+
+    private final LatencyHistogram transactionTime = new LatencyHistogram();
+    private final LatencyHistogram beforeCompletionTime = new LatencyHistogram();
+    private final LatencyHistogram prepareTime = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> prepareTimeByResourceType = new ConcurrentHashMap<>();
+    private final LatencyHistogram logForceTime = new LatencyHistogram();
+    private final LatencyHistogram commitTime = new LatencyHistogram();
+
     private boolean isFrozen = false;
 
     private JavaEETransactionManager txMgr;
@@ -91,6 +129,120 @@ public class TransactionServiceStatsProvider {
         return rolledbackCount;
     }
 
+    @ManagedAttribute(id = "recoveryresourcecount")
+    @Description("Provides the number of resources that transaction recovery has started to recover.")
+    public CountStatistic getRecoveryResourceCount() {
+        return recoveryResourceCount;
+    }
+
+    @ManagedAttribute(id = "recoveryscannedcount")
+    @Description("Provides the number of resources that transaction recovery has scanned for in-doubt transactions.")
+    public CountStatistic getRecoveryScannedCount() {
+        return recoveryScannedCount;
+    }
+
+    @ManagedAttribute(id = "recoveryindoubtcount")
+    @Description("Provides the number of in-doubt transaction branches that transaction recovery has found.")
+    public CountStatistic getRecoveryInDoubtCount() {
+        return recoveryInDoubtCount;
+    }
+
+    @ManagedAttribute(id = "recoveryresolvedcount")
+    @Description("Provides the number of in-doubt transaction branches that transaction recovery has resolved.")
+    public CountStatistic getRecoveryResolvedCount() {
+        return recoveryResolvedCount;
+    }
+
+    @ManagedAttribute(id = "recoveryscantime")
+    @Description("Provides the time taken by the longest scan of a resource for in-doubt transactions.")
+    public CountStatistic getRecoveryScanTime() {
+        return recoveryScanTime;
+    }
+
+    @ManagedAttribute(id = "recoverytime")
+    @Description("Provides the time taken by the last completed transaction recovery.")
+    public CountStatistic getRecoveryTime() {
+        return recoveryTime;
+    }
+
+    @ManagedAttribute(id = "transactiontime")
+    @Description("Provides the time from the beginning of a transaction to the end of its commit.")
+    public TimeStatistic getTransactionTime() {
+        return toTimeStatistic(transactionTime, "TransactionTime", TimeUnit.MILLISECONDS,
+                "Provides the time from the beginning of a transaction to the end of its commit.");
+    }
+
+    @ManagedAttribute(id = "beforecompletiontime")
+    @Description("Provides the time taken by the before completion synchronizations of a transaction.")
+    public TimeStatistic getBeforeCompletionTime() {
+        return toTimeStatistic(beforeCompletionTime, "BeforeCompletionTime", TimeUnit.MICROSECONDS,
+                "Provides the time taken by the before completion synchronizations of a transaction.");
+    }
+
+    @ManagedAttribute(id = "preparetime")
+    @Description("Provides the time taken by the prepare of a resource.")
+    public TimeStatistic getPrepareTime() {
+        return toTimeStatistic(prepareTime, "PrepareTime", TimeUnit.MICROSECONDS,
+                "Provides the time taken by the prepare of a resource.");
+    }
+
+    @ManagedAttribute(id = "logforcetime")
+    @Description("Provides the time taken by a forced write to the transaction log.")
+    public TimeStatistic getLogForceTime() {
+        return toTimeStatistic(logForceTime, "LogForceTime", TimeUnit.MICROSECONDS,
+                "Provides the time taken by a forced write to the transaction log.");
+    }
+
+    @ManagedAttribute(id = "committime")
+    @Description("Provides the time taken by the commit of the resources of a transaction.")
+    public TimeStatistic getCommitTime() {
+        return toTimeStatistic(commitTime, "CommitTime", TimeUnit.MICROSECONDS,
+                "Provides the time taken by the commit of the resources of a transaction.");
+    }
+
+    @ManagedAttribute(id = "phaselatencies")
+    @Description("Distribution of the time taken by each phase of transaction completion.")
+    public StringStatistic getPhaseLatencies() {
+        Map<String, LatencyHistogram> phases = new LinkedHashMap<>();
+        phases.put("transaction", transactionTime);
+        phases.put("before-completion", beforeCompletionTime);
+        phases.put("prepare", prepareTime);
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(prepareTimeByResourceType).entrySet()) {
+            phases.put("prepare " + entry.getKey(), entry.getValue());
+        }
+        phases.put("log-force", logForceTime);
+        phases.put("commit", commitTime);
+
+        int phaseLength = COLUMN_LENGTH;
+        for (String phase : phases.keySet()) {
+            if (phase.length() >= phaseLength) {
+                phaseLength = phase.length() + 1;
+            }
+        }
+
+        StringBuffer strBuf = new StringBuffer(1024);
+        strBuf.append(LINE_BREAK).append(LINE_BREAK);
+        appendColumn(strBuf, "Phase", phaseLength);
+        appendColumn(strBuf, "Count", COLUMN_LENGTH);
+        appendColumn(strBuf, "50%(us)", COLUMN_LENGTH);
+        appendColumn(strBuf, "90%(us)", COLUMN_LENGTH);
+        appendColumn(strBuf, "99%(us)", COLUMN_LENGTH);
+        strBuf.append("Max(us)").append(LINE_BREAK);
+
+        for (Map.Entry<String, LatencyHistogram> entry : phases.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            appendColumn(strBuf, entry.getKey(), phaseLength);
+            appendColumn(strBuf, String.valueOf(histogram.getCount()), COLUMN_LENGTH);
+            appendColumn(strBuf, String.valueOf(histogram.getPercentileMicros(50)), COLUMN_LENGTH);
+            appendColumn(strBuf, String.valueOf(histogram.getPercentileMicros(90)), COLUMN_LENGTH);
+            appendColumn(strBuf, String.valueOf(histogram.getPercentileMicros(99)), COLUMN_LENGTH);
+            strBuf.append(TimeUnit.NANOSECONDS.toMicros(histogram.getMaxNanos())).append(LINE_BREAK);
+        }
+
+        phaseLatencies.setCurrent(strBuf.toString());
+        return phaseLatencies;
+    }
+
     @ManagedAttribute(id = "state")
     @Description("Indicates if the transaction service has been frozen.")
     public StringStatistic getState() {
@@ -194,6 +346,70 @@ public class TransactionServiceStatsProvider {
         isFrozen = b;
     }
 
+    @ProbeListener("glassfish:transaction:transaction-service:transactiontime")
+    public void transactionTimeEvent(@ProbeParam("elapsedNanos") long elapsedNanos) {
+        transactionTime.record(elapsedNanos);
+    }
+
+    @ProbeListener("glassfish:transaction:transaction-service:beforecompletiontime")
+    public void beforeCompletionTimeEvent(@ProbeParam("elapsedNanos") long elapsedNanos) {
+        beforeCompletionTime.record(elapsedNanos);
+    }
+
+    @ProbeListener("glassfish:transaction:transaction-service:preparetime")
+    public void prepareTimeEvent(@ProbeParam("resourceType") String resourceType, @ProbeParam("elapsedNanos") long elapsedNanos) {
+        prepareTime.record(elapsedNanos);
+        prepareTimeByResourceType.computeIfAbsent(resourceType, type -> new LatencyHistogram()).record(elapsedNanos);
+    }
+
+    @ProbeListener("glassfish:transaction:transaction-service:logforcetime")
+    public void logForceTimeEvent(@ProbeParam("elapsedNanos") long elapsedNanos) {
+        logForceTime.record(elapsedNanos);
+    }
+
+    @ProbeListener("glassfish:transaction:transaction-service:committime")
+    public void commitTimeEvent(@ProbeParam("elapsedNanos") long elapsedNanos) {
+        commitTime.record(elapsedNanos);
+    }
+
+    @ProbeListener("glassfish:transaction:transaction-service:recoverystarted")
+    public void recoveryStartedEvent(@ProbeParam("resources") int resources) {
+        _logger.fine("=== transaction-service recovery started for " + resources + " resources");
+        recoveryResourceCount.increment(resources);
+    }
+
+    @ProbeListener("glassfish:transaction:transaction-service:recoveryscanned")
+    public void recoveryScannedEvent(@ProbeParam("inDoubt") int inDoubt, @ProbeParam("elapsedMillis") long elapsedMillis) {
+        _logger.fine("=== transaction-service recovery scanned " + inDoubt + " in-doubt in " + elapsedMillis + " ms");
+        recoveryScannedCount.increment();
+        recoveryInDoubtCount.increment(inDoubt);
+        synchronized (recoveryScanTime) {
+            if (elapsedMillis > recoveryScanTime.getCount()) {
+                recoveryScanTime.setCount(elapsedMillis);
+            }
+        }
+    }
+
+    @ProbeListener("glassfish:transaction:transaction-service:recoveryresolved")
+    public void recoveryResolvedEvent() {
+        recoveryResolvedCount.increment();
+    }
+
+    @ProbeListener("glassfish:transaction:transaction-service:recoverycompleted")
+    public void recoveryCompletedEvent(@ProbeParam("elapsedMillis") long elapsedMillis) {
+        _logger.fine("=== transaction-service recovery completed in " + elapsedMillis + " ms");
+        recoveryTime.setCount(elapsedMillis);
+    }
+
+    private TimeStatistic toTimeStatistic(LatencyHistogram histogram, String name, TimeUnit unit, String description) {
+        return new TimeStatisticImpl(histogram.getCount(),
+                unit.convert(histogram.getMaxNanos(), TimeUnit.NANOSECONDS),
+                unit.convert(histogram.getMinNanos(), TimeUnit.NANOSECONDS),
+                unit.convert(histogram.getTotalNanos(), TimeUnit.NANOSECONDS),
+                name, unit == TimeUnit.MILLISECONDS ? "millisecond" : "microsecond", description,
+                startTime, System.currentTimeMillis());
+    }
+
     private void appendColumn(StringBuffer buf, String text, int length) {
         buf.append(text);
         for (int i = text.length(); i < length; i++) {
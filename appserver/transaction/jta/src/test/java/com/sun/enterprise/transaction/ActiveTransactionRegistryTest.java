@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction;
+
+import com.sun.enterprise.transaction.api.TransactionAdminBean;
+import com.sun.enterprise.transaction.spi.JavaEETransactionManagerDelegate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.glassfish.api.invocation.InvocationManagerImpl;
+import org.junit.jupiter.api.Test;
+
+import jakarta.transaction.RollbackException;
+import jakarta.transaction.Transaction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ActiveTransactionRegistryTest {
+
+    @Test
+    public void countsTransactionsAddedTwice() {
+        ActiveTransactionRegistry registry = new ActiveTransactionRegistry(4);
+        Object tx1 = new Object();
+        Object tx2 = new Object();
+        registry.add(tx1);
+        registry.add(tx1);
+        registry.add(tx2);
+        assertEquals(3, registry.size());
+        assertEquals(3, registry.toArray().length);
+
+        assertTrue(registry.remove(tx1));
+        assertArrayEquals(new Object[] {tx2}, without(registry.toArray(), tx1));
+        assertEquals(2, registry.size());
+        assertTrue(registry.remove(tx1));
+        assertFalse(registry.remove(tx1));
+        assertArrayEquals(new Object[] {tx2}, registry.toArray());
+
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertFalse(registry.remove(tx2));
+    }
+
+    @Test
+    public void leavesNothingAfterConcurrentAddAndRemove() throws Exception {
+        ActiveTransactionRegistry registry = new ActiveTransactionRegistry(2);
+        int threads = 8;
+        int transactions = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < transactions; i++) {
+                        Object tx = new Object();
+                        registry.add(tx);
+                        registry.add(tx);
+                        assertTrue(registry.remove(tx));
+                        assertTrue(registry.remove(tx));
+                        assertFalse(registry.remove(tx));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(worker.isAlive());
+        }
+
+        assertNull(failure.get());
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.toArray().length);
+    }
+
+    @Test
+    public void tracksTheTransactionsOfTheManager() throws Exception {
+        JavaEETransactionManagerSimplified txManager = new JavaEETransactionManagerSimplified();
+        txManager.invMgr = new InvocationManagerImpl();
+        JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerSimplifiedDelegate();
+        txManager.setDelegate(delegate);
+        delegate.setTransactionManager(txManager);
+        txManager.setMonitoringEnabled(true);
+
+        txManager.begin();
+        Transaction tx = txManager.getTransaction();
+        List<?> active = txManager.getActiveTransactions();
+        assertEquals(1, active.size());
+        TransactionAdminBean bean = (TransactionAdminBean) active.get(0);
+        assertSame(tx, bean.getIdentifier());
+        assertEquals("Active", bean.getStatus());
+
+        txManager.forceRollback(bean.getId());
+        assertThrows(RollbackException.class, txManager::commit);
+        assertTrue(txManager.getActiveTransactions().isEmpty());
+        assertThrows(IllegalStateException.class, () -> txManager.forceRollback(bean.getId()));
+
+        txManager.begin();
+        txManager.commit();
+        assertTrue(txManager.getActiveTransactions().isEmpty());
+    }
+
+    private static Object[] without(Object[] transactions, Object tx) {
+        List<Object> rest = new ArrayList<>();
+        for (Object transaction : transactions) {
+            if (transaction != tx) {
+                rest.add(transaction);
+            }
+        }
+        assertEquals(transactions.length - 1, rest.size());
+        return rest.toArray();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction;
+
+import com.sun.enterprise.transaction.spi.JavaEETransactionManagerDelegate;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.api.invocation.InvocationManagerImpl;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Begin/commit throughput of local transactions with monitoring enabled, which registers every transaction in the
+ * active transaction registry, for an increasing number of threads.
+ * <p>
+ * Excluded from the default build, run it with {@code mvn test -Pbenchmark}.
+ */
+public class JavaEETransactionManagerBenchmarkTest {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    @Test
+    public void beginCommit_throughputByThreads() throws Exception {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                .include(getClass().getName() + ".*")
+                .warmupIterations(1).warmupTime(TimeValue.milliseconds(100L))
+                .measurementIterations(1).measurementTime(TimeValue.milliseconds(200L))
+                .forks(1).threads(threads).timeout(TimeValue.seconds(10L))
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .mode(Mode.Throughput).shouldFailOnError(true)
+                .build();
+
+            Collection<RunResult> results = new Runner(options).run();
+            assertThat(results, hasSize(1));
+            Result<?> primaryResult = results.iterator().next().getPrimaryResult();
+            assertThat(primaryResult.getScore(), greaterThan(0d));
+        }
+    }
+
+
+    @Benchmark
+    public void beginCommit(TransactionManagerState state) throws Exception {
+        state.txManager.begin();
+        state.txManager.commit();
+    }
+
+
+    @State(Scope.Benchmark)
+    public static class TransactionManagerState {
+
+        JavaEETransactionManagerSimplified txManager;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            txManager = new JavaEETransactionManagerSimplified();
+            txManager.invMgr = new InvocationManagerImpl();
+            JavaEETransactionManagerDelegate delegate = new JavaEETransactionManagerSimplifiedDelegate();
+            txManager.setDelegate(delegate);
+            delegate.setTransactionManager(txManager);
+            txManager.setMonitoringEnabled(true);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            assertEquals(0, txManager.getActiveTransactions().size(), "Transactions left in the registry");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction.monitoring;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMinNanos());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(100), histogram.getMinNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), histogram.getMaxNanos());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(90 * 100 + 10 * 5000), histogram.getTotalNanos());
+
+        // 100 microseconds fall in the bucket up to 128, 5 milliseconds in the last bucket recorded
+        assertEquals(128, histogram.getPercentileMicros(50));
+        assertEquals(128, histogram.getPercentileMicros(90));
+        assertEquals(5000, histogram.getPercentileMicros(99));
+    }
+}
@@ -36,6 +36,8 @@ import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
 
 import org.glassfish.api.admin.ServerEnvironment;
+import org.glassfish.external.probe.provider.PluginPoint;
+import org.glassfish.external.probe.provider.StatsProviderManager;
 import org.glassfish.hk2.api.PostConstruct;
 import org.glassfish.hk2.api.ServiceLocator;
 import org.jvnet.hk2.annotations.Service;
@@ -47,6 +49,9 @@ import com.sun.enterprise.transaction.api.JavaEETransactionManager;
 import com.sun.enterprise.transaction.api.TransactionAdminBean;
 import com.sun.enterprise.transaction.api.XAResourceWrapper;
 import com.sun.enterprise.transaction.config.TransactionService;
+import com.sun.enterprise.transaction.jts.monitoring.TransactionLogStatsProvider;
+import com.sun.enterprise.transaction.jts.monitoring.TransactionPhaseProbeEmitter;
+import com.sun.enterprise.transaction.jts.monitoring.TransactionRecoveryProbeEmitter;
 import com.sun.enterprise.transaction.jts.recovery.GMSCallBack;
 import com.sun.enterprise.transaction.jts.recovery.OracleXAResource;
 import com.sun.enterprise.transaction.jts.recovery.SybaseXAResource;
@@ -120,6 +125,16 @@ public class JavaEETransactionManagerJTSDelegate implements JavaEETransactionMan
         _logger = LogDomains.getLogger(JavaEETransactionManagerSimplified.class, LogDomains.JTA_LOGGER);
         initTransactionProperties();
 
+        try {
+            StatsProviderManager.register("transaction-service", // element in domain.xml <monitoring-service>/<monitoring-level>
+                    PluginPoint.SERVER, "transaction-service/transaction-log", // server.transaction-service.transaction-log node in asadmin get
+                    new TransactionLogStatsProvider());
+        } catch (Exception ex) {
+            // ignore
+        }
+        RecoveryManager.registerTransactionRecoveryListener(new TransactionRecoveryProbeEmitter());
+        Configuration.setTransactionPhaseListener(new TransactionPhaseProbeEmitter());
+
         setInstance(this);
     }
 
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction.jts.api;
+
+/**
+ * Receives the time taken by the phases of the completion of JTS transactions.
+ * <p>
+ * The methods are called on the completing threads, so they should return quickly.
+ */
+public interface TransactionPhaseListener {
+
+    /**
+     * The before completion synchronizations of a transaction have been called.
+     *
+     * @param elapsedNanos the time taken by all synchronizations of the transaction
+     */
+    void beforeCompletion(long elapsedNanos);
+
+    /**
+     * A resource of a transaction has been prepared.
+     *
+     * @param resourceType the class of the XA resource, or <code>remote</code> for a resource in another process
+     * @param elapsedNanos the time taken by the prepare
+     */
+    void prepared(String resourceType, long elapsedNanos);
+
+    /**
+     * A forced write to the transaction log has completed.
+     *
+     * @param elapsedNanos the time taken by the write
+     */
+    void logForced(long elapsedNanos);
+
+    /**
+     * The resources of a transaction have been committed.
+     *
+     * @param elapsedNanos the time taken by the commit of all resources of the transaction
+     */
+    void committed(long elapsedNanos);
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction.jts.api;
+
+/**
+ * Receives the progress of the recovery of in-doubt XA transaction branches.
+ * <p>
+ * The resources are scanned and their branches resolved concurrently, so the methods may be called from several
+ * threads at once.
+ */
+public interface TransactionRecoveryListener {
+
+    /**
+     * Recovery of the given number of resources has started.
+     */
+    void recoveryStarted(int resources);
+
+    /**
+     * A resource has been scanned for in-doubt branches.
+     *
+     * @param inDoubt the number of in-doubt branches reported by the resource
+     * @param elapsedMillis the time taken by the scan
+     */
+    void resourceScanned(int inDoubt, long elapsedMillis);
+
+    /**
+     * An in-doubt branch has been committed, rolled back or handed to its transaction for completion.
+     */
+    void branchResolved();
+
+    /**
+     * Recovery has completed.
+     *
+     * @param elapsedMillis the time since recovery started
+     */
+    void recoveryCompleted(long elapsedMillis);
+}
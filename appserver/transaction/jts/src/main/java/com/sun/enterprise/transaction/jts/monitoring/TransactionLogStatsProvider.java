@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction.jts.monitoring;
+
+import org.glassfish.external.statistics.CountStatistic;
+import org.glassfish.external.statistics.impl.CountStatisticImpl;
+import org.glassfish.gmbal.AMXMetadata;
+import org.glassfish.gmbal.Description;
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedObject;
+
+import com.sun.jts.CosTransactions.LogGroupCommit;
+
+/**
+ * Provides the group commit statistics of the JTS transaction log.
+ */
+@AMXMetadata(type = "transaction-log-mon", group = "monitoring")
+@ManagedObject
+@Description("Transaction Log Statistics")
+public class TransactionLogStatsProvider {
+
+    private final CountStatisticImpl forceCount = new CountStatisticImpl("ForceCount", "count",
+            "Provides the number of forced log writes that went through group commit.");
+
+    private final CountStatisticImpl syncCount = new CountStatisticImpl("SyncCount", "count",
+            "Provides the number of times the log was synchronized with the file system by group commit.");
+
+    private final CountStatisticImpl averageBatchSize = new CountStatisticImpl("AverageBatchSize", "count",
+            "Provides the average number of log records made durable by one sync.");
+
+    private final CountStatisticImpl maxBatchSize = new CountStatisticImpl("MaxBatchSize", "count",
+            "Provides the largest number of log records made durable by one sync.");
+
+    private final CountStatisticImpl averageWaitTime = new CountStatisticImpl("AverageWaitTime", "microseconds",
+            "Provides the average time a forced log write waited for its sync.");
+
+    private final CountStatisticImpl maxWaitTime = new CountStatisticImpl("MaxWaitTime", "microseconds",
+            "Provides the longest time a forced log write waited for its sync.");
+
+    @ManagedAttribute(id = "forcecount")
+    @Description("Provides the number of forced log writes that went through group commit.")
+    public CountStatistic getForceCount() {
+        forceCount.setCount(LogGroupCommit.getForceRequestCount());
+        return forceCount;
+    }
+
+    @ManagedAttribute(id = "synccount")
+    @Description("Provides the number of times the log was synchronized with the file system by group commit.")
+    public CountStatistic getSyncCount() {
+        syncCount.setCount(LogGroupCommit.getSyncCount());
+        return syncCount;
+    }
+
+    @ManagedAttribute(id = "averagebatchsize")
+    @Description("Provides the average number of log records made durable by one sync.")
+    public CountStatistic getAverageBatchSize() {
+        averageBatchSize.setCount(Math.round(LogGroupCommit.getAverageBatchSize()));
+        return averageBatchSize;
+    }
+
+    @ManagedAttribute(id = "maxbatchsize")
+    @Description("Provides the largest number of log records made durable by one sync.")
+    public CountStatistic getMaxBatchSize() {
+        maxBatchSize.setCount(LogGroupCommit.getMaxBatchSize());
+        return maxBatchSize;
+    }
+
+    @ManagedAttribute(id = "averagewaittime")
+    @Description("Provides the average time in microseconds a forced log write waited for its sync.")
+    public CountStatistic getAverageWaitTime() {
+        averageWaitTime.setCount(LogGroupCommit.getAverageWaitMicros());
+        return averageWaitTime;
+    }
+
+    @ManagedAttribute(id = "maxwaittime")
+    @Description("Provides the longest time in microseconds a forced log write waited for its sync.")
+    public CountStatistic getMaxWaitTime() {
+        maxWaitTime.setCount(LogGroupCommit.getMaxWaitMicros());
+        return maxWaitTime;
+    }
+}
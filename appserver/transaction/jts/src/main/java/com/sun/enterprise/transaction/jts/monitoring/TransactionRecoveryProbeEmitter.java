@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.transaction.jts.monitoring;
+
+import com.sun.enterprise.transaction.jts.api.TransactionRecoveryListener;
+import com.sun.enterprise.transaction.monitoring.TransactionServiceProbeProvider;
+
+/**
+ * Fires the recovery probes of the Transaction Service, which are collected by
+ * {@link com.sun.enterprise.transaction.monitoring.TransactionServiceStatsProvider}.
+ */
+public class TransactionRecoveryProbeEmitter implements TransactionRecoveryListener {
+
+    private final TransactionServiceProbeProvider probeProvider = new TransactionServiceProbeProvider();
+
+    @Override
+    public void recoveryStarted(int resources) {
+        probeProvider.recoveryStartedEvent(resources);
+    }
+
+    @Override
+    public void resourceScanned(int inDoubt, long elapsedMillis) {
+        probeProvider.recoveryScannedEvent(inDoubt, elapsedMillis);
+    }
+
+    @Override
+    public void branchResolved() {
+        probeProvider.recoveryResolvedEvent();
+    }
+
+    @Override
+    public void recoveryCompleted(long elapsedMillis) {
+        probeProvider.recoveryCompletedEvent(elapsedMillis);
+    }
+}
@@ -31,6 +31,7 @@
 package com.sun.jts.CosTransactions;
 
 import com.sun.enterprise.transaction.api.TransactionConstants;
+import com.sun.enterprise.transaction.jts.api.TransactionPhaseListener;
 import com.sun.jts.utils.LogFormatter;
 import com.sun.logging.LogDomains;
 
@@ -67,6 +68,7 @@ public class Configuration extends Object {
     private static boolean localFactory = false;
     private static boolean recoverable = false;
     private static ProxyChecker checker = null;
+    private static volatile TransactionPhaseListener phaseListener = null;
     private static LogFile logFile = null;
     private static Hashtable poas = new Hashtable();
     private static String dbLogResource = null;
@@ -188,6 +190,80 @@ public class Configuration extends Object {
      */
     public final static String TIMEOUT_INTERVAL = "com.sun.jts.timeoutInterval" ;
 
+    /**The property is used to specify whether forced log writes of concurrent
+     * transactions are synchronized with the file system together.
+     * <p>
+     * The value is <em><b>com.sun.jts.groupCommit</b></em>.
+     * <p>
+     * The default is to force every log write individually. If the value is
+     * 'true', group commit is used.
+     */
+    public final static String GROUP_COMMIT = "com.sun.jts.groupCommit";
+
+    /**The property is used to specify the time in microseconds for which a group
+     * commit waits for further log writes before forcing the log. A higher value
+     * forces more records at once, at the cost of the commit latency.
+     * <p>
+     * The value is <em><b>com.sun.jts.groupCommitWaitMicros</b></em>.
+     * <p>
+     * The default value for this property is 200. If the value is zero, the log
+     * is forced without waiting.
+     */
+    public final static String GROUP_COMMIT_WAIT = "com.sun.jts.groupCommitWaitMicros";
+
+    /**The property is used to specify whether the transaction log is written to
+     * preallocated, memory-mapped segments instead of the extent files.
+     * <p>
+     * The value is <em><b>com.sun.jts.segmentedLog</b></em>.
+     * <p>
+     * The default is to use the extent files. If the value is 'true', a new log is
+     * created as a segmented log. An existing log is always opened in the format
+     * it was written in.
+     */
+    public final static String SEGMENTED_LOG = "com.sun.jts.segmentedLog";
+
+    /**The property is used to specify the size in bytes of the segments of a
+     * segmented log.
+     * <p>
+     * The value is <em><b>com.sun.jts.logSegmentSize</b></em>.
+     * <p>
+     * The default value for this property is 4194304 (4 MB). Values below 65536
+     * are raised to 65536.
+     */
+    public final static String LOG_SEGMENT_SIZE = "com.sun.jts.logSegmentSize";
+
+    /**The property is used to specify whether prepare and commit are sent to
+     * the resources of a transaction in parallel instead of one after the other.
+     * <p>
+     * The value is <em><b>com.sun.jts.parallelResourceCompletion</b></em>.
+     * <p>
+     * The default is to complete the resources serially. If the value is 'true',
+     * the resources are called from a bounded pool of threads; the last agent
+     * resource is still called last, on the completing thread.
+     */
+    public final static String PARALLEL_COMPLETION = "com.sun.jts.parallelResourceCompletion";
+
+    /**The property is used to specify the maximum number of threads which call
+     * resources in parallel for all transactions of the process.
+     * <p>
+     * The value is <em><b>com.sun.jts.parallelResourceCompletionThreads</b></em>.
+     * <p>
+     * The default value for this property is twice the number of processors.
+     * When all threads are busy, the completing thread calls the resource itself.
+     */
+    public final static String PARALLEL_COMPLETION_THREADS = "com.sun.jts.parallelResourceCompletionThreads";
+
+    /**The property is used to specify the maximum number of XA resources which
+     * are scanned for in-doubt transactions, and whose in-doubt transactions are
+     * completed, at the same time during recovery.
+     * <p>
+     * The value is <em><b>com.sun.jts.recoveryThreads</b></em>.
+     * <p>
+     * The default value for this property is 8. If the value is 1, the
+     * resources are recovered one after the other.
+     */
+    public final static String RECOVERY_THREADS = "com.sun.jts.recoveryThreads";
+
     /**The default subdirectory in which log and repository files are stored.
      */
     public final static String JTS_SUBDIRECTORY = "jts"/*#Frozen*/;
@@ -527,6 +603,29 @@ public class Configuration extends Object {
     }
 
 
+    /**
+     * Sets the listener which receives the time taken by the phases of
+     * transaction completion.
+     *
+     * @param newListener The new TransactionPhaseListener, or null.
+     */
+    public static final void setTransactionPhaseListener(TransactionPhaseListener newListener) {
+        phaseListener = newListener;
+    }
+
+
+    /**
+     * Returns the listener which receives the time taken by the phases of
+     * transaction completion.
+     *
+     * @param
+     * @return The TransactionPhaseListener, or null.
+     */
+    public static final TransactionPhaseListener getTransactionPhaseListener() {
+        return phaseListener;
+    }
+
+
     /**
      * Sets the identity of the log file for the process.
      *
@@ -43,6 +43,7 @@ import java.util.logging.Logger;
 import java.util.logging.Level;
 import com.sun.logging.LogDomains;
 import com.sun.jts.utils.LogFormatter;
+import com.sun.enterprise.transaction.jts.api.TransactionPhaseListener;
 
 /**The CoordinatorLog interface provides operations to record transaction-
  * specific information that needs to be persistently stored at a particular
@@ -1036,13 +1037,21 @@ class CoordinatorLog extends java.lang.Object implements LogUpcallTarget {
                         rewriteRequired,dataOutput);
                 }
 
-                // Write the buffer to the LogFile.
+                // Write the buffer to the LogFile. The time taken by a forced
+                // write is reported to the TransactionPhaseListener.
+
+                TransactionPhaseListener phaseListener = forced ? Configuration.getTransactionPhaseListener() : null;
+                long start = phaseListener != null ? System.nanoTime() : 0;
 
                 result = logStateHolder.logFile.write( forced ? LogFile.FORCED : LogFile.UNFORCED,
                     byteOutput.toByteArray(),
                     rewriteRequired ? LogFile.REWRITE : LogFile.NORMAL,
                         null );
 
+                if (phaseListener != null) {
+                    phaseListener.logForced(System.nanoTime() - start);
+                }
+
                 rewriteRequired = false;
                 writeDone = true;
             }
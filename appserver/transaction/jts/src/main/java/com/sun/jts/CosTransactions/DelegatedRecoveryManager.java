@@ -551,17 +551,21 @@ public class DelegatedRecoveryManager {
         }
 
         Vector otsResources = new Vector();
+        List<Integer> otsResourceRMs = new ArrayList<>();
         // Map uniqueXids = new Hashtable();
         Set uniqueXids = new HashSet();
 
-        while (xaResources.hasMoreElements()) {
+        // Get the lists of XIDs which represent in-doubt transactions
+        // for the databases. The resources are scanned concurrently.
 
-            XAResource xaResource = (XAResource) xaResources.nextElement();
+        List<XAResource> resourceList = Collections.list(xaResources);
+        ParallelRecovery recovery = new ParallelRecovery(resourceList);
+        Xid[][] scannedXids = recovery.scan();
 
-            // Get the list of XIDs which represent in-doubt transactions
-            // for the database.
+        for (int rm = 0; rm < resourceList.size(); rm++) {
 
-            Xid[] inDoubtXids = RecoveryManager.getInDoubtXids(xaResource);
+            XAResource xaResource = resourceList.get(rm);
+            Xid[] inDoubtXids = scannedXids[rm];
             // uniqueXids.clear();
                 if (inDoubtXids == null || inDoubtXids.length == 0) {
                     continue; // go to the next resource
@@ -603,6 +607,7 @@ public class DelegatedRecoveryManager {
                             new OTSResourceImpl(inDoubtXids[i],
                             xaResource, null
                             ).getCORBAObjReference());
+                            otsResourceRMs.add(rm);
                         } else {
                                 if(_logger.isLoggable(Level.FINE))
                                 {
@@ -625,7 +630,8 @@ public class DelegatedRecoveryManager {
             }
 
         // For each OTSResource, determine whether the transaction is known,
-        // and if so, register it, otherwise roll it back.
+        // and if so, register it, otherwise roll it back. The rollbacks
+        // of different resources are done concurrently.
 
         for (int i = 0; i < otsResources.size(); i++) {
 
@@ -645,42 +651,8 @@ public class DelegatedRecoveryManager {
                     LogFormatter.convertToString(globalTID.realTID.tid)+
                     ";Hence rolling this resource back...");
                 }
-                boolean infiniteRetry = true;
-                int commitRetries = Configuration.getRetries();
-                if (commitRetries >= 0)
-                    infiniteRetry = false;
-                int commitRetriesLeft = commitRetries;
-                boolean exceptionisThrown = true;
-                while (exceptionisThrown) {
-                    try {
-                        otsResource.rollback();
-                        exceptionisThrown = false;
-                    } catch (Throwable exc) {
-                        if ((exc instanceof COMM_FAILURE) || (exc instanceof TRANSIENT)) {
-                            if (commitRetriesLeft > 0 || infiniteRetry) {
-                                // For TRANSIENT or COMM_FAILURE, wait
-                                // for a while, then retry the commit.
-                                if (!infiniteRetry) {
-                                    commitRetriesLeft--;
-                                }
-
-                                try {
-                                    Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
-                                } catch( Throwable e ) {}
-                            }
-                            else {
-                                _logger.log(Level.WARNING,"jts.exception_during_resync",
-                                new java.lang.Object[] {exc.toString(),"OTSResource rollback"});
-                                exceptionisThrown = false;
-                            }
-                        }
-                        else {
-                            _logger.log(Level.WARNING,"jts.exception_during_resync",
-                            new java.lang.Object[] {exc.toString(),"OTSResource rollback"});
-                            exceptionisThrown = false;
-                        }
-                    }
-                }
+                recovery.addResolution(otsResourceRMs.get(i),
+                    () -> RecoveryManager.rollbackUnrecognized(otsResource));
             } else {
                 // NOTE: Currently unimplemented. The coordinator needs to
                 // check if duplicate resources are being registered for the
@@ -702,8 +674,11 @@ public class DelegatedRecoveryManager {
                     ";Hence registering this resource with coordinator...");
                 }
                 coord.directRegisterResource(otsResource);
+                recovery.branchResolved();
             }
         }
+
+        recovery.resolve();
     }
 
 
@@ -137,11 +137,15 @@ class Log {
         // Open the log using the server name.
 
         try {
-            LogHandle handle = logControl.openFile(serverName,upcall,null,newLog);
+            if( useSegmentedLog(serverName,logPath) ) {
+                logFile = SegmentedLogFile.open(serverName,LogControl.directory(serverName,logPath));
+            } else {
+                LogHandle handle = logControl.openFile(serverName,upcall,null,newLog);
 
-            // Create a new LogFile object with the handle to represent the open log.
+                // Create a new LogFile object with the handle to represent the open log.
 
-            logFile = new LogFile(handle);
+                logFile = new LogFile(handle);
+            }
         }
 
         // If the log open failed, report the error.
@@ -190,12 +194,41 @@ class Log {
 
         if( serverName != null ) {
             String logPath = LogControl.getLogPath();
-            exists = LogControl.checkFileExists(serverName,logPath);
+            exists = LogControl.checkFileExists(serverName,logPath) ||
+                SegmentedLogFile.exists(LogControl.directory(serverName,logPath));
         }
 
         return exists;
     }
 
+    /**Determines whether the log for the given server is a segmented log.
+     * <p>
+     * An existing log is opened in the format it was written in, whatever the
+     * configuration says, so that its records are recovered.
+     *
+     * @param serverName  The name of the server whose log file is being opened.
+     * @param logPath     The log directory.
+     *
+     * @return  Indicates whether the segmented log is to be used.
+     */
+    private static boolean useSegmentedLog( String serverName,
+                                            String logPath ) {
+        boolean configured = SegmentedLogFile.isConfigured();
+        boolean segmented = SegmentedLogFile.exists(LogControl.directory(serverName,logPath));
+        boolean extents = LogControl.checkFileExists(serverName,logPath);
+
+        // The extent log is only created when no segments exist, so segments
+        // found next to it are left over from an incomplete deletion.
+
+        if( segmented && extents )
+            segmented = false;
+        if( configured != segmented && (segmented || extents) )
+            _logger.log(Level.INFO,"jts.segmented_log_existing_format",
+                        new java.lang.Object[] {serverName,configured});
+
+        return segmented || (configured && !extents);
+    }
+
     /**Dumps the state of the object.
      *
      * @param
@@ -19,12 +19,22 @@ package com.sun.jts.CosTransactions;
 import com.sun.logging.LogDomains;
 
 import java.lang.reflect.Method;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,6 +43,17 @@ import javax.sql.DataSource;
 
 /** The LogDBHelper class takes care of writing the transaction logs
   *  into database.
+  * <p>
+  * Records added on a non-transactional connection are written in JDBC
+  * batches: a writer queues its record and the first writer to get the
+  * insert lock inserts all queued records at once, while the others wait
+  * for the lock and usually find their record written. Records added on a
+  * transactional connection are inserted individually, as they have to be
+  * committed with the last agent resource of their transaction.
+  * <p>
+  * Records of completed transactions are deleted in batches by a background
+  * thread. A record whose delete is lost in a crash is removed by recovery.
+  * The batch writer and the delete thread each keep their connection open.
   * @author Sun Micro Systems, Inc
 */
 
@@ -48,6 +69,7 @@ class LogDBHelper {
 
     private DataSource ds = null;
     private Method getNonTxConnectionMethod = null;
+    private final boolean useNonTxConnectionForAddRecord;
     private static final String insertStatement =
              System.getProperty("com.sun.jts.dblogging.insertquery",
                  "insert into  txn_log_table values ( ? , ? , ? , ? )");
@@ -62,16 +84,32 @@ class LogDBHelper {
                  "select distinct servername from txn_log_table where instancename = ? ");
     private static final String createTableStatement =
                  "create table txn_log_table (localtid varchar(20), servername varchar(150), instancename varchar(150), gtrid blob)";
-    private static final boolean useNonTxConnectionForAddRecord = Boolean.getBoolean("com.sun.jts.dblogging.use.nontx.connection.for.add");
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("com.sun.jts.dblogging.maxbatchsize", 256);
     private static Logger _logger = LogDomains.getLogger(LogDBHelper.class, LogDomains.TRANSACTION_LOGGER);
     private static LogDBHelper _instance = new LogDBHelper();
 
+    // Records to insert, written in batches by the holder of insertLock
+    private final Queue<PendingInsert> pendingInserts = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock insertLock = new ReentrantLock();
+    // Guarded by insertLock
+    private Connection insertConn = null;
+    private PreparedStatement insertStmt = null;
+
+    // Records to delete, deleted in batches by the delete thread
+    private final BlockingQueue<PendingDelete> pendingDeletes = new LinkedBlockingQueue<>();
+    private Thread deleteThread = null;
+    // Guarded by deleteLock
+    private final Object deleteLock = new Object();
+    private Connection deleteConn = null;
+    private PreparedStatement deleteStmt = null;
+
     static LogDBHelper getInstance() {
         return _instance;
     }
 
     LogDBHelper() {
         instanceName = Configuration.getPropertyValue(Configuration.INSTANCE_NAME);
+        useNonTxConnectionForAddRecord = Boolean.getBoolean("com.sun.jts.dblogging.use.nontx.connection.for.add");
         if (Configuration.getPropertyValue(Configuration.DB_LOG_RESOURCE) != null) {
             resName = Configuration.getPropertyValue(Configuration.DB_LOG_RESOURCE);
         }
@@ -94,6 +132,17 @@ class LogDBHelper {
         }
     }
 
+    /**
+     * Writes to the given data source, which must have a getNonTxConnection() method.
+     * The table must exist.
+     */
+    LogDBHelper(DataSource ds, boolean useNonTxConnectionForAddRecord) throws NoSuchMethodException {
+        instanceName = Configuration.getPropertyValue(Configuration.INSTANCE_NAME);
+        this.useNonTxConnectionForAddRecord = useNonTxConnectionForAddRecord;
+        this.ds = ds;
+        getNonTxConnectionMethod = ds.getClass().getMethod("getNonTxConnection");
+    }
+
     void setServerName() {
         // Add a mapping between the serverName and the instanceName
         String serverName0 = Configuration.getServerName();
@@ -131,13 +180,13 @@ class LogDBHelper {
                 _logger.fine("LogDBHelper.addRecord for serverName: " + serverName);
                 _logger.fine("LogDBHelper.addRecord for instanceName: " + instanceName);
             }
+            if (useNonTxConnectionForAddRecord) {
+                return addRecordInBatch(new PendingInsert(localTID, serverName, data));
+            }
             Connection conn = null;
             PreparedStatement prepStmt1 = null;
             try {
-                if (useNonTxConnectionForAddRecord)
-            conn = (Connection)(getNonTxConnectionMethod.invoke(ds, null));
-                else
-                    conn = ds.getConnection();
+                conn = ds.getConnection();
                 prepStmt1 = conn.prepareStatement(insertStatement);
                 prepStmt1.setString(1,Long.toString(localTID));
                 prepStmt1.setString(2,serverName);
@@ -166,8 +215,187 @@ class LogDBHelper {
         return false;
     }
 
+    /**
+     * Inserts the record together with the records queued by other threads.
+     *
+     * @return true if the record was inserted
+     */
+    private boolean addRecordInBatch(PendingInsert record) {
+        pendingInserts.add(record);
+        insertLock.lock();
+        try {
+            // The previous holder of the lock may have written the record
+            if (!record.done) {
+                insertPending();
+            }
+        } finally {
+            insertLock.unlock();
+        }
+        return record.inserted;
+    }
+
+    private void insertPending() {
+        List<PendingInsert> batch = new ArrayList<>();
+        PendingInsert record;
+        while (!pendingInserts.isEmpty()) {
+            batch.clear();
+            while (batch.size() < MAX_BATCH_SIZE && (record = pendingInserts.poll()) != null) {
+                batch.add(record);
+            }
+            int[] counts = null;
+            try {
+                if (insertConn == null) {
+                    insertConn = (Connection)(getNonTxConnectionMethod.invoke(ds, null));
+                    insertStmt = insertConn.prepareStatement(insertStatement);
+                }
+                for (PendingInsert pending : batch) {
+                    insertStmt.setString(1,Long.toString(pending.localTID));
+                    insertStmt.setString(2,pending.serverName);
+                    insertStmt.setString(3,instanceName);
+                    insertStmt.setBytes(4,pending.data);
+                    insertStmt.addBatch();
+                }
+                counts = insertStmt.executeBatch();
+            } catch (BatchUpdateException ex) {
+                _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",ex);
+                counts = ex.getUpdateCounts();
+                insertConn = closeQuietly(insertStmt, insertConn);
+            } catch (Throwable ex) {
+                _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",ex);
+                insertConn = closeQuietly(insertStmt, insertConn);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                PendingInsert pending = batch.get(i);
+                pending.inserted = counts != null && i < counts.length && counts[i] != Statement.EXECUTE_FAILED;
+                pending.done = true;
+            }
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.fine("LogDBHelper inserted a batch of " + batch.size() + " records");
+            }
+        }
+    }
+
+    /**
+     * Queues the record of a completed transaction for deletion.
+     *
+     * @return true, as the record is deleted in the background
+     */
     boolean deleteRecord(long localTID) {
-        return deleteRecord(localTID, serverName);
+        if (ds != null) {
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.fine("LogDBHelper.deleteRecord queued for localTID: " + localTID + " and serverName: " + serverName);
+            }
+            startDeleteThread();
+            pendingDeletes.add(new PendingDelete(localTID, serverName));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Deletes the records queued for deletion, before the server shuts down.
+     * Stops the delete thread, which is started again by the next deleteRecord.
+     */
+    void flushDeletes() {
+        Thread thread;
+        synchronized (this) {
+            thread = deleteThread;
+            deleteThread = null;
+        }
+        if (thread != null) {
+            // The thread may have taken a record from the queue but not deleted it yet
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        deletePending(new ArrayList<PendingDelete>());
+        synchronized (deleteLock) {
+            deleteConn = closeQuietly(deleteStmt, deleteConn);
+        }
+    }
+
+    private synchronized void startDeleteThread() {
+        if (deleteThread == null) {
+            deleteThread = new Thread(this::runDeletes, "JTS DB Log Delete Thread"/*#Frozen*/);
+            deleteThread.setDaemon(true);
+            deleteThread.setContextClassLoader(LogDBHelper.class.getClassLoader());
+            deleteThread.start();
+        }
+    }
+
+    private void runDeletes() {
+        List<PendingDelete> batch = new ArrayList<>();
+        while (true) {
+            try {
+                PendingDelete first = pendingDeletes.poll(60, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    deletePending(batch);
+                } else {
+                    // Do not keep a connection while idle
+                    synchronized (deleteLock) {
+                        deleteConn = closeQuietly(deleteStmt, deleteConn);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable t) {
+                _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",t);
+            }
+        }
+    }
+
+    private void deletePending(List<PendingDelete> batch) {
+        synchronized (deleteLock) {
+            do {
+                pendingDeletes.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                if (batch.isEmpty()) {
+                    return;
+                }
+                try {
+                    if (deleteConn == null) {
+                        // To avoid compile time dependency to get NonTxConnection
+                        deleteConn = (Connection)(getNonTxConnectionMethod.invoke(ds, null));
+                        deleteStmt = deleteConn.prepareStatement(deleteStatement);
+                    }
+                    for (PendingDelete pending : batch) {
+                        deleteStmt.setString(1,Long.toString(pending.localTID));
+                        deleteStmt.setString(2,pending.serverName);
+                        deleteStmt.addBatch();
+                    }
+                    deleteStmt.executeBatch();
+                    if (_logger.isLoggable(Level.FINE)) {
+                        _logger.fine("LogDBHelper deleted a batch of " + batch.size() + " records");
+                    }
+                } catch (Throwable ex) {
+                    _logger.log(Level.SEVERE,"jts.exception_in_db_log_resource",ex);
+                    deleteConn = closeQuietly(deleteStmt, deleteConn);
+                }
+                batch.clear();
+            } while (!pendingDeletes.isEmpty());
+        }
+    }
+
+    /**
+     * @return null, to be assigned to the connection
+     */
+    private Connection closeQuietly(Statement stmt, Connection conn) {
+        try {
+            if (stmt != null)
+                stmt.close();
+        } catch (SQLException ex1) {
+            _logger.log(Level.FINE,"jts.exception_in_db_log_resource",ex1);
+        }
+        try {
+            if (conn != null)
+                conn.close();
+        } catch (SQLException ex1) {
+            _logger.log(Level.FINE,"jts.exception_in_db_log_resource",ex1);
+        }
+        return null;
     }
 
     boolean deleteRecord(long localTID, String serverName0) {
@@ -336,4 +564,35 @@ class LogDBHelper {
             }
         }
     }
+
+    /**
+     * A record waiting to be inserted.
+     */
+    private static final class PendingInsert {
+        final long localTID;
+        final String serverName;
+        final byte[] data;
+        // Written by the holder of insertLock
+        boolean inserted;
+        boolean done;
+
+        PendingInsert(long localTID, String serverName, byte[] data) {
+            this.localTID = localTID;
+            this.serverName = serverName;
+            this.data = data;
+        }
+    }
+
+    /**
+     * A record waiting to be deleted.
+     */
+    private static final class PendingDelete {
+        final long localTID;
+        final String serverName;
+
+        PendingDelete(long localTID, String serverName) {
+            this.localTID = localTID;
+            this.serverName = serverName;
+        }
+    }
 }
@@ -105,6 +105,10 @@ class LogFile {
      * <p>
      * The LSN of the written log record is an output parameter.
      * <p>
+     * If group commit is configured, a forced write appends the record without
+     * holding this object's lock during the sync, so that the records of
+     * concurrent writers are made durable by a single force.
+     * <p>
      * Returns true if the write completed successfully and false if the write
      * did not complete.
      *
@@ -117,34 +121,62 @@ class LogFile {
      *
      * @see
      */
-    synchronized boolean write( int    writeType,
-                                byte[] record,
-                                int    recordType,
-                                LogLSN recordLSN ) {
+    boolean write( int    writeType,
+                   byte[] record,
+                   int    recordType,
+                   LogLSN recordLSN ) {
 
         boolean result = true;
+        LogGroupCommit groupCommit = handle.groupCommit;
+        boolean grouped = writeType == LogFile.FORCED && groupCommit != null;
+        long sequence = 0;
 
         // Write the record.
         // Set the result based on return code from log write.
 
-        try {
-            LogLSN resultLSN = handle.writeRecord(record,recordType,
-                                                  (writeType==LogFile.FORCED ? LogHandle.FORCE : LogHandle.BUFFER));
-            if( recordLSN != null )
-                recordLSN.copy(resultLSN);
-        } catch( LogException le ) {
-            _logger.log(Level.SEVERE,"jts.log_error",le.toString());
-             String msg = LogFormatter.getLocalizedMessage(_logger,"jts.log_error",
-                                        new java.lang.Object[] {le.toString()});
-             throw (org.omg.CORBA.INTERNAL) (new org.omg.CORBA.INTERNAL(msg)).initCause(le);
-            //if( recordLSN != null )
-            //recordLSN.copy(LogLSN.NULL_LSN);
-            //result = false;
+        synchronized( this ) {
+            try {
+                synchronized( handle ) {
+                    LogLSN resultLSN = handle.writeRecord(record,recordType,
+                                                          (writeType==LogFile.FORCED && !grouped ? LogHandle.FORCE : LogHandle.BUFFER));
+                    sequence = handle.recordsAppended;
+                    if( recordLSN != null )
+                        recordLSN.copy(resultLSN);
+                }
+            } catch( LogException le ) {
+                throw logError(le);
+                //if( recordLSN != null )
+                //recordLSN.copy(LogLSN.NULL_LSN);
+                //result = false;
+            }
+        }
+
+        // Force the record together with those of other writers.
+
+        if( grouped ) {
+            try {
+                groupCommit.force(sequence);
+            } catch( LogException le ) {
+                throw logError(le);
+            }
         }
 
         return result;
     }
 
+    /**Logs an unexpected log failure and converts it for the caller.
+     *
+     * @param le  The failure.
+     *
+     * @return  The exception to be thrown.
+     */
+    org.omg.CORBA.INTERNAL logError( LogException le ) {
+        _logger.log(Level.SEVERE,"jts.log_error",le.toString());
+        String msg = LogFormatter.getLocalizedMessage(_logger,"jts.log_error",
+                                   new java.lang.Object[] {le.toString()});
+        return (org.omg.CORBA.INTERNAL) (new org.omg.CORBA.INTERNAL(msg)).initCause(le);
+    }
+
     /**Informs the log that all log records older than the one with the given LSN
      * are no longer required.
      * <p>
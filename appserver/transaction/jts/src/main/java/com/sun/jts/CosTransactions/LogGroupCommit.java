@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import com.sun.logging.LogDomains;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**Group commit for forced writes to a log.
+ * <p>
+ * A forced write appends its record without forcing it and then calls
+ * {@link #force(long)}. The first caller to find no force in progress becomes
+ * the leader: it waits up to the configured time for other writers to append
+ * their records, then forces the log once. Callers whose records were covered
+ * by that sync return without syncing themselves; the others elect the next
+ * leader.
+ * <p>
+ * Enabled by {@link Configuration#GROUP_COMMIT}; the collection time is set by
+ * {@link Configuration#GROUP_COMMIT_WAIT}. The statistics are shared by all logs
+ * of the process.
+ *
+ * @see LogFile#write
+ */
+public final class LogGroupCommit {
+
+    static Logger _logger = LogDomains.getLogger(LogGroupCommit.class, LogDomains.TRANSACTION_LOGGER);
+
+    /**Default time in microseconds a leader waits for more records.
+     */
+    static final long DEFAULT_WAIT_MICROS = 200;
+
+    private static final AtomicLong forceRequests = new AtomicLong();
+    private static final AtomicLong syncs = new AtomicLong();
+    private static final AtomicLong recordsSynced = new AtomicLong();
+    private static final AtomicLong maxBatchSize = new AtomicLong();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final Forcer forcer;
+    private final long collectNanos;
+
+    // Guarded by this
+    private long forcedSequence;
+    private boolean forceInProgress;
+    private int waiters;
+    private long lastBatchSize;
+
+    /**Forces the records written to a log so far.
+     */
+    interface Forcer {
+
+        /**@return  The number of records written to the log, all of which are forced.
+         *
+         * @exception LogException The force failed.
+         */
+        long forceLog() throws LogException;
+    }
+
+    LogGroupCommit(Forcer forcer, long collectMicros) {
+        this.forcer = forcer;
+        this.collectNanos = TimeUnit.MICROSECONDS.toNanos(collectMicros);
+    }
+
+    /**Creates the group commit for the given log if it is configured.
+     *
+     * @param forcer   Forces the log.
+     * @param logName  The name of the log.
+     *
+     * @return  The group commit, or null if forced writes sync individually.
+     */
+    static LogGroupCommit create(Forcer forcer, String logName) {
+        if (!Boolean.parseBoolean(Configuration.getPropertyValue(Configuration.GROUP_COMMIT))) {
+            return null;
+        }
+
+        long waitMicros = DEFAULT_WAIT_MICROS;
+        String value = Configuration.getPropertyValue(Configuration.GROUP_COMMIT_WAIT);
+        if (value != null) {
+            try {
+                waitMicros = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                _logger.log(Level.WARNING, "jts.invalid_group_commit_wait", value);
+            }
+            if (waitMicros < 0) {
+                waitMicros = DEFAULT_WAIT_MICROS;
+            }
+        }
+
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Group commit enabled for log " + logName
+                    + " with a wait of " + waitMicros + " microseconds");
+        }
+        return new LogGroupCommit(forcer, waitMicros);
+    }
+
+    /**Returns when all records up to the given sequence number have been
+     * forced to the file system.
+     *
+     * @param sequence  The number of records written to the log after the
+     *                  caller's record was written.
+     *
+     * @exception LogException The force failed.
+     */
+    void force(long sequence) throws LogException {
+        long start = System.nanoTime();
+        forceRequests.incrementAndGet();
+
+        boolean collect;
+        synchronized (this) {
+            waiters++;
+            boolean interrupted = false;
+            try {
+                while (forcedSequence < sequence && forceInProgress) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // The record must be forced before the caller may continue.
+                        // Setting the flag again here would make wait() fail at once.
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                waiters--;
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (forcedSequence >= sequence) {
+                recordWait(start);
+                return;
+            }
+
+            // Become the leader. Only wait for more records when there is concurrency.
+            forceInProgress = true;
+            collect = collectNanos > 0 && (waiters > 0 || lastBatchSize > 1);
+        }
+
+        long forced = -1;
+        try {
+            if (collect) {
+                LockSupport.parkNanos(collectNanos);
+            }
+            forced = forcer.forceLog();
+        } finally {
+            synchronized (this) {
+                forceInProgress = false;
+                if (forced > forcedSequence) {
+                    lastBatchSize = forced - forcedSequence;
+                    forcedSequence = forced;
+
+                    syncs.incrementAndGet();
+                    recordsSynced.addAndGet(lastBatchSize);
+                    updateMax(maxBatchSize, lastBatchSize);
+                }
+                notifyAll();
+            }
+            recordWait(start);
+        }
+    }
+
+    private static void recordWait(long start) {
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        updateMax(maxWaitNanos, waited);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    /**Returns the number of forced writes that went through group commit.
+     */
+    public static long getForceRequestCount() {
+        return forceRequests.get();
+    }
+
+    /**Returns the number of syncs performed for group commit.
+     */
+    public static long getSyncCount() {
+        return syncs.get();
+    }
+
+    /**Returns the average number of records made durable by one sync.
+     */
+    public static double getAverageBatchSize() {
+        long count = syncs.get();
+        return count == 0 ? 0 : (double) recordsSynced.get() / count;
+    }
+
+    /**Returns the largest number of records made durable by one sync.
+     */
+    public static long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    /**Returns the average time in microseconds a forced write waited for its sync.
+     */
+    public static long getAverageWaitMicros() {
+        long count = forceRequests.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / count);
+    }
+
+    /**Returns the longest time in microseconds a forced write waited for its sync.
+     */
+    public static long getMaxWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get());
+    }
+}
@@ -204,6 +204,15 @@ class LogHandle {
     LogControlDescriptor logControlDescriptor = null;
     LogControl           logControl = null;
 
+    /**The number of records written to this log, used as the sequence number
+     * of forces. Guarded by this.
+     */
+    long                 recordsAppended = 0;
+
+    /**Collects forces of concurrent writers, null unless group commit is configured.
+     */
+    LogGroupCommit       groupCommit = null;
+
 
     /**Creates a LogHandle object for the given log instance.
      *
@@ -234,6 +243,7 @@ class LogHandle {
         logControlDescriptor = new LogControlDescriptor();
         cursors = new ArrayList();
         extentTable = new Hashtable(EXTENT_TABLE_SIZE);
+        groupCommit = LogGroupCommit.create(this::forceLog,logFileName);
 
     }
 
@@ -530,20 +540,8 @@ class LogHandle {
         //       Set 'extent written' flag to FALSE
         //   ENDLOOP
 
-        if( writeMode == FORCE ) {
-            Enumeration extents = extentTable.elements();
-            while( extents.hasMoreElements() ) {
-                LogExtent nextEDP = (LogExtent)extents.nextElement();
-                if( nextEDP.writtenSinceLastForce )
-                    try {
-                        nextEDP.fileHandle.fileSync();
-                        nextEDP.writtenSinceLastForce = false;
-                    } catch (LogException le) {
-                        throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14,
-                                sm.getString("jts.log_file_sync_failed"), le);
-                    }
-            }
-        }
+        if( writeMode == FORCE )
+            forceExtents();
 
         // Update the head LSN and 'next free' LSN in the Log_FileDescriptor
         // block
@@ -554,6 +552,7 @@ class LogHandle {
         // Increment the RecordsWritten counter in Log_FileDescriptor block
 
         recordsWritten++;
+        recordsAppended++;
 
         // IF RecordsWritten = LOG_CONTROL_FORCE_INTERVAL or LOG_FORCE was specified
         //   Write the Log_ControlDescriptor structure (embedded in the
@@ -579,6 +578,48 @@ class LogHandle {
         return result;
     }
 
+    /**Forces all records written so far to the file system.
+     * <p>
+     * Used by group commit to sync the records of several writers at once.
+     *
+     * @return  The number of records written to the log, all of which are forced.
+     *
+     * @exception LogException The force failed.
+     *
+     * @see
+     */
+    synchronized long forceLog()
+        throws LogException {
+
+        if( blockValid != this )
+            throw new LogException(null,LogException.LOG_INVALID_FILE_DESCRIPTOR,1);
+
+        forceExtents();
+
+        return recordsAppended;
+    }
+
+    /**Issues FSYNC for every extent written since the last force.
+     *
+     * @exception LogException The sync of an extent failed.
+     */
+    private void forceExtents()
+        throws LogException {
+
+        Enumeration extents = extentTable.elements();
+        while( extents.hasMoreElements() ) {
+            LogExtent nextEDP = (LogExtent)extents.nextElement();
+            if( nextEDP.writtenSinceLastForce )
+                try {
+                    nextEDP.fileHandle.fileSync();
+                    nextEDP.writtenSinceLastForce = false;
+                } catch (LogException le) {
+                    throw new LogException(LogException.LOG_ERROR_FORCING_LOG, 14,
+                            sm.getString("jts.log_file_sync_failed"), le);
+                }
+        }
+    }
+
     /**Reads a record from the log.
      *
      * @param readLSN  The LSN of the record to be read.
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import com.sun.logging.LogDomains;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**Calls the resources of a transaction in parallel for prepare and commit.
+ * <p>
+ * The calls are submitted to a pool of daemon threads shared by all
+ * transactions of the process. The pool does not queue: when all of its threads
+ * are busy, the completing thread makes the call itself, so the number of
+ * threads is bounded and a call never waits for a free thread.
+ * <p>
+ * The completing thread waits until every call has returned before it looks at
+ * any of the outcomes, so that the outcomes, the log and the resource states
+ * are processed on that thread in the order the resources were registered,
+ * exactly as in a serial completion.
+ * <p>
+ * Enabled by {@link Configuration#PARALLEL_COMPLETION}; the number of threads
+ * is set by {@link Configuration#PARALLEL_COMPLETION_THREADS}.
+ *
+ * @see RegisteredResources#distributePrepare
+ * @see RegisteredResources#distributeCommit
+ */
+final class ParallelCompletion {
+
+    static Logger _logger = LogDomains.getLogger(ParallelCompletion.class, LogDomains.TRANSACTION_LOGGER);
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static volatile ThreadPoolExecutor executor;
+
+    private ParallelCompletion() {
+    }
+
+    /**Returns whether resources are completed in parallel.
+     *
+     * @return  True if parallel completion is configured.
+     */
+    static boolean isEnabled() {
+        return Boolean.parseBoolean(Configuration.getPropertyValue(Configuration.PARALLEL_COMPLETION));
+    }
+
+    /**Makes the given calls in parallel and returns once all of them have
+     * returned.
+     *
+     * @param calls  The calls, indexed like the resources. Null entries are
+     *               not called.
+     *
+     * @return  The outcomes of the calls, indexed like the calls; null where no
+     *          call was given.
+     */
+    static <T> Future<T>[] invokeAll(Callable<T>[] calls) {
+        ThreadPoolExecutor pool = getExecutor();
+
+        @SuppressWarnings("unchecked")
+        Future<T>[] futures = new Future[calls.length];
+        for (int i = 0; i < calls.length; i++) {
+            if (calls[i] != null) {
+                futures[i] = pool.submit(calls[i]);
+            }
+        }
+
+        // Wait for every call, even if interrupted, so that no resource is
+        // still being called when the outcomes are processed.
+
+        boolean interrupted = false;
+        for (Future<T> future : futures) {
+            while (future != null && !future.isDone()) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // Reported by getOutcome
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return futures;
+    }
+
+    /**Returns the result of a completed call, or throws what the call threw.
+     *
+     * @param future  A call returned by {@link #invokeAll}.
+     *
+     * @return  The result of the call.
+     *
+     * @exception Throwable  The exception thrown by the resource.
+     */
+    static <T> T getOutcome(Future<T> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ThreadPoolExecutor getExecutor() {
+        ThreadPoolExecutor pool = executor;
+        if (pool == null) {
+            synchronized (ParallelCompletion.class) {
+                pool = executor;
+                if (pool == null) {
+                    int threads = getThreads();
+                    pool = new ThreadPoolExecutor(0, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new SynchronousQueue<Runnable>(), new CompletionThreadFactory(),
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                    if (_logger.isLoggable(Level.FINE)) {
+                        _logger.log(Level.FINE, "Parallel resource completion enabled with up to "
+                                + threads + " threads");
+                    }
+                    executor = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private static int getThreads() {
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        String value = Configuration.getPropertyValue(Configuration.PARALLEL_COMPLETION_THREADS);
+        if (value != null) {
+            try {
+                int configured = Integer.parseInt(value.trim());
+                if (configured > 0) {
+                    return configured;
+                }
+            } catch (NumberFormatException e) {
+                // Logged below
+            }
+            _logger.log(Level.WARNING, "jts.invalid_parallel_completion_threads", value);
+        }
+        return threads;
+    }
+
+    private static final class CompletionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "JTS-ResourceCompletion-" + count.incrementAndGet());
+            thread.setDaemon(true);
+
+            // Do not keep the class loader of the application which happened
+            // to complete the first transaction.
+            thread.setContextClassLoader(ParallelCompletion.class.getClassLoader());
+            return thread;
+        }
+    }
+}
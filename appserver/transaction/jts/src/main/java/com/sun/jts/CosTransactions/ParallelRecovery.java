@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import com.sun.enterprise.transaction.jts.api.TransactionRecoveryListener;
+import com.sun.logging.LogDomains;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+/**One recovery of the in-doubt branches of a set of XA resources.
+ * <p>
+ * The resources are scanned for in-doubt branches concurrently, one thread
+ * per resource up to {@link Configuration#RECOVERY_THREADS}. The caller then
+ * decides on the outcome of each branch and adds its resolution to the
+ * resource it belongs to; the resolutions of different resources run
+ * concurrently, those of one resource in the order they were added.
+ * <p>
+ * The progress is reported to the listener registered with
+ * {@link RecoveryManager#registerTransactionRecoveryListener}.
+ *
+ * @see RecoveryManager#getInDoubtXids
+ */
+final class ParallelRecovery {
+
+    static Logger _logger = LogDomains.getLogger(ParallelRecovery.class, LogDomains.TRANSACTION_LOGGER);
+
+    /**Default maximum number of resources recovered at the same time.
+     */
+    static final int DEFAULT_THREADS = 8;
+
+    private final List<XAResource> resources;
+    private final List<List<Runnable>> resolutions;
+    private final TransactionRecoveryListener listener;
+    private final long startNanos = System.nanoTime();
+
+    /**Starts the recovery of the given resources.
+     *
+     * @param resources  The resources, at most one per resource manager.
+     */
+    ParallelRecovery(List<XAResource> resources) {
+        this.resources = resources;
+        this.resolutions = new ArrayList<>(resources.size());
+        for (int i = 0; i < resources.size(); i++) {
+            resolutions.add(new ArrayList<Runnable>());
+        }
+        this.listener = RecoveryManager.getTransactionRecoveryListener();
+        if (listener != null) {
+            listener.recoveryStarted(resources.size());
+        }
+    }
+
+    /**Returns the in-doubt branches of every resource.
+     *
+     * @return  The in-doubt Xids, indexed like the resources; an entry may be
+     *          null if the resource has none.
+     */
+    Xid[][] scan() {
+        Xid[][] inDoubtXids = new Xid[resources.size()][];
+        runPerResource(r -> {
+            long start = System.nanoTime();
+            inDoubtXids[r] = RecoveryManager.getInDoubtXids(resources.get(r));
+            if (listener != null) {
+                listener.resourceScanned(inDoubtXids[r] == null ? 0 : inDoubtXids[r].length,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }, "scan");
+        return inDoubtXids;
+    }
+
+    /**Adds the resolution of an in-doubt branch of a resource.
+     *
+     * @param resource    The index of the resource.
+     * @param resolution  Commits or rolls back the branch.
+     */
+    void addResolution(int resource, Runnable resolution) {
+        resolutions.get(resource).add(resolution);
+    }
+
+    /**Reports a branch which the caller has resolved itself.
+     */
+    void branchResolved() {
+        if (listener != null) {
+            listener.branchResolved();
+        }
+    }
+
+    /**Runs the resolutions that were added and completes the recovery.
+     */
+    void resolve() {
+        runPerResource(r -> {
+            for (Runnable resolution : resolutions.get(r)) {
+                resolution.run();
+                branchResolved();
+            }
+        }, "resolve");
+        if (listener != null) {
+            listener.recoveryCompleted(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    private void runPerResource(IntConsumer work, String operation) {
+        int threads = Math.min(getThreads(), resources.size());
+        if (threads <= 1) {
+            for (int r = 0; r < resources.size(); r++) {
+                work.accept(r);
+            }
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads,
+                new RecoveryThreadFactory(Thread.currentThread().getContextClassLoader()));
+        try {
+            List<Future<?>> futures = new ArrayList<>(resources.size());
+            for (int r = 0; r < resources.size(); r++) {
+                int resource = r;
+                futures.add(pool.submit(() -> work.accept(resource)));
+            }
+
+            // Recovery must not go on while a resource is still in use.
+
+            boolean interrupted = false;
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        _logger.log(Level.WARNING, "jts.exception_during_resync",
+                            new java.lang.Object[] {e.getCause().toString(), "XA recovery " + operation});
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int getThreads() {
+        String value = Configuration.getPropertyValue(Configuration.RECOVERY_THREADS);
+        if (value != null) {
+            try {
+                int threads = Integer.parseInt(value.trim());
+                if (threads > 0) {
+                    return threads;
+                }
+            } catch (NumberFormatException e) {
+                // Logged below
+            }
+            _logger.log(Level.WARNING, "jts.invalid_recovery_threads", value);
+        }
+        return DEFAULT_THREADS;
+    }
+
+    private static final class RecoveryThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger count = new AtomicInteger();
+
+        // The resources may need the class loader of the thread which recovers them
+        private final ClassLoader contextClassLoader;
+
+        RecoveryThreadFactory(ClassLoader contextClassLoader) {
+            this.contextClassLoader = contextClassLoader;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "JTS Recovery Thread " + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        }
+    }
+}
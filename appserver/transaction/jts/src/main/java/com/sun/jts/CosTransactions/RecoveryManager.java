@@ -34,9 +34,11 @@ package com.sun.jts.CosTransactions;
 import java.io.File;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
@@ -54,6 +56,7 @@ import org.omg.CORBA.TRANSIENT;
 import org.omg.CosTransactions.Status;
 
 import com.sun.enterprise.transaction.jts.api.TransactionRecoveryFence;
+import com.sun.enterprise.transaction.jts.api.TransactionRecoveryListener;
 import com.sun.jts.codegen.jtsxa.OTSResource;
 import com.sun.jts.jtsxa.OTSResourceImpl;
 import com.sun.jts.utils.LogFormatter;
@@ -136,6 +139,11 @@ public class RecoveryManager {
     // This will start TransactionRecoveryFence service as soon as all resources are available.
     private static TransactionRecoveryFence txRecoveryFence = new TransactionRecoveryFenceSimple();
 
+    /**
+     * Receives the progress of XA recovery, if registered.
+     */
+    private static volatile TransactionRecoveryListener txRecoveryListener = null;
+
 
 
     /**
@@ -745,6 +753,12 @@ public class RecoveryManager {
             CoordinatorLog.finalizeAll();
         }
 
+        // Delete the records of completed transactions still queued.
+
+        if (!immediate && Configuration.isDBLoggingEnabled()) {
+            LogDBHelper.getInstance().flushDeletes();
+        }
+
         //$Continue with shutdown/quiesce.
     }
 
@@ -924,17 +938,21 @@ public class RecoveryManager {
         }
 
         Vector otsResources = new Vector();
+        List<Integer> otsResourceRMs = new ArrayList<>();
         // Map uniqueXids = new Hashtable();
         Set uniqueXids = new HashSet();
 
-        while (xaResources.hasMoreElements()) {
+        // Get the lists of XIDs which represent in-doubt transactions
+        // for the databases. The resources are scanned concurrently.
 
-            XAResource xaResource = (XAResource) xaResources.nextElement();
+        List<XAResource> resourceList = Collections.list(xaResources);
+        ParallelRecovery recovery = new ParallelRecovery(resourceList);
+        Xid[][] scannedXids = recovery.scan();
 
-            // Get the list of XIDs which represent in-doubt transactions
-            // for the database.
+        for (int rm = 0; rm < resourceList.size(); rm++) {
 
-            Xid[] inDoubtXids = getInDoubtXids(xaResource);
+            XAResource xaResource = resourceList.get(rm);
+            Xid[] inDoubtXids = scannedXids[rm];
             // uniqueXids.clear();
             if (inDoubtXids == null || inDoubtXids.length == 0) {
                 continue; // No in-doubt xids for this resource.
@@ -973,6 +991,7 @@ public class RecoveryManager {
                         // OTSResource represents a RM per transaction.
                         otsResources.addElement(
                             new OTSResourceImpl(inDoubtXids[i], xaResource, null).getCORBAObjReference());
+                        otsResourceRMs.add(rm);
                     } else {
                         if(_logger.isLoggable(Level.FINE))
                         {
@@ -998,7 +1017,8 @@ public class RecoveryManager {
 
 
         // For each OTSResource, determine whether the transaction is known,
-        // and if so, register it, otherwise roll it back.
+        // and if so, register it, otherwise roll it back. The rollbacks
+        // of different resources are done concurrently.
 
         for (int i = 0; i < otsResources.size(); i++) {
 
@@ -1020,42 +1040,7 @@ public class RecoveryManager {
                         ";Hence rolling this resource back...");
                 }
 
-                boolean infiniteRetry = true;
-                int commitRetries = Configuration.getRetries();
-                if (commitRetries >= 0)
-                    infiniteRetry = false;
-                int commitRetriesLeft = commitRetries;
-                boolean exceptionisThrown = true;
-                while (exceptionisThrown) {
-                    try {
-                        otsResource.rollback();
-                        exceptionisThrown = false;
-                    } catch (Throwable exc) {
-                        if ((exc instanceof COMM_FAILURE) || (exc instanceof TRANSIENT)) {
-                            if (commitRetriesLeft > 0 || infiniteRetry) {
-                                // For TRANSIENT or COMM_FAILURE, wait
-                                // for a while, then retry the commit.
-                                if (!infiniteRetry) {
-                                    commitRetriesLeft--;
-                                }
-
-                                try {
-                                    Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
-                                } catch( Throwable e ) {}
-                            }
-                            else {
-                                _logger.log(Level.WARNING,"jts.exception_during_resync",
-                                    new java.lang.Object[] {exc.toString(),"OTSResource rollback"});
-                                exceptionisThrown = false;
-                            }
-                        }
-                        else {
-                            _logger.log(Level.WARNING,"jts.exception_during_resync",
-                                new java.lang.Object[] {exc.toString(),"OTSResource rollback"});
-                            exceptionisThrown = false;
-                        }
-                    }
-                }
+                recovery.addResolution(otsResourceRMs.get(i), () -> rollbackUnrecognized(otsResource));
             } else {
                 // NOTE: Currently unimplemented. The coordinator needs to
                 // check if duplicate resources are being registered for the
@@ -1078,6 +1063,54 @@ public class RecoveryManager {
                         ";Hence registering this resource with coordinator...");
                 }
                 coord.directRegisterResource(otsResource);
+                recovery.branchResolved();
+            }
+        }
+
+        recovery.resolve();
+    }
+
+    /**
+     * Rolls back an in-doubt OTSResource whose transaction is not known,
+     * retrying on TRANSIENT or COMM_FAILURE.
+     *
+     * @param otsResource  The resource to roll back.
+     */
+    static void rollbackUnrecognized(OTSResource otsResource) {
+        boolean infiniteRetry = true;
+        int commitRetries = Configuration.getRetries();
+        if (commitRetries >= 0)
+            infiniteRetry = false;
+        int commitRetriesLeft = commitRetries;
+        boolean exceptionisThrown = true;
+        while (exceptionisThrown) {
+            try {
+                otsResource.rollback();
+                exceptionisThrown = false;
+            } catch (Throwable exc) {
+                if ((exc instanceof COMM_FAILURE) || (exc instanceof TRANSIENT)) {
+                    if (commitRetriesLeft > 0 || infiniteRetry) {
+                        // For TRANSIENT or COMM_FAILURE, wait
+                        // for a while, then retry the commit.
+                        if (!infiniteRetry) {
+                            commitRetriesLeft--;
+                        }
+
+                        try {
+                            Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
+                        } catch( Throwable e ) {}
+                    }
+                    else {
+                        _logger.log(Level.WARNING,"jts.exception_during_resync",
+                            new java.lang.Object[] {exc.toString(),"OTSResource rollback"});
+                        exceptionisThrown = false;
+                    }
+                }
+                else {
+                    _logger.log(Level.WARNING,"jts.exception_during_resync",
+                        new java.lang.Object[] {exc.toString(),"OTSResource rollback"});
+                    exceptionisThrown = false;
+                }
             }
         }
     }
@@ -1143,17 +1176,23 @@ public class RecoveryManager {
 
         // if flag is set use commit_one_phase (old style), otherwise use commit
         boolean one_phase = getCommitOnePhaseDuringRecovery();
-        while (xaResources.hasMoreElements()) {
 
-            XAResource xaResource = (XAResource) xaResources.nextElement();
+        // Get the lists of XIDs which represent in-doubt transactions
+        // for the databases. The resources are scanned, and their
+        // transactions completed, concurrently.
+
+        List<XAResource> resourceList = Collections.list(xaResources);
+        ParallelRecovery recovery = new ParallelRecovery(resourceList);
+        Xid[][] scannedXids = recovery.scan();
+
+        for (int rm = 0; rm < resourceList.size(); rm++) {
+
+            XAResource xaResource = resourceList.get(rm);
             if(_logger.isLoggable(Level.INFO)) {
                 _logger.log(Level.INFO, "RecoveryManager.dbXARecovery processing  xaResource: " + xaResource);
             }
 
-            // Get the list of XIDs which represent in-doubt transactions
-            // for the database.
-
-            Xid[] inDoubtXids = getInDoubtXids(xaResource);
+            Xid[] inDoubtXids = scannedXids[rm];
             // uniqueXids.clear();
             if (inDoubtXids == null || inDoubtXids.length == 0) {
                 continue; // No in-doubt xids for this resource.
@@ -1191,20 +1230,23 @@ public class RecoveryManager {
 
                         uniqueXids.add(inDoubtXids[i]); // add to uniqueList
 
-                        try {
-                            byte[] gtrid = inDoubtXids[i].getGlobalTransactionId();
-                            GlobalTID gtid = GlobalTID.fromTIDBytes(gtrid);
-                            Long localTID = (Long)gtidMap.get(gtid);
-                            if(_logger.isLoggable(Level.INFO)) {
-                                _logger.log(Level.INFO, "RecoveryManager.dbXARecovery completing transaction for localTID: " + localTID);
-                            }
-                            if (localTID == null) {
-                                xaResource.rollback(inDoubtXids[i]);
-                            } else {
-                                xaResource.commit(inDoubtXids[i], one_phase);
-                                LogDBHelper.getInstance().deleteRecord(localTID.longValue(), serverName);
-                            }
-                        } catch (Exception ex) { ex.printStackTrace(); }
+                        Xid inDoubtXid = inDoubtXids[i];
+                        recovery.addResolution(rm, () -> {
+                            try {
+                                byte[] gtrid = inDoubtXid.getGlobalTransactionId();
+                                GlobalTID gtid = GlobalTID.fromTIDBytes(gtrid);
+                                Long localTID = (Long)gtidMap.get(gtid);
+                                if(_logger.isLoggable(Level.INFO)) {
+                                    _logger.log(Level.INFO, "RecoveryManager.dbXARecovery completing transaction for localTID: " + localTID);
+                                }
+                                if (localTID == null) {
+                                    xaResource.rollback(inDoubtXid);
+                                } else {
+                                    xaResource.commit(inDoubtXid, one_phase);
+                                    LogDBHelper.getInstance().deleteRecord(localTID.longValue(), serverName);
+                                }
+                            } catch (Exception ex) { ex.printStackTrace(); }
+                        });
                     } else {
                         if(_logger.isLoggable(Level.INFO))
                         {
@@ -1226,6 +1268,8 @@ public class RecoveryManager {
                 }
             }
         }
+
+        recovery.resolve();
         /**
         try {
         resyncComplete(false, false);
@@ -1474,14 +1518,18 @@ public class RecoveryManager {
         for (int i=0; i<size; i++) {
             v.addElement(xaresArray[i]);
         }
-        Enumeration resourceList = getUniqueRMSet(v.elements());
+        List<XAResource> resourceList = Collections.list(getUniqueRMSet(v.elements()));
         Set uniqueXids = new HashSet();
         Vector otsResources = new Vector();
-        while (resourceList.hasMoreElements()) {
-            XAResource xaResource = (XAResource) resourceList.nextElement();
-            // Get the list of XIDs which represent in-doubt transactions
-            // for the database.
-            Xid[] inDoubtXids = getInDoubtXids(xaResource);
+        List<Integer> otsResourceRMs = new ArrayList<>();
+        // Get the lists of XIDs which represent in-doubt transactions
+        // for the databases. The resources are scanned, and their
+        // transactions completed, concurrently.
+        ParallelRecovery recovery = new ParallelRecovery(resourceList);
+        Xid[][] scannedXids = recovery.scan();
+        for (int rm = 0; rm < resourceList.size(); rm++) {
+            XAResource xaResource = resourceList.get(rm);
+            Xid[] inDoubtXids = scannedXids[rm];
             // uniqueXids.clear();
             if (inDoubtXids == null || inDoubtXids.length == 0) {
                 continue; // No in-doubt xids for this resource.
@@ -1517,6 +1565,7 @@ public class RecoveryManager {
                             new OTSResourceImpl(inDoubtXids[i],
                                 xaResource, null
                                 ));
+                        otsResourceRMs.add(rm);
                     } else {
                         if(_logger.isLoggable(Level.FINE))
                         {
@@ -1543,75 +1592,91 @@ public class RecoveryManager {
         for (int i = 0; i < otsResources.size(); i++) {
             OTSResourceImpl otsResource = (OTSResourceImpl) otsResources.elementAt(i);
             GlobalTID globalTID = new GlobalTID(otsResource.getGlobalTID());
+            Boolean commit = null;
             synchronized (inCompleteTxMap) {
                 Enumeration e = inCompleteTxMap.keys();
                 while (e.hasMoreElements()) {
                     CoordinatorImpl cImpl = (CoordinatorImpl)e.nextElement();
                     GlobalTID gTID = new GlobalTID(cImpl.getGlobalTID());
                     if (gTID.equals(globalTID)) {
-                        Boolean commit = (Boolean) inCompleteTxMap.get(cImpl);
-                        boolean infiniteRetry = true;
-                        int commitRetries = Configuration.getRetries();
-                        if (commitRetries >= 0)
-                            infiniteRetry = false;
-                        int commitRetriesLeft = commitRetries;
-                        boolean exceptionisThrown = true;
-                        while (exceptionisThrown) {
-                            try {
-                                if (commit.booleanValue()) {
-                                    if (commit_one_phase) {
-                                        otsResource.commit_one_phase();
-                                    } else {
-                                        otsResource.commit();
-                                    }
-                                    if(_logger.isLoggable(Level.FINE)) {
-                                        _logger.logp(Level.FINE,"RecoveryManager",
-                                            "recoverIncompleteTx",
-                                            " committed  " +
-                                                otsResource);
-                                    }
+                        commit = (Boolean) inCompleteTxMap.get(cImpl);
+                        break;
+                    }
+                }
+            }
+            if (commit != null) {
+                boolean doCommit = commit.booleanValue();
+                recovery.addResolution(otsResourceRMs.get(i),
+                    () -> completeIncompleteTx(otsResource, doCommit, commit_one_phase));
+            }
+        }
+        recovery.resolve();
+    }
 
-                                }
-                                else {
-                                    otsResource.rollback();
-                                    if(_logger.isLoggable(Level.FINE)) {
-                                        _logger.logp(Level.FINE,"RecoveryManager",
-                                            "recoverIncompleteTx",
-                                            " rolled back  " +
-                                                otsResource);
-                                    }
+    /**
+     * Commits or rolls back the branch of an incomplete transaction,
+     * retrying on TRANSIENT or COMM_FAILURE.
+     */
+    private static void completeIncompleteTx(OTSResourceImpl otsResource, boolean commit,
+            boolean commit_one_phase) {
+        boolean infiniteRetry = true;
+        int commitRetries = Configuration.getRetries();
+        if (commitRetries >= 0)
+            infiniteRetry = false;
+        int commitRetriesLeft = commitRetries;
+        boolean exceptionisThrown = true;
+        while (exceptionisThrown) {
+            try {
+                if (commit) {
+                    if (commit_one_phase) {
+                        otsResource.commit_one_phase();
+                    } else {
+                        otsResource.commit();
+                    }
+                    if(_logger.isLoggable(Level.FINE)) {
+                        _logger.logp(Level.FINE,"RecoveryManager",
+                            "recoverIncompleteTx",
+                            " committed  " +
+                                otsResource);
+                    }
 
-                                }
-                                exceptionisThrown = false;
-                            } catch (Throwable exc) {
-                                if ((exc instanceof COMM_FAILURE) || (exc instanceof TRANSIENT)) {
-                                    if (commitRetriesLeft > 0 || infiniteRetry) {
-                                        // For TRANSIENT or COMM_FAILURE, wait
-                                        // for a while, then retry the commit.
-                                        if (!infiniteRetry) {
-                                            commitRetriesLeft--;
-                                        }
-                                        try {
-                                            Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
-                                        } catch( Throwable iex ) {}
-                                    }
-                                    else {
-                                        _logger.log(Level.WARNING,"jts.exception_during_resync",
-                                            new java.lang.Object[] {exc.toString(),"OTSResource " +
-                                                ((commit.booleanValue())? "commit" : "rollback")});
-                                        exceptionisThrown = false;
-                                    }
-                                }
-                                else {
-                                    _logger.log(Level.WARNING,"jts.exception_during_resync",
-                                        new java.lang.Object[] {exc.toString(),"OTSResource " +
-                                            ((commit.booleanValue())? "commit" : "rollback")});
-                                    exceptionisThrown = false;
-                                }
-                            }
+                }
+                else {
+                    otsResource.rollback();
+                    if(_logger.isLoggable(Level.FINE)) {
+                        _logger.logp(Level.FINE,"RecoveryManager",
+                            "recoverIncompleteTx",
+                            " rolled back  " +
+                                otsResource);
+                    }
+
+                }
+                exceptionisThrown = false;
+            } catch (Throwable exc) {
+                if ((exc instanceof COMM_FAILURE) || (exc instanceof TRANSIENT)) {
+                    if (commitRetriesLeft > 0 || infiniteRetry) {
+                        // For TRANSIENT or COMM_FAILURE, wait
+                        // for a while, then retry the commit.
+                        if (!infiniteRetry) {
+                            commitRetriesLeft--;
                         }
+                        try {
+                            Thread.sleep(Configuration.COMMIT_RETRY_WAIT);
+                        } catch( Throwable iex ) {}
+                    }
+                    else {
+                        _logger.log(Level.WARNING,"jts.exception_during_resync",
+                            new java.lang.Object[] {exc.toString(),"OTSResource " +
+                                ((commit)? "commit" : "rollback")});
+                        exceptionisThrown = false;
                     }
                 }
+                else {
+                    _logger.log(Level.WARNING,"jts.exception_during_resync",
+                        new java.lang.Object[] {exc.toString(),"OTSResource " +
+                            ((commit)? "commit" : "rollback")});
+                    exceptionisThrown = false;
+                }
             }
         }
     }
@@ -1646,6 +1711,20 @@ public class RecoveryManager {
         return txRecoveryFence;
     }
 
+    /**
+     * Register the listener which receives the progress of XA recovery.
+     */
+    public static void registerTransactionRecoveryListener(TransactionRecoveryListener listener) {
+        txRecoveryListener = listener;
+    }
+
+    /**
+     * return the TransactionRecoveryListener Object, or null
+     */
+    static TransactionRecoveryListener getTransactionRecoveryListener() {
+        return txRecoveryListener;
+    }
+
     /**
      * Start Transaction recovery fence.
      */
@@ -30,12 +30,16 @@
 
 package com.sun.jts.CosTransactions;
 
+import com.sun.enterprise.transaction.jts.api.TransactionPhaseListener;
 import com.sun.jts.codegen.otsidl.ResourceStatus;
 import com.sun.jts.jtsxa.OTSResourceImpl;
 import com.sun.jts.utils.LogFormatter;
 import com.sun.logging.LogDomains;
 
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -442,10 +446,28 @@ class RegisteredResources {
         // asynchronously as a group of perations, however if done
         // sequentially, it should stop after the first rollback vote.
         // If there are no Resource references, return the a read-only vote.
+        //
+        // If parallel completion is enabled, all Resources except a last
+        // agent are prepared together first, and their votes are then
+        // consolidated here in order. No prepare is started once a Resource
+        // has voted to roll back, neither in parallel nor here; votes that
+        // arrived before are still recorded, as those Resources have been
+        // prepared.
+
+        Future<Vote>[] prepared = null;
+        AtomicBoolean rollbackVoted = new AtomicBoolean();
+        if (nRes > 1 && ParallelCompletion.isEnabled()) {
+            prepared = prepareInParallel(rollbackVoted);
+        }
 
-        for (int i = 0;
-            i < nRes && result != Vote.VoteRollback;
-            i++) {
+        for (int i = 0; i < nRes; i++) {
+            if (prepared == null) {
+                if (result == Vote.VoteRollback) {
+                    break;
+                }
+            } else if (prepared[i] == null && (result == Vote.VoteRollback || rollbackVoted.get())) {
+                continue;
+            }
             boolean isProxy = false;
             Resource currResource = (Resource) resourceObjects.get(i);
 
@@ -490,7 +512,11 @@ class RegisteredResources {
                     _logger.logp(Level.FINER, "RegisteredResources", "prepare()",
                         "Before invoking prepare() on resource:" + currResource);
                 }
-                currResult = currResource.prepare();
+                if (prepared != null && prepared[i] != null) {
+                    currResult = ParallelCompletion.getOutcome(prepared[i]);
+                } else {
+                    currResult = prepare(currResource);
+                }
                 // Mark this resource as LA if vote is null
                 if (currResult == null) {
                     if (_logger.isLoggable(Level.FINER)) {
@@ -625,6 +651,106 @@ class RegisteredResources {
         return result;
     }
 
+    /**
+     * Sends prepare to the Resources in parallel.
+     * <p>
+     * The last Resource is left out if it is to be committed as the last
+     * agent, and so is any Resource of a last agent XAResource, as they may
+     * only be called once all others have voted. As in a serial prepare, no
+     * further prepare is started once a Resource has voted to roll back or
+     * failed to prepare; those Resources are left out of the outcomes.
+     *
+     * @param rollbackVoted  Set if a Resource voted to roll back or failed
+     *                       to prepare.
+     *
+     * @return  The outcomes of prepare, indexed like the Resources; null for
+     *          the Resources which were not prepared.
+     *
+     * @see ParallelCompletion
+     */
+    private Future<Vote>[] prepareInParallel(AtomicBoolean rollbackVoted) {
+        int count = lastXAResCommit ? nRes - 1 : nRes;
+        boolean[] skipped = new boolean[nRes];
+
+        @SuppressWarnings("unchecked")
+        Callable<Vote>[] calls = new Callable[nRes];
+        for (int i = 0; i < count; i++) {
+            Resource currResource = (Resource) resourceObjects.get(i);
+            if (isLastAgent(currResource)) {
+                continue;
+            }
+            int index = i;
+            calls[i] = () -> {
+                if (rollbackVoted.get()) {
+                    skipped[index] = true;
+                    return Vote.VoteRollback;
+                }
+                if (_logger.isLoggable(Level.FINER)) {
+                    _logger.logp(Level.FINER, "RegisteredResources", "prepare()",
+                        "Before invoking prepare() in parallel on resource:" + currResource);
+                }
+                boolean rollback = true;
+                try {
+                    Vote vote = prepare(currResource);
+                    rollback = vote == Vote.VoteRollback;
+                    return vote;
+                } finally {
+                    if (rollback) {
+                        rollbackVoted.set(true);
+                    }
+                }
+            };
+        }
+
+        // invokeAll returns once every call has returned, so the skipped
+        // flags are visible here.
+        Future<Vote>[] prepared = ParallelCompletion.invokeAll(calls);
+        for (int i = 0; i < nRes; i++) {
+            if (skipped[i]) {
+                prepared[i] = null;
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * Returns whether a Resource is committed as the last agent, and so must
+     * not be prepared before all other Resources have voted.
+     *
+     * @param resource  The Resource.
+     *
+     * @return  True if the Resource wraps a last agent XAResource.
+     */
+    private static boolean isLastAgent(Resource resource) {
+        return resource instanceof OTSResourceImpl && ((OTSResourceImpl) resource).isLastAgent();
+    }
+
+    /**
+     * Prepares a Resource, and reports the time taken to the
+     * TransactionPhaseListener if there is one.
+     *
+     * @param resource  The Resource to prepare.
+     *
+     * @return  The vote of the Resource.
+     *
+     * @see Configuration#getTransactionPhaseListener
+     */
+    private static Vote prepare(Resource resource) throws HeuristicMixed, HeuristicHazard {
+        TransactionPhaseListener phaseListener = Configuration.getTransactionPhaseListener();
+        if (phaseListener == null) {
+            return resource.prepare();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return resource.prepare();
+        } finally {
+            String resourceType = resource instanceof OTSResourceImpl
+                ? ((OTSResourceImpl) resource).getResourceType() : "remote";
+            phaseListener.prepared(resourceType, System.nanoTime() - start);
+        }
+    }
+
     Resource getLAOResource() {
         return laoResource;
     }
@@ -680,15 +806,27 @@ class RegisteredResources {
             infiniteRetry = false;
         }
 
+        TransactionPhaseListener phaseListener = Configuration.getTransactionPhaseListener();
+        long commitStart = phaseListener != null ? System.nanoTime() : 0;
 
         // Browse through the participants, committing them. The following is
         // intended to be done asynchronously as a group of operations.
+        //
+        // If parallel completion is enabled, the first commit is sent to all
+        // registered Resources together; the outcomes are then handled here
+        // in order, and any retry is made from this thread.
+
+        Future<Void>[] committed = null;
+        if (nRes > 1 && ParallelCompletion.isEnabled()) {
+            committed = commitInParallel();
+        }
 
         boolean transactionCompleted = true;
         String msg = null;
         for (int i = 0; i < nRes; i++) {
             boolean isProxy = false;
             Resource currResource = (Resource) resourceObjects.get(i);
+            Future<Void> firstCommit = committed != null ? committed[i] : null;
 
             // If the current Resource in the browse is not in the registered
             // state, skip over it.
@@ -724,7 +862,13 @@ class RegisteredResources {
                             _logger.logp(Level.FINER, "RegisteredResources", "distributeCommit()",
                                 "Before invoking commit on resource = " + currResource);
                         }
-                        currResource.commit();
+                        if (firstCommit != null) {
+                            Future<Void> outcome = firstCommit;
+                            firstCommit = null;
+                            ParallelCompletion.getOutcome(outcome);
+                        } else {
+                            currResource.commit();
+                        }
                         if (_logger.isLoggable(Level.FINER)) {
                             _logger.logp(Level.FINER, "RegisteredResources", "distributeCommit()",
                                 "After invoking commit on resource = " + currResource);
@@ -892,6 +1036,38 @@ class RegisteredResources {
         }
 
         // Otherwise just return normally.
+
+        if (phaseListener != null) {
+            phaseListener.committed(System.nanoTime() - commitStart);
+        }
+    }
+
+    /**
+     * Sends commit to the Resources in the registered state in parallel.
+     *
+     * @param
+     *
+     * @return  The outcomes of commit, indexed like the Resources.
+     *
+     * @see ParallelCompletion
+     */
+    private Future<Void>[] commitInParallel() {
+        @SuppressWarnings("unchecked")
+        Callable<Void>[] calls = new Callable[nRes];
+        for (int i = 0; i < nRes; i++) {
+            if ((ResourceStatus) resourceStates.get(i) == ResourceStatus.Registered) {
+                Resource currResource = (Resource) resourceObjects.get(i);
+                calls[i] = () -> {
+                    if (_logger.isLoggable(Level.FINER)) {
+                        _logger.logp(Level.FINER, "RegisteredResources", "distributeCommit()",
+                            "Before invoking commit in parallel on resource = " + currResource);
+                    }
+                    currResource.commit();
+                    return null;
+                };
+            }
+        }
+        return ParallelCompletion.invokeAll(calls);
     }
 
     /**
@@ -1469,6 +1645,9 @@ class RegisteredResources {
         // Now we know we have one resource we can use similar
         // logic to the 'commit' method
 
+        TransactionPhaseListener phaseListener = Configuration.getTransactionPhaseListener();
+        long commitStart = phaseListener != null ? System.nanoTime() : 0;
+
         Resource currResource = (Resource) resourceObjects.get(0);
 
         // If the single resource is not in the registered state,
@@ -1682,6 +1861,10 @@ class RegisteredResources {
         }
 
         // Otherwise just return normally.
+
+        if (phaseListener != null) {
+            phaseListener.committed(System.nanoTime() - commitStart);
+        }
     }
 
     // START IASRI 4662745
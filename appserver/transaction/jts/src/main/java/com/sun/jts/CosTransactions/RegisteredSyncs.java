@@ -31,6 +31,7 @@
 
 package com.sun.jts.CosTransactions;
 
+import com.sun.enterprise.transaction.jts.api.TransactionPhaseListener;
 import com.sun.logging.LogDomains;
 
 import java.util.Vector;
@@ -97,6 +98,8 @@ class RegisteredSyncs {
     boolean distributeBefore() {
 
         boolean result = true;
+        TransactionPhaseListener phaseListener = Configuration.getTransactionPhaseListener();
+        long start = phaseListener != null ? System.nanoTime() : 0;
 
         for (int i = 0; i < registered.size() && result == true; i++) {
             Synchronization sync = (Synchronization) registered.elementAt(i);
@@ -122,6 +125,9 @@ class RegisteredSyncs {
             }
         }
 
+        if (phaseListener != null) {
+            phaseListener.beforeCompletion(System.nanoTime() - start);
+        }
         return result;
     }
 
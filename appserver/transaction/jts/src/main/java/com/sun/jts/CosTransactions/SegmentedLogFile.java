@@ -0,0 +1,821 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import com.sun.enterprise.util.i18n.StringManager;
+import com.sun.logging.LogDomains;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+/**A LogFile made of preallocated segments of a fixed size, written through
+ * memory mappings.
+ * <p>
+ * Each segment file starts with a header holding its sequence number, followed
+ * by records framed as length, type, segment sequence number and a CRC32C of the
+ * frame. A scan of a segment stops at the first frame that is not complete or
+ * carries another sequence number, so torn writes and data left over from an
+ * earlier use of the file are ignored without clearing it.
+ * The LSN of a record is its segment sequence number and offset.
+ * <p>
+ * Records are only appended to the newest segment; a new segment is started
+ * when a record does not fit, and when the log is opened. Segments before the
+ * checkpoint are handed to a background thread that renames them back to spare
+ * files for reuse, and spare files are zero-filled ahead of time so that a
+ * segment switch only maps an existing file. At recovery all segments are
+ * scanned in parallel.
+ * <p>
+ * The restart record is kept in a separate file that is replaced atomically.
+ *
+ * @see Configuration#SEGMENTED_LOG
+ */
+class SegmentedLogFile extends LogFile {
+
+    static Logger _logger = LogDomains.getLogger(SegmentedLogFile.class, LogDomains.TRANSACTION_LOGGER);
+
+    private static final StringManager sm = StringManager.getManager(SegmentedLogFile.class);
+
+    /**Default and minimum size of a segment in bytes.
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    /**The number of spare segment files kept ready for use.
+     */
+    static final int SPARE_SEGMENTS = 2;
+
+    static final String SEGMENT_PREFIX = "segment."/*#Frozen*/;
+    static final String SPARE_PREFIX = "spare-"/*#Frozen*/;
+    static final String SPARE_SUFFIX = ".segment"/*#Frozen*/;
+    static final String RESTART_NAME = "restart.segment"/*#Frozen*/;
+
+    private static final int MAGIC = 0x4A54534C;
+    private static final int VERSION = 1;
+
+    /**Segment header: magic, version, sequence number, CRC of the preceding fields.
+     */
+    static final int SEGMENT_HEADER_SIZE = 16;
+
+    /**Frame header: payload length, record type, segment sequence number, CRC
+     * of the preceding fields and the payload.
+     */
+    static final int FRAME_HEADER_SIZE = 16;
+
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    private final String logName;
+    private final File directory;
+    private final int segmentSize;
+    private final LogGroupCommit groupCommit;
+    private final ExecutorService recycler;
+
+    // Guarded by this
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final ArrayDeque<File> spares = new ArrayDeque<>();
+    private Segment current;
+    private int nextSequence;
+    private long recordsAppended;
+    private boolean closed;
+
+    private SegmentedLogFile( String logName,
+                              File   directory,
+                              int    segmentSize ) {
+        super(null);
+        this.logName = logName;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.groupCommit = LogGroupCommit.create(this::forceLog,logName);
+        this.recycler = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "JTS log segment recycler [" + logName + "]");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**Returns whether the segmented log is configured.
+     */
+    static boolean isConfigured() {
+        return Boolean.parseBoolean(Configuration.getPropertyValue(Configuration.SEGMENTED_LOG));
+    }
+
+    /**Determines whether a segmented log exists in the given directory.
+     *
+     * @param directory  The log directory.
+     *
+     * @return  Indicates whether segments or a restart record exist.
+     */
+    static boolean exists( File directory ) {
+        String[] names = directory.list();
+        if( names != null )
+            for( String name : names )
+                if( name.startsWith(SEGMENT_PREFIX) || name.equals(RESTART_NAME) )
+                    return true;
+
+        return false;
+    }
+
+    /**Opens the segmented log in the given directory, creating it if necessary.
+     * <p>
+     * Existing segments are kept for recovery; new records go to a new segment.
+     *
+     * @param logName    The name of the log.
+     * @param directory  The log directory.
+     *
+     * @return  The opened log.
+     *
+     * @exception LogException The log could not be opened.
+     */
+    static SegmentedLogFile open( String logName,
+                                  File   directory )
+        throws LogException {
+
+        if( !directory.exists() && !directory.mkdirs() )
+            _logger.log(Level.WARNING,"jts.exception_creating_log_directory",directory);
+
+        SegmentedLogFile log = new SegmentedLogFile(logName,directory,configuredSegmentSize());
+        synchronized( log ) {
+            log.loadDirectory();
+            log.current = log.activate(log.nextSequence++);
+            log.segments.put(log.current.sequence,log.current);
+        }
+        log.recycler.execute(log::prepareSpares);
+
+        return log;
+    }
+
+    private static int configuredSegmentSize() {
+        String value = Configuration.getPropertyValue(Configuration.LOG_SEGMENT_SIZE);
+        if( value != null )
+            try {
+                return Math.max(MIN_SEGMENT_SIZE,Integer.parseInt(value.trim()));
+            } catch( NumberFormatException e ) {
+                _logger.log(Level.WARNING,"jts.invalid_log_segment_size",value);
+            }
+
+        return DEFAULT_SEGMENT_SIZE;
+    }
+
+    /**Registers the segments and spare files found in the log directory.
+     */
+    private void loadDirectory() {
+        nextSequence = 1;
+        String[] names = directory.list();
+        if( names == null )
+            return;
+
+        for( String name : names ) {
+            File file = new File(directory,name);
+            if( name.startsWith(SEGMENT_PREFIX) ) {
+                try {
+                    int sequence = Integer.parseInt(name.substring(SEGMENT_PREFIX.length()),16);
+                    segments.put(sequence,new Segment(sequence,file));
+                    nextSequence = Math.max(nextSequence,sequence+1);
+                } catch( NumberFormatException e ) {
+                    // Not one of ours
+                }
+            } else if( name.startsWith(SPARE_PREFIX) && name.endsWith(SPARE_SUFFIX) ) {
+
+                // Spares that are incomplete or of another size are discarded.
+
+                if( file.length() == segmentSize && spares.size() < SPARE_SEGMENTS )
+                    spares.add(file);
+                else if( !file.delete() )
+                    file.deleteOnExit();
+            }
+        }
+    }
+
+    /**Writes a log record to the newest segment.
+     *
+     * @param writeType   Forced/non-forced write indicator.
+     * @param record      Log record data.
+     * @param recordType  Log record type.
+     * @param recordLSN   LSN of the written record.
+     *
+     * @return
+     *
+     * @see LogFile#write
+     */
+    @Override
+    boolean write( int    writeType,
+                   byte[] record,
+                   int    recordType,
+                   LogLSN recordLSN ) {
+
+        Segment segment;
+        long sequence;
+
+        synchronized( this ) {
+            try {
+                if( closed )
+                    throw new LogException(null,LogException.LOG_INVALID_FILE_DESCRIPTOR,1);
+
+                int frameSize = FRAME_HEADER_SIZE + record.length;
+                if( frameSize > segmentSize - SEGMENT_HEADER_SIZE )
+                    throw new LogException(null,LogException.LOG_RECORD_TOO_LARGE,2);
+
+                if( current.buffer.remaining() < frameSize )
+                    rollOver();
+
+                int offset = current.append(record,recordType);
+                segment = current;
+                sequence = ++recordsAppended;
+
+                if( recordLSN != null )
+                    recordLSN.copy(new LogLSN(segment.sequence,offset));
+            } catch( LogException le ) {
+                throw logError(le);
+            }
+        }
+
+        // The sync is done outside the lock so that other writers can append meanwhile,
+        // on the segment the record was written to.
+
+        if( writeType == LogFile.FORCED )
+            try {
+                if( groupCommit != null )
+                    groupCommit.force(sequence);
+                else
+                    segment.force();
+            } catch( LogException le ) {
+                throw logError(le);
+            }
+
+        return true;
+    }
+
+    /**Forces the newest segment. Older segments were forced when the log moved on
+     * from them.
+     *
+     * @return  The number of records written to the log, all of which are forced.
+     *
+     * @exception LogException The force failed.
+     */
+    private long forceLog()
+        throws LogException {
+
+        Segment segment;
+        long appended;
+        synchronized( this ) {
+            if( closed )
+                throw new LogException(null,LogException.LOG_INVALID_FILE_DESCRIPTOR,3);
+            segment = current;
+            appended = recordsAppended;
+        }
+        segment.force();
+
+        return appended;
+    }
+
+    /**Forces the current segment and continues the log in a new one.
+     *
+     * @exception LogException The switch failed.
+     */
+    private void rollOver()
+        throws LogException {
+
+        current.force();
+        current = activate(nextSequence++);
+        segments.put(current.sequence,current);
+
+        recycler.execute(this::prepareSpares);
+    }
+
+    /**Turns a spare file into the segment with the given sequence number.
+     *
+     * @param sequence  The sequence number of the segment.
+     *
+     * @return  The mapped segment.
+     *
+     * @exception LogException The segment could not be created.
+     */
+    private Segment activate( int sequence )
+        throws LogException {
+
+        File file = new File(directory,segmentName(sequence));
+        File spare = spares.poll();
+        try {
+            if( spare == null ) {
+                _logger.log(Level.FINE,"No spare segment available for log " + logName);
+                spare = allocate();
+            }
+            Files.move(spare.toPath(),file.toPath(),StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory();
+
+            Segment segment = new Segment(sequence,file);
+            segment.map(segmentSize);
+            return segment;
+        } catch( IOException e ) {
+            throw new LogException(LogException.LOG_OPEN_FAILURE,4,
+                    sm.getString("jts.log_segment_failed",file),e);
+        }
+    }
+
+    /**Creates a zero-filled spare file.
+     *
+     * @return  The spare file.
+     *
+     * @exception IOException The file could not be written.
+     */
+    private File allocate()
+        throws IOException {
+
+        File file = File.createTempFile(SPARE_PREFIX,SPARE_SUFFIX,directory);
+        try( FileChannel channel = FileChannel.open(file.toPath(),StandardOpenOption.WRITE) ) {
+            ByteBuffer zeros = ByteBuffer.wrap(ZEROS);
+            for( long position = 0; position < segmentSize; position += ZEROS.length ) {
+                zeros.clear().limit((int)Math.min(ZEROS.length,segmentSize-position));
+                while( zeros.hasRemaining() )
+                    channel.write(zeros,position+zeros.position());
+            }
+            channel.force(true);
+        } catch( IOException e ) {
+            if( !file.delete() )
+                file.deleteOnExit();
+            throw e;
+        }
+
+        return file;
+    }
+
+    /**Makes a rename in the log directory durable, where the platform allows it.
+     */
+    private void forceDirectory() {
+        try( FileChannel channel = FileChannel.open(directory.toPath(),StandardOpenOption.READ) ) {
+            channel.force(true);
+        } catch( IOException e ) {
+            // Not supported for directories on all platforms
+        }
+    }
+
+    /**Background task: allocates spare files until enough are available.
+     */
+    private void prepareSpares() {
+        for(;;) {
+            synchronized( this ) {
+                if( closed || spares.size() >= SPARE_SEGMENTS )
+                    return;
+            }
+
+            File spare;
+            try {
+                spare = allocate();
+            } catch( IOException e ) {
+                _logger.log(Level.WARNING,"jts.log_segment_preallocation_failed",
+                        new Object[] {logName,e.toString()});
+                return;
+            }
+
+            synchronized( this ) {
+                if( closed ) {
+                    if( !spare.delete() )
+                        spare.deleteOnExit();
+                    return;
+                }
+                spares.add(spare);
+            }
+        }
+    }
+
+    /**Background task: turns segments that are no longer needed into spare files.
+     *
+     * @param retired  The segments, no longer part of the log.
+     */
+    private void recycle( List<Segment> retired ) {
+        for( Segment segment : retired ) {
+            segment.close();
+
+            boolean keep;
+            synchronized( this ) {
+                keep = !closed && spares.size() < SPARE_SEGMENTS
+                    && segment.file.length() == segmentSize;
+            }
+
+            File spare = null;
+            if( keep )
+                try {
+                    spare = File.createTempFile(SPARE_PREFIX,SPARE_SUFFIX,directory);
+                    Files.move(segment.file.toPath(),spare.toPath(),StandardCopyOption.REPLACE_EXISTING);
+                } catch( IOException e ) {
+                    _logger.log(Level.FINE,"Could not recycle " + segment.file,e);
+                    if( spare != null && !spare.delete() )
+                        spare.deleteOnExit();
+                    spare = null;
+                }
+
+            if( spare == null ) {
+                if( !segment.file.delete() )
+                    segment.file.deleteOnExit();
+                continue;
+            }
+
+            synchronized( this ) {
+                if( closed ) {
+                    if( !spare.delete() )
+                        spare.deleteOnExit();
+                } else
+                    spares.add(spare);
+            }
+        }
+    }
+
+    /**Informs the log that all log records older than the one with the given LSN
+     * are no longer required.
+     * <p>
+     * The current segment is forced, so that the records which made the older
+     * ones obsolete are durable, before the segments below the given LSN are
+     * recycled.
+     *
+     * @param firstLSN
+     *
+     * @return
+     *
+     * @see LogFile#checkpoint
+     */
+    @Override
+    synchronized boolean checkpoint( LogLSN firstLSN ) {
+
+        if( closed )
+            return false;
+
+        int firstSequence = current.sequence;
+        if( !firstLSN.isNULL() && !firstLSN.equals(LogLSN.HEAD_LSN) )
+            firstSequence = Math.min(firstSequence,firstLSN.extent);
+
+        Map<Integer,Segment> head = segments.headMap(firstSequence);
+        if( head.isEmpty() )
+            return true;
+
+        try {
+            current.force();
+        } catch( LogException le ) {
+            return false;
+        }
+
+        List<Segment> retired = new ArrayList<>(head.values());
+        head.clear();
+        recycler.execute(() -> recycle(retired));
+
+        return true;
+    }
+
+    /**Writes the given information in the restart record for the log.
+     *
+     * @param record  The information to be written.
+     *
+     * @return  Indicates success of the operation.
+     *
+     * @see LogFile#writeRestart
+     */
+    @Override
+    synchronized boolean writeRestart( byte[] record ) {
+
+        File file = new File(directory,RESTART_NAME);
+        File temp = new File(directory,RESTART_NAME + ".tmp"/*#Frozen*/);
+
+        ByteBuffer data = ByteBuffer.allocate(12 + record.length);
+        data.putInt(MAGIC).putInt(record.length).putInt(crc(record,0,record.length)).put(record).flip();
+
+        try {
+            try( FileChannel channel = FileChannel.open(temp.toPath(),StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,StandardOpenOption.TRUNCATE_EXISTING) ) {
+                while( data.hasRemaining() )
+                    channel.write(data);
+                channel.force(true);
+            }
+            Files.move(temp.toPath(),file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory();
+        } catch( IOException e ) {
+            _logger.log(Level.FINE,sm.getString("jts.log_write_restart_data_failed"),e);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**Reads the restart record from the log.
+     *
+     * @return  The restart record, or null if there is none.
+     *
+     * @see LogFile#readRestart
+     */
+    @Override
+    synchronized byte[] readRestart() {
+
+        File file = new File(directory,RESTART_NAME);
+        if( !file.exists() )
+            return null;
+
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if( data.remaining() < 12 || data.getInt() != MAGIC )
+                return null;
+
+            int length = data.getInt();
+            int crc = data.getInt();
+            if( length < 0 || length != data.remaining() )
+                return null;
+
+            byte[] record = new byte[length];
+            data.get(record);
+            return crc(record,0,length) == crc ? record : null;
+        } catch( IOException e ) {
+            _logger.log(Level.FINE,sm.getString("jts.log_read_restart_data_failed"),e);
+            return null;
+        }
+    }
+
+    /**Closes the log, deleting its files if requested.
+     *
+     * @param deleteFile
+     *
+     * @return
+     *
+     * @see LogFile#close
+     */
+    @Override
+    boolean close( boolean deleteFile ) {
+
+        boolean result = true;
+
+        synchronized( this ) {
+            if( closed )
+                return false;
+            closed = true;
+
+            try {
+                current.force();
+            } catch( LogException le ) {
+                result = false;
+            }
+        }
+
+        // Let pending recycling finish before the segments are closed.
+
+        recycler.shutdown();
+        try {
+            recycler.awaitTermination(10,TimeUnit.SECONDS);
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized( this ) {
+            for( Segment segment : segments.values() )
+                segment.close();
+
+            if( deleteFile ) {
+                List<File> files = new ArrayList<>(spares);
+                for( Segment segment : segments.values() )
+                    files.add(segment.file);
+                files.add(new File(directory,RESTART_NAME));
+
+                for( File file : files )
+                    if( file.exists() && !file.delete() )
+                        result = false;
+
+                // Like the extent log, remove the directory if nothing else is left in it.
+                directory.delete();
+            }
+
+            segments.clear();
+            spares.clear();
+        }
+
+        return result;
+    }
+
+    /**Returns all of the log records written to the log since the last checkpoint.
+     * <p>
+     * The segments are scanned in parallel; the records are then processed from
+     * the newest to the oldest as {@link LogFile#getLogRecords} does.
+     *
+     * @return  The log records.
+     *
+     * @see LogFile#getLogRecords
+     */
+    @Override
+    synchronized Vector getLogRecords() {
+
+        long start = System.nanoTime();
+        List<Segment> scanned = new ArrayList<>(segments.values());
+        List<List<Frame>> frames;
+        try {
+            frames = scanned.parallelStream()
+                .map(Segment::scan)
+                .collect(Collectors.toList());
+        } catch( RuntimeException e ) {
+            _logger.log(Level.WARNING,"jts.log_error",e.toString());
+            return new Vector();
+        }
+
+        Vector logRecords = new Vector();
+        boolean keypointEndFound = false;
+        scan:
+        for( int s = frames.size()-1; s >= 0; s-- ) {
+            List<Frame> segmentFrames = frames.get(s);
+            for( int f = segmentFrames.size()-1; f >= 0; f-- ) {
+                Frame frame = segmentFrames.get(f);
+                switch( frame.type ) {
+
+                case LogFile.KEYPOINT_START :
+                    if( keypointEndFound )
+                        break scan;
+                    break;
+
+                case LogFile.KEYPOINT_END :
+                    keypointEndFound = true;
+                    break;
+
+                case LogFile.NORMAL :
+                case LogFile.REWRITE :
+                    if( frame.type == LogFile.NORMAL || keypointEndFound )
+                        logRecords.addElement(frame.record);
+                    break;
+
+                default :
+                    break;
+                }
+            }
+        }
+
+        if( _logger.isLoggable(Level.FINE) )
+            _logger.log(Level.FINE,"Scanned " + scanned.size() + " segments of log " + logName
+                    + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime()-start)
+                    + " ms, " + logRecords.size() + " records");
+
+        return logRecords;
+    }
+
+    static String segmentName( int sequence ) {
+        return SEGMENT_PREFIX + String.format("%08x",sequence);
+    }
+
+    private static int crc( byte[] bytes, int offset, int length ) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes,offset,length);
+        return (int)crc.getValue();
+    }
+
+    /**A record read from a segment.
+     */
+    static final class Frame {
+        final int type;
+        final byte[] record;
+
+        Frame( int type, byte[] record ) {
+            this.type = type;
+            this.record = record;
+        }
+    }
+
+    /**One segment file. Only the newest segment of a log is mapped for writing.
+     */
+    static final class Segment {
+        final int sequence;
+        final File file;
+        private FileChannel channel;
+
+        // Set under the log lock, read without it by force()
+        volatile MappedByteBuffer buffer;
+
+        Segment( int sequence, File file ) {
+            this.sequence = sequence;
+            this.file = file;
+        }
+
+        /**Maps the file for writing and writes the segment header.
+         */
+        void map( int size ) throws IOException {
+            channel = FileChannel.open(file.toPath(),StandardOpenOption.READ,StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE,0,size);
+
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(sequence);
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate().flip());
+            buffer.putInt((int)crc.getValue());
+        }
+
+        /**Appends a record frame. The caller ensures that it fits.
+         *
+         * @return  The offset of the frame.
+         */
+        int append( byte[] record, int recordType ) {
+            int offset = buffer.position();
+
+            buffer.putInt(record.length).putInt(recordType).putInt(sequence);
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate().limit(offset+12).position(offset));
+            crc.update(record,0,record.length);
+            buffer.putInt((int)crc.getValue());
+            buffer.put(record);
+
+            return offset;
+        }
+
+        /**Forces the mapping of the segment.
+         * <p>
+         * Writers force outside the log lock, so the segment may have been closed
+         * by a checkpoint or by closing the log meanwhile. It was forced then, when
+         * the log moved on from it, so there is nothing left to force.
+         */
+        void force() throws LogException {
+            MappedByteBuffer mapped = buffer;
+            if( mapped == null )
+                return;
+
+            try {
+                mapped.force();
+            } catch( RuntimeException e ) {
+                throw new LogException(LogException.LOG_ERROR_FORCING_LOG,5,
+                        sm.getString("jts.log_file_sync_failed"),e);
+            }
+        }
+
+        /**Reads the complete frames of the segment.
+         */
+        List<Frame> scan() {
+            List<Frame> frames = new ArrayList<>();
+            try( FileChannel readChannel = FileChannel.open(file.toPath(),StandardOpenOption.READ) ) {
+                long size = readChannel.size();
+                if( size < SEGMENT_HEADER_SIZE )
+                    return frames;
+
+                MappedByteBuffer data = readChannel.map(FileChannel.MapMode.READ_ONLY,0,size);
+                CRC32C crc = new CRC32C();
+                crc.update(data.duplicate().limit(12));
+                if( data.getInt(0) != MAGIC || data.getInt(4) != VERSION
+                        || data.getInt(8) != sequence || data.getInt(12) != (int)crc.getValue() )
+                    return frames;
+
+                int position = SEGMENT_HEADER_SIZE;
+                while( position + FRAME_HEADER_SIZE <= size ) {
+                    int length = data.getInt(position);
+                    if( length < 0 || length > size - position - FRAME_HEADER_SIZE
+                            || data.getInt(position+8) != sequence )
+                        break;
+
+                    byte[] record = new byte[length];
+                    data.duplicate().position(position+FRAME_HEADER_SIZE).get(record);
+
+                    crc.reset();
+                    crc.update(data.duplicate().limit(position+12).position(position));
+                    crc.update(record,0,length);
+                    if( data.getInt(position+12) != (int)crc.getValue() )
+                        break;
+
+                    frames.add(new Frame(data.getInt(position+4),record));
+                    position += FRAME_HEADER_SIZE + length;
+                }
+            } catch( IOException e ) {
+                throw new IllegalStateException(sm.getString("jts.log_segment_failed",file),e);
+            }
+
+            return frames;
+        }
+
+        void close() {
+            buffer = null;
+            if( channel != null )
+                try {
+                    channel.close();
+                } catch( IOException e ) {
+                    // Nothing more can be done
+                }
+            channel = null;
+        }
+    }
+}
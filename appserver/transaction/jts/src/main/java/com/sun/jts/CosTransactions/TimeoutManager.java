@@ -34,18 +34,22 @@ package com.sun.jts.CosTransactions;
 import com.sun.jts.jtsxa.XID;
 import com.sun.logging.LogDomains;
 
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Enumeration;
-import java.util.Hashtable;
-import java.util.Vector;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.omg.CosTransactions.Status;
 
 /**
- * This class records state for timing out transactions, and runs a thread
- * which performs occasional checks to time out transactions.
+ * This class records state for timing out transactions, and runs a timing
+ * wheel which times out transactions when their timeout expires.
+ * <p>
+ * The timeouts are kept in concurrent maps and armed in a {@link TimeoutWheel},
+ * so that setting and cancelling a timeout takes no shared lock.
  *
  * @version 0.01
  *
@@ -75,12 +79,18 @@ class TimeoutManager {
      */
     private static boolean initialised = false;
 
-    private static Hashtable     pendingTimeouts = new Hashtable();
-    private static Hashtable     indoubtTimeouts = new Hashtable();
-    private static TimeoutThread timeoutThread = null;
-    private static boolean       timeoutActive = false;
-    private static boolean       quiescing = false;
-    private static boolean       isSetTimeout = false;
+    private static final ConcurrentHashMap<Long,TimeoutInfo> pendingTimeouts = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Long,TimeoutInfo> indoubtTimeouts = new ConcurrentHashMap<>();
+    private static volatile TimeoutWheel timeoutWheel = null;
+    private static volatile boolean timeoutActive = false;
+    private static volatile boolean quiescing = false;
+    private static volatile boolean isSetTimeout = false;
+
+    /**
+     * The default interval in milliseconds at which timeouts expire.
+     */
+    private static final int DEFAULT_TIMEOUT_INTERVAL = 10000;
+    private static int timeoutInterval = DEFAULT_TIMEOUT_INTERVAL;
 
     /*
         Logger to log transaction messages
@@ -105,11 +115,9 @@ class TimeoutManager {
 
         initialised = true;
 
-        // Start the timeout thread.
+        // The timing wheel is started by the first timeout.
 
-        if (!timeoutActive && timeoutThread == null) {
-            //  timeoutThread = new TimeoutThread();
-            //  timeoutThread.start();
+        if (!timeoutActive && timeoutWheel == null) {
             timeoutActive = true;
         }
     }
@@ -119,9 +127,20 @@ class TimeoutManager {
         if (isSetTimeout) {
             return;
         }
+        try {
+            String timeout_interval = Configuration.getPropertyValue(Configuration.TIMEOUT_INTERVAL);
+            if (timeout_interval != null) {
+                timeoutInterval = Integer.parseInt(timeout_interval);
+                timeoutInterval *= 1000;
+                if (timeoutInterval < DEFAULT_TIMEOUT_INTERVAL)
+                    timeoutInterval = DEFAULT_TIMEOUT_INTERVAL;
+            }
+        } catch (Exception e) {
+            timeoutInterval = DEFAULT_TIMEOUT_INTERVAL;
+        }
+        int workers = Math.min(4, Runtime.getRuntime().availableProcessors());
+        timeoutWheel = new TimeoutWheel(TimeoutManager::timeoutExpired, timeoutInterval, workers);
         isSetTimeout = true;
-        timeoutThread = new TimeoutThread();
-        timeoutThread.start();
     }
 
     /**
@@ -162,18 +181,17 @@ class TimeoutManager {
                     timeoutInfo.expireTime = new Date().getTime() + seconds * 1000L;
                     timeoutInfo.localTID = localTID;
                     timeoutInfo.timeoutType = timeoutType;
-                    pendingTimeouts.put(localTID, timeoutInfo);
+                    arm(pendingTimeouts, timeoutInfo, seconds * 1000L);
                     break;
                 case TimeoutManager.IN_DOUBT_TIMEOUT:
                     if (!isSetTimeout) {
                         initSetTimeout();
-                        // isSetTimeout = true;
                     }
                     timeoutInfo = new TimeoutInfo();
                     timeoutInfo.expireTime = new Date().getTime() + seconds * 1000L;
                     timeoutInfo.localTID = localTID;
                     timeoutInfo.timeoutType = timeoutType;
-                    indoubtTimeouts.put(localTID, timeoutInfo);
+                    arm(indoubtTimeouts, timeoutInfo, seconds * 1000L);
                     break;
 
                 // For any other type, remove the timeout if there is one.
@@ -182,19 +200,22 @@ class TimeoutManager {
                     if (!isSetTimeout) {
                         break;
                     }
-                    result = (pendingTimeouts.remove(localTID) != null);
-                    if (!result) {
-                        result = (indoubtTimeouts.remove(localTID) != null);
+                    timeoutInfo = pendingTimeouts.remove(localTID);
+                    if (timeoutInfo == null) {
+                        timeoutInfo = indoubtTimeouts.remove(localTID);
+                    }
+                    result = (timeoutInfo != null);
+                    if (result) {
+                        timeoutWheel.cancel(timeoutInfo);
                     }
 
                     // If the transaction service is quiescing and
                     // there are no more pending timeouts,
-                    // deactivate timeout and stop the timeout thread.
+                    // deactivate timeout and stop the timing wheel.
 
                     if (quiescing && pendingTimeouts.isEmpty() && indoubtTimeouts.isEmpty()) {
-                        timeoutThread.stop();
+                        timeoutWheel.stop();
                         timeoutActive = false;
-                        // pendingTimeouts = null;
                     }
                     break;
             }
@@ -206,6 +227,63 @@ class TimeoutManager {
         return result;
     }
 
+    /**
+     * Records the timeout for its transaction and arms it, replacing any
+     * earlier timeout of the same kind.
+     *
+     * @param timeouts     The timeouts of the kind.
+     * @param timeoutInfo  The new timeout.
+     * @param delay        The time in milliseconds until the timeout expires.
+     *
+     * @return
+     *
+     * @see
+     */
+    private static void arm(ConcurrentHashMap<Long,TimeoutInfo> timeouts, TimeoutInfo timeoutInfo, long delay) {
+        TimeoutInfo previous = timeouts.put(timeoutInfo.localTID, timeoutInfo);
+        if (previous != null) {
+            timeoutWheel.cancel(previous);
+        }
+        timeoutWheel.schedule(timeoutInfo, delay);
+    }
+
+    /**
+     * Processes a timeout which has expired, on a worker thread of the
+     * timing wheel.
+     * <p>
+     * An expired active timeout stays recorded, so that the transaction
+     * sees no time left, until the transaction cancels it. An in-doubt
+     * timeout which is still recorded after processing is armed again, so
+     * that the outcome is asked for again after the next interval. It is
+     * armed under the lock of its map entry, so that it is either armed
+     * before a concurrent {@link #setTimeout} removes it, and then
+     * cancelled, or not armed at all.
+     *
+     * @param timeoutInfo  The timeout.
+     *
+     * @return
+     *
+     * @see
+     */
+    private static void timeoutExpired(TimeoutInfo timeoutInfo) {
+        if (!timeoutActive) {
+            return;
+        }
+        try {
+            timeoutCoordinator(timeoutInfo.localTID, timeoutInfo.timeoutType);
+        } catch (Throwable exc) {
+            _logger.log(Level.WARNING, "jts.unexpected_error_in_timeout", exc);
+        }
+        if (timeoutInfo.timeoutType == IN_DOUBT_TIMEOUT) {
+            indoubtTimeouts.computeIfPresent(timeoutInfo.localTID, (localTID, recorded) -> {
+                if (recorded == timeoutInfo) {
+                    timeoutWheel.schedule(timeoutInfo, timeoutInterval);
+                }
+                return recorded;
+            });
+        }
+    }
+
     /**
      * Takes appropriate action for a timeout.
      * <p>
@@ -322,133 +400,30 @@ class TimeoutManager {
         }
     }
 
-    /**
-     * Periodically checks the existing timeouts.
-     * <p>
-     * This is done to discover if any transactions have overrun their allotted
-     * time.  Those which have are returned as an Enumeration.
-     * <p>
-     * Note that this method should not do anything that will cause a
-     * synchronized method in the RecoveryManager to be called, as this could
-     * cause a deadlock when RecoveryManager methods on other threads call
-     * setTimeout.
-     *
-     * @param
-     *
-     * @return  The information for transactions which have timed out.
-     *
-     * @see
-     */
-     static Enumeration checkTimeouts() {
-        if (!isSetTimeout) {
-            return null;
-        }
-
-        Enumeration result = null;
-
-        // When woken up, go through all current timeouts and identify those
-        // which have expired.
-
-        if (timeoutActive && (pendingTimeouts.size() != 0 || indoubtTimeouts.size() != 0)) {
-            Vector timedOut = null;
-
-            Enumeration timeouts = null;
-
-            synchronized (pendingTimeouts) {
-                timeouts = pendingTimeouts.elements();
-
-                while (timeouts.hasMoreElements()) {
-
-                    TimeoutInfo timeoutInfo = (TimeoutInfo)timeouts.nextElement();
-
-                    // For each timeout in the list, check whether it has expired.
-                    // If so, look up the Coordinator and roll it back.
-
-                    if (new Date().getTime() > timeoutInfo.expireTime) {
-
-                       // Add the TimeoutInfo to the queue of
-                       //those that have timed out.
-
-                       if (timedOut == null) {
-                           timedOut = new Vector();
-                       }
-
-                       timedOut.addElement(timeoutInfo);
-                    }
-               }
-            }
-
-            synchronized (indoubtTimeouts) {
-
-                timeouts = indoubtTimeouts.elements();
-
-                while (timeouts.hasMoreElements()) {
-
-                    TimeoutInfo timeoutInfo = (TimeoutInfo)timeouts.nextElement();
-
-                    // For each timeout in the list, check whether it has expired.
-                    // If so, look up the Coordinator and roll it back.
-
-                    if (new Date().getTime() > timeoutInfo.expireTime) {
-
-                        // Add the TimeoutInfo to the queue of
-                        //those that have timed out.
-
-                        if (timedOut == null) {
-                            timedOut = new Vector();
-                        }
-
-                        timedOut.addElement(timeoutInfo);
-                    }
-                }
-
-            }
-            // Enumerate the transactions which have timed out.
-
-            if (timedOut != null) {
-                result = timedOut.elements();
-            }
-        }
-
-        // The remainder of the timeout processing is not carried out here
-        // because we would get deadlocked with addCoordinator or
-        // removeCoordinator that also update the timeout list.  Hence the
-        // returned enumeration, which may be processed with
-        // no concurrency control.
-
-        return result;
-    }
-
     /**
      * @return a set of in-doubt transaction ids.
      */
      static XID[] getInDoubtXids() {
 
-         synchronized (indoubtTimeouts) {
-             Vector inDoubtList = new Vector();
-
-             Enumeration timeouts = indoubtTimeouts.elements();
+         List<XID> inDoubtList = new ArrayList<>();
 
-             while (timeouts.hasMoreElements()) {
+         for (TimeoutInfo timeoutInfo : indoubtTimeouts.values()) {
 
-                 TimeoutInfo timeoutInfo = (TimeoutInfo) timeouts.nextElement();
+             // Look up the Coordinator for the transaction.
+             // If there is none, then the transaction has already gone.
+             // Otherwise do something with the transaction.
 
-                 // Look up the Coordinator for the transaction.
-                 // If there is none, then the transaction has already gone.
-                 // Otherwise do something with the transaction.
+             CoordinatorImpl coord =
+                 RecoveryManager.getLocalCoordinator(timeoutInfo.localTID);
 
-                 CoordinatorImpl coord =
-                     RecoveryManager.getLocalCoordinator(timeoutInfo.localTID);
-
-                 if (coord != null) {
-                     XID xid = new XID();
-                     xid.copy(coord.getGlobalTID());
-                     inDoubtList.addElement(xid);
-                 }
+             if (coord != null) {
+                 XID xid = new XID();
+                 xid.copy(coord.getGlobalTID());
+                 inDoubtList.add(xid);
              }
-
-             return (XID[]) inDoubtList.toArray(new XID[] {});
          }
+
+         return inDoubtList.toArray(new XID[] {});
      }
 
     /**
@@ -464,9 +439,9 @@ class TimeoutManager {
      */
     static long timeLeft(Long localTID) {
 
-        TimeoutInfo timeoutInfo = (TimeoutInfo) pendingTimeouts.get(localTID);
+        TimeoutInfo timeoutInfo = pendingTimeouts.get(localTID);
         if (timeoutInfo == null) {
-            timeoutInfo = (TimeoutInfo) indoubtTimeouts.get(localTID);
+            timeoutInfo = indoubtTimeouts.get(localTID);
         }
         long result = -1;
         if (timeoutInfo != null) {
@@ -481,10 +456,10 @@ class TimeoutManager {
 
     /**
      * Informs the TimeoutManager that the transaction service
-     * is being shut down. For immediate shutdown, the timeout thread is
+     * is being shut down. For immediate shutdown, the timing wheel is
      * stopped and all timeout information discarded.
      *
-     * For quiesce, the timeout thread is stopped when there are no running
+     * For quiesce, the timing wheel is stopped when there are no running
      * transactions left.
      *
      * @param immediate  Indicates whether to stop immediately.
@@ -495,24 +470,19 @@ class TimeoutManager {
      */
     static void shutdown(boolean immediate) {
 
-        // For immediate, kill the timeout thread and throw
+        // For immediate, stop the timing wheel and throw
         // away all information. Also, if there are no pending
         // timeouts, there is nothing to quiesce so
         // shutdown immediately regardless.
 
-        if (immediate ||
-            pendingTimeouts == null || pendingTimeouts.isEmpty()) {
-            if (timeoutThread != null) {
-                timeoutThread.stop();
-            }
-
-            if (pendingTimeouts != null) {
-                pendingTimeouts.clear();
+        if (immediate || pendingTimeouts.isEmpty()) {
+            timeoutActive = false;
+            if (timeoutWheel != null) {
+                timeoutWheel.stop();
             }
 
-            pendingTimeouts = null;
-            timeoutThread = null;
-            timeoutActive = false;
+            pendingTimeouts.clear();
+            indoubtTimeouts.clear();
         } else {
             quiescing = true;
         }
@@ -583,101 +553,23 @@ class TimeoutInfo extends Object {
     Long localTID = null;
     long expireTime = 0;
     int  timeoutType = TimeoutManager.NO_TIMEOUT;
-}
-
-/**
- * This class represents a thread on which the TimeoutManager can perform
- * timeout checking.
- *
- * @version 0.01
- *
- * @author Simon Holdsworth, IBM Corporation
- *
- * @see
- */
-
-//----------------------------------------------------------------------------
-// CHANGE HISTORY
-//
-// Version By     Change Description
-//   0.01  SAJH   Initial implementation.
-//----------------------------------------------------------------------------
-
-class TimeoutThread extends Thread {
-
-    private int TIMEOUT_INTERVAL ;
-
-    static Logger _logger = LogDomains.getLogger(TimeoutThread.class, LogDomains.TRANSACTION_LOGGER);
 
     /**
-     * TimeoutThread constructor.
-     * <p>
-     * This sets the thread name, and sets the thread to be a daemon thread so
-     * that it does not prevent the process from terminating.
-     *
-     * @param
-     * @return
-     * @see
+     * States of the timeout in the timing wheel.
      */
-    TimeoutThread() {
-        setName("JTS Timeout Thread"/* #Frozen */);
-        setDaemon(true);
-        try {
-            String timeout_interval = Configuration.getPropertyValue(Configuration.TIMEOUT_INTERVAL);
-            if (timeout_interval != null) {
-                TIMEOUT_INTERVAL = Integer.parseInt(timeout_interval);
-                TIMEOUT_INTERVAL *= 1000;
-                if (TIMEOUT_INTERVAL < 10000)
-                    TIMEOUT_INTERVAL = 10000;
-            } else {
-                TIMEOUT_INTERVAL = 10000;
-            }
-        } catch (Exception e) {
-            TIMEOUT_INTERVAL = 10000;
-        }
-    }
+    static final int ARMED     = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED   = 2;
 
-    /**
-     * Performs timeout checking on a regular basis (every ten seconds or so).
-     *
-     * @param
-     *
-     * @return
-     *
-     * @see
-     */
-    public void run() {
-        try {
-            while (true) {
-
-                // Sleep for a while between checks.
-
-                Thread.sleep(TIMEOUT_INTERVAL);
-
-                // Perform timeout checks, getting a list of timed-out
-                // transactions.
+    static final AtomicIntegerFieldUpdater<TimeoutInfo> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(TimeoutInfo.class, "state");
 
-                Enumeration timedOut = TimeoutManager.checkTimeouts();
+    volatile int state = EXPIRED;
 
-                // Now we must go through the list, telling each
-                // timed-out Coordinator to do something appropriate.
-
-                if (timedOut != null) {
-                    while (timedOut.hasMoreElements()) {
-                        TimeoutInfo timeoutInfo = (TimeoutInfo) timedOut.nextElement();
-
-                        // Look up the Coordinator and tell it to roll back
-                        // if it still exists. Note that we rely on the
-                        // Coordinator calling removeCoordinator when it
-                        // has finished, which will remove the timeout from
-                        // the list, and remove other associations as well.
-
-                        TimeoutManager.timeoutCoordinator(timeoutInfo.localTID, timeoutInfo.timeoutType);
-                    }
-                }
-            }
-        } catch (InterruptedException exc) {
-            _logger.log(Level.INFO,"jts.time_out_thread_stopped");
-        }
-    }
+    // Owned by the timing wheel
+    long deadline;
+    long rounds;
+    int bucket = -1;
+    TimeoutInfo prev;
+    TimeoutInfo next;
 }
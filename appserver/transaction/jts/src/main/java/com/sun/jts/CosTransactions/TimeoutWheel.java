@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import com.sun.logging.LogDomains;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**Hashed timing wheel which expires transaction timeouts.
+ * <p>
+ * Time is divided into ticks, and each timeout is kept in the bucket of the
+ * tick in which it expires; a timeout further away than one turn of the wheel
+ * also counts the turns it has to wait. At the end of each tick the timer
+ * thread expires the timeouts of one bucket, so only expired timeouts are
+ * looked at, and hands them to a small pool of worker threads.
+ * <p>
+ * Arming and cancelling a timeout only add it to a lock-free queue and change
+ * its state; the buckets themselves are touched by the timer thread alone,
+ * which moves the queued timeouts into and out of them once per tick.
+ *
+ * @see TimeoutManager
+ */
+final class TimeoutWheel {
+
+    static Logger _logger = LogDomains.getLogger(TimeoutWheel.class, LogDomains.TRANSACTION_LOGGER);
+
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    /**Called on a worker thread for each expired timeout.
+     */
+    interface Expiry {
+        void expired(TimeoutInfo timeoutInfo);
+    }
+
+    private final Expiry expiry;
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+
+    private final Queue<TimeoutInfo> arming = new ConcurrentLinkedQueue<>();
+    private final Queue<TimeoutInfo> cancelled = new ConcurrentLinkedQueue<>();
+    private final ThreadPoolExecutor workers;
+    private final Thread timerThread;
+    private volatile boolean stopped;
+
+    // Accessed by the timer thread only
+    private final TimeoutInfo[] buckets = new TimeoutInfo[WHEEL_SIZE];
+    private long tick;
+
+    /**Creates and starts the wheel.
+     *
+     * @param expiry        Processes expired timeouts.
+     * @param tickMillis    The length of a tick in milliseconds.
+     * @param workerThreads The number of threads which process expired timeouts.
+     */
+    TimeoutWheel(Expiry expiry, long tickMillis, int workerThreads) {
+        this.expiry = expiry;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new TimeoutThreadFactory());
+        workers.allowCoreThreadTimeOut(true);
+
+        timerThread = new Thread(this::run, "JTS Timeout Thread"/*#Frozen*/);
+        timerThread.setDaemon(true);
+        timerThread.setContextClassLoader(TimeoutWheel.class.getClassLoader());
+        timerThread.start();
+    }
+
+    /**Arms the timeout to expire after the given delay.
+     * <p>
+     * A timeout which has expired may be armed again.
+     *
+     * @param timeoutInfo  The timeout.
+     * @param delayMillis  The delay in milliseconds.
+     */
+    void schedule(TimeoutInfo timeoutInfo, long delayMillis) {
+        timeoutInfo.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        timeoutInfo.state = TimeoutInfo.ARMED;
+        arming.add(timeoutInfo);
+    }
+
+    /**Cancels the timeout.
+     *
+     * @param timeoutInfo  The timeout.
+     *
+     * @return  False if the timeout had already expired or been cancelled.
+     */
+    boolean cancel(TimeoutInfo timeoutInfo) {
+        if (!TimeoutInfo.STATE.compareAndSet(timeoutInfo, TimeoutInfo.ARMED, TimeoutInfo.CANCELLED)) {
+            return false;
+        }
+        cancelled.add(timeoutInfo);
+        return true;
+    }
+
+    /**Stops the timer and worker threads. Pending timeouts never expire.
+     */
+    void stop() {
+        stopped = true;
+        timerThread.interrupt();
+        workers.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            while (!stopped) {
+                waitForTick();
+                addArmed();
+                removeCancelled();
+                expireBucket(buckets[(int) (tick & MASK)]);
+                tick++;
+            }
+        } catch (InterruptedException exc) {
+            _logger.log(Level.INFO, "jts.time_out_thread_stopped");
+        }
+    }
+
+    private void waitForTick() throws InterruptedException {
+        long end = startNanos + (tick + 1) * tickNanos;
+        long wait;
+        while ((wait = end - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private void addArmed() {
+        TimeoutInfo timeoutInfo;
+        while ((timeoutInfo = arming.poll()) != null) {
+            if (timeoutInfo.state != TimeoutInfo.ARMED) {
+                continue;
+            }
+            if (timeoutInfo.bucket >= 0) {
+                unlink(timeoutInfo);
+            }
+
+            // A deadline in a tick already passed expires with this one.
+
+            long deadlineTick = Math.max((timeoutInfo.deadline - startNanos) / tickNanos, tick);
+            timeoutInfo.rounds = (deadlineTick - tick) / WHEEL_SIZE;
+            link(timeoutInfo, (int) (deadlineTick & MASK));
+        }
+    }
+
+    private void removeCancelled() {
+        TimeoutInfo timeoutInfo;
+        while ((timeoutInfo = cancelled.poll()) != null) {
+            if (timeoutInfo.bucket >= 0) {
+                unlink(timeoutInfo);
+            }
+        }
+    }
+
+    private void expireBucket(TimeoutInfo head) {
+        TimeoutInfo timeoutInfo = head;
+        while (timeoutInfo != null) {
+            TimeoutInfo next = timeoutInfo.next;
+            if (timeoutInfo.rounds > 0) {
+                timeoutInfo.rounds--;
+            } else {
+                unlink(timeoutInfo);
+                if (TimeoutInfo.STATE.compareAndSet(timeoutInfo, TimeoutInfo.ARMED, TimeoutInfo.EXPIRED)) {
+                    TimeoutInfo expired = timeoutInfo;
+                    try {
+                        workers.execute(() -> expiry.expired(expired));
+                    } catch (RuntimeException e) {
+                        // Stopped
+                        return;
+                    }
+                }
+            }
+            timeoutInfo = next;
+        }
+    }
+
+    private void link(TimeoutInfo timeoutInfo, int bucket) {
+        TimeoutInfo head = buckets[bucket];
+        timeoutInfo.bucket = bucket;
+        timeoutInfo.prev = null;
+        timeoutInfo.next = head;
+        if (head != null) {
+            head.prev = timeoutInfo;
+        }
+        buckets[bucket] = timeoutInfo;
+    }
+
+    private void unlink(TimeoutInfo timeoutInfo) {
+        if (timeoutInfo.prev != null) {
+            timeoutInfo.prev.next = timeoutInfo.next;
+        } else {
+            buckets[timeoutInfo.bucket] = timeoutInfo.next;
+        }
+        if (timeoutInfo.next != null) {
+            timeoutInfo.next.prev = timeoutInfo.prev;
+        }
+        timeoutInfo.prev = null;
+        timeoutInfo.next = null;
+        timeoutInfo.bucket = -1;
+    }
+
+    private static final class TimeoutThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "JTS Timeout Worker " + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(TimeoutWheel.class.getClassLoader());
+            return thread;
+        }
+    }
+}
@@ -131,6 +131,34 @@ public class TransactionServiceProperties {
                             if (isValueSet(value)) {
                                 jtsProperties.put(Configuration.COMMIT_ONE_PHASE_DURING_RECOVERY, value);
                             }
+                        } else if (name.equals("group-commit")) {
+                            if (isValueSet(value)) {
+                                jtsProperties.put(Configuration.GROUP_COMMIT, value);
+                            }
+                        } else if (name.equals("group-commit-wait-micros")) {
+                            if (isValueSet(value)) {
+                                jtsProperties.put(Configuration.GROUP_COMMIT_WAIT, value);
+                            }
+                        } else if (name.equals("segmented-log")) {
+                            if (isValueSet(value)) {
+                                jtsProperties.put(Configuration.SEGMENTED_LOG, value);
+                            }
+                        } else if (name.equals("log-segment-size")) {
+                            if (isValueSet(value)) {
+                                jtsProperties.put(Configuration.LOG_SEGMENT_SIZE, value);
+                            }
+                        } else if (name.equals("parallel-resource-completion")) {
+                            if (isValueSet(value)) {
+                                jtsProperties.put(Configuration.PARALLEL_COMPLETION, value);
+                            }
+                        } else if (name.equals("parallel-resource-completion-threads")) {
+                            if (isValueSet(value)) {
+                                jtsProperties.put(Configuration.PARALLEL_COMPLETION_THREADS, value);
+                            }
+                        } else if (name.equals("recovery-threads")) {
+                            if (isValueSet(value)) {
+                                jtsProperties.put(Configuration.RECOVERY_THREADS, value);
+                            }
                         } else if (name.equals("add-wait-point-during-recovery")) {
                             if (isValueSet(value)) {
                                 try {
@@ -27,6 +27,7 @@ import javax.transaction.xa.*;
 //import com.sun.jts.etsjdbc.odbc.NativeXAResourceImpl;
 import com.sun.jts.jta.TransactionState;
 import com.sun.jts.codegen.jtsxa.*;
+import com.sun.enterprise.transaction.api.LastAgentResource;
 
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -373,6 +374,25 @@ public class OTSResourceImpl extends OTSResourcePOA implements OTSResource {
         return otid;
     }
 
+    /**
+     * Returns the type of the resource manager, for monitoring.
+     *
+     * @return the class name of the XAResource
+     */
+    public String getResourceType() {
+        return xaRes.getClass().getName();
+    }
+
+    /**
+     * Returns whether the resource is committed as the last agent, once all
+     * other resources have voted.
+     *
+     * @return true if the XAResource is a last agent
+     */
+    public boolean isLastAgent() {
+        return xaRes instanceof LastAgentResource;
+    }
+
     /**
      * Returns the CORBA Object which represents this object.
      *
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogDBHelperTest {
+
+    private static final int WRITERS = 8;
+    private static final byte[] DATA = {1, 2, 3};
+
+    @Test
+    public void concurrentInsertsShareABatch() throws Exception {
+        TestDataSource ds = new TestDataSource();
+        LogDBHelper helper = new LogDBHelper(ds, true);
+        Map<String, Boolean> results = new ConcurrentHashMap<>();
+        ds.failing.add("3");
+
+        // The first writer holds the insert lock while the others queue their records
+        Gate gate = ds.closeGate();
+        Thread first = startWriter(helper, 0, results);
+        assertTrue(gate.arrived.await(10, TimeUnit.SECONDS));
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 1; i <= WRITERS; i++) {
+            writers.add(startWriter(helper, i, results));
+        }
+        awaitWaiting(writers);
+        gate.release.countDown();
+        first.join(10_000L);
+        for (Thread writer : writers) {
+            writer.join(10_000L);
+        }
+
+        assertEquals(2, ds.insertBatches.size());
+        assertEquals(List.of("0"), ds.insertBatches.get(0));
+        assertEquals(tids(1, WRITERS), Set.copyOf(ds.insertBatches.get(1)));
+        assertEquals(WRITERS + 1, results.size());
+        results.forEach((tid, inserted) -> assertEquals(!"3".equals(tid), inserted, tid));
+
+        // The connection of the failed batch was closed and is opened again
+        ds.failing.clear();
+        assertTrue(helper.addRecord(42, DATA));
+        assertEquals(List.of("42"), ds.insertBatches.get(2));
+        assertEquals(1, ds.openConnections.get());
+    }
+
+    @Test
+    public void failedBatchFailsEveryInsert() throws Exception {
+        TestDataSource ds = new TestDataSource();
+        LogDBHelper helper = new LogDBHelper(ds, true);
+        ds.failAll = true;
+
+        assertFalse(helper.addRecord(1, DATA));
+        assertEquals(0, ds.openConnections.get());
+    }
+
+    @Test
+    public void deletesAreBatchedAndFlushed() throws Exception {
+        TestDataSource ds = new TestDataSource();
+        LogDBHelper helper = new LogDBHelper(ds, true);
+
+        // The delete thread waits in the first batch while the others are queued
+        Gate gate = ds.closeGate();
+        assertTrue(helper.deleteRecord(0));
+        assertTrue(gate.arrived.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= WRITERS; i++) {
+            assertTrue(helper.deleteRecord(i));
+        }
+        gate.release.countDown();
+        helper.flushDeletes();
+
+        assertEquals(2, ds.deleteBatches.size());
+        assertEquals(List.of("0"), ds.deleteBatches.get(0));
+        assertEquals(tids(1, WRITERS), Set.copyOf(ds.deleteBatches.get(1)));
+        assertEquals(0, ds.openConnections.get());
+
+        // Deleting again after a flush starts a new thread
+        assertTrue(helper.deleteRecord(99));
+        helper.flushDeletes();
+        assertEquals(List.of("99"), ds.deleteBatches.get(2));
+        assertEquals(0, ds.openConnections.get());
+    }
+
+    private static Thread startWriter(LogDBHelper helper, int localTID, Map<String, Boolean> results) {
+        Thread writer = new Thread(() -> results.put(Integer.toString(localTID), helper.addRecord(localTID, DATA)));
+        writer.start();
+        return writer;
+    }
+
+    /**
+     * Waits until the writers wait for the insert lock, so their records are queued.
+     */
+    private static void awaitWaiting(List<Thread> writers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (Thread writer : writers) {
+            while (writer.getState() != Thread.State.WAITING) {
+                assertTrue(System.nanoTime() < deadline, writer + " does not wait for the lock");
+                Thread.sleep(1L);
+            }
+        }
+    }
+
+    private static Set<String> tids(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(Integer::toString).collect(Collectors.toSet());
+    }
+
+    /**
+     * Holds the next batch until released.
+     */
+    private static class Gate {
+
+        final CountDownLatch arrived = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+    }
+
+    /**
+     * Records the batches executed on the connections it hands out.
+     */
+    static class TestDataSource implements DataSource {
+
+        final List<List<String>> insertBatches = Collections.synchronizedList(new ArrayList<>());
+        final List<List<String>> deleteBatches = Collections.synchronizedList(new ArrayList<>());
+        final Set<String> failing = ConcurrentHashMap.newKeySet();
+        final AtomicInteger openConnections = new AtomicInteger();
+        volatile boolean failAll;
+        private volatile Gate gate;
+
+        Gate closeGate() {
+            gate = new Gate();
+            return gate;
+        }
+
+        public Connection getNonTxConnection() {
+            openConnections.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return statement((String) args[0]);
+                        case "close":
+                            openConnections.decrementAndGet();
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.toString());
+                    }
+                });
+        }
+
+        private PreparedStatement statement(String sql) {
+            List<List<String>> batches = sql.startsWith("insert") ? insertBatches : deleteBatches;
+            List<String> batch = new ArrayList<>();
+            String[] localTID = new String[1];
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setString":
+                            if ((Integer) args[0] == 1) {
+                                localTID[0] = (String) args[1];
+                            }
+                            return null;
+                        case "setBytes":
+                        case "close":
+                            return null;
+                        case "addBatch":
+                            batch.add(localTID[0]);
+                            return null;
+                        case "executeBatch":
+                            return executeBatch(batches, batch);
+                        default:
+                            throw new UnsupportedOperationException(method.toString());
+                    }
+                });
+        }
+
+        private int[] executeBatch(List<List<String>> batches, List<String> batch) throws Exception {
+            List<String> executed = new ArrayList<>(batch);
+            batch.clear();
+            Gate current = gate;
+            gate = null;
+            if (current != null) {
+                current.arrived.countDown();
+                // The delete thread may be interrupted by flushDeletes() in the meantime
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        assertTrue(current.release.await(10, TimeUnit.SECONDS));
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failAll) {
+                throw new BatchUpdateException();
+            }
+            batches.add(executed);
+            int[] counts = new int[executed.size()];
+            boolean failed = false;
+            for (int i = 0; i < counts.length; i++) {
+                failed |= failing.contains(executed.get(i));
+                counts[i] = failing.contains(executed.get(i)) ? Statement.EXECUTE_FAILED : 1;
+            }
+            if (failed) {
+                throw new BatchUpdateException(counts);
+            }
+            return counts;
+        }
+
+        @Override
+        public Connection getConnection() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getLogger(LogDBHelperTest.class.getName());
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class LogGroupCommitTest {
+
+    @Test
+    public void forcesASingleWriter() throws Exception {
+        AtomicInteger forces = new AtomicInteger();
+        LogGroupCommit groupCommit = new LogGroupCommit(() -> {
+            forces.incrementAndGet();
+            return 1;
+        }, LogGroupCommit.DEFAULT_WAIT_MICROS);
+
+        groupCommit.force(1);
+        assertEquals(1, forces.get());
+        // already forced
+        groupCommit.force(1);
+        assertEquals(1, forces.get());
+    }
+
+    @Test
+    public void forcesConcurrentWritersTogether() throws Exception {
+        int writers = 16;
+        AtomicLong written = new AtomicLong();
+        AtomicLong durable = new AtomicLong();
+        AtomicInteger forces = new AtomicInteger();
+        LogGroupCommit groupCommit = new LogGroupCommit(() -> {
+            forces.incrementAndGet();
+            long sequence = written.get();
+            sleep(5L);
+            durable.set(sequence);
+            return sequence;
+        }, LogGroupCommit.DEFAULT_WAIT_MICROS);
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    long sequence = written.incrementAndGet();
+                    groupCommit.force(sequence);
+                    assertTrue(durable.get() >= sequence, "returned before the record was forced");
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(thread.isAlive());
+        }
+
+        assertNull(failure.get());
+        assertEquals(writers, durable.get());
+        assertTrue(forces.get() < writers, "forces: " + forces.get());
+    }
+
+    @Test
+    public void keepsWaitingWhenInterrupted() throws Exception {
+        CountDownLatch forcing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong written = new AtomicLong();
+        LogGroupCommit groupCommit = new LogGroupCommit(() -> {
+            long sequence = written.get();
+            forcing.countDown();
+            // only the leader waits, the follower forces with its interrupt restored
+            if (release.getCount() > 0) {
+                await(release);
+            }
+            return sequence;
+        }, 0);
+
+        written.set(1);
+        Thread leader = new Thread(() -> force(groupCommit, 1));
+        leader.start();
+        assertTrue(forcing.await(10, TimeUnit.SECONDS));
+
+        written.set(2);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread follower = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            force(groupCommit, 2);
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        follower.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (follower.getState() != Thread.State.WAITING) {
+                assertTrue(System.nanoTime() < deadline, "the interrupted writer does not wait: " + follower.getState());
+                Thread.sleep(1L);
+            }
+            // a writer spinning on the interrupt looks WAITING too, but burns the CPU
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            assumeTrue(threads.isThreadCpuTimeSupported());
+            long cpuTime = threads.getThreadCpuTime(follower.getId());
+            Thread.sleep(200L);
+            long spent = threads.getThreadCpuTime(follower.getId()) - cpuTime;
+            assertTrue(spent < TimeUnit.MILLISECONDS.toNanos(50), "CPU time while waiting: " + spent + " ns");
+        } finally {
+            release.countDown();
+        }
+        leader.join(TimeUnit.SECONDS.toMillis(10));
+        follower.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(follower.isAlive());
+        assertTrue(interrupted.get(), "the interrupt was not restored");
+    }
+
+    @Test
+    public void nextWriterForcesAfterAFailure() throws Exception {
+        LogException failure = new LogException(LogException.LOG_ERROR_FORCING_LOG, 1, null, null);
+        AtomicInteger forces = new AtomicInteger();
+        LogGroupCommit groupCommit = new LogGroupCommit(() -> {
+            if (forces.incrementAndGet() == 1) {
+                throw failure;
+            }
+            return 1;
+        }, 0);
+
+        assertSame(failure, assertThrows(LogException.class, () -> groupCommit.force(1)));
+        groupCommit.force(1);
+        assertEquals(2, forces.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void force(LogGroupCommit groupCommit, long sequence) {
+        try {
+            groupCommit.force(sequence);
+        } catch (LogException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
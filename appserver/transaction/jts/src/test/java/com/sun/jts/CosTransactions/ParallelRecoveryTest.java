@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import com.sun.enterprise.transaction.jts.api.TransactionRecoveryListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelRecoveryTest {
+
+    private static final int THREADS = 2;
+
+    @BeforeAll
+    public static void limitThreads() {
+        setThreads(THREADS);
+    }
+
+    @AfterAll
+    public static void defaultThreads() {
+        setThreads(ParallelRecovery.DEFAULT_THREADS);
+    }
+
+    @AfterEach
+    public void unregisterListener() {
+        RecoveryManager.registerTransactionRecoveryListener(null);
+    }
+
+    @Test
+    public void resolvesEveryBranchOnceInOrder() throws Exception {
+        CountingListener listener = new CountingListener();
+        RecoveryManager.registerTransactionRecoveryListener(listener);
+        List<TestXAResource> resources = List.of(
+            new TestXAResource("a", 3), new TestXAResource("b", 0), new TestXAResource("c", 20),
+            new TestXAResource("d", 1), new TestXAResource("e", 7));
+
+        recover(resources);
+
+        int branches = 0;
+        for (TestXAResource resource : resources) {
+            assertEquals(resource.inDoubt, resource.resolved, resource.name);
+            branches += resource.inDoubt.size();
+        }
+        assertEquals(resources.size(), listener.started.get());
+        assertEquals(resources.size(), listener.scanned.get());
+        assertEquals(branches, listener.resolved.get());
+        assertEquals(1, listener.completed.get());
+    }
+
+    @Test
+    public void recoversTheOtherResourcesWhenOneFails() throws Exception {
+        TestXAResource failingScan = new TestXAResource("scan", 2) {
+            @Override
+            public Xid[] recover(int flag) {
+                throw new IllegalStateException("scan failed");
+            }
+        };
+        TestXAResource failingCommit = new TestXAResource("commit", 2) {
+            @Override
+            public void commit(Xid xid, boolean onePhase) {
+                throw new IllegalStateException("commit failed");
+            }
+        };
+        TestXAResource first = new TestXAResource("first", 4);
+        TestXAResource last = new TestXAResource("last", 4);
+        List<TestXAResource> resources = List.of(first, failingScan, failingCommit, last);
+
+        ParallelRecovery recovery = new ParallelRecovery(new ArrayList<XAResource>(resources));
+        Xid[][] inDoubtXids = recovery.scan();
+        assertNull(inDoubtXids[1]);
+        assertArrayEquals(failingCommit.inDoubt.toArray(), inDoubtXids[2]);
+        addResolutions(recovery, resources, inDoubtXids);
+        recovery.resolve();
+
+        assertEquals(first.inDoubt, first.resolved);
+        assertEquals(last.inDoubt, last.resolved);
+    }
+
+    @Test
+    public void usesAtMostTheConfiguredThreads() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        List<TestXAResource> resources = new ArrayList<>();
+        for (int i = 0; i < 2 * THREADS; i++) {
+            resources.add(new TestXAResource(Integer.toString(i), 1) {
+                @Override
+                public Xid[] recover(int flag) {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        // Only passes if the threads scan together
+                        barrier.await(10, TimeUnit.SECONDS);
+                        return super.recover(flag);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        recover(resources);
+
+        assertEquals(THREADS, maxActive.get());
+        for (TestXAResource resource : resources) {
+            assertEquals(resource.inDoubt, resource.resolved, resource.name);
+            assertTrue(resource.scanningThread.startsWith("JTS Recovery Thread"), resource.scanningThread);
+        }
+    }
+
+    private static void recover(List<TestXAResource> resources) {
+        ParallelRecovery recovery = new ParallelRecovery(new ArrayList<XAResource>(resources));
+        addResolutions(recovery, resources, recovery.scan());
+        recovery.resolve();
+    }
+
+    private static void addResolutions(ParallelRecovery recovery, List<TestXAResource> resources, Xid[][] inDoubtXids) {
+        for (int r = 0; r < resources.size(); r++) {
+            if (inDoubtXids[r] == null) {
+                continue;
+            }
+            TestXAResource resource = resources.get(r);
+            for (Xid xid : inDoubtXids[r]) {
+                recovery.addResolution(r, () -> resource.commit(xid, false));
+            }
+        }
+    }
+
+    private static void setThreads(int threads) {
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.RECOVERY_THREADS, Integer.toString(threads));
+        Configuration.setProperties(properties);
+    }
+
+    private static class TestXAResource implements XAResource {
+
+        final String name;
+        final List<Xid> inDoubt = new ArrayList<>();
+        final List<Xid> resolved = Collections.synchronizedList(new ArrayList<>());
+        volatile String scanningThread;
+
+        TestXAResource(String name, int branches) {
+            this.name = name;
+            for (int i = 0; i < branches; i++) {
+                inDoubt.add(new TestXid(name, i));
+            }
+        }
+
+        @Override
+        public Xid[] recover(int flag) {
+            scanningThread = Thread.currentThread().getName();
+            if ((flag & XAResource.TMSTARTRSCAN) == 0) {
+                return new Xid[0];
+            }
+            return inDoubt.toArray(new Xid[0]);
+        }
+
+        @Override
+        public void commit(Xid xid, boolean onePhase) {
+            resolved.add(xid);
+        }
+
+        @Override
+        public void rollback(Xid xid) {
+            resolved.add(xid);
+        }
+
+        @Override
+        public void start(Xid xid, int flags) {
+        }
+
+        @Override
+        public void end(Xid xid, int flags) {
+        }
+
+        @Override
+        public int prepare(Xid xid) {
+            return XA_OK;
+        }
+
+        @Override
+        public void forget(Xid xid) {
+        }
+
+        @Override
+        public boolean isSameRM(XAResource xares) {
+            return xares == this;
+        }
+
+        @Override
+        public int getTransactionTimeout() {
+            return 0;
+        }
+
+        @Override
+        public boolean setTransactionTimeout(int seconds) throws XAException {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class TestXid implements Xid {
+
+        private final byte[] globalTransactionId;
+        private final byte[] branchQualifier;
+
+        TestXid(String resource, int branch) {
+            globalTransactionId = Integer.toString(branch).getBytes();
+            branchQualifier = resource.getBytes();
+        }
+
+        @Override
+        public int getFormatId() {
+            return 0x1234;
+        }
+
+        @Override
+        public byte[] getGlobalTransactionId() {
+            return globalTransactionId;
+        }
+
+        @Override
+        public byte[] getBranchQualifier() {
+            return branchQualifier;
+        }
+    }
+
+    private static class CountingListener implements TransactionRecoveryListener {
+
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger scanned = new AtomicInteger();
+        final AtomicInteger resolved = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+
+        @Override
+        public void recoveryStarted(int resources) {
+            started.addAndGet(resources);
+        }
+
+        @Override
+        public void resourceScanned(int inDoubt, long elapsedMillis) {
+            scanned.incrementAndGet();
+        }
+
+        @Override
+        public void branchResolved() {
+            resolved.incrementAndGet();
+        }
+
+        @Override
+        public void recoveryCompleted(long elapsedMillis) {
+            completed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import com.sun.enterprise.transaction.api.LastAgentResource;
+import com.sun.enterprise.transaction.api.TransactionConstants;
+import com.sun.jts.jtsxa.OTSResourceImpl;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.transaction.xa.XAResource;
+import javax.transaction.xa.Xid;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.omg.CORBA.LocalObject;
+import org.omg.CosTransactions.Resource;
+import org.omg.CosTransactions.Vote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RegisteredResourcesTest {
+
+    /** Two threads, so that the completing thread prepares the third resource itself */
+    private static final int THREADS = 2;
+
+    @BeforeAll
+    public static void enableParallelCompletion() {
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.PARALLEL_COMPLETION, "true");
+        properties.setProperty(Configuration.PARALLEL_COMPLETION_THREADS, Integer.toString(THREADS));
+        Configuration.setProperties(properties);
+        Configuration.setProxyChecker(obj -> false);
+    }
+
+    @AfterAll
+    public static void disableParallelCompletion() {
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.PARALLEL_COMPLETION, "false");
+        Configuration.setProperties(properties);
+        Configuration.setProxyChecker(null);
+    }
+
+    /**
+     * Waits until the threads left by a previous test take calls again, as the
+     * tests rely on which calls the completing thread makes itself.
+     */
+    @BeforeEach
+    public void awaitIdleThreads() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!idleThreads()) {
+            assertTrue(System.nanoTime() < deadline, "a completion thread is still busy");
+            Thread.sleep(1L);
+        }
+    }
+
+    @Test
+    public void preparesTheResourcesTogether() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        RegisteredResources resources = new RegisteredResources(null, null);
+        for (int i = 0; i < 3; i++) {
+            resources.addRes(new TestResource(Vote.VoteCommit) {
+                @Override
+                void preparing() throws Exception {
+                    barrier.await(10, TimeUnit.SECONDS);
+                }
+            });
+        }
+
+        assertEquals(Vote.VoteCommit, resources.distributePrepare());
+    }
+
+    @Test
+    public void stopsPreparingAfterARollbackVote() throws Exception {
+        CountDownLatch started = new CountDownLatch(THREADS);
+        CountDownLatch voted = new CountDownLatch(1);
+        TestResource[] busy = new TestResource[THREADS];
+        RegisteredResources resources = new RegisteredResources(null, null);
+        for (int i = 0; i < THREADS; i++) {
+            busy[i] = new TestResource(Vote.VoteCommit) {
+                @Override
+                void preparing() throws Exception {
+                    started.countDown();
+                    assertTrue(voted.await(10, TimeUnit.SECONDS));
+                }
+            };
+            resources.addRes(busy[i]);
+        }
+        // prepared by the completing thread, as all threads are busy
+        TestResource rollback = new TestResource(Vote.VoteRollback) {
+            @Override
+            void preparing() throws Exception {
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+                voted.countDown();
+            }
+        };
+        resources.addRes(rollback);
+        TestResource later = new TestResource(Vote.VoteCommit);
+        resources.addRes(later);
+        TestResource last = new TestResource(Vote.VoteCommit);
+        resources.addRes(last);
+
+        assertEquals(Vote.VoteRollback, resources.distributePrepare());
+        for (TestResource resource : busy) {
+            assertEquals(1, resource.prepares.get());
+        }
+        assertEquals(1, rollback.prepares.get());
+        assertEquals(0, later.prepares.get());
+        assertEquals(0, last.prepares.get());
+    }
+
+    @Test
+    public void preparesTheLastAgentAfterTheOthers() throws Exception {
+        TestResource first = new TestResource(Vote.VoteCommit);
+        TestResource third = new TestResource(Vote.VoteCommit);
+        LastAgentXAResource lastAgent = new LastAgentXAResource(first, third);
+        OTSResourceImpl lastAgentResource = new OTSResourceImpl(null, lastAgent, null);
+        RegisteredResources resources = new RegisteredResources(null, null);
+        resources.addRes(first);
+        resources.addRes(lastAgentResource);
+        resources.addRes(third);
+
+        assertEquals(Vote.VoteCommit, resources.distributePrepare());
+        assertEquals(2, lastAgent.preparedBefore);
+        assertSame(Thread.currentThread(), lastAgent.preparingThread);
+        assertSame(lastAgentResource, resources.getLAOResource());
+    }
+
+    private static boolean idleThreads() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("JTS-ResourceCompletion-")
+                    && thread.getState() != Thread.State.TIMED_WAITING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class TestResource extends LocalObject implements Resource {
+
+        private static final long serialVersionUID = 1L;
+
+        final AtomicInteger prepares = new AtomicInteger();
+        private final Vote vote;
+
+        TestResource(Vote vote) {
+            this.vote = vote;
+        }
+
+        void preparing() throws Exception {
+        }
+
+        @Override
+        public Vote prepare() {
+            prepares.incrementAndGet();
+            try {
+                preparing();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return vote;
+        }
+
+        @Override
+        public void rollback() {
+        }
+
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public void commit_one_phase() {
+        }
+
+        @Override
+        public void forget() {
+        }
+    }
+
+    private static class LastAgentXAResource implements XAResource, LastAgentResource {
+
+        private final TestResource[] others;
+        volatile int preparedBefore = -1;
+        volatile Thread preparingThread;
+
+        LastAgentXAResource(TestResource... others) {
+            this.others = others;
+        }
+
+        @Override
+        public int prepare(Xid xid) {
+            int prepared = 0;
+            for (TestResource other : others) {
+                prepared += other.prepares.get();
+            }
+            preparedBefore = prepared;
+            preparingThread = Thread.currentThread();
+            return TransactionConstants.LAO_PREPARE_OK;
+        }
+
+        @Override
+        public void start(Xid xid, int flags) {
+        }
+
+        @Override
+        public void end(Xid xid, int flags) {
+        }
+
+        @Override
+        public void commit(Xid xid, boolean onePhase) {
+        }
+
+        @Override
+        public void rollback(Xid xid) {
+        }
+
+        @Override
+        public void forget(Xid xid) {
+        }
+
+        @Override
+        public Xid[] recover(int flag) {
+            return new Xid[0];
+        }
+
+        @Override
+        public boolean isSameRM(XAResource xares) {
+            return xares == this;
+        }
+
+        @Override
+        public int getTransactionTimeout() {
+            return 0;
+        }
+
+        @Override
+        public boolean setTransactionTimeout(int seconds) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SegmentedLogFileTest {
+
+    /** A quarter of the default segment size, minus the frame header */
+    private static final int LARGE_RECORD = SegmentedLogFile.DEFAULT_SEGMENT_SIZE / 4 - SegmentedLogFile.FRAME_HEADER_SIZE;
+
+    @TempDir
+    File directory;
+
+    @Test
+    public void readsWrittenRecordsAfterReopen() throws Exception {
+        SegmentedLogFile log = SegmentedLogFile.open("test", directory);
+        LogLSN first = new LogLSN();
+        assertTrue(log.write(LogFile.UNFORCED, bytes("first"), LogFile.NORMAL, first));
+        assertTrue(log.write(LogFile.FORCED, bytes("second"), LogFile.NORMAL, null));
+        assertTrue(log.write(LogFile.FORCED, bytes("third"), LogFile.NORMAL, null));
+        assertEquals(1, first.extent);
+        assertEquals(SegmentedLogFile.SEGMENT_HEADER_SIZE, first.offset);
+        assertTrue(log.close(false));
+        assertTrue(SegmentedLogFile.exists(directory));
+
+        log = SegmentedLogFile.open("test", directory);
+        try {
+            // newest first, like LogFile
+            assertEquals(Arrays.asList("third", "second", "first"), strings(log.getLogRecords()));
+            // a reopened log continues in a new segment
+            LogLSN next = new LogLSN();
+            log.write(LogFile.FORCED, bytes("fourth"), LogFile.NORMAL, next);
+            assertEquals(2, next.extent);
+            assertEquals(Arrays.asList("fourth", "third", "second", "first"), strings(log.getLogRecords()));
+        } finally {
+            log.close(true);
+        }
+        assertFalse(SegmentedLogFile.exists(directory));
+    }
+
+    @Test
+    public void recyclesSegmentsBeforeTheCheckpoint() throws Exception {
+        SegmentedLogFile log = SegmentedLogFile.open("test", directory);
+        List<LogLSN> lsns = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            LogLSN lsn = new LogLSN();
+            byte[] record = new byte[LARGE_RECORD];
+            record[0] = (byte) i;
+            assertTrue(log.write(LogFile.FORCED, record, LogFile.NORMAL, lsn));
+            lsns.add(lsn);
+        }
+        // three records fit in a segment, next to the segment header
+        assertEquals(4, lsns.get(9).extent);
+        assertEquals(4, segmentFiles().length);
+
+        LogLSN checkpoint = lsns.get(7);
+        assertEquals(3, checkpoint.extent);
+        assertTrue(log.checkpoint(checkpoint));
+        assertTrue(log.close(false));
+        assertEquals(2, segmentFiles().length);
+        String[] spares = directory.list((dir, name) -> name.startsWith(SegmentedLogFile.SPARE_PREFIX));
+        assertTrue(spares.length <= SegmentedLogFile.SPARE_SEGMENTS, Arrays.toString(spares));
+
+        log = SegmentedLogFile.open("test", directory);
+        try {
+            Vector<?> records = log.getLogRecords();
+            assertEquals(4, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(9 - i, ((byte[]) records.get(i))[0]);
+            }
+        } finally {
+            log.close(true);
+        }
+    }
+
+    @Test
+    public void stopsReadingAtATornRecord() throws Exception {
+        SegmentedLogFile log = SegmentedLogFile.open("test", directory);
+        log.write(LogFile.FORCED, bytes("complete"), LogFile.NORMAL, null);
+        LogLSN torn = new LogLSN();
+        log.write(LogFile.FORCED, bytes("torn"), LogFile.NORMAL, torn);
+        log.write(LogFile.FORCED, bytes("after"), LogFile.NORMAL, null);
+        assertTrue(log.close(false));
+
+        File segment = new File(directory, SegmentedLogFile.segmentName(torn.extent));
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(torn.offset + SegmentedLogFile.FRAME_HEADER_SIZE);
+            file.write('T');
+        }
+
+        log = SegmentedLogFile.open("test", directory);
+        try {
+            assertEquals(Arrays.asList("complete"), strings(log.getLogRecords()));
+        } finally {
+            log.close(true);
+        }
+    }
+
+    @Test
+    public void appliesTheKeypointRules() throws Exception {
+        SegmentedLogFile log = SegmentedLogFile.open("test", directory);
+        try {
+            log.write(LogFile.UNFORCED, bytes("before keypoint"), LogFile.NORMAL, null);
+            log.write(LogFile.UNFORCED, bytes("start"), LogFile.KEYPOINT_START, null);
+            log.write(LogFile.UNFORCED, bytes("rewritten"), LogFile.REWRITE, null);
+            log.write(LogFile.UNFORCED, bytes("end"), LogFile.KEYPOINT_END, null);
+            log.write(LogFile.UNFORCED, bytes("after keypoint"), LogFile.NORMAL, null);
+            log.write(LogFile.FORCED, bytes("not rewritten"), LogFile.REWRITE, null);
+
+            assertEquals(Arrays.asList("after keypoint", "rewritten"), strings(log.getLogRecords()));
+        } finally {
+            log.close(true);
+        }
+    }
+
+    @Test
+    public void keepsTheLastCompleteRestartRecord() throws Exception {
+        SegmentedLogFile log = SegmentedLogFile.open("test", directory);
+        try {
+            assertNull(log.readRestart());
+            assertTrue(log.writeRestart(bytes("one")));
+            assertTrue(log.writeRestart(bytes("two")));
+            assertArrayEquals(bytes("two"), log.readRestart());
+
+            try (RandomAccessFile file = new RandomAccessFile(new File(directory, SegmentedLogFile.RESTART_NAME), "rw")) {
+                file.seek(file.length() - 1);
+                file.write('X');
+            }
+            assertNull(log.readRestart());
+        } finally {
+            log.close(true);
+        }
+    }
+
+    @Test
+    public void forcesAClosedSegment() throws Exception {
+        File file = new File(directory, SegmentedLogFile.segmentName(1));
+        assertTrue(file.createNewFile());
+        SegmentedLogFile.Segment segment = new SegmentedLogFile.Segment(1, file);
+        segment.map(SegmentedLogFile.MIN_SEGMENT_SIZE);
+        segment.append(bytes("record"), LogFile.NORMAL);
+        segment.force();
+
+        // as a writer forcing outside the log lock finds a segment recycled meanwhile
+        segment.close();
+        segment.force();
+        assertEquals(1, segment.scan().size());
+    }
+
+    private File[] segmentFiles() {
+        return directory.listFiles((dir, name) -> name.startsWith(SegmentedLogFile.SEGMENT_PREFIX));
+    }
+
+    private static byte[] bytes(String record) {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(Vector<?> records) {
+        List<String> strings = new ArrayList<>();
+        for (Object record : records) {
+            strings.add(new String((byte[]) record, StandardCharsets.UTF_8));
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jts.CosTransactions;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeoutWheelTest {
+
+    private static final long TICK_MILLIS = 5;
+
+    private final BlockingQueue<TimeoutInfo> expired = new LinkedBlockingQueue<>();
+    private TimeoutWheel wheel;
+
+    @AfterEach
+    public void stopWheel() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void expiresAfterTheDelay() throws Exception {
+        wheel = new TimeoutWheel(expired::add, TICK_MILLIS, 2);
+        TimeoutInfo timeoutInfo = timeout(1L);
+        long start = System.nanoTime();
+        wheel.schedule(timeoutInfo, 100);
+
+        assertSame(timeoutInfo, expired.poll(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(TimeoutInfo.EXPIRED, timeoutInfo.state);
+        assertFalse(wheel.cancel(timeoutInfo));
+    }
+
+    @Test
+    public void expiresTimeoutsInTheOrderOfTheirDeadlines() throws Exception {
+        wheel = new TimeoutWheel(expired::add, TICK_MILLIS, 1);
+        TimeoutInfo later = timeout(1L);
+        TimeoutInfo sooner = timeout(2L);
+        wheel.schedule(later, 200);
+        wheel.schedule(sooner, 50);
+
+        assertSame(sooner, expired.poll(10, TimeUnit.SECONDS));
+        assertSame(later, expired.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void expiresTimeoutsBeyondOneTurnOfTheWheel() throws Exception {
+        // the wheel has 512 buckets of one millisecond
+        wheel = new TimeoutWheel(expired::add, 1, 1);
+        TimeoutInfo timeoutInfo = timeout(1L);
+        long start = System.nanoTime();
+        wheel.schedule(timeoutInfo, 1200);
+
+        assertSame(timeoutInfo, expired.poll(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1200));
+    }
+
+    @Test
+    public void neverExpiresACancelledTimeout() throws Exception {
+        wheel = new TimeoutWheel(expired::add, TICK_MILLIS, 2);
+        TimeoutInfo cancelled = timeout(1L);
+        TimeoutInfo armed = timeout(2L);
+        wheel.schedule(cancelled, 50);
+        wheel.schedule(armed, 100);
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        assertSame(armed, expired.poll(10, TimeUnit.SECONDS));
+        assertNull(expired.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(TimeoutInfo.CANCELLED, cancelled.state);
+    }
+
+    @Test
+    public void rearmsAnExpiredTimeout() throws Exception {
+        AtomicInteger expiries = new AtomicInteger();
+        wheel = new TimeoutWheel(timeoutInfo -> {
+            expired.add(timeoutInfo);
+            if (expiries.incrementAndGet() == 1) {
+                wheel.schedule(timeoutInfo, 20);
+            }
+        }, TICK_MILLIS, 1);
+        TimeoutInfo timeoutInfo = timeout(1L);
+        wheel.schedule(timeoutInfo, 20);
+
+        assertSame(timeoutInfo, expired.poll(10, TimeUnit.SECONDS));
+        assertSame(timeoutInfo, expired.poll(10, TimeUnit.SECONDS));
+        assertNull(expired.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancelsARearmedTimeout() throws Exception {
+        wheel = new TimeoutWheel(expired::add, TICK_MILLIS, 1);
+        TimeoutInfo timeoutInfo = timeout(1L);
+        wheel.schedule(timeoutInfo, 20);
+        assertSame(timeoutInfo, expired.poll(10, TimeUnit.SECONDS));
+
+        // as an in-doubt timeout armed again before the transaction completes
+        wheel.schedule(timeoutInfo, 50);
+        assertTrue(wheel.cancel(timeoutInfo));
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void expiresNothingAfterStop() throws Exception {
+        wheel = new TimeoutWheel(expired::add, TICK_MILLIS, 1);
+        wheel.schedule(timeout(1L), 50);
+        wheel.stop();
+
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private static TimeoutInfo timeout(Long localTID) {
+        TimeoutInfo timeoutInfo = new TimeoutInfo();
+        timeoutInfo.localTID = localTID;
+        timeoutInfo.timeoutType = TimeoutManager.ACTIVE_TIMEOUT;
+        return timeoutInfo;
+    }
+}
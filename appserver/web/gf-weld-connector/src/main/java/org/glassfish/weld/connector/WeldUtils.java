@@ -23,8 +23,11 @@ import java.lang.annotation.Annotation;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -276,6 +279,30 @@ public class WeldUtils {
         return result;
     }
 
+    /**
+     * Get the names of the classes defined in the specified paths, as recorded by the class model of the deployment.
+     * The class names are indexed by the path they are defined in the first time they are asked for, so that each
+     * archive of the deployment does not look at all the types.
+     *
+     * @param context The DeploymentContext
+     * @param paths The paths the classes are defined in
+     *
+     * @return A set of class names; The set is empty if the paths were not parsed.
+     */
+    public static Collection<String> getClassNames(DeploymentContext context, Collection<URI> paths) {
+        Set<String> result = new HashSet<String>();
+
+        Map<URI, List<String>> classNamesByPath = getClassNamesByPath(context);
+        for (URI path : paths) {
+            List<String> classNames = classNamesByPath.get(path);
+            if (classNames != null) {
+                result.addAll(classNames);
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Determine whether the specified class is annotated with a CDI scope annotation.
      *
@@ -406,19 +433,61 @@ public class WeldUtils {
     }
 
     private static Types getTypes(DeploymentContext context) {
+        DeploymentContext typesContext = getTypesContext(context);
+        if (typesContext == null) {
+            return null;
+        }
+
+        return (Types) typesContext.getTransientAppMetadata().get(Types.class.getName());
+    }
+
+    /**
+     * Get the context holding the class model, which is the context of the application for a module of an ear.
+     */
+    private static DeploymentContext getTypesContext(DeploymentContext context) {
         String metadataKey = Types.class.getName();
 
-        Types types = (Types) context.getTransientAppMetadata().get(metadataKey);
-        while (types == null) {
+        while (context != null && context.getTransientAppMetadata().get(metadataKey) == null) {
             context = ((ExtendedDeploymentContext) context).getParentContext();
-            if (context != null) {
-                types = (Types) context.getTransientAppMetadata().get(metadataKey);
-            } else {
-                break;
-            }
         }
 
-        return types;
+        return context;
+    }
+
+    /**
+     * Get the class names of the class model indexed by the paths they are defined in. The index is kept with the
+     * class model, and built again if the class model is replaced.
+     */
+    private static Map<URI, List<String>> getClassNamesByPath(DeploymentContext context) {
+        DeploymentContext typesContext = getTypesContext(context);
+        if (typesContext == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Object> metadata = typesContext.getTransientAppMetadata();
+        Types types = (Types) metadata.get(Types.class.getName());
+        ClassNameIndex index = (ClassNameIndex) metadata.get(ClassNameIndex.class.getName());
+        if (index == null || index.types != types) {
+            index = new ClassNameIndex(types);
+            metadata.put(ClassNameIndex.class.getName(), index);
+        }
+
+        return index.classNamesByPath;
+    }
+
+    private static final class ClassNameIndex {
+
+        private final Types types;
+        private final Map<URI, List<String>> classNamesByPath = new HashMap<>();
+
+        ClassNameIndex(Types types) {
+            this.types = types;
+            for (Type type : types.getAllTypes()) {
+                for (URI path : type.getDefiningURIs()) {
+                    classNamesByPath.computeIfAbsent(path, p -> new ArrayList<>()).add(type.getName());
+                }
+            }
+        }
     }
 
     public static boolean isImplicitBeanDiscoveryEnabled() {
@@ -20,6 +20,7 @@ package org.glassfish.web.loader;
 
 import com.sun.appserv.BytecodePreprocessor;
 import com.sun.appserv.server.util.PreprocessorUtil;
+import com.sun.enterprise.loader.ResourceIndex;
 import com.sun.enterprise.loader.ResourceLocator;
 import com.sun.enterprise.security.integration.DDPermissionsLoader;
 import com.sun.enterprise.security.integration.PermsHolder;
@@ -236,6 +237,18 @@ public class WebappClassLoader extends URLClassLoader
      */
     protected File[] jarRealFiles = new File[0];
 
+    /**
+     * The packages of the JARs, in the order they should be searched
+     * for locally loaded classes or resources.
+     */
+    private final List<Set<String>> jarPackages = new ArrayList<>();
+
+    /**
+     * Index of the JARs by package, built on the first lookup after JARs
+     * were added; null until then.
+     */
+    private volatile ResourceIndex<Integer> jarIndex;
+
     /**
      * The path which will be monitored for added Jar files.
      */
@@ -806,6 +819,9 @@ public class WebappClassLoader extends URLClassLoader
         }
         result4[jarRealFiles.length] = file;
         jarRealFiles = result4;
+
+        jarPackages.add(ResourceIndex.getPackages(jarFile));
+        jarIndex = null;
     }
 
 
@@ -1691,6 +1707,8 @@ public class WebappClassLoader extends URLClassLoader
         files = null;
         jarFiles = null;
         jarRealFiles = null;
+        jarPackages.clear();
+        jarIndex = null;
         jarPath = null;
         jarNames.clear();
         lastModifiedDates = null;
@@ -2538,9 +2556,7 @@ public class WebappClassLoader extends URLClassLoader
         entry = findResourceInternalFromRepositories(name, path);
 
         if (entry == null) {
-            synchronized (jarFiles) {
-                entry = findResourceInternalFromJars(name, path);
-            }
+            entry = findResourceInternalFromJars(name, path);
         }
 
         if (entry == null) {
@@ -2662,13 +2678,20 @@ public class WebappClassLoader extends URLClassLoader
         int contentLength = -1;
         InputStream binaryStream = null;
 
+        // Only the JARs with entries in the package of the resource
+        List<Integer> candidates = getJarIndex().getCandidates(path);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
         if (!openJARs()){
             return null;
         }
 
-        int jarFilesLength = jarFiles.length;
+        int candidatesLength = candidates.size();
 
-        for (int i=0; (entry == null) && (i < jarFilesLength); i++) {
+        for (int c=0; (entry == null) && (c < candidatesLength); c++) {
+            int i = candidates.get(c);
             jarEntry = jarFiles[i].getJarEntry(path);
 
             if (jarEntry != null) {
@@ -2710,6 +2733,28 @@ public class WebappClassLoader extends URLClassLoader
         return entry;
     }
 
+    /**
+     * Returns the index of the JARs by package. The index is immutable,
+     * so that lookups need no lock once it is built.
+     */
+    private ResourceIndex<Integer> getJarIndex() {
+        ResourceIndex<Integer> index = jarIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = jarIndex;
+                if (index == null) {
+                    List<Integer> jars = new ArrayList<>(jarPackages.size());
+                    for (int i = 0; i < jarPackages.size(); i++) {
+                        jars.add(i);
+                    }
+                    index = new ResourceIndex<>(jars, jarPackages::get);
+                    jarIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     private synchronized void extractResources() {
         if (!antiJARLocking || resourcesExtracted) {
             return;
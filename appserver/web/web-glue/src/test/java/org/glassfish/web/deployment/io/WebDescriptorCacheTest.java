@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.web.deployment.io;
+
+import com.sun.enterprise.deployment.WebComponentDescriptor;
+import com.sun.enterprise.deployment.io.DeploymentDescriptorFile;
+import com.sun.enterprise.deployment.io.DescriptorCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.glassfish.api.admin.ServerEnvironment;
+import org.glassfish.deployment.common.Descriptor;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
+import org.glassfish.internal.api.Globals;
+import org.glassfish.web.deployment.descriptor.WebBundleDescriptorImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads web.xml through the {@link DescriptorCache}, and compares the cached descriptor with a fresh parse.
+ */
+public class WebDescriptorCacheTest {
+
+    private static final String WEB_XML = "<web-app xmlns=\"https://jakarta.ee/xml/ns/jakartaee\" version=\"6.0\">"
+        + "<display-name>%s</display-name>"
+        + "<context-param><param-name>mode</param-name><param-value>test</param-value></context-param>"
+        + "<servlet><servlet-name>hello</servlet-name><servlet-class>example.HelloServlet</servlet-class>"
+        + "<load-on-startup>1</load-on-startup></servlet>"
+        + "<servlet-mapping><servlet-name>hello</servlet-name><url-pattern>/hello/*</url-pattern></servlet-mapping>"
+        + "<session-config><session-timeout>42</session-timeout></session-config>"
+        + "<welcome-file-list><welcome-file>index.html</welcome-file></welcome-file-list>"
+        + "</web-app>";
+
+    @TempDir
+    static File stubs;
+
+    private static ServiceLocator locator;
+    private static DescriptorCache cache;
+
+    @BeforeAll
+    public static void createCache() {
+        locator = ServiceLocatorUtilities.createAndPopulateServiceLocator(WebDescriptorCacheTest.class.getName());
+        ServiceLocatorUtilities.addOneConstant(locator, environment(stubs), null, ServerEnvironment.class);
+        Globals.setDefaultHabitat(locator);
+        cache = locator.getService(DescriptorCache.class);
+    }
+
+    @AfterAll
+    public static void shutdown() {
+        locator.shutdown();
+    }
+
+    @Test
+    public void readsWebXmlFromCache() throws Exception {
+        WebDeploymentDescriptorFile ddFile = newDDFile();
+        String xml = String.format(WEB_XML, "cached");
+        Set<File> before = entries();
+        WebBundleDescriptorImpl parsed = (WebBundleDescriptorImpl) cache.read(ddFile, stream(xml));
+        File entry = added(before);
+        assertTrue(entry.setLastModified(1000L));
+
+        WebBundleDescriptorImpl cached = (WebBundleDescriptorImpl) cache.read(ddFile, stream(xml));
+
+        assertTrue(entry.lastModified() > 1000L, "the descriptor was not read from the cache");
+        assertNotSame(parsed, cached);
+        assertEquals(toXml(ddFile, (Descriptor) ddFile.read(stream(xml))), toXml(ddFile, cached));
+        WebComponentDescriptor hello = cached.getWebComponentByCanonicalName("hello");
+        assertEquals("example.HelloServlet", hello.getWebComponentImplementation());
+        assertTrue(hello.getUrlPatternsSet().contains("/hello/*"));
+        assertEquals(42, cached.getSessionConfig().getSessionTimeout());
+        assertEquals(1, cached.getContextParametersSet().size());
+    }
+
+    @Test
+    public void parsesChangedWebXml() throws Exception {
+        WebDeploymentDescriptorFile ddFile = newDDFile();
+        cache.read(ddFile, stream(String.format(WEB_XML, "before")));
+        Set<File> before = entries();
+
+        WebBundleDescriptorImpl changed = (WebBundleDescriptorImpl) cache.read(ddFile,
+            stream(String.format(WEB_XML, "after")));
+
+        assertEquals("after", changed.getDisplayName());
+        added(before);
+    }
+
+    private static WebDeploymentDescriptorFile newDDFile() {
+        WebDeploymentDescriptorFile ddFile = new WebDeploymentDescriptorFile();
+        ddFile.setXMLValidation(false);
+        return ddFile;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toXml(DeploymentDescriptorFile<?> ddFile, Descriptor descriptor) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((DeploymentDescriptorFile<Descriptor>) ddFile).write(descriptor, out);
+        return out.toString(UTF_8);
+    }
+
+    private static ByteArrayInputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(UTF_8));
+    }
+
+    private static Set<File> entries() {
+        File[] files = new File(stubs, "descriptor-cache").listFiles();
+        return files == null ? new HashSet<>() : new HashSet<>(Arrays.asList(files));
+    }
+
+    private static File added(Set<File> before) {
+        Set<File> added = entries();
+        added.removeAll(before);
+        assertEquals(1, added.size(), "new cache entries");
+        return added.iterator().next();
+    }
+
+    private static ServerEnvironment environment(File stubs) {
+        return (ServerEnvironment) Proxy.newProxyInstance(ServerEnvironment.class.getClassLoader(),
+            new Class<?>[] {ServerEnvironment.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getApplicationStubPath":
+                        return stubs;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "ServerEnvironment[" + stubs + "]";
+                    default:
+                        return null;
+                }
+            });
+    }
+}
@@ -43,6 +43,7 @@ import static org.glassfish.weld.connector.WeldUtils.WEB_INF_CLASSES;
 import static org.glassfish.weld.connector.WeldUtils.WEB_INF_CLASSES_META_INF_BEANS_XML;
 import static org.glassfish.weld.connector.WeldUtils.WEB_INF_LIB;
 import static org.glassfish.weld.connector.WeldUtils.getCDIAnnotatedClassNames;
+import static org.glassfish.weld.connector.WeldUtils.getClassNames;
 import static org.glassfish.weld.connector.WeldUtils.hasExtension;
 import static org.glassfish.weld.connector.WeldUtils.isImplicitBeanArchive;
 
@@ -53,6 +54,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -76,6 +78,8 @@ import org.jboss.weld.bootstrap.api.helpers.SimpleServiceRegistry;
 import org.jboss.weld.bootstrap.spi.BeanDeploymentArchive;
 import org.jboss.weld.bootstrap.spi.BeanDiscoveryMode;
 import org.jboss.weld.bootstrap.spi.BeansXml;
+import org.jboss.weld.bootstrap.spi.Filter;
+import org.jboss.weld.bootstrap.spi.Metadata;
 import org.jboss.weld.ejb.spi.EjbDescriptor;
 
 import jakarta.enterprise.inject.spi.AnnotatedType;
@@ -93,7 +97,7 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
     private final List<String> moduleClassNames; // Names of classes in the module
     private final List<String> beanClassNames; // Names of bean classes in the module
     private final List<Class<?>> moduleClasses; // Classes in the module
-    private final List<Class<?>> beanClasses; // Classes identified as Beans through Weld SPI
+    private List<Class<?>> beanClasses; // Classes identified as Beans through Weld SPI, loaded when first needed
     private final List<URL> beansXmlURLs;
     private final Collection<EjbDescriptor<?>> ejbDescImpls;
     private final List<BeanDeploymentArchive> beanDeploymentArchives;
@@ -113,6 +117,9 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
 
     private Collection<String> cdiAnnotatedClassNames;
 
+    // Class names and packages excluded from bean discovery by the beans.xml of the archive
+    private final List<String> scanExcludes = new ArrayList<>();
+
     private boolean deploymentComplete;
 
     /**
@@ -126,7 +133,6 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
      * @param archive - archive is consumed by the constructor and closed.
      */
     public BeanDeploymentArchiveImpl(ReadableArchive archive, Collection<com.sun.enterprise.deployment.EjbDescriptor> ejbs, DeploymentContext ctx, String bdaID) {
-        this.beanClasses = new ArrayList<>();
         this.beanClassNames = new ArrayList<>();
         this.moduleClasses = new ArrayList<>();
         this.moduleClassNames = new ArrayList<>();
@@ -216,7 +222,21 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
         return beanClassNames;
     }
 
-    public Collection<Class<?>> getBeanClassObjects() {
+    /**
+     * Loads the bean classes the first time they are needed. Weld itself only needs their names, see
+     * {@link #getBeanClasses()}.
+     */
+    public synchronized Collection<Class<?>> getBeanClassObjects() {
+        if (beanClasses == null) {
+            List<Class<?>> classes = new ArrayList<>(beanClassNames.size());
+            for (String className : beanClassNames) {
+                Class<?> beanClass = loadBeanClass(className);
+                if (beanClass != null) {
+                    classes.add(beanClass);
+                }
+            }
+            beanClasses = classes;
+        }
         return beanClasses;
     }
 
@@ -236,11 +256,15 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
                     logger.log(FINE, ADD_BEAN_CLASS, new Object[] { moduleClassName, beanClassNames });
                 }
 
-                beanClassNames.add(moduleClassName);
-                try {
-                    beanClasses.add(getClassLoader().loadClass(moduleClassName));
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
+                synchronized (this) {
+                    beanClassNames.add(moduleClassName);
+                    if (beanClasses != null) {
+                        try {
+                            beanClasses.add(getClassLoader().loadClass(moduleClassName));
+                        } catch (ClassNotFoundException e) {
+                            e.printStackTrace();
+                        }
+                    }
                 }
                 added = true;
             }
@@ -378,6 +402,7 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
                     // If the mode is explicitly set to "annotated", then pretend there is no beans.xml
                     // to force the implicit behavior
                     hasBeansXml = !bdMode.equals(BeanDiscoveryMode.ANNOTATED);
+                    addScanExcludes(beansXML);
 
                     if (logger.isLoggable(FINE)) {
                         logger.log(FINE, PROCESSING_BEANS_XML,
@@ -409,6 +434,14 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
             if (webinfbda) {
                 bdaType = BDAType.WAR;
 
+                // The classes of WEB-INF/classes were already parsed by the deployment
+                URI webinfclasses = new File(context.getSourceDir().getAbsolutePath(), WEB_INF_CLASSES).toURI();
+                Collection<String> classNames = getClassNames(context, List.of(webinfclasses));
+                for (String className : classNames) {
+                    addClass(className, true, hasBeansXml);
+                }
+
+                // Classes the class model does not know are still found in the entries
                 Enumeration<String> entries = archive.entries();
                 while (entries.hasMoreElements()) {
                     String entry = entries.nextElement();
@@ -419,16 +452,8 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
                             entry = entry.substring(WEB_INF_CLASSES.length() + 1);
                         }
                         String className = filenameToClassname(entry);
-                        try {
-                            if (hasBeansXml || isCDIAnnotatedClass(className)) {
-                                beanClassNames.add(className);
-                                beanClasses.add(getClassLoader().loadClass(className));
-                            }
-                            moduleClassNames.add(className);
-                        } catch (Throwable t) {
-                            if (logger.isLoggable(WARNING)) {
-                                logger.log(WARNING, ERROR_LOADING_BEAN_CLASS, new Object[] { className, t.toString() });
-                            }
+                        if (!classNames.contains(className)) {
+                            addClass(className, true, hasBeansXml);
                         }
                     } else if (entry.endsWith(BEANS_XML_FILENAME)) {
                         addBeansXMLURL(archive, entry);
@@ -515,6 +540,7 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
                         logger.log(FINE, PROCESSING_BDA_JAR, new Object[] { archive.getURI() });
                     }
                     bdaType = BDAType.JAR;
+                    addScanExcludes(beansXML);
                     collectJarInfo(archive, true, !bdMode.equals(BeanDiscoveryMode.ANNOTATED));
                 } else {
                     addBeansXMLURL(archive, META_INF_BEANS_XML);
@@ -589,31 +615,28 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
         if (logger.isLoggable(FINE)) {
             logger.log(FINE, CDILoggerInfo.COLLECTING_JAR_INFO, new Object[] { archive.getURI() });
         }
+        // The classes of the jar were already parsed by the deployment
+        Collection<String> classNames = getClassNames(context, List.of(archive.getURI()));
+        for (String className : classNames) {
+            addClass(className, isBeanArchive, hasBeansXml);
+        }
+
         Enumeration<String> entries = archive.entries();
         while (entries.hasMoreElements()) {
             String entry = entries.nextElement();
-            handleEntry(archive, entry, isBeanArchive, hasBeansXml);
+            handleEntry(archive, entry, isBeanArchive, hasBeansXml, classNames);
         }
     }
 
-    private void handleEntry(ReadableArchive archive, String entry, boolean isBeanArchive, boolean hasBeansXml) {
+    /**
+     * @param addedClassNames names of the classes of the archive which were already added
+     */
+    private void handleEntry(ReadableArchive archive, String entry, boolean isBeanArchive, boolean hasBeansXml,
+            Collection<String> addedClassNames) {
         if (legalClassName(entry)) {
             String className = filenameToClassname(entry);
-            try {
-                if (isBeanArchive) {
-                    // If the jar is a bean archive, or the individual class should be managed,
-                    // based on its annotation(s)
-                    if (hasBeansXml || isCDIAnnotatedClass(className)) {
-                        beanClasses.add(getClassLoader().loadClass(className));
-                        beanClassNames.add(className);
-                    }
-                }
-                // Add the class as a module class
-                moduleClassNames.add(className);
-            } catch (Throwable t) {
-                if (logger.isLoggable(WARNING)) {
-                    logger.log(WARNING, ERROR_LOADING_BEAN_CLASS, new Object[] { className, t.toString() });
-                }
+            if (!addedClassNames.contains(className)) {
+                addClass(className, isBeanArchive, hasBeansXml);
             }
         } else if (entry.endsWith("/beans.xml")) {
             try {
@@ -633,6 +656,78 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
         }
     }
 
+    /**
+     * Adds a class of the archive, and adds it to the bean classes if the archive is a bean archive in which the class
+     * is discovered.
+     */
+    private void addClass(String className, boolean isBeanArchive, boolean hasBeansXml) {
+        // If the jar is a bean archive, or the individual class should be managed,
+        // based on its annotation(s)
+        if (isBeanArchive && (hasBeansXml || isCDIAnnotatedClass(className)) && !isScanExcluded(className)) {
+            beanClassNames.add(className);
+        }
+        // Add the class as a module class
+        moduleClassNames.add(className);
+    }
+
+    private Class<?> loadBeanClass(String className) {
+        try {
+            return moduleClassLoaderForBDA.loadClass(className);
+        } catch (Throwable t) {
+            if (logger.isLoggable(WARNING)) {
+                logger.log(WARNING, ERROR_LOADING_BEAN_CLASS, new Object[] { className, t.toString() });
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the unconditional exclusions of the scan element of a beans.xml. The exclusions activated by a class or a
+     * system property are left to Weld.
+     */
+    private void addScanExcludes(BeansXml beansXML) {
+        if (beansXML.getScanning() == null) {
+            return;
+        }
+        for (Metadata<Filter> exclude : beansXML.getScanning().getExcludes()) {
+            Filter filter = exclude.getValue();
+            if (isEmpty(filter.getClassAvailableActivations()) && isEmpty(filter.getSystemPropertyActivations())) {
+                scanExcludes.add(filter.getName());
+            }
+        }
+    }
+
+    private static boolean isEmpty(Collection<?> activations) {
+        return activations == null || activations.isEmpty();
+    }
+
+    /**
+     * Matches a class name against the exclusions of the beans.xml: a class name, a package name followed by
+     * <code>.*</code>, or a package name followed by <code>.**</code> to also exclude its subpackages.
+     */
+    private boolean isScanExcluded(String className) {
+        if (scanExcludes.isEmpty()) {
+            return false;
+        }
+        int lastDot = className.lastIndexOf('.');
+        String packageName = lastDot < 0 ? "" : className.substring(0, lastDot);
+        for (String exclude : scanExcludes) {
+            if (exclude.endsWith(".**")) {
+                String excludedPackage = exclude.substring(0, exclude.length() - 3);
+                if (packageName.equals(excludedPackage) || packageName.startsWith(excludedPackage + ".")) {
+                    return true;
+                }
+            } else if (exclude.endsWith(".*")) {
+                if (packageName.equals(exclude.substring(0, exclude.length() - 2))) {
+                    return true;
+                }
+            } else if (className.equals(exclude)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean legalClassName(String className) {
         return className.endsWith(CLASS_SUFFIX) && !className.startsWith(WEB_INF_LIB);
     }
@@ -649,7 +744,7 @@ public class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
                     collectJarInfo(jarArchive, true, true);
                 }
             } else {
-                handleEntry(archive, entry, true, true);
+                handleEntry(archive, entry, true, true, Collections.emptySet());
             }
         }
     }
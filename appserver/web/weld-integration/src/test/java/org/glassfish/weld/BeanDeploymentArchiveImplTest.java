@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.weld;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.easymock.EasyMockSupport;
+import org.glassfish.api.deployment.DeploymentContext;
+import org.glassfish.api.deployment.archive.ReadableArchive;
+import org.glassfish.hk2.classmodel.reflect.Type;
+import org.glassfish.hk2.classmodel.reflect.Types;
+import org.glassfish.weld.connector.WeldUtils;
+import org.jboss.weld.bootstrap.WeldBootstrap;
+import org.jboss.weld.bootstrap.spi.BeanDiscoveryMode;
+import org.jboss.weld.bootstrap.spi.BeansXml;
+import org.jboss.weld.bootstrap.spi.Filter;
+import org.jboss.weld.bootstrap.spi.Metadata;
+import org.jboss.weld.bootstrap.spi.Scanning;
+import org.jboss.weld.bootstrap.spi.SystemPropertyActivation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.enterprise.deployment.EjbDescriptor;
+
+public class BeanDeploymentArchiveImplTest {
+
+    private static final URI JAR_URI = URI.create("file:/apps/test/lib.jar");
+    private static final URI OTHER_JAR_URI = URI.create("file:/apps/test/other.jar");
+    private static final File SOURCE_DIR = new File("/apps/test/web");
+
+    private final Collection<EjbDescriptor> ejbs = Collections.emptyList();
+    private final List<Type> types = new ArrayList<>();
+    private final List<Metadata<Filter>> excludes = new ArrayList<>();
+
+    private EasyMockSupport mockSupport;
+    private DeploymentContext deploymentContext;
+    private BeansXml beansXML;
+
+    @BeforeEach
+    public void createMocks() {
+        mockSupport = new EasyMockSupport();
+        deploymentContext = mockSupport.createMock(DeploymentContext.class);
+        beansXML = mockSupport.createMock(BeansXml.class);
+        WeldBootstrap wb = mockSupport.createMock(WeldBootstrap.class);
+        Types classModel = mockSupport.createMock(Types.class);
+        Scanning scanning = mockSupport.createMock(Scanning.class);
+
+        Map<String, Object> transientAppMetadata = new HashMap<>();
+        transientAppMetadata.put(Types.class.getName(), classModel);
+        expect(deploymentContext.getTransientAppMetadata()).andReturn(transientAppMetadata).anyTimes();
+        expect(deploymentContext.getTransientAppMetaData(WeldDeployer.WELD_BOOTSTRAP, WeldBootstrap.class)).andReturn(wb).anyTimes();
+        expect(deploymentContext.getClassLoader()).andReturn(null).anyTimes();
+        expect(deploymentContext.getSourceDir()).andReturn(SOURCE_DIR).anyTimes();
+        expect(classModel.getAllTypes()).andReturn(types).anyTimes();
+
+        expect(wb.parse(anyObject(URL.class))).andReturn(beansXML).anyTimes();
+        expect(beansXML.getBeanDiscoveryMode()).andReturn(BeanDiscoveryMode.ALL).anyTimes();
+        expect(beansXML.getScanning()).andReturn(scanning).anyTimes();
+        expect(scanning.getExcludes()).andReturn(excludes).anyTimes();
+    }
+
+    @Test
+    public void discoversTheClassesOfAJarFromTheClassModel() throws Exception {
+        addType("com.acme.Bean", JAR_URI);
+        addType("com.acme.Other", OTHER_JAR_URI);
+        ReadableArchive archive = mockJar();
+        expect(archive.entries()).andReturn(entries("com/acme/Bean.class", "com/acme/Unparsed.class"));
+        mockSupport.replayAll();
+
+        BeanDeploymentArchiveImpl bda = new BeanDeploymentArchiveImpl(archive, ejbs, deploymentContext, "lib.jar");
+
+        assertEquals(WeldUtils.BDAType.JAR, bda.getBDAType());
+        // a class the class model does not know is still found in the entries, and no class is added twice
+        assertEquals(Set.of("com.acme.Bean", "com.acme.Unparsed"), new TreeSet<>(bda.getKnownClasses()));
+        assertEquals(2, bda.getKnownClasses().size());
+        assertEquals(Set.of("com.acme.Bean", "com.acme.Unparsed"), new TreeSet<>(bda.getBeanClasses()));
+        mockSupport.verifyAll();
+    }
+
+    @Test
+    public void keepsTheClassesAboveWebInfClasses() throws Exception {
+        // [See. GLASSFISH-16706]
+        addType("com.acme.Bean", new File(SOURCE_DIR, WeldUtils.WEB_INF_CLASSES).toURI());
+        ReadableArchive archive = mockSupport.createMock(ReadableArchive.class);
+        expect(archive.getName()).andReturn("web").anyTimes();
+        expect(archive.getURI()).andReturn(SOURCE_DIR.toURI()).anyTimes();
+        expect(archive.exists(WeldUtils.WEB_INF_BEANS_XML)).andReturn(true).anyTimes();
+        expect(archive.exists(WeldUtils.WEB_INF_LIB)).andReturn(true).anyTimes();
+        expect(archive.entries()).andReturn(entries("WEB-INF/classes/com/acme/Bean.class", "com/acme/Misplaced.class"));
+        expect(archive.entries(WeldUtils.WEB_INF_LIB)).andReturn(Collections.<String>emptyEnumeration());
+        archive.close();
+        expectLastCall().anyTimes();
+        mockSupport.replayAll();
+
+        BeanDeploymentArchiveImpl bda = new BeanDeploymentArchiveImpl(archive, ejbs, deploymentContext, "web");
+
+        assertEquals(WeldUtils.BDAType.WAR, bda.getBDAType());
+        assertEquals(Set.of("com.acme.Bean", "com.acme.Misplaced"), new TreeSet<>(bda.getKnownClasses()));
+        assertEquals(2, bda.getKnownClasses().size());
+        assertEquals(Set.of("com.acme.Bean", "com.acme.Misplaced"), new TreeSet<>(bda.getBeanClasses()));
+        mockSupport.verifyAll();
+    }
+
+    @Test
+    public void leavesTheScanExcludesOutOfTheBeanClasses() throws Exception {
+        addType("com.acme.Bean", JAR_URI);
+        addType("com.acme.Excluded", JAR_URI);
+        addType("com.acme.internal.Impl", JAR_URI);
+        addType("com.acme.internal.deep.Impl", JAR_URI);
+        addType("com.acme.spi.Provider", JAR_URI);
+        addType("com.acme.spi.deep.Provider", JAR_URI);
+        addType("com.acme.conditional.Bean", JAR_URI);
+        addExclude("com.acme.Excluded", false);
+        addExclude("com.acme.internal.**", false);
+        addExclude("com.acme.spi.*", false);
+        // left to Weld
+        addExclude("com.acme.conditional.*", true);
+        ReadableArchive archive = mockJar();
+        expect(archive.entries()).andReturn(Collections.<String>emptyEnumeration());
+        mockSupport.replayAll();
+
+        BeanDeploymentArchiveImpl bda = new BeanDeploymentArchiveImpl(archive, ejbs, deploymentContext, "lib.jar");
+
+        assertEquals(7, bda.getKnownClasses().size());
+        assertEquals(Set.of("com.acme.Bean", "com.acme.conditional.Bean", "com.acme.spi.deep.Provider"),
+            new TreeSet<>(bda.getBeanClasses()));
+        mockSupport.verifyAll();
+    }
+
+    private ReadableArchive mockJar() throws Exception {
+        ReadableArchive archive = mockSupport.createMock(ReadableArchive.class);
+        expect(archive.getName()).andReturn("lib.jar").anyTimes();
+        expect(archive.getURI()).andReturn(JAR_URI).anyTimes();
+        expect(archive.exists(WeldUtils.WEB_INF_BEANS_XML)).andReturn(false).anyTimes();
+        expect(archive.exists(WeldUtils.WEB_INF_CLASSES_META_INF_BEANS_XML)).andReturn(false).anyTimes();
+        expect(archive.exists(WeldUtils.WEB_INF_CLASSES)).andReturn(false).anyTimes();
+        expect(archive.exists(WeldUtils.WEB_INF_LIB)).andReturn(false).anyTimes();
+        expect(archive.exists(WeldUtils.META_INF_BEANS_XML)).andReturn(true).anyTimes();
+        archive.close();
+        expectLastCall().anyTimes();
+        return archive;
+    }
+
+    private void addType(String className, URI definingURI) {
+        Type type = mockSupport.createMock(Type.class);
+        expect(type.getName()).andReturn(className).anyTimes();
+        expect(type.getDefiningURIs()).andReturn(List.of(definingURI)).anyTimes();
+        types.add(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addExclude(String name, boolean activatedBySystemProperty) {
+        Filter filter = mockSupport.createMock(Filter.class);
+        expect(filter.getName()).andReturn(name).anyTimes();
+        expect(filter.getClassAvailableActivations()).andReturn(null).anyTimes();
+        Collection<Metadata<SystemPropertyActivation>> activations = null;
+        if (activatedBySystemProperty) {
+            Metadata<SystemPropertyActivation> activation = mockSupport.createMock(Metadata.class);
+            activations = List.of(activation);
+        }
+        expect(filter.getSystemPropertyActivations()).andReturn(activations).anyTimes();
+        Metadata<Filter> exclude = mockSupport.createMock(Metadata.class);
+        expect(exclude.getValue()).andReturn(filter).anyTimes();
+        excludes.add(exclude);
+    }
+
+    private static Enumeration<String> entries(String... entries) {
+        return Collections.enumeration(Arrays.asList(entries));
+    }
+}
@@ -25,19 +25,25 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.easymock.EasyMockSupport;
 import org.glassfish.api.deployment.DeploymentContext;
 import org.glassfish.api.deployment.archive.ReadableArchive;
+import org.glassfish.hk2.classmodel.reflect.Type;
+import org.glassfish.hk2.classmodel.reflect.Types;
 import org.glassfish.weld.connector.WeldUtils;
 import org.jboss.weld.bootstrap.WeldBootstrap;
 import org.jboss.weld.bootstrap.spi.BeanDiscoveryMode;
 import org.jboss.weld.bootstrap.spi.BeansXml;
+import org.jboss.weld.bootstrap.spi.Scanning;
 import org.junit.jupiter.api.Test;
 
 import com.sun.enterprise.deployment.EjbDescriptor;
@@ -77,13 +83,20 @@ public class RootBeanDeploymentArchiveTest {
         Collection<EjbDescriptor> ejbs = Collections.emptyList();
         DeploymentContext deploymentContext = mockSupport.createMock(DeploymentContext.class);
         expect(deploymentContext.getClassLoader()).andReturn(null).anyTimes();
+        expect(deploymentContext.getSourceDir()).andReturn(new File(archiveName)).anyTimes();
+
+        // the class model knows no classes, they are found in the entries
+        Types types = mockSupport.createMock(Types.class);
+        expect(types.getAllTypes()).andReturn(Collections.<Type>emptyList()).anyTimes();
+        Map<String, Object> transientAppMetadata = new HashMap<>();
+        transientAppMetadata.put(Types.class.getName(), types);
 
         expect(readableArchive.getName()).andReturn(archiveName).anyTimes();
         expect(readableArchive.exists(WeldUtils.WEB_INF_BEANS_XML)).andReturn(true).anyTimes();
         expect(readableArchive.exists(WeldUtils.WEB_INF_CLASSES_META_INF_BEANS_XML)).andReturn(false).anyTimes();
 
         // in BeanDeploymentArchiveImpl.populate
-        expect(deploymentContext.getTransientAppMetadata()).andReturn(null).anyTimes();
+        expect(deploymentContext.getTransientAppMetadata()).andReturn(transientAppMetadata).anyTimes();
         expect(deploymentContext.getTransientAppMetaData(WeldDeployer.WELD_BOOTSTRAP, WeldBootstrap.class)).andReturn(wb).anyTimes();
         expect(wb.parse(anyObject(URL.class))).andReturn(beansXML).anyTimes();
 
@@ -91,6 +104,7 @@ public class RootBeanDeploymentArchiveTest {
         expect(subArchive1.getURI()).andReturn(webInfLib1URI).anyTimes();
         expect(subArchive2.getURI()).andReturn(webInfLib2URI).anyTimes();
         expect(beansXML.getBeanDiscoveryMode()).andReturn(BeanDiscoveryMode.ALL).anyTimes();
+        expect(beansXML.getScanning()).andReturn(Scanning.EMPTY_SCANNING).anyTimes();
 
         expect(readableArchive.entries()).andReturn(Collections.<String>emptyEnumeration());
         readableArchive.close();
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.admin.launcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The dynamic class data sharing (AppCDS) archive of a server.
+ *
+ * <p>
+ * A training start records the classes the server loads, from the JDK, the modules and the applications alike, into
+ * {@code generated/cds/glassfish.jsa} of the domain or instance when the server stops. The following starts map the
+ * archive instead of loading and verifying those classes again.
+ *
+ * <p>
+ * The archive is only used as long as it was recorded with the same JVM, class path, JVM options and modules; otherwise
+ * it is ignored until the next training start. The JVM itself falls back to loading the classes if it cannot map the
+ * archive.
+ *
+ * @see GFLauncherInfo#setCdsTraining(boolean)
+ */
+public final class ClassDataSharing {
+
+    /**
+     * First Java version able to record a dynamic archive.
+     */
+    static final int MIN_JAVA_VERSION = 13;
+
+    private static final String DIRECTORY = "generated/cds";
+    private static final String ARCHIVE = "glassfish.jsa";
+    private static final String TRAINING_ARCHIVE = "glassfish.jsa.training";
+    private static final String FINGERPRINT = "glassfish.jsa.fingerprint";
+
+    private final File directory;
+    private final File javaHome;
+    private final List<String> jvmOptions;
+    private final String fingerprint;
+
+    ClassDataSharing(File instanceRootDir, File installDir, String javaExe, String classpath, List<String> jvmOptions)
+            throws GFLauncherException {
+        this.directory = new File(instanceRootDir, DIRECTORY);
+        this.javaHome = new File(javaExe).getParentFile().getParentFile();
+        this.jvmOptions = jvmOptions;
+        this.fingerprint = fingerprint(installDir, instanceRootDir, javaExe, classpath, jvmOptions);
+    }
+
+    /**
+     * @return the archive, which may not exist
+     */
+    public File getArchive() {
+        return new File(directory, ARCHIVE);
+    }
+
+    /**
+     * Returns the JVM options which record or use the archive.
+     *
+     * @param training true to record the archive
+     * @throws GFLauncherException if the archive cannot be recorded
+     */
+    List<String> getJvmOptions(boolean training) throws GFLauncherException {
+        boolean configured = jvmOptions.stream().anyMatch(ClassDataSharing::isConfigured);
+
+        if (training) {
+            if (configured) {
+                throw new GFLauncherException("cds_configured");
+            }
+            int javaVersion = getJavaVersion();
+            if (javaVersion < MIN_JAVA_VERSION) {
+                throw new GFLauncherException("cds_unsupported_java", javaHome, javaVersion, MIN_JAVA_VERSION);
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new GFLauncherException("cds_no_directory", directory);
+            }
+
+            File trainingArchive = new File(directory, TRAINING_ARCHIVE);
+            if (trainingArchive.exists() && !trainingArchive.delete()) {
+                throw new GFLauncherException("cds_no_directory", directory);
+            }
+            return Collections.singletonList("-XX:ArchiveClassesAtExit=" + trainingArchive.getPath());
+        }
+
+        File archive = getArchive();
+        if (configured || !archive.isFile()) {
+            return Collections.emptyList();
+        }
+
+        if (!fingerprint.equals(readFingerprint())) {
+            GFLauncherLogger.info(GFLauncherLogger.CDS_ARCHIVE_OUTDATED, archive);
+            return Collections.emptyList();
+        }
+        return Collections.singletonList("-XX:SharedArchiveFile=" + archive.getPath());
+    }
+
+    /**
+     * Makes the archive recorded by a training start the archive of the server. The server must have stopped.
+     *
+     * @return the archive
+     * @throws GFLauncherException if the server has not written the archive
+     */
+    public File completeTraining() throws GFLauncherException {
+        File trainingArchive = new File(directory, TRAINING_ARCHIVE);
+        if (!trainingArchive.isFile()) {
+            throw new GFLauncherException("cds_not_recorded", trainingArchive);
+        }
+
+        File archive = getArchive();
+        try {
+            Files.move(trainingArchive.toPath(), archive.toPath(), REPLACE_EXISTING);
+            Files.write(new File(directory, FINGERPRINT).toPath(), fingerprint.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new GFLauncherException("cds_not_saved", e, archive, e);
+        }
+        return archive;
+    }
+
+    /**
+     * @return true if the JVM option configures the class data sharing, which is then left to the JVM options alone
+     */
+    private static boolean isConfigured(String option) {
+        return option.startsWith("-XX:SharedArchiveFile") || option.startsWith("-XX:ArchiveClassesAtExit")
+            || option.startsWith("-XX:+AutoCreateSharedArchive") || option.startsWith("-Xshare:") && !option.equals("-Xshare:auto");
+    }
+
+    private String readFingerprint() {
+        try {
+            return new String(Files.readAllBytes(new File(directory, FINGERPRINT).toPath()), UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the feature version of the JVM the server runs on, or 0 if unknown
+     */
+    private int getJavaVersion() {
+        for (String line : readLines(new File(javaHome, "release"))) {
+            if (line.startsWith("JAVA_VERSION=")) {
+                String version = line.substring("JAVA_VERSION=".length()).replace("\"", "");
+                if (version.startsWith("1.")) {
+                    version = version.substring(2);
+                }
+                try {
+                    return Integer.parseInt(version.split("[^0-9]", 2)[0]);
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static String fingerprint(File installDir, File instanceRootDir, String javaExe, String classpath, List<String> jvmOptions)
+            throws GFLauncherException {
+        List<String> lines = new ArrayList<>();
+        File javaHome = new File(javaExe).getParentFile().getParentFile();
+        lines.add(javaExe);
+        lines.addAll(readLines(new File(javaHome, "release")));
+        lines.add(stamp(new File(javaHome, "lib/modules").toPath()));
+        lines.add(classpath);
+
+        List<String> options = new ArrayList<>(jvmOptions);
+        Collections.sort(options);
+        lines.addAll(options);
+
+        lines.addAll(stamps(new File(installDir, "modules")));
+        lines.addAll(stamps(new File(instanceRootDir, "lib")));
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String line : lines) {
+                digest.update(line.getBytes(UTF_8));
+                digest.update((byte) '\n');
+            }
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new GFLauncherException(e);
+        }
+    }
+
+    /**
+     * @return the path, size and time stamp of each jar below the directory
+     */
+    private static List<String> stamps(File directory) {
+        if (!directory.isDirectory()) {
+            return Collections.emptyList();
+        }
+
+        List<String> stamps = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files.filter(file -> file.toString().endsWith(".jar")).sorted().forEach(file -> stamps.add(stamp(file)));
+        } catch (IOException e) {
+            // Unknown content never matches
+            stamps.add(e.toString() + System.nanoTime());
+        }
+        return stamps;
+    }
+
+    private static String stamp(Path file) {
+        File f = file.toFile();
+        return f.getPath() + ' ' + f.length() + ' ' + f.lastModified();
+    }
+
+    private static List<String> readLines(File file) {
+        try {
+            return Files.readAllLines(file.toPath(), UTF_8);
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+}
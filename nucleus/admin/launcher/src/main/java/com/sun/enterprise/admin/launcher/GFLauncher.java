@@ -179,6 +179,11 @@ public abstract class GFLauncher {
      */
     private int exitValue = -1;
 
+    /**
+     * The class data sharing archive of the server
+     */
+    private ClassDataSharing classDataSharing;
+
     GFLauncher(GFLauncherInfo info) {
         this.callerParameters = info;
     }
@@ -296,6 +301,8 @@ public abstract class GFLauncher {
 
         setJavaExecutable();
         setClasspath();
+        classDataSharing = new ClassDataSharing(getInfo().getInstanceRootDir(), getInfo().getInstallDir(), javaExe, getClasspath(),
+                domainXMLjvmOptions.toList());
         setCommandLine();
         setJvmOptions();
         logCommandLine();
@@ -384,6 +391,15 @@ public abstract class GFLauncher {
         return logFilename;
     }
 
+    /**
+     * Returns the class data sharing archive of the server. Set up in {@link #setup()}.
+     *
+     * @return the class data sharing archive
+     */
+    public final ClassDataSharing getClassDataSharing() {
+        return classDataSharing;
+    }
+
     /**
      * Return the port number of the debug port, or -1 if debugging is not enabled.
      *
@@ -770,6 +786,10 @@ public abstract class GFLauncher {
             addIgnoreNull(cmdLine, domainXMLjvmOptions.toList());
         }
 
+        if (classDataSharing != null) {
+            addIgnoreNull(cmdLine, classDataSharing.getJvmOptions(callerParameters.isCdsTraining()));
+        }
+
         GFLauncherNativeHelper nativeHelper = new GFLauncherNativeHelper(callerParameters, domainXMLjavaConfig, domainXMLjvmOptions,
                 domainXMLJavaConfigProfiler);
         addIgnoreNull(cmdLine, nativeHelper.getCommands());
@@ -81,6 +81,7 @@ public class GFLauncherInfo {
     private boolean valid;
 
     private boolean dropInterruptedCommands; // "org.glassfish.job-manager.drop-interrupted-commands" system property
+    private boolean cdsTraining; // records a class data sharing archive, see ClassDataSharing
     private List<HostAndPort> adminAddresses; // admin host and port, e.g. localhost:4848
     private RespawnInfo respawnInfo;
 
@@ -200,6 +201,24 @@ public class GFLauncherInfo {
         this.dropInterruptedCommands = dropInterruptedCommands;
     }
 
+    /**
+     * Starts the server to record its class data sharing archive, which is written when the server stops.
+     *
+     * @param b
+     * @see ClassDataSharing
+     */
+    public void setCdsTraining(boolean b) {
+        cdsTraining = b;
+    }
+
+    /**
+     *
+     * @return true if the server records its class data sharing archive.
+     */
+    public boolean isCdsTraining() {
+        return cdsTraining;
+    }
+
     public final boolean isDomain() {
         return type == RuntimeType.DAS;
     }
@@ -81,6 +81,10 @@ public class GFLauncherLogger {
     @LogMessageInfo(message = "JVM invocation command line:{0}", comment = "Routine Information", cause = "NA", action = "NA", level = "INFO")
     public static final String COMMAND_LINE = "NCLS-GFLAUNCHER-00005";
 
+    @LogMessageInfo(message = "The class data sharing archive {0} was recorded with other modules, JVM or JVM options and is not used. "
+            + "Run create-cds-archive to record it again.", comment = "Routine Information", cause = "The server or its configuration changed since the archive was recorded.", action = "Run create-cds-archive.", level = "INFO")
+    public static final String CDS_ARCHIVE_OUTDATED = "NCLS-GFLAUNCHER-00006";
+
     private GFLauncherLogger() {
     }
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.admin.launcher;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassDataSharingTest {
+
+    private static final String CLASSPATH = "modules/glassfish.jar";
+    private static final List<String> JVM_OPTIONS = List.of("-Xmx512m", "-Dfoo=bar");
+
+    @TempDir
+    File tempDir;
+
+    private File installDir;
+    private File instanceRootDir;
+    private File javaHome;
+    private String javaExe;
+
+    @BeforeEach
+    public void createInstallation() throws Exception {
+        installDir = new File(tempDir, "glassfish");
+        instanceRootDir = new File(installDir, "domains/domain1");
+        javaHome = new File(tempDir, "jdk");
+        javaExe = new File(javaHome, "bin/java").getPath();
+        write(new File(installDir, "modules/glassfish.jar"), "glassfish");
+        write(new File(instanceRootDir, "lib/library.jar"), "library");
+        write(new File(javaHome, "lib/modules"), "modules");
+        writeJavaVersion("17.0.2");
+    }
+
+    @Test
+    public void completedTrainingIsUsedByTheNextStart() throws Exception {
+        ClassDataSharing training = classDataSharing(JVM_OPTIONS);
+
+        File archive = train(training);
+
+        assertEquals(training.getArchive(), archive);
+        assertTrue(archive.isFile());
+        assertFalse(new File(archive.getPath() + ".training").exists());
+        // The order of the JVM options does not matter
+        ClassDataSharing next = classDataSharing(List.of("-Dfoo=bar", "-Xmx512m"));
+        assertEquals(List.of("-XX:SharedArchiveFile=" + archive.getPath()), next.getJvmOptions(false));
+    }
+
+    @Test
+    public void trainingAgainReplacesTheArchive() throws Exception {
+        train(classDataSharing(JVM_OPTIONS));
+        ClassDataSharing other = classDataSharing(List.of("-Xmx1g"));
+
+        File archive = train(other);
+
+        assertEquals(List.of("-XX:SharedArchiveFile=" + archive.getPath()), other.getJvmOptions(false));
+        assertEquals(List.of(), classDataSharing(JVM_OPTIONS).getJvmOptions(false));
+    }
+
+    @Test
+    public void completeTrainingFailsIfNothingWasRecorded() throws Exception {
+        ClassDataSharing cds = classDataSharing(JVM_OPTIONS);
+        cds.getJvmOptions(true);
+
+        assertThrows(GFLauncherException.class, cds::completeTraining);
+        assertFalse(cds.getArchive().exists());
+    }
+
+    @Test
+    public void fingerprintMismatchDisablesTheArchive() throws Exception {
+        train(classDataSharing(JVM_OPTIONS));
+
+        assertEquals(List.of(), classDataSharing(List.of("-Xmx1g", "-Dfoo=bar")).getJvmOptions(false));
+        assertEquals(List.of(), new ClassDataSharing(instanceRootDir, installDir, javaExe, "other.jar", JVM_OPTIONS)
+            .getJvmOptions(false));
+
+        write(new File(installDir, "modules/added.jar"), "added");
+        assertEquals(List.of(), classDataSharing(JVM_OPTIONS).getJvmOptions(false));
+    }
+
+    @Test
+    public void otherJavaDisablesTheArchive() throws Exception {
+        train(classDataSharing(JVM_OPTIONS));
+
+        writeJavaVersion("17.0.3");
+
+        assertEquals(List.of(), classDataSharing(JVM_OPTIONS).getJvmOptions(false));
+    }
+
+    @Test
+    public void missingOrStaleArchiveIsIgnored() throws Exception {
+        ClassDataSharing cds = classDataSharing(JVM_OPTIONS);
+        assertEquals(List.of(), cds.getJvmOptions(false));
+
+        train(cds);
+        File fingerprint = new File(cds.getArchive().getParentFile(), "glassfish.jsa.fingerprint");
+        write(fingerprint, "stale");
+        assertEquals(List.of(), classDataSharing(JVM_OPTIONS).getJvmOptions(false));
+
+        assertTrue(fingerprint.delete());
+        assertEquals(List.of(), classDataSharing(JVM_OPTIONS).getJvmOptions(false));
+    }
+
+    @Test
+    public void configuredClassDataSharingIsRespected() throws Exception {
+        for (String option : List.of("-XX:SharedArchiveFile=/tmp/app.jsa", "-XX:ArchiveClassesAtExit=/tmp/app.jsa",
+                "-XX:+AutoCreateSharedArchive", "-Xshare:off", "-Xshare:on", "-Xshare:dump")) {
+            ClassDataSharing cds = classDataSharing(List.of(option));
+            write(cds.getArchive(), "archive");
+
+            assertThrows(GFLauncherException.class, () -> cds.getJvmOptions(true), option);
+            assertEquals(List.of(), cds.getJvmOptions(false), option);
+        }
+    }
+
+    @Test
+    public void defaultSharingIsNotAConfiguration() throws Exception {
+        ClassDataSharing cds = classDataSharing(List.of("-Xshare:auto"));
+
+        File archive = train(cds);
+
+        assertEquals(List.of("-XX:SharedArchiveFile=" + archive.getPath()), cds.getJvmOptions(false));
+    }
+
+    @Test
+    public void trainingNeedsJava13() throws Exception {
+        for (String version : List.of("11.0.14", "1.8.0_322", "unknown")) {
+            writeJavaVersion(version);
+            ClassDataSharing cds = classDataSharing(JVM_OPTIONS);
+
+            assertThrows(GFLauncherException.class, () -> cds.getJvmOptions(true), version);
+        }
+        assertTrue(new File(javaHome, "release").delete());
+        assertThrows(GFLauncherException.class, () -> classDataSharing(JVM_OPTIONS).getJvmOptions(true));
+    }
+
+    private ClassDataSharing classDataSharing(List<String> jvmOptions) throws GFLauncherException {
+        return new ClassDataSharing(instanceRootDir, installDir, javaExe, CLASSPATH, jvmOptions);
+    }
+
+    /**
+     * Starts the server to record the archive, which the JVM writes when the server stops.
+     */
+    private static File train(ClassDataSharing cds) throws Exception {
+        List<String> options = cds.getJvmOptions(true);
+        assertEquals(1, options.size());
+        String option = options.get(0);
+        assertTrue(option.startsWith("-XX:ArchiveClassesAtExit="), option);
+        write(new File(option.substring(option.indexOf('=') + 1)), "archive");
+        return cds.completeTraining();
+    }
+
+    private void writeJavaVersion(String version) throws Exception {
+        write(new File(javaHome, "release"), "IMPLEMENTOR=\"Eclipse Adoptium\"\nJAVA_VERSION=\"" + version + "\"\n");
+    }
+
+    private static void write(File file, String content) throws Exception {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), Collections.singletonList(content), StandardCharsets.UTF_8);
+    }
+}
@@ -27,10 +27,13 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -154,6 +157,17 @@ public class GFLauncherTest {
         assertTrue(launcher.getLogFilename().endsWith("server.log"));
     }
 
+    /**
+     * A domain without class data sharing archive starts without it
+     */
+    @Test
+    public void noClassDataSharingArchive() throws GFLauncherException {
+        info.setDomainName("domain2");
+        launcher.launch();
+        assertFalse(launcher.getClassDataSharing().getArchive().exists());
+        assertThat(launcher.getCommandLine(), not(hasItem(startsWith("-XX:SharedArchiveFile"))));
+    }
+
     @Test
     public void dropInterruptedCommands() throws GFLauncherException {
         info.setDomainName("domainNoLog");
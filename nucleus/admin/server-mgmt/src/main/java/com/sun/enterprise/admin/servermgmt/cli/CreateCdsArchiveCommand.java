@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.admin.servermgmt.cli;
+
+import static org.glassfish.api.admin.RuntimeType.DAS;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.glassfish.api.Param;
+import org.glassfish.api.admin.CommandException;
+import org.glassfish.api.admin.CommandValidationException;
+import org.glassfish.hk2.api.PerLookup;
+import org.jvnet.hk2.annotations.Service;
+
+import com.sun.enterprise.admin.cli.remote.RemoteCLICommand;
+import com.sun.enterprise.admin.launcher.GFLauncher;
+import com.sun.enterprise.admin.launcher.GFLauncherException;
+import com.sun.enterprise.admin.launcher.GFLauncherFactory;
+import com.sun.enterprise.admin.launcher.GFLauncherInfo;
+import com.sun.enterprise.universal.xml.MiniXmlParserException;
+
+/**
+ * The create-cds-archive command.
+ *
+ * <p>
+ * Starts the domain once with class data sharing training enabled, stops it as soon as it is up and makes the recorded
+ * archive the one the following starts of the domain use.
+ *
+ * @see com.sun.enterprise.admin.launcher.ClassDataSharing
+ */
+@Service(name = "create-cds-archive")
+@PerLookup
+public class CreateCdsArchiveCommand extends LocalDomainCommand {
+
+    @Param(name = "domain_name", primary = true, optional = true)
+    private String domainName0;
+
+    @Override
+    protected void validate() throws CommandException, CommandValidationException {
+        setDomainName(domainName0);
+        super.validate();
+    }
+
+    @Override
+    protected int executeCommand() throws CommandException {
+        if (isRunning()) {
+            throw new CommandException(Strings.get("CreateCdsArchive.running", getDomainName()));
+        }
+
+        try {
+            GFLauncher launcher = GFLauncherFactory.getInstance(DAS);
+            GFLauncherInfo info = launcher.getInfo();
+            info.setDomainName(getDomainName());
+            info.setDomainParentDir(getDomainsDir().getPath());
+            info.setCdsTraining(true);
+            launcher.setup();
+
+            StartServerHelper helper = new StartServerHelper(logger, programOpts.isTerse(), getServerDirs(), launcher, getMasterPassword());
+            if (!helper.prepareForLaunch()) {
+                return ERROR;
+            }
+
+            logger.info(Strings.get("CreateCdsArchive.training", getDomainName()));
+            launcher.launch();
+            helper.waitForServer();
+
+            // The JVM writes the archive when it exits
+            stopDomain();
+            waitForExit(launcher.getProcess());
+
+            File archive = launcher.getClassDataSharing().completeTraining();
+            logger.info(Strings.get("CreateCdsArchive.created", archive));
+            return SUCCESS;
+        } catch (GFLauncherException gfle) {
+            throw new CommandException(gfle.getMessage());
+        } catch (MiniXmlParserException me) {
+            throw new CommandException(me);
+        }
+    }
+
+    private void stopDomain() throws CommandException {
+        try {
+            // the local password is written by the server we just started
+            resetServerDirs();
+        } catch (IOException e) {
+            throw new CommandException(e);
+        }
+        setLocalPassword();
+        programOpts.setHostAndPort(getAdminAddress());
+        programOpts.setInteractive(false);
+
+        RemoteCLICommand cmd = new RemoteCLICommand("stop-domain", programOpts, env);
+        try {
+            cmd.executeAndReturnOutput("stop-domain");
+        } catch (Exception e) {
+            // The domain may have died before returning the (always successful) result
+        }
+    }
+
+    private void waitForExit(Process process) throws CommandException {
+        if (!programOpts.isTerse()) {
+            // use stdout because logger always appends a newline
+            System.out.println(Strings.get("StopDomain.WaitDASDeath"));
+        }
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandException(Strings.get("CreateCdsArchive.interrupted"));
+        }
+    }
+}
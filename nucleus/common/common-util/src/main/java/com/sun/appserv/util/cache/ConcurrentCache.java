@@ -0,0 +1,856 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.appserv.util.cache;
+
+import com.sun.enterprise.util.CULoggerInfo;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * ConcurrentCache
+ * Bounded in-memory cache for highly concurrent access.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, so reads take no lock. The
+ * statistics are {@link LongAdder}s, so concurrent readers do not contend on
+ * shared counters. Once the cache holds more entries than its threshold, the
+ * entry with the lowest estimated access frequency out of a small sample of
+ * the oldest entries is trimmed, and the {@link CacheListener}s are notified.
+ * Access frequencies are estimated with a count-min sketch of 4-bit counters
+ * which are halved periodically, so that old popularity fades.
+ * <p>
+ * {@link #getOrLoad(Object, Function)} loads a missing value once for all
+ * concurrent callers without blocking them. The index based
+ * {@link #waitRefresh(int)} and {@link #notifyRefresh(int)} protocol of
+ * {@link Cache} is still supported.
+ */
+public class ConcurrentCache implements Cache {
+
+    static final int MAX_ENTRIES = 1 << 30;
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    // number of entries examined to choose one to trim
+    static final int EVICTION_SAMPLE_SIZE = 8;
+
+    // initial capacity of the map is capped, it grows on demand
+    private static final int MAX_INITIAL_CAPACITY = 1 << 16;
+
+    private static final Object[] NO_VALUES = new Object[0];
+
+    // maximum number of entries this cache may ever hold
+    protected int maxEntries;
+
+    // entries are trimmed once their number exceeds the threshold
+    protected int threshold;
+
+    // number of slots available for waitRefresh/notifyRefresh
+    protected int maxBuckets;
+
+    private ConcurrentHashMap<Object, Entry> map;
+    private AtomicReferenceArray<CompletableFuture<Void>> refreshes;
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    // entries in insertion order; the candidates for trimming
+    private final ConcurrentLinkedQueue<Entry> evictionQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger evictionQueueLength = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private FrequencySketch sketch;
+
+    private final AtomicInteger entryCount = new AtomicInteger();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder removalCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder addCount = new LongAdder();
+    private final LongAdder overflowCount = new LongAdder();
+    private final LongAdder trimCount = new LongAdder();
+
+    protected List<CacheListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * default constructor for the concurrent cache
+     */
+    public ConcurrentCache() { }
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param props opaque list of properties for a given cache implementation
+     * @throws a generic Exception if the initialization failed
+     */
+    @Override
+    public void init(int maxEntries, Properties props) throws Exception {
+        init(maxEntries, DEFAULT_LOAD_FACTOR, props);
+    }
+
+    /**
+     * initialize the cache
+     * @param maxEntries maximum number of entries expected in the cache
+     * @param loadFactor the load factor
+     * @param props opaque list of properties for a given cache implementation
+     * @throws a generic Exception if the initialization failed
+     */
+    @Override
+    public void init(int maxEntries, float loadFactor, Properties props) {
+        if (maxEntries <= 0) {
+            String msg = CULoggerInfo.getString(CULoggerInfo.illegalMaxEntries);
+            Object[] params = { Integer.valueOf(maxEntries) };
+            throw new IllegalArgumentException(MessageFormat.format(msg, params));
+        }
+
+        if (maxEntries > MAX_ENTRIES) {
+            maxEntries = MAX_ENTRIES;
+        }
+        this.maxEntries = maxEntries;
+
+        // find a power of 2 >= maxEntries
+        maxBuckets = 1;
+        while (maxBuckets < maxEntries) {
+            maxBuckets <<= 1;
+        }
+
+        // Cannot have the loadfactor as a negative value
+        if (loadFactor < 0) {
+            loadFactor = 0;
+        }
+        threshold = (int) Math.min(MAX_ENTRIES, (long) (maxEntries * loadFactor) + 1);
+
+        map = new ConcurrentHashMap<>(Math.min(maxEntries, MAX_INITIAL_CAPACITY));
+        refreshes = new AtomicReferenceArray<>(maxBuckets);
+        sketch = new FrequencySketch(threshold);
+    }
+
+    /**
+     * add the cache module listener
+     * @param listener <code>CacheListener</code> implementation
+     */
+    @Override
+    public void addCacheListener(CacheListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns a hash code for non-null Object x.
+     */
+    protected int hash(Object x) {
+        int h = x.hashCode();
+        return h - (h << 7);  // i.e., -127 * h
+    }
+
+    /**
+     * get the index of the item given a key
+     * @param key of the entry
+     * @return the index to be used in the cache
+     */
+    @Override
+    public final int getIndex(Object key) {
+        return hash(key) & (maxBuckets - 1);
+    }
+
+    /**
+     * get the item stored at the key.
+     * @param key lookup key
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object get(Object key) {
+        Entry entry = map.get(key);
+
+        // an entry removed concurrently has no values left
+        Object value = entry == null ? null : entry.firstValue();
+        if (value == null) {
+            missCount.increment();
+            sketch.increment(hash(key));
+            return null;
+        }
+
+        hitCount.increment();
+        sketch.increment(entry.hashCode);
+        return value;
+    }
+
+    /**
+     * get the item stored at the key, loading it if it is not cached.
+     * Concurrent callers asking for the same missing key share a single
+     * load; only the first one runs the loader, the others get its future
+     * and are not blocked. A <code>null</code> result of the loader is not
+     * cached.
+     * @param key lookup key
+     * @param loader computes the value of a missing key
+     * @returns a future completed with the value
+     */
+    public CompletableFuture<Object> getOrLoad(Object key, Function<Object, ?> loader) {
+        Object value = get(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        try {
+            // a load may have completed between the miss and putIfAbsent
+            Entry entry = map.get(key);
+            value = entry == null ? null : entry.firstValue();
+            if (value == null) {
+                value = loader.apply(key);
+                if (value != null) {
+                    put(key, value);
+                }
+            }
+            load.complete(value);
+        } catch (Throwable t) {
+            load.completeExceptionally(t);
+        } finally {
+            loads.remove(key, load);
+        }
+
+        return load;
+    }
+
+    /**
+     * check if the cache contains the item at the key
+     * @param key lookup key
+     * @returns true if there is an item stored at the key; false if not.
+     */
+    @Override
+    public boolean contains(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * get all the items stored at the key.
+     * @param key lookup key
+     * @returns an Iterator over the items with the given key.
+     */
+    @Override
+    public Iterator getAll(Object key) {
+        Entry entry = map.get(key);
+        if (entry == null) {
+            return Collections.emptyIterator();
+        }
+
+        Object[] values = entry.values;
+        hitCount.add(values.length);
+        sketch.increment(entry.hashCode);
+
+        List<Object> valueList = new ArrayList<>(values.length);
+        Collections.addAll(valueList, values);
+        return valueList.iterator();
+    }
+
+    /**
+     * get an Iterator for the keys stored in the cache
+     * @returns an Iterator
+     */
+    @Override
+    public Iterator keys() {
+        return keyList().iterator();
+    }
+
+    /**
+     * get an Enumeration for the keys stored in the cache
+     * @returns an Enumeration
+     */
+    @Override
+    public Enumeration elements() {
+        return Collections.enumeration(keyList());
+    }
+
+    private List<Object> keyList() {
+        List<Object> keyList = new ArrayList<>(entryCount.get());
+        for (Entry entry : map.values()) {
+            for (int i = 0; i < entry.values.length; i++) {
+                keyList.add(entry.key);
+            }
+        }
+        return keyList;
+    }
+
+    /**
+     * get an Iterator for the values stored in the cache
+     * @returns an Iterator
+     */
+    @Override
+    public Iterator values() {
+        List<Object> valueList = new ArrayList<>(entryCount.get());
+        for (Entry entry : map.values()) {
+            Collections.addAll(valueList, entry.values);
+        }
+        return valueList.iterator();
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value
+     * @param key lookup key
+     * @param object item value to be stored
+     * @returns the previous item stored at the key; null if not found.
+     */
+    @Override
+    public Object put(Object key, Object value) {
+        return _put(key, value, false);
+    }
+
+    /**
+     * cache the given value at the specified key and return previous value.
+     * The size is not tracked by this cache.
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being cached
+     * @returns the previous item stored at the key; null if not found.
+     */
+    @Override
+    public Object put(Object key, Object value, int size) {
+        return _put(key, value, false);
+    }
+
+    /**
+     * add the given value to the cache at the specified key
+     * @param key lookup key
+     * @param object item value to be stored
+     */
+    @Override
+    public void add(Object key, Object value) {
+        _put(key, value, true);
+    }
+
+    /**
+     * add the given value with specified size to the cache at specified key.
+     * The size is not tracked by this cache.
+     * @param key lookup key
+     * @param object item value to be stored
+     * @param size in bytes of the value being added
+     */
+    @Override
+    public void add(Object key, Object value, int size) {
+        _put(key, value, true);
+    }
+
+    /**
+     * cache the given value at the specified key
+     * @param addValue add the value to a multi-valued key (default is to replace)
+     * @returns the previous item stored at the key; null if not found.
+     */
+    protected Object _put(Object key, Object value, boolean addValue) {
+        Object[] result = new Object[2];  // previous value, new entry
+
+        map.compute(key, (k, entry) -> {
+            if (entry == null) {
+                entry = new Entry(hash(k), k, new Object[] { value });
+                result[1] = entry;
+                return entry;
+            }
+
+            Object[] values = entry.values;
+            if (addValue) {
+                Object[] newValues = new Object[values.length + 1];
+                newValues[0] = value;
+                System.arraycopy(values, 0, newValues, 1, values.length);
+                entry.values = newValues;
+            } else {
+                Object[] newValues = values.clone();
+                result[0] = newValues[0];
+                newValues[0] = value;
+                entry.values = newValues;
+            }
+            return entry;
+        });
+
+        if (result[1] != null) {
+            evictionQueue.offer((Entry) result[1]);
+            evictionQueueLength.incrementAndGet();
+        }
+
+        if (result[1] != null || addValue) {
+            entryCount.incrementAndGet();
+            addCount.increment();
+            trimIfNeeded();
+        } else {
+            refreshCount.increment();
+        }
+
+        return result[0];
+    }
+
+    /**
+     * remove the item stored at the key.
+     * @param key lookup key
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object remove(Object key) {
+        return _remove(key, null);
+    }
+
+    /**
+     * remove the given value stored at the key; value-specific removals.
+     * @param key lookup key
+     * @param value to match (for a multi-valued keys)
+     * @returns the item stored at the key; null if not found.
+     */
+    @Override
+    public Object remove(Object key, Object value) {
+        return _remove(key, value);
+    }
+
+    /**
+     * remove the first value, or the given value, stored at the key
+     * @param key lookup key
+     * @param value of the item to be matched; null matches any value
+     * @returns the item stored at the key; null if not found.
+     */
+    protected Object _remove(Object key, Object value) {
+        Object[] removed = new Object[1];
+
+        map.computeIfPresent(key, (k, entry) -> {
+            Object[] values = entry.values;
+            int index = 0;
+            if (value != null) {
+                while (index < values.length && values[index] != value) {
+                    index++;
+                }
+                if (index == values.length) {
+                    return entry;
+                }
+            }
+
+            removed[0] = values[index];
+            if (values.length == 1) {
+                entry.values = NO_VALUES;
+                entry.removed = true;
+                return null;
+            }
+
+            Object[] newValues = new Object[values.length - 1];
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+            entry.values = newValues;
+            return entry;
+        });
+
+        if (removed[0] != null) {
+            entryCount.decrementAndGet();
+            removalCount.increment();
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+
+        return removed[0];
+    }
+
+    /**
+     * remove all the item with the given key.
+     * @param key lookup key
+     */
+    @Override
+    public void removeAll(Object key) {
+        Entry entry = map.remove(key);
+        if (entry != null) {
+            int count = markRemoved(entry).length;
+            entryCount.addAndGet(-count);
+            removalCount.add(count);
+        }
+    }
+
+    private static Object[] markRemoved(Entry entry) {
+        Object[] values = entry.values;
+        entry.values = NO_VALUES;
+        entry.removed = true;
+        return values;
+    }
+
+    /**
+     * trim entries while the cache is above its threshold. Only one thread
+     * trims at a time; the others do not wait for it.
+     */
+    private void trimIfNeeded() {
+        if (entryCount.get() <= threshold && evictionQueueLength.get() <= 2 * threshold + EVICTION_SAMPLE_SIZE) {
+            return;
+        }
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            if (evictionQueueLength.get() > 2 * threshold + EVICTION_SAMPLE_SIZE) {
+                purgeEvictionQueue();
+            }
+
+            if (entryCount.get() > threshold) {
+                overflowCount.increment();
+                while (entryCount.get() > threshold && trimOne()) {
+                    // keep trimming
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * trim the least frequently used out of the oldest entries
+     * @return false if there was nothing left to trim
+     */
+    private boolean trimOne() {
+        Entry[] sample = new Entry[EVICTION_SAMPLE_SIZE];
+        int sampled = 0;
+        while (sampled < EVICTION_SAMPLE_SIZE) {
+            Entry entry = evictionQueue.poll();
+            if (entry == null) {
+                break;
+            }
+            evictionQueueLength.decrementAndGet();
+            if (!entry.removed) {
+                sample[sampled++] = entry;
+            }
+        }
+        if (sampled == 0) {
+            return false;
+        }
+
+        int victim = 0;
+        int victimFrequency = sketch.frequency(sample[0].hashCode);
+        for (int i = 1; i < sampled; i++) {
+            int frequency = sketch.frequency(sample[i].hashCode);
+            if (frequency < victimFrequency) {
+                victim = i;
+                victimFrequency = frequency;
+            }
+        }
+
+        // the survivors get another round at the tail of the queue
+        for (int i = 0; i < sampled; i++) {
+            if (i != victim) {
+                evictionQueue.offer(sample[i]);
+                evictionQueueLength.incrementAndGet();
+            }
+        }
+
+        Entry entry = sample[victim];
+        if (map.remove(entry.key, entry)) {
+            Object[] values = markRemoved(entry);
+            entryCount.addAndGet(-values.length);
+            trimCount.add(values.length);
+            for (Object value : values) {
+                for (CacheListener listener : listeners) {
+                    listener.trimEvent(entry.key, value);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void purgeEvictionQueue() {
+        evictionQueue.removeIf(entry -> entry.removed);
+        evictionQueueLength.set(evictionQueue.size());
+    }
+
+    /**
+     * wait for a refresh on the object associated with the key
+     * @param index index of the entry
+     * @returns true on successful notification, or false if there is
+     *  no thread refreshing this entry.
+     */
+    @Override
+    public boolean waitRefresh(int index) {
+        CompletableFuture<Void> refresh = refreshes.get(index);
+        if (refresh == null) {
+            refresh = refreshes.compareAndExchange(index, null, new CompletableFuture<>());
+            if (refresh == null) {
+                return false;
+            }
+        }
+
+        try {
+            refresh.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // never completed exceptionally
+        }
+        return true;
+    }
+
+    /**
+     * notify threads waiting for a refresh on the object associated with the key
+     * @param index index of the entry
+     */
+    @Override
+    public void notifyRefresh(int index) {
+        CompletableFuture<Void> refresh = refreshes.getAndSet(index, null);
+        if (refresh != null) {
+            refresh.complete(null);
+        }
+    }
+
+    /**
+     * clear all the entries from the cache.
+     * @returns the number of entries cleared from the cache
+     */
+    @Override
+    public int clear() {
+        int count = 0;
+        for (Object key : map.keySet()) {
+            Entry entry = map.remove(key);
+            if (entry != null) {
+                int removed = markRemoved(entry).length;
+                entryCount.addAndGet(-removed);
+                count += removed;
+            }
+        }
+
+        evictionQueue.clear();
+        evictionQueueLength.set(0);
+        return count;
+    }
+
+    /**
+     * Entries of this cache do not expire.
+     */
+    @Override
+    public void trimExpiredEntries(int maxCount) {
+    }
+
+    /**
+     * get the number of entries in the cache
+     * @return the number of entries the cache currently holds
+     */
+    @Override
+    public int getEntryCount() {
+        return entryCount.get();
+    }
+
+    /**
+     * is this cache empty?
+     * @returns true if the cache is empty; false otherwise.
+     */
+    @Override
+    public boolean isEmpty() {
+        return entryCount.get() == 0;
+    }
+
+    /**
+     * get the desired statistic counter
+     * @param key to corresponding stat
+     * @return an Object corresponding to the stat
+     * See also: Constant.java for the key
+     */
+    @Override
+    public Object getStatByName(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        switch (key) {
+            case Constants.STAT_BASECACHE_MAX_ENTRIES:
+                return Integer.valueOf(maxEntries);
+            case Constants.STAT_BASECACHE_THRESHOLD:
+                return Integer.valueOf(threshold);
+            case Constants.STAT_BASECACHE_TABLE_SIZE:
+                return Integer.valueOf(maxBuckets);
+            case Constants.STAT_BASECACHE_ENTRY_COUNT:
+                return Integer.valueOf(entryCount.get());
+            case Constants.STAT_BASECACHE_HIT_COUNT:
+                return Integer.valueOf(hitCount.intValue());
+            case Constants.STAT_BASECACHE_MISS_COUNT:
+                return Integer.valueOf(missCount.intValue());
+            case Constants.STAT_BASECACHE_REMOVAL_COUNT:
+                return Integer.valueOf(removalCount.intValue());
+            case Constants.STAT_BASECACHE_REFRESH_COUNT:
+                return Integer.valueOf(refreshCount.intValue());
+            case Constants.STAT_BASECACHE_OVERFLOW_COUNT:
+                return Integer.valueOf(overflowCount.intValue());
+            case Constants.STAT_BASECACHE_ADD_COUNT:
+                return Integer.valueOf(addCount.intValue());
+            case Constants.STAT_CONCURRENTCACHE_TRIM_COUNT:
+                return Integer.valueOf(trimCount.intValue());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * get the stats snapshot
+     * @return a Map of stats
+     * See also: Constant.java for the keys
+     */
+    @Override
+    public Map getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (String key : new String[] {
+                Constants.STAT_BASECACHE_MAX_ENTRIES,
+                Constants.STAT_BASECACHE_THRESHOLD,
+                Constants.STAT_BASECACHE_TABLE_SIZE,
+                Constants.STAT_BASECACHE_ENTRY_COUNT,
+                Constants.STAT_BASECACHE_HIT_COUNT,
+                Constants.STAT_BASECACHE_MISS_COUNT,
+                Constants.STAT_BASECACHE_REMOVAL_COUNT,
+                Constants.STAT_BASECACHE_REFRESH_COUNT,
+                Constants.STAT_BASECACHE_OVERFLOW_COUNT,
+                Constants.STAT_BASECACHE_ADD_COUNT,
+                Constants.STAT_CONCURRENTCACHE_TRIM_COUNT }) {
+            stats.put(key, getStatByName(key));
+        }
+        return stats;
+    }
+
+    /**
+     * clear the stats
+     */
+    @Override
+    public void clearStats() {
+        hitCount.reset();
+        missCount.reset();
+        removalCount.reset();
+        refreshCount.reset();
+        overflowCount.reset();
+        addCount.reset();
+        trimCount.reset();
+    }
+
+    /**
+     * Clears the cache and drops the listeners. This method should be called
+     * at the end of this object's life cycle.
+     */
+    @Override
+    public void destroy() {
+        if (map != null) {
+            clear();
+        }
+        listeners.clear();
+    }
+
+    /** cache entry holding all values of a key ***/
+    private static final class Entry {
+        final int hashCode;
+        final Object key;
+
+        // replaced, never modified, under the map's bin lock
+        volatile Object[] values;
+        volatile boolean removed;
+
+        Entry(int hashCode, Object key, Object[] values) {
+            this.hashCode = hashCode;
+            this.key = key;
+            this.values = values;
+        }
+
+        Object firstValue() {
+            Object[] current = values;
+            return current.length == 0 ? null : current[0];
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per key, updated with CAS.
+     * All counters are halved once the number of increments reaches ten
+     * times the cache threshold.
+     */
+    static final class FrequencySketch {
+
+        private static final int[] SEEDS = { 0x97cb3127, 0xb1a2f5c9, 0x6b0f1d2d, 0x2f3c58a1 };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final int MAX_COUNT = 15;
+
+        private final AtomicLongArray table;
+        private final int tableMask;
+        private final int sampleSize;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(int capacity) {
+            int length = 16;
+            while (length < capacity && length < (1 << 26)) {
+                length <<= 1;
+            }
+            table = new AtomicLongArray(length);
+            tableMask = length - 1;
+            sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * Math.max(capacity, 16));
+        }
+
+        void increment(int hashCode) {
+            for (int i = 0; i < SEEDS.length; i++) {
+                int h = rehash(hashCode, i);
+                incrementAt(h & tableMask, (h >>> 26) & 15);
+            }
+
+            if (additions.incrementAndGet() == sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hashCode) {
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int h = rehash(hashCode, i);
+                int shift = ((h >>> 26) & 15) << 2;
+                frequency = Math.min(frequency, (int) ((table.get(h & tableMask) >>> shift) & 0xfL));
+            }
+            return frequency;
+        }
+
+        private static int rehash(int hashCode, int depth) {
+            int h = (hashCode + SEEDS[depth]) * SEEDS[depth];
+            return h ^ (h >>> 16);
+        }
+
+        private void incrementAt(int index, int counter) {
+            int shift = counter << 2;
+            long mask = 0xfL << shift;
+            while (true) {
+                long current = table.get(index);
+                if ((current & mask) == mask) {
+                    return;
+                }
+                if (table.compareAndSet(index, current, current + (1L << shift))) {
+                    return;
+                }
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i <= tableMask; i++) {
+                long current;
+                do {
+                    current = table.get(i);
+                } while (!table.compareAndSet(i, current, (current >>> 1) & RESET_MASK));
+            }
+            additions.addAndGet(-sampleSize / 2);
+        }
+    }
+}
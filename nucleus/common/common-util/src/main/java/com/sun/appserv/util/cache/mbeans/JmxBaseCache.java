@@ -21,7 +21,7 @@
 
 package com.sun.appserv.util.cache.mbeans;
 
-import com.sun.appserv.util.cache.BaseCache;
+import com.sun.appserv.util.cache.Cache;
 import com.sun.appserv.util.cache.Constants;
 
 /**
@@ -33,9 +33,9 @@ import com.sun.appserv.util.cache.Constants;
 public class JmxBaseCache implements JmxBaseCacheMBean {
 
     private String name;
-    private BaseCache baseCache;
+    private Cache baseCache;
 
-    public JmxBaseCache(BaseCache baseCache, String name) {
+    public JmxBaseCache(Cache baseCache, String name) {
         this.baseCache = baseCache;
         this.name = name;
     }
@@ -97,6 +97,12 @@ public class ASURLClassLoader extends URLClassLoader
      */
     private final Set<URLEntry> urlSet = Collections.synchronizedSet(new LinkedHashSet<URLEntry>());
 
+    /**
+     * index of the url entries by package, built on the first lookup after
+     * url entries were added; null until then
+     */
+    private volatile ResourceIndex<URLEntry> resourceIndex;
+
     /** cache of not found resources */
     private final Map<String, String> notFoundResources = new ConcurrentHashMap<>();
 
@@ -218,6 +224,7 @@ public class ASURLClassLoader extends URLClassLoader
             // clears out the tables
             // Clear all values. Because fields are 'final' (for thread safety), cannot null them
             this.urlSet.clear();
+            this.resourceIndex = null;
             if (this.notFoundResources != null) {
                 this.notFoundResources.clear();
             }
@@ -279,6 +286,7 @@ public class ASURLClassLoader extends URLClassLoader
             if (!urlSet.contains(entry)) {
                 // adds the url entry to the list
                 this.urlSet.add(entry);
+                this.resourceIndex = null;
                 if (entry.isJar) {
                     // checks the manifest if a jar
                     checkManifest(entry.zip, entry.file);
@@ -360,8 +368,8 @@ public class ASURLClassLoader extends URLClassLoader
 
     /**
      * Refreshes the memory of the class loader. This involves clearing the
-     * not-found cahces and recreating the hash tables for the URLEntries that
-     * record the files accessible for each.
+     * not-found cahces and rebuilding the index of the packages contained
+     * in each URLEntry.
      * <p>
      * Code that creates an ASURLClassLoader and then adds files to a directory
      * that is in the loader's classpath should invoke this method after the new
@@ -372,6 +380,7 @@ public class ASURLClassLoader extends URLClassLoader
      */
     public synchronized void refresh() throws IOException {
         clearNotFoundCaches();
+        resourceIndex = null;
     }
 
 
@@ -405,6 +414,27 @@ public class ASURLClassLoader extends URLClassLoader
     }
 
 
+    /**
+     * Returns the url entries which may contain the given item, in search order.
+     * The index is immutable, so that lookups need no lock once it is built.
+     *
+     * @param name name of the class file or resource
+     */
+    private List<URLEntry> getCandidates(String name) {
+        ResourceIndex<URLEntry> index = resourceIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = resourceIndex;
+                if (index == null) {
+                    index = new ResourceIndex<>(new ArrayList<>(urlSet), u -> u.packages);
+                    resourceIndex = index;
+                }
+            }
+        }
+        return index.getCandidates(name);
+    }
+
+
     /**
      * Internal implementation of find resource.
      *
@@ -467,14 +497,12 @@ public class ASURLClassLoader extends URLClassLoader
             return null;
         }
 
-        // This code is dubious, because it iterates over items that could
-        // be changing via another thread.   It appears that since 'urlSet' cannot shrink
-        // that the iteration at least won't go out of bounds.  And it's probably OK
-        // if more than one thread adds the same resource to 'notFoundResources'.
+        // The candidates are an immutable snapshot, so no lock is needed while
+        // iterating.  It's probably OK if more than one thread adds the same
+        // resource to 'notFoundResources'.
         //
         // HOWEVER, there is still a race condition from the check for 'doneCalled' above.
-        // That's OK for 'notFoundResources', but it could lead to an ArrayIndexOutOfBounds
-        // excpetion for 'urlSet', should the set be cleared while looping.
+        // Should done() close the jars while looping, findResource0 logs the failure.
 
         // resource is in the not found list
         String nf = notFoundResources.get(name);
@@ -482,17 +510,15 @@ public class ASURLClassLoader extends URLClassLoader
             return null;
         }
 
-        synchronized(this) {
-            for (final URLEntry u : this.urlSet) {
+        for (final URLEntry u : getCandidates(name)) {
 
-                if (!u.hasItem(name)) {
-                    continue;
-                }
+            if (!u.hasItem(name)) {
+                continue;
+            }
 
-                final URL url = findResource0(u, name);
-                if (url != null) {
-                    return url;
-                }
+            final URL url = findResource0(u, name);
+            if (url != null) {
+                return url;
             }
         }
 
@@ -505,16 +531,11 @@ public class ASURLClassLoader extends URLClassLoader
     /**
      * Returns an enumeration of java.net.URL objects
      * representing all the resources with the given name.
-     * This method is synchronized to avoid
-     * <ol>
-     * <li>race condition checking 'doneCalled',
-     * <li>changes to contents or length of 'resourcesList' and/or 'notFoundResources' while
-     * iterating over them,
-     * <li>thread visibility to all of the above.
-     * </ol>
+     * This method is not synchronized: it iterates over an immutable snapshot
+     * of the url entries which may contain the resource.
      */
     @Override
-    public synchronized Enumeration<URL> findResources(String name) throws IOException {
+    public Enumeration<URL> findResources(String name) throws IOException {
         if (doneCalled) {
             _logger.log(Level.WARNING, CULoggerInfo.doneAlreadyCalled, new Object[] {name, doneSnapshot});
             return Collections.emptyEnumeration();
@@ -526,7 +547,7 @@ public class ASURLClassLoader extends URLClassLoader
             return Collections.emptyEnumeration();
         }
 
-        for (URLEntry urlEntry : this.urlSet) {
+        for (URLEntry urlEntry : getCandidates(name)) {
             final URL url = findResource0(urlEntry, name);
             if (url != null) {
                 resourcesList.add(url);
@@ -764,7 +785,7 @@ public class ASURLClassLoader extends URLClassLoader
         // search thru the JARs for a file of the form java/lang/Object.class
         String entryName = name.replace('.', '/') + ".class";
 
-        for (URLEntry u : this.urlSet) {
+        for (URLEntry u : getCandidates(entryName)) {
             if (!u.hasItem(entryName)) {
                 continue;
             }
@@ -999,6 +1020,12 @@ public class ASURLClassLoader extends URLClassLoader
         /** ensure thread visibility by making it 'volatile' */
         volatile Hashtable<String, String> table = null;
 
+        /**
+         * packages of the jar entries, or null if url is not a jar,
+         * ensure thread visibility by making it 'volatile'
+         */
+        volatile Set<String> packages = null;
+
         /**
          * ProtectionDomain with signers if jar is signed,
          * ensure thread visibility by making it 'volatile'
@@ -1018,6 +1045,7 @@ public class ASURLClassLoader extends URLClassLoader
 
                 if (isJar) {
                     zip = new ProtectedJarFile(file);
+                    packages = ResourceIndex.getPackages(zip);
                 }
 
                 table = new Hashtable<>();
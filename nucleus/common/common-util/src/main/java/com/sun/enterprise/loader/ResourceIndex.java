@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.loader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Immutable index from the package of a resource to the class path elements which may contain it.
+ *
+ * <p>
+ * A class loader builds the index once its jars are known, and then only searches the jars which have entries in the
+ * package of the requested class or resource instead of probing every jar. Elements whose content is not known up
+ * front, such as directories, are candidates for every resource.
+ *
+ * @param <T> the class path element
+ */
+public final class ResourceIndex<T> {
+
+    private final Map<String, List<T>> candidatesByPackage;
+
+    /** elements which may contain any resource */
+    private final List<T> unindexed;
+
+    /**
+     * @param elements the class path elements, in search order
+     * @param packages returns the packages of an element, see {@link #getPackages(JarFile)}, or null if the element may
+     *            contain any resource
+     */
+    public ResourceIndex(List<T> elements, Function<T, Set<String>> packages) {
+        Map<String, List<T>> candidates = new HashMap<>();
+        List<T> any = new ArrayList<>();
+        for (T element : elements) {
+            Set<String> elementPackages = packages.apply(element);
+            if (elementPackages == null) {
+                // Keeps the search order in the packages already seen
+                any.add(element);
+                candidates.values().forEach(list -> list.add(element));
+            } else {
+                for (String elementPackage : elementPackages) {
+                    candidates.computeIfAbsent(elementPackage, p -> new ArrayList<>(any)).add(element);
+                }
+            }
+        }
+
+        Map<String, List<T>> index = new HashMap<>(candidates.size() * 4 / 3 + 1);
+        candidates.forEach((p, list) -> index.put(p, Collections.unmodifiableList(list)));
+        this.candidatesByPackage = index;
+        this.unindexed = Collections.unmodifiableList(any);
+    }
+
+    /**
+     * Returns the elements which may contain the resource, in search order.
+     *
+     * @param name the name of a resource, such as {@code java/lang/Object.class}
+     * @return the candidate elements, never null
+     */
+    public List<T> getCandidates(String name) {
+        return candidatesByPackage.getOrDefault(getPackage(name), unindexed);
+    }
+
+    /**
+     * Returns the packages of the entries of a jar.
+     *
+     * <p>
+     * A directory entry also counts in its parent package, since {@link JarFile#getJarEntry(String)} finds
+     * {@code a/b/} when looking for {@code a/b}.
+     *
+     * @param jar the jar
+     * @return the packages, such as {@code java/lang/} or an empty string for the root of the jar
+     */
+    public static Set<String> getPackages(JarFile jar) {
+        Set<String> packages = new HashSet<>();
+        for (JarEntry entry : Collections.list(jar.entries())) {
+            String name = entry.getName();
+            packages.add(getPackage(name));
+            if (name.endsWith("/")) {
+                packages.add(getPackage(name.substring(0, name.length() - 1)));
+            }
+        }
+        return packages;
+    }
+
+    private static String getPackage(String name) {
+        return name.substring(0, name.lastIndexOf('/') + 1);
+    }
+}
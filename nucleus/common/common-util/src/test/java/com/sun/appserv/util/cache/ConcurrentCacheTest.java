@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.appserv.util.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.appserv.util.cache.mbeans.JmxConcurrentCache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentCacheTest {
+
+    @Test
+    public void putGetRemove() throws Exception {
+        ConcurrentCache cache = new ConcurrentCache();
+        cache.init(16, null);
+
+        assertNull(cache.put("a", "1"));
+        assertEquals("1", cache.put("a", "2"));
+        assertEquals("2", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("2", cache.remove("a"));
+        assertTrue(cache.isEmpty());
+
+        assertEquals(Integer.valueOf(1), cache.getStatByName(Constants.STAT_BASECACHE_ADD_COUNT));
+        assertEquals(Integer.valueOf(1), cache.getStatByName(Constants.STAT_BASECACHE_REFRESH_COUNT));
+        assertEquals(Integer.valueOf(2), cache.getStatByName(Constants.STAT_BASECACHE_HIT_COUNT));
+        assertEquals(Integer.valueOf(1), cache.getStatByName(Constants.STAT_BASECACHE_MISS_COUNT));
+    }
+
+    @Test
+    public void multiValuedKeys() throws Exception {
+        ConcurrentCache cache = new ConcurrentCache();
+        cache.init(16, null);
+
+        Object first = new Object();
+        Object second = new Object();
+        cache.add("k", first);
+        cache.add("k", second);
+        assertEquals(2, cache.getEntryCount());
+
+        List<Object> values = new ArrayList<>();
+        cache.getAll("k").forEachRemaining(values::add);
+        assertEquals(2, values.size());
+
+        assertSame(first, cache.remove("k", first));
+        assertSame(second, cache.get("k"));
+        cache.removeAll("k");
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void trimsLeastFrequentlyUsedAndNotifiesListeners() throws Exception {
+        ConcurrentCache cache = new ConcurrentCache();
+        cache.init(8, 1.0f, null);
+
+        List<Object> trimmed = new ArrayList<>();
+        cache.addCacheListener((key, value) -> trimmed.add(key));
+
+        cache.put("hot", "value");
+        for (int i = 0; i < 20; i++) {
+            cache.get("hot");
+        }
+        for (int i = 0; i < 100; i++) {
+            cache.put("cold" + i, "value");
+        }
+
+        assertEquals(9, cache.getEntryCount());
+        assertEquals("value", cache.get("hot"));
+        assertEquals(92, trimmed.size());
+        assertFalse(trimmed.contains("hot"));
+
+        JmxConcurrentCache mbean = new JmxConcurrentCache(cache, "test");
+        assertEquals(Integer.valueOf(92), mbean.getTrimCount());
+        assertEquals(Integer.valueOf(9), mbean.getEntryCount());
+    }
+
+    @Test
+    public void concurrentLoadsShareOneCall() throws Exception {
+        ConcurrentCache cache = new ConcurrentCache();
+        cache.init(16, null);
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<CompletableFuture<Object>> first = CompletableFuture.supplyAsync(
+            () -> cache.getOrLoad("k", key -> {
+                calls.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return "loaded";
+            }));
+
+        loading.await();
+        CompletableFuture<Object> second = cache.getOrLoad("k", key -> {
+            calls.incrementAndGet();
+            return "other";
+        });
+        assertFalse(second.isDone());
+
+        release.countDown();
+        assertEquals("loaded", first.get().get());
+        assertEquals("loaded", second.get());
+        assertEquals(1, calls.get());
+        assertEquals("loaded", cache.get("k"));
+    }
+
+    @Test
+    public void refreshProtocol() throws Exception {
+        ConcurrentCache cache = new ConcurrentCache();
+        cache.init(16, null);
+
+        int index = cache.getIndex("k");
+        assertFalse(cache.waitRefresh(index));
+
+        AtomicBoolean notified = new AtomicBoolean();
+        Thread waiter = new Thread(() -> notified.set(cache.waitRefresh(index)));
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+
+        cache.notifyRefresh(index);
+        waiter.join();
+        assertTrue(notified.get());
+        assertFalse(cache.waitRefresh(index));
+    }
+}
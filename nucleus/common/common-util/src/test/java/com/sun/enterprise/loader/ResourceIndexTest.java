@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.loader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResourceIndexTest {
+
+    @Test
+    public void testCandidates() {
+        Map<String, Set<String>> packages = Map.of(
+            "a.jar", Set.of("com/a/", "META-INF/"),
+            "b.jar", Set.of("com/b/", "META-INF/"),
+            "c.jar", Set.of("com/a/", ""));
+        // null: a directory, which may contain anything
+        ResourceIndex<String> index = new ResourceIndex<>(List.of("a.jar", "dir", "b.jar", "c.jar"),
+            element -> element.equals("dir") ? null : packages.get(element));
+
+        assertEquals(List.of("a.jar", "dir", "c.jar"), index.getCandidates("com/a/A.class"));
+        assertEquals(List.of("dir", "b.jar"), index.getCandidates("com/b/B.class"));
+        assertEquals(List.of("a.jar", "dir", "b.jar"), index.getCandidates("META-INF/MANIFEST.MF"));
+        assertEquals(List.of("dir", "c.jar"), index.getCandidates("root.properties"));
+        assertEquals(List.of("dir"), index.getCandidates("com/c/C.class"));
+    }
+
+    @Test
+    public void testPackages() throws IOException {
+        File jar = File.createTempFile("resource-index", ".jar");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+                for (String name : List.of("META-INF/MANIFEST.MF", "com/", "com/a/", "com/a/A.class", "root.txt")) {
+                    out.putNextEntry(new ZipEntry(name));
+                    out.closeEntry();
+                }
+            }
+
+            try (JarFile jarFile = new JarFile(jar)) {
+                assertEquals(Set.of("META-INF/", "", "com/", "com/a/"), ResourceIndex.getPackages(jarFile));
+            }
+        } finally {
+            Files.delete(jar.toPath());
+        }
+    }
+}
@@ -252,6 +252,25 @@ public class ComponentInvocation implements Cloneable {
     public String getModuleName() {
         return moduleName;
     }
+    /**
+     * Clears the state of a finished call so that this object can be reused for another call on the same kind of
+     * component. Containers which recycle their invocation objects must call it before the invocation is handed out
+     * again.
+     */
+    protected void clearInvocationState() {
+        auth = null;
+        preInvokeDoneStatus = false;
+        instance = null;
+        instanceName = null;
+        jndiEnvironment = null;
+        transaction = null;
+        transactionCompleting = false;
+        oldSecurityContext = null;
+        resourceTableKey = null;
+        resourceHandler = null;
+        transactionOperationsManager = null;
+        clearRegistry();
+    }
 
     @Override
     public ComponentInvocation clone() {
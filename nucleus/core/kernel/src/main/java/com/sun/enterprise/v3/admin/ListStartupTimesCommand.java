@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.admin;
+
+import com.sun.enterprise.config.serverbeans.Domain;
+import com.sun.enterprise.util.ColumnFormatter;
+import com.sun.enterprise.util.LocalStringManagerImpl;
+import com.sun.enterprise.v3.server.StartupTimeline;
+
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.glassfish.api.ActionReport;
+import org.glassfish.api.I18n;
+import org.glassfish.api.Param;
+import org.glassfish.api.admin.AccessRequired;
+import org.glassfish.api.admin.AdminCommand;
+import org.glassfish.api.admin.AdminCommandContext;
+import org.glassfish.api.admin.CommandLock;
+import org.glassfish.api.admin.RestEndpoint;
+import org.glassfish.api.admin.RestEndpoints;
+import org.glassfish.hk2.api.PerLookup;
+import org.jvnet.hk2.annotations.Service;
+
+/**
+ * Lists the slowest steps of the last start of the server, as recorded by the {@link StartupTimeline}.
+ */
+@Service(name = "list-startup-times")
+@PerLookup
+@CommandLock(CommandLock.LockType.NONE)
+@I18n("list.startup.times")
+@RestEndpoints({
+    @RestEndpoint(configBean=Domain.class,
+        opType=RestEndpoint.OpType.GET,
+        path="list-startup-times",
+        description="list-startup-times")
+})
+@AccessRequired(resource="domain", action="read")
+public class ListStartupTimesCommand implements AdminCommand {
+
+    final private static LocalStringManagerImpl localStrings = new LocalStringManagerImpl(ListStartupTimesCommand.class);
+
+    @Param(optional = true, defaultValue = "service", acceptableValues = "runlevel,service,container,application,all")
+    String type;
+
+    @Param(optional = true, defaultValue = "20")
+    int limit;
+
+    @Inject
+    StartupTimeline startupTimeline;
+
+    @Override
+    public void execute(AdminCommandContext context) {
+        final ActionReport report = context.getActionReport();
+
+        List<StartupTimeline.Step> steps = new ArrayList<>();
+        for (StartupTimeline.Step step : startupTimeline.getSteps()) {
+            if (type.equals("all") || getType(step).equals(type)) {
+                steps.add(step);
+            }
+        }
+        steps.sort(Comparator.comparingLong(StartupTimeline.Step::getDuration).reversed());
+        if (limit > 0 && steps.size() > limit) {
+            steps = steps.subList(0, limit);
+        }
+
+        ColumnFormatter colFormatter = new ColumnFormatter(new String[] {
+            localStrings.getLocalString("list.startup.times.header.duration", "Duration (ms)"),
+            localStrings.getLocalString("list.startup.times.header.type", "Type"),
+            localStrings.getLocalString("list.startup.times.header.name", "Name"),
+            localStrings.getLocalString("list.startup.times.header.start", "Start (ms)"),
+            localStrings.getLocalString("list.startup.times.header.thread", "Thread") });
+
+        // The same data for REST xml and JSON output
+        List<Map<String, Object>> restSteps = new ArrayList<>();
+        for (StartupTimeline.Step step : steps) {
+            colFormatter.addRow(new Object[] { step.getDuration(), getType(step), step.getName(), step.getStart(), step.getThread() });
+
+            Map<String, Object> restStep = new LinkedHashMap<>();
+            restStep.put("duration", step.getDuration());
+            restStep.put("type", getType(step));
+            restStep.put("name", step.getName());
+            restStep.put("start", step.getStart());
+            restStep.put("thread", step.getThread());
+            restSteps.add(restStep);
+        }
+
+        if (steps.isEmpty()) {
+            report.setMessage(localStrings.getLocalString("list.startup.times.nothing", "Nothing to list."));
+        } else {
+            report.appendMessage(colFormatter.toString());
+            report.appendMessage(System.getProperty("line.separator"));
+        }
+
+        Properties restData = new Properties();
+        restData.put("steps", restSteps);
+        report.setExtraProperties(restData);
+        report.setActionExitCode(ActionReport.ExitCode.SUCCESS);
+    }
+
+    /**
+     * @return the value of the type option selecting the step
+     */
+    private static String getType(StartupTimeline.Step step) {
+        return step.getKind().name().replace("_", "").toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -25,10 +25,9 @@ import com.sun.enterprise.module.bootstrap.ModuleStartup;
 import com.sun.enterprise.module.bootstrap.StartupContext;
 import com.sun.enterprise.util.Result;
 import com.sun.enterprise.v3.common.DoNothingActionReporter;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -128,6 +127,9 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
     @Inject
     private AppInstanceListener appInstanceListener;
 
+    @Inject
+    private StartupTimeline startupTimeline;
+
     private MasterRunLevelListener masterListener;
 
     private long platformInitTime;
@@ -284,20 +286,17 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
 
         // activate the run level services
         masterListener.reset();
+        startupTimeline.reset();
 
         long initFinishTime = 0L;
         long startupFinishTime = 0L;
 
         if (!proceedTo(InitRunLevel.VAL)) {
-            appInstanceListener.stopRecordingTimes();
+            startupTimeline.complete(env.getInstanceRoot());
             return;
         }
 
-        if (!logger.isLoggable(level)) {
-            // Stop recording the times, no-one cares
-            appInstanceListener.stopRecordingTimes();
-        }
-        else {
+        if (logger.isLoggable(level)) {
             initFinishTime = System.currentTimeMillis();
             logger.log(level, "Init level done in " +
                 (initFinishTime - context.getCreationTime()) + " ms");
@@ -305,12 +304,12 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
 
         appInstanceListener.startRecordingFutures();
         if (!proceedTo(StartupRunLevel.VAL)) {
-            appInstanceListener.stopRecordingTimes();
+            startupTimeline.complete(env.getInstanceRoot());
             return;
         }
 
         if (!postStartupJob()) {
-            appInstanceListener.stopRecordingTimes();
+            startupTimeline.complete(env.getInstanceRoot());
             return;
         }
 
@@ -321,8 +320,9 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
                 (startupFinishTime - initFinishTime) + " ms");
         }
 
-        if (!proceedTo(PostStartupRunLevel.VAL)) {
-            appInstanceListener.stopRecordingTimes();
+        boolean started = proceedTo(PostStartupRunLevel.VAL);
+        startupTimeline.complete(env.getInstanceRoot());
+        if (!started) {
             return;
         }
 
@@ -506,17 +506,38 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
      */
     private boolean proceedTo(int runLevel) {
 
+        StartupTimeline.Span span = null;
+        if (runLevel > runLevelController.getCurrentRunLevel()) {
+            span = startupTimeline.begin(StartupTimeline.Kind.RUN_LEVEL, getRunLevelName(runLevel));
+        }
         try {
             runLevelController.proceedTo(runLevel);
         } catch (Exception e) {
             logger.log(Level.SEVERE, KernelLoggerInfo.shutdownRequired, e);
             shutdown();
             return false;
+        } finally {
+            if (span != null) {
+                span.end();
+            }
         }
 
         return !masterListener.isForcedShutdown();
     }
 
+    private static String getRunLevelName(int runLevel) {
+        switch (runLevel) {
+            case InitRunLevel.VAL:
+                return "init";
+            case StartupRunLevel.VAL:
+                return "startup";
+            case PostStartupRunLevel.VAL:
+                return "post-startup";
+            default:
+                return String.valueOf(runLevel);
+        }
+    }
+
     @Service
     public static class AppInstanceListener implements InstanceLifecycleListener {
         private static final Filter FILTER = new Filter() {
@@ -535,8 +556,10 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
 
         private volatile RunLevelController controller;
 
-        private Map<String, Long> startTimes = new HashMap<String, Long>();
-        private LinkedHashMap<String, Long> recordedTimes = new LinkedHashMap<String, Long>();
+        @Inject
+        private StartupTimeline timeline;
+
+        private final Map<ActiveDescriptor<?>, StartupTimeline.Span> spans = new ConcurrentHashMap<>();
         private LinkedList<Future<Result<Thread>>> futures = null;
 
         @Override
@@ -575,11 +598,6 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
             }
         }
 
-        private void stopRecordingTimes() {
-            startTimes = null;
-            recordedTimes = null;
-        }
-
         private void startRecordingFutures() {
             futures = new LinkedList<Future<Result<Thread>>>();
         }
@@ -591,9 +609,7 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
         }
 
         private void doPreProduction(ActiveDescriptor<?> descriptor) {
-            if (startTimes != null) {
-                startTimes.put(descriptor.getImplementation(), System.currentTimeMillis());
-            }
+            spans.put(descriptor, timeline.begin(StartupTimeline.Kind.SERVICE, descriptor.getImplementation()));
 
             if ((getController().getCurrentRunLevel() > InitRunLevel.VAL) && logger.isLoggable(level)) {
                 logger.log(level, "Running service " + descriptor.getImplementation());
@@ -604,13 +620,9 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
         private void doPostProduction(InstanceLifecycleEvent event) {
             ActiveDescriptor<?> descriptor = event.getActiveDescriptor();
 
-            if (startTimes != null && recordedTimes != null) {
-
-                Long startupTime = startTimes.remove(descriptor.getImplementation());
-                if (startupTime == null) return;
-
-                recordedTimes.put(descriptor.getImplementation(),
-                    (System.currentTimeMillis() - startupTime));
+            StartupTimeline.Span span = spans.remove(descriptor);
+            if (span != null) {
+                span.end();
             }
 
             if ((getController().getCurrentRunLevel() > InitRunLevel.VAL) && logger.isLoggable(level)) {
@@ -634,14 +646,6 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
             }
         }
 
-        private LinkedHashMap<String, Long> getAllRecordedTimes() {
-            LinkedHashMap<String, Long> retVal = recordedTimes;
-
-            stopRecordingTimes();  // Do not hold onto data that will never be needed again
-
-            return retVal;
-        }
-
     }
 
     @Singleton
@@ -696,12 +700,10 @@ public class AppServerStartup implements PostConstruct, ModuleStartup {
                 if (logger.isLoggable(level)) {
                     printModuleStatus(systemRegistry, level);
 
-                    LinkedHashMap<String, Long> recordedTimes = appInstanceListener.getAllRecordedTimes();
-
                     int lcv = 0;
-                    if (recordedTimes != null) {
-                        for (Map.Entry<String, Long> service : recordedTimes.entrySet()) {
-                            logger.log(level, "Service(" + lcv++ +") : " + service.getKey() + " took " + service.getValue() + " ms");
+                    for (StartupTimeline.Step step : startupTimeline.getSteps()) {
+                        if (step.getKind() == StartupTimeline.Kind.SERVICE) {
+                            logger.log(level, "Service(" + lcv++ +") : " + step.getName() + " took " + step.getDuration() + " ms");
                         }
                     }
                 }
@@ -194,8 +194,12 @@ public class ApplicationLifecycle implements Deployment, PostConstruct {
     @Inject
     ConfigSupport configSupport;
 
+    @Inject
+    StartupTimeline startupTimeline;
+
     protected DeploymentLifecycleProbeProvider deploymentLifecycleProbeProvider;
     private ExecutorService executorService;
+    private volatile ScanIndex scanIndex;
     private Collection<ApplicationLifecycleInterceptor> alcInterceptors = emptyList();
 
     protected Deployer getDeployer(EngineInfo engineInfo) {
@@ -588,13 +592,13 @@ public class ApplicationLifecycle implements Deployment, PostConstruct {
                                       .locator(getResourceLocator())
                                       .build());
 
-                try (ReadableArchiveScannerAdapter scannerAdapter = new ReadableArchiveScannerAdapter(parser, context.getSource())) {
+                try (ReadableArchiveScannerAdapter scannerAdapter = new ReadableArchiveScannerAdapter(parser, context.getSource(), getScanIndex())) {
                     parser.parse(scannerAdapter, null);
 
                     List<ReadableArchive> externalLibraries = getExternalLibraries(context);
 
                     for (ReadableArchive externalLibrary : externalLibraries) {
-                         parser.parse(new ReadableArchiveScannerAdapter(parser, externalLibrary), null);
+                         parser.parse(new ReadableArchiveScannerAdapter(parser, externalLibrary, getScanIndex()), null);
                     }
 
                     parser.awaitTermination();
@@ -614,6 +618,17 @@ public class ApplicationLifecycle implements Deployment, PostConstruct {
         }
     }
 
+    private ScanIndex getScanIndex() {
+        if (scanIndex == null) {
+            synchronized (this) {
+                if (scanIndex == null) {
+                    scanIndex = ScanIndex.create(new File(env.getApplicationStubPath(), "scan-index"));
+                }
+            }
+        }
+        return scanIndex;
+    }
+
     private ResourceLocator getResourceLocator() {
         if (CommonModelRegistry.getInstance().canLoadResources()) {
             return null;
@@ -760,30 +775,38 @@ public class ApplicationLifecycle implements Deployment, PostConstruct {
                 // Need to synchronize on the registry to not end up starting the same container from
                 // different threads.
                 Collection<EngineInfo<?, ?>> containersInfo = null;
-                synchronized (containerRegistry) {
-                    if (containerRegistry.getContainer(containerName) == null) {
-                        if (tracing != null) {
-                            tracing.addContainerMark(DeploymentTracing.ContainerMark.BEFORE_CONTAINER_SETUP, containerName);
-                        }
+                StartupTimeline.Span containerStart = startupTimeline.begin(StartupTimeline.Kind.CONTAINER, containerName);
+                try {
+                    synchronized (containerRegistry) {
+                        if (containerRegistry.getContainer(containerName) == null) {
+                            if (tracing != null) {
+                                tracing.addContainerMark(DeploymentTracing.ContainerMark.BEFORE_CONTAINER_SETUP, containerName);
+                            }
 
-                        containersInfo = setupContainer(sniffer, logger, context);
-                        if (tracing != null) {
-                            tracing.addContainerMark(DeploymentTracing.ContainerMark.AFTER_CONTAINER_SETUP, containerName);
-                        }
+                            containersInfo = setupContainer(sniffer, logger, context);
+                            if (tracing != null) {
+                                tracing.addContainerMark(DeploymentTracing.ContainerMark.AFTER_CONTAINER_SETUP, containerName);
+                            }
 
-                        if (isEmpty(containersInfo)) {
-                            String msg = "Cannot start container(s) associated to application of type : " + sniffer.getModuleType();
-                            report.failure(logger, msg, null);
-                            throw new Exception(msg);
+                            if (isEmpty(containersInfo)) {
+                                String msg = "Cannot start container(s) associated to application of type : " + sniffer.getModuleType();
+                                report.failure(logger, msg, null);
+                                throw new Exception(msg);
+                            }
                         }
                     }
-                }
 
-                // Now start all containers, by now, they should be all setup...
-                if (containersInfo != null && !startContainers(containersInfo, logger, context)) {
-                    final String msg = "Aborting, Failed to start container " + containerName;
-                    report.failure(logger, msg, null);
-                    throw new Exception(msg);
+                    // Now start all containers, by now, they should be all setup...
+                    if (containersInfo != null && !startContainers(containersInfo, logger, context)) {
+                        final String msg = "Aborting, Failed to start container " + containerName;
+                        report.failure(logger, msg, null);
+                        throw new Exception(msg);
+                    }
+                } finally {
+                    // Only reported by the thread which started the container
+                    if (containersInfo != null) {
+                        containerStart.end();
+                    }
                 }
             }
             engineInfo = containerRegistry.getContainer(sniffer.getContainersNames()[0]);
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jakarta.inject.Inject;
@@ -33,6 +34,7 @@ import jakarta.inject.Provider;
 import org.glassfish.api.ActionReport;
 import org.glassfish.api.StartupRunLevel;
 import org.glassfish.api.admin.ServerEnvironment;
+import org.glassfish.api.container.EndpointRegistrationException;
 import org.glassfish.api.deployment.DeployCommandParameters;
 import org.glassfish.api.deployment.DeploymentContext;
 import org.glassfish.api.deployment.UndeployCommandParameters;
@@ -43,6 +45,7 @@ import org.glassfish.api.event.EventTypes;
 import org.glassfish.api.event.Events;
 import org.glassfish.deployment.common.ApplicationConfigInfo;
 import org.glassfish.deployment.common.DeploymentContextImpl;
+import org.glassfish.deployment.common.DeploymentProperties;
 import org.glassfish.deployment.common.DeploymentUtils;
 import org.glassfish.deployment.common.InstalledLibrariesResolver;
 import org.glassfish.deployment.monitor.DeploymentLifecycleStatsProvider;
@@ -74,6 +77,8 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
 
     final Logger logger = KernelLoggerInfo.getLogger();
 
+    private static final String WEB_SNIFFER_TYPE = "web";
+
     // During the authentication service's PostConstruct the javax.security.auth.login.Configuration class is constructed.
     // During the Configuration initialization a static variable is set to the current thread's context class loader.
     // When applications are loaded via this (ApplicationLoaderService) the current thread's context class loader
@@ -119,6 +124,15 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
     @Inject
     ServiceLocator habitat;
 
+    @Inject
+    ExecutorService executor;
+
+    @Inject
+    LazyApplications lazyApplications;
+
+    @Inject
+    StartupTimeline startupTimeline;
+
     private String deploymentTracingEnabled = null;
 
     private Map<String,Integer> appOrderInfoMap = new HashMap<String, Integer>();
@@ -203,6 +217,11 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
                 app.containsSnifferType(ServerTags.CONNECTOR)) {
                 continue;
             }
+            // applications deployed with the lazy-load property are loaded
+            // on their first request
+            if (deployment.isAppEnabled(app) && registerLazyApplication(app)) {
+                continue;
+            }
             // load the referenced enabled applications on this instance
             // and always (partially) load on DAS when application is
             // referenced by non-DAS target so the application
@@ -213,6 +232,15 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
         }
 
         Iterator iter = DeploymentOrder.getApplicationDeployments();
+        int threads = ConcurrentApplicationLoader.getThreads();
+        if (threads > 1) {
+          List<Application> apps = new ArrayList<Application>();
+          iter.forEachRemaining(app -> apps.add((Application) app));
+          // resolve the runtime services before the applications race for them
+          initializeRuntimeDependencies();
+          new ConcurrentApplicationLoader(executor, threads,
+              app -> processApplication(app, server.getApplicationRef(app.getName()))).load(apps);
+        }
         while (iter.hasNext()) {
           Application app = (Application)iter.next();
           ApplicationRef appRef = server.getApplicationRef(app.getName());
@@ -321,7 +349,63 @@ public class ApplicationLoaderService implements org.glassfish.hk2.api.PreDestro
     }
 
 
+    /**
+     * Registers the placeholder of an application deployed with the lazy-load property, which is then loaded on its
+     * first request.
+     *
+     * @return true if the application is loaded on its first request, false if it must be loaded now
+     */
+    private boolean registerLazyApplication(Application app) {
+        if (!Boolean.parseBoolean(app.getDeployProperties().getProperty(DeploymentProperties.LAZY_LOAD))) {
+            return false;
+        }
+
+        final String appName = app.getName();
+        String contextRoot = app.getContextRoot();
+        if (!app.isStandaloneModule() || !app.containsSnifferType(WEB_SNIFFER_TYPE) || app.getAppTenants() != null
+            || contextRoot == null || contextRoot.isEmpty() || contextRoot.equals("/")) {
+            logger.log(Level.WARNING, KernelLoggerInfo.lazyLoadingUnsupported, appName);
+            return false;
+        }
+        if (!contextRoot.startsWith("/")) {
+            contextRoot = "/" + contextRoot;
+        }
+
+        ApplicationRef appRef = server.getApplicationRef(appName);
+        try {
+            lazyApplications.register(appName, contextRoot, appRef.getVirtualServers(), () -> loadLazyApplication(appName));
+        } catch (EndpointRegistrationException e) {
+            logger.log(Level.WARNING, KernelLoggerInfo.lazyLoadingRegistrationFailed, new Object[] {appName, e.getMessage()});
+            return false;
+        }
+        logger.log(Level.INFO, KernelLoggerInfo.lazyLoadingRegistered, new Object[] {appName, contextRoot});
+        return true;
+    }
+
+    /**
+     * Loads an application on its first request, unless it was undeployed, disabled or already loaded since startup.
+     *
+     * @return true if the application is loaded
+     */
+    private boolean loadLazyApplication(String appName) {
+        Application app = applications.getApplication(appName);
+        if (app != null && deployment.get(appName) == null && deployment.isAppEnabled(app)) {
+            logger.log(Level.INFO, KernelLoggerInfo.lazyLoadingActivation, appName);
+            processApplication(app, server.getApplicationRef(appName));
+        }
+        return deployment.get(appName) != null;
+    }
+
     public void processApplication(Application app, ApplicationRef appRef) {
+        StartupTimeline.Span span = startupTimeline.begin(StartupTimeline.Kind.APPLICATION, app.getName());
+        try {
+            loadApplication(app, appRef);
+        } finally {
+            span.end();
+        }
+    }
+
+    private void loadApplication(Application app, ApplicationRef appRef) {
 
         long operationStartTime = Calendar.getInstance().getTimeInMillis();
 
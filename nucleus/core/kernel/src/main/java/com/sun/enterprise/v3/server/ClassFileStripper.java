@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Removes the method bodies from a class file.
+ *
+ * <p>
+ * The class model only records declarations: the types, their fields and methods, and the annotations on all of
+ * them. The {@code Code} attributes are the largest part of most class files and are of no use to it, so the
+ * {@link ScanIndex} keeps the class files without them. Everything else, the constant pool included, is kept as it
+ * is.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html">The class File Format</a>
+ */
+final class ClassFileStripper {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final byte[] CODE = "Code".getBytes(StandardCharsets.UTF_8);
+
+    private ClassFileStripper() {
+    }
+
+    /**
+     * Returns the class file without the bodies of its methods.
+     *
+     * @param classFile the class file
+     * @return the stripped class file, or the class file itself if it has no method bodies
+     * @throws IOException if the class file is malformed
+     */
+    static byte[] strip(byte[] classFile) throws IOException {
+        try {
+            return doStrip(ByteBuffer.wrap(classFile));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated class file", e);
+        }
+    }
+
+    private static byte[] doStrip(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.getInt(); // minor and major version
+
+        int codeIndex = skipConstantPool(in);
+        if (codeIndex == 0) {
+            // No attribute is named Code, so there is nothing to strip
+            return in.array();
+        }
+
+        skip(in, 6); // access flags, this class, super class
+        int interfacesCount = Short.toUnsignedInt(in.getShort());
+        skip(in, 2 * interfacesCount);
+
+        int fieldsCount = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < fieldsCount; i++) {
+            skip(in, 6); // access flags, name, descriptor
+            skipAttributes(in);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(in.capacity());
+        out.write(in.array(), 0, in.position());
+
+        int methodsCount = Short.toUnsignedInt(in.getShort());
+        writeShort(out, methodsCount);
+        for (int i = 0; i < methodsCount; i++) {
+            out.write(in.array(), in.position(), 6); // access flags, name, descriptor
+            skip(in, 6);
+
+            int attributesCount = Short.toUnsignedInt(in.getShort());
+            int kept = attributesCount;
+            int start = in.position();
+            for (int j = 0; j < attributesCount; j++) {
+                if (Short.toUnsignedInt(in.getShort()) == codeIndex) {
+                    kept--;
+                }
+                skip(in, in.getInt());
+            }
+
+            writeShort(out, kept);
+            in.position(start);
+            for (int j = 0; j < attributesCount; j++) {
+                int attributeStart = in.position();
+                int nameIndex = Short.toUnsignedInt(in.getShort());
+                skip(in, in.getInt());
+                if (nameIndex != codeIndex) {
+                    out.write(in.array(), attributeStart, in.position() - attributeStart);
+                }
+            }
+        }
+
+        // The class attributes
+        out.write(in.array(), in.position(), in.remaining());
+        return out.toByteArray();
+    }
+
+    /**
+     * Skips the constant pool.
+     *
+     * @return the index of the {@code Code} UTF-8 constant, or 0 if there is none
+     */
+    private static int skipConstantPool(ByteBuffer in) throws IOException {
+        int codeIndex = 0;
+        int count = Short.toUnsignedInt(in.getShort());
+        for (int i = 1; i < count; i++) {
+            int tag = in.get();
+            switch (tag) {
+                case 1: // Utf8
+                    int length = Short.toUnsignedInt(in.getShort());
+                    if (length == CODE.length && Arrays.equals(in.array(), in.position(), in.position() + length, CODE, 0, length)) {
+                        codeIndex = i;
+                    }
+                    skip(in, length);
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skip(in, 2);
+                    break;
+                case 15: // MethodHandle
+                    skip(in, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skip(in, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skip(in, 8);
+                    i++; // takes two entries
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        return codeIndex;
+    }
+
+    private static void skipAttributes(ByteBuffer in) {
+        int attributesCount = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < attributesCount; i++) {
+            in.getShort(); // name
+            skip(in, in.getInt());
+        }
+    }
+
+    private static void skip(ByteBuffer in, int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative length " + length);
+        }
+        in.position(in.position() + length);
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
+
+import com.sun.enterprise.config.serverbeans.Application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import org.glassfish.internal.deployment.DeploymentType;
+import org.glassfish.kernel.KernelLoggerInfo;
+
+/**
+ * Loads the applications of the server at startup, several at a time.
+ *
+ * <p>
+ * The applications, in deployment order, are split into stages which are loaded one after the other:
+ * <ul>
+ * <li>each system application and standalone resource adapter is a stage of its own, since user applications may use
+ * them;
+ * <li>consecutive user applications with the same deployment order form one stage.
+ * </ul>
+ * Within a stage the applications which share a library are loaded one after the other, in deployment order, and the
+ * other applications concurrently.
+ *
+ * @see ApplicationLoaderService
+ */
+final class ConcurrentApplicationLoader {
+
+    private static final Logger LOG = KernelLoggerInfo.getLogger();
+
+    /**
+     * Number of applications loaded at the same time at startup. Applications are loaded one by one if not set.
+     */
+    static final String THREADS_PROPERTY = "org.glassfish.deployment.startupThreads";
+
+    private final ExecutorService executor;
+    private final int threads;
+    private final Consumer<Application> loader;
+
+    /**
+     * @param executor runs the loading of the applications
+     * @param threads maximum number of applications loaded at the same time
+     * @param loader loads an application, reporting its own failures
+     */
+    ConcurrentApplicationLoader(ExecutorService executor, int threads, Consumer<Application> loader) {
+        this.executor = executor;
+        this.threads = threads;
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the number of applications to load at the same time, 1 to load them one by one.
+     */
+    static int getThreads() {
+        String value = System.getProperty(THREADS_PROPERTY);
+        if (value == null) {
+            return 1;
+        }
+
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            LOG.log(WARNING, KernelLoggerInfo.invalidStartupThreads, new Object[] { THREADS_PROPERTY, value });
+            return 1;
+        }
+    }
+
+    /**
+     * Loads the applications, and returns once all of them are loaded.
+     *
+     * @param applications the applications in deployment order
+     */
+    void load(List<Application> applications) {
+        long start = System.nanoTime();
+        for (List<List<Application>> stage : getStages(applications)) {
+            if (stage.size() == 1) {
+                stage.get(0).forEach(this::loadApplication);
+            } else {
+                loadConcurrently(stage);
+            }
+        }
+
+        LOG.log(INFO, KernelLoggerInfo.concurrentLoadingTime,
+            new Object[] { applications.size(), threads, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) });
+    }
+
+    /**
+     * Splits the applications into stages, each made of chains of applications which can be loaded concurrently with
+     * the other chains of their stage.
+     */
+    static List<List<List<Application>>> getStages(List<Application> applications) {
+        List<List<List<Application>>> stages = new ArrayList<>();
+        List<Application> userApplications = new ArrayList<>();
+        String deploymentOrder = null;
+        for (Application application : applications) {
+            if (!isUserApplication(application)) {
+                addStage(stages, userApplications);
+                List<List<Application>> stage = new ArrayList<>();
+                stage.add(List.of(application));
+                stages.add(stage);
+                continue;
+            }
+
+            if (!Objects.equals(deploymentOrder, application.getDeploymentOrder())) {
+                addStage(stages, userApplications);
+                deploymentOrder = application.getDeploymentOrder();
+            }
+            userApplications.add(application);
+        }
+        addStage(stages, userApplications);
+        return stages;
+    }
+
+    private static void addStage(List<List<List<Application>>> stages, List<Application> applications) {
+        if (applications.isEmpty()) {
+            return;
+        }
+
+        // Applications sharing a library, directly or through others, end up with the same root
+        int[] roots = new int[applications.size()];
+        Map<String, Integer> applicationByLibrary = new HashMap<>();
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = i;
+            for (String library : getLibraries(applications.get(i))) {
+                Integer other = applicationByLibrary.putIfAbsent(library, i);
+                if (other != null) {
+                    roots[getRoot(roots, i)] = getRoot(roots, other);
+                }
+            }
+        }
+
+        Map<Integer, List<Application>> chains = new LinkedHashMap<>();
+        for (int i = 0; i < roots.length; i++) {
+            chains.computeIfAbsent(getRoot(roots, i), root -> new ArrayList<>()).add(applications.get(i));
+        }
+
+        stages.add(new ArrayList<>(chains.values()));
+        applications.clear();
+    }
+
+    private static int getRoot(int[] roots, int i) {
+        while (roots[i] != i) {
+            i = roots[i];
+        }
+        return i;
+    }
+
+    private static boolean isUserApplication(Application application) {
+        return DeploymentType.USER.equals(application.getObjectType());
+    }
+
+    private static List<String> getLibraries(Application application) {
+        List<String> libraries = new ArrayList<>();
+        String value = application.getLibraries();
+        if (value != null) {
+            for (String library : value.split(",")) {
+                if (!library.isBlank()) {
+                    libraries.add(library.trim());
+                }
+            }
+        }
+        return libraries;
+    }
+
+    private void loadConcurrently(List<List<Application>> chains) {
+        Queue<List<Application>> queue = new ConcurrentLinkedQueue<>(chains);
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < Math.min(threads, chains.size()); i++) {
+            futures.add(executor.submit(() -> {
+                Thread thread = Thread.currentThread();
+                ClassLoader previous = thread.getContextClassLoader();
+                thread.setContextClassLoader(contextClassLoader);
+                try {
+                    for (List<Application> chain = queue.poll(); chain != null; chain = queue.poll()) {
+                        chain.forEach(this::loadApplication);
+                    }
+                } finally {
+                    thread.setContextClassLoader(previous);
+                }
+            }));
+        }
+
+        // The next stage must not start before this one is done
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // loadApplication() reports its own failures
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loadApplication(Application application) {
+        try {
+            loader.accept(application);
+        } catch (RuntimeException | LinkageError e) {
+            LOG.log(SEVERE, KernelLoggerInfo.loadApplicationFailed, new Object[] { application.getName(), e });
+        }
+    }
+}
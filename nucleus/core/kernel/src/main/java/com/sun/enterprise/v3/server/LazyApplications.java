@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Logger;
+
+import org.glassfish.api.container.EndpointRegistrationException;
+import org.glassfish.api.container.RequestDispatcher;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.http.util.HttpStatus;
+import org.glassfish.kernel.KernelLoggerInfo;
+import org.jvnet.hk2.annotations.Service;
+
+/**
+ * The applications deployed with the {@code lazy-load} property which are not loaded yet.
+ *
+ * <p>
+ * Instead of loading such an application at startup, a {@link Placeholder} is registered in the HTTP mapper at its
+ * context root. The first request mapped to the placeholder loads the application, which replaces the placeholder in
+ * the mapper, and is then dispatched to the application. Requests arriving while the application loads wait for that
+ * single activation.
+ *
+ * @see org.glassfish.deployment.common.DeploymentProperties#LAZY_LOAD
+ */
+@Service
+@Singleton
+public class LazyApplications {
+
+    private static final Logger LOG = KernelLoggerInfo.getLogger();
+
+    @Inject
+    Provider<RequestDispatcher> dispatcher;
+
+    private final Map<String, Placeholder> placeholders = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the placeholder of an application.
+     *
+     * @param appName the application name
+     * @param contextRoot the context root of the application
+     * @param virtualServers comma separated list of the virtual servers of the application, null for all of them
+     * @param loader loads the application, returns true if the application is loaded
+     * @throws EndpointRegistrationException if the placeholder cannot be registered
+     */
+    void register(String appName, String contextRoot, String virtualServers, Callable<Boolean> loader)
+            throws EndpointRegistrationException {
+        Placeholder placeholder = new Placeholder(appName, contextRoot, loader);
+        placeholders.put(appName, placeholder);
+        try {
+            dispatcher.get().registerEndpoint(contextRoot, placeholder, null, virtualServers);
+        } catch (EndpointRegistrationException | RuntimeException e) {
+            placeholders.remove(appName, placeholder);
+            throw e;
+        }
+    }
+
+    /**
+     * Loads an application now if it still waits for its first request, or waits for its activation in progress.
+     *
+     * @param appName the application name
+     */
+    public void activate(String appName) {
+        Placeholder placeholder = placeholders.get(appName);
+        if (placeholder != null) {
+            placeholder.activate();
+        }
+    }
+
+    /**
+     * Removes the placeholder of an application which waits for its first request, for instance because it is
+     * undeployed or disabled, without loading the application. If a request is loading the application already, waits
+     * until it is loaded.
+     *
+     * @param appName the application name
+     */
+    public void discard(String appName) {
+        Placeholder placeholder = placeholders.remove(appName);
+        if (placeholder != null) {
+            placeholder.discard();
+        }
+    }
+
+    private void unregister(Placeholder placeholder) {
+        try {
+            dispatcher.get().unregisterEndpoint(placeholder.contextRoot, null);
+        } catch (EndpointRegistrationException e) {
+            LOG.log(WARNING, KernelLoggerInfo.grizzlyEndpointRegistration, e);
+        }
+    }
+
+    /**
+     * Stands for an application in the HTTP mapper until the application is loaded.
+     */
+    public final class Placeholder extends HttpHandler {
+
+        private final String appName;
+        private final String contextRoot;
+        private final FutureTask<Boolean> activation;
+        private volatile boolean discarded;
+
+        Placeholder(String appName, String contextRoot, Callable<Boolean> loader) {
+            this.appName = appName;
+            this.contextRoot = contextRoot;
+            this.activation = new FutureTask<>(() -> {
+                boolean loaded = false;
+                try {
+                    loaded = !discarded && loader.call();
+                    return loaded;
+                } finally {
+                    placeholders.remove(appName, this);
+                    if (!loaded) {
+                        // The requests go to whatever else the context root maps to
+                        unregister(this);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Loads the application, unless it is already loaded or being loaded by another thread, in which case waits for it.
+         *
+         * @return true if the application is loaded
+         */
+        public boolean activate() {
+            // Only the first caller runs the task, the others wait in get()
+            activation.run();
+            return awaitActivation();
+        }
+
+        /**
+         * Removes the placeholder without loading the application, unless it is being loaded already.
+         */
+        void discard() {
+            discarded = true;
+            activation.run();
+            awaitActivation();
+        }
+
+        private boolean awaitActivation() {
+            try {
+                return activation.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                LOG.log(SEVERE, KernelLoggerInfo.lazyLoadingFailed, new Object[] { appName, e.getCause() });
+                return false;
+            }
+        }
+
+        /**
+         * Rejects the requests which reach the placeholder without activating it, see
+         * {@link com.sun.enterprise.v3.services.impl.ContainerMapper}.
+         */
+        @Override
+        public void service(Request request, Response response) throws Exception {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE_503.getStatusCode());
+        }
+
+        @Override
+        public String toString() {
+            return "Placeholder of " + appName + " at " + contextRoot;
+        }
+    }
+}
@@ -54,6 +54,11 @@ public class ReadableArchiveScannerAdapter extends AbstractAdapter implements Au
      */
     final ReadableArchiveScannerAdapter parent;
 
+    /**
+     * Can be null, in which case the jars are always read.
+     */
+    final ScanIndex scanIndex;
+
     /**
      * We need to maintain a count of the sub archives we have asked the class-model to parse so we can close our archive
      * once all the sub-archives have been closed themselves.
@@ -67,10 +72,15 @@ public class ReadableArchiveScannerAdapter extends AbstractAdapter implements Au
     final private static Logger alogger = KernelLoggerInfo.getLogger();
 
     public ReadableArchiveScannerAdapter(Parser parser, ReadableArchive archive) {
+        this(parser, archive, null);
+    }
+
+    ReadableArchiveScannerAdapter(Parser parser, ReadableArchive archive, ScanIndex scanIndex) {
         this.archive = archive;
         this.parser = parser;
         this.uri = archive.getURI();
         this.parent = null;
+        this.scanIndex = scanIndex;
     }
 
     private ReadableArchiveScannerAdapter(ReadableArchiveScannerAdapter parent, ReadableArchive archive, URI uri) {
@@ -78,6 +88,7 @@ public class ReadableArchiveScannerAdapter extends AbstractAdapter implements Au
         this.archive = archive;
         this.parser = parent.parser;
         this.uri = uri == null ? archive.getURI() : uri;
+        this.scanIndex = parent.scanIndex;
     }
 
     @Override
@@ -92,6 +103,11 @@ public class ReadableArchiveScannerAdapter extends AbstractAdapter implements Au
 
     @Override
     public void onSelectedEntries(ArchiveAdapter.Selector selector, EntryTask entryTask, final Logger logger) throws IOException {
+        if (scanIndex != null && scanIndex.onSelectedEntries(archive, selector, entryTask, this::handleJar, logger)) {
+            logger.log(level, () -> "Finished parsing " + uri);
+            return;
+        }
+
         Enumeration<String> entries = archive.entries();
         while (entries.hasMoreElements()) {
             final String name = entries.nextElement();
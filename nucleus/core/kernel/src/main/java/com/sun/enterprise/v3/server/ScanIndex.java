@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
+import static org.glassfish.kernel.KernelLoggerInfo.exceptionWhileParsing;
+import static org.glassfish.kernel.KernelLoggerInfo.invalidInputStream;
+import static org.glassfish.kernel.KernelLoggerInfo.scanIndexFailed;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.glassfish.api.deployment.archive.ReadableArchive;
+import org.glassfish.hk2.classmodel.reflect.ArchiveAdapter;
+import org.glassfish.kernel.KernelLoggerInfo;
+
+/**
+ * Persistent index of the jars scanned by the class model parser at deployment.
+ *
+ * <p>
+ * Each jar is indexed once under the SHA-256 hash of its content, so a jar that has not changed since it was last
+ * scanned, whatever application it belongs to, is served from its index on redeployment and server restart without
+ * opening it. An index holds the entries the parser selected, class files without their method bodies (see
+ * {@link ClassFileStripper}), and the names of the nested jars, in one uncompressed file.
+ *
+ * <p>
+ * Only jars that are plain files are indexed; directories and jars nested in jars are always read. Indexes which have
+ * not been used for {@value #UNUSED_DAYS} days are deleted.
+ *
+ * @see ReadableArchiveScannerAdapter
+ */
+final class ScanIndex {
+
+    private static final Logger LOG = KernelLoggerInfo.getLogger();
+
+    /**
+     * Set to false to scan every jar on every deployment.
+     */
+    static final String ENABLED_PROPERTY = "org.glassfish.deployment.scanIndex";
+
+    private static final String SUFFIX = ".idx";
+    private static final int MAGIC = 0x47465349;
+    private static final int VERSION = 1;
+    private static final byte END = 0;
+    private static final byte ENTRY = 1;
+    private static final byte JAR = 2;
+    private static final int UNUSED_DAYS = 30;
+
+    private final File directory;
+
+    /**
+     * Hashes already computed, by jar path, valid while the size and time stamp of the jar are unchanged.
+     */
+    private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+
+    /**
+     * Scans the entries of a jar for the parser.
+     */
+    interface JarHandler {
+        void handleJar(String name, Logger logger) throws IOException;
+    }
+
+    ScanIndex(File directory) {
+        this.directory = directory;
+        deleteUnused();
+    }
+
+    /**
+     * Returns the index, or null if indexes are disabled.
+     */
+    static ScanIndex create(File directory) {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return null;
+        }
+
+        return new ScanIndex(directory);
+    }
+
+    /**
+     * Hands the selected entries of the archive to the parser from its index, creating the index first if the
+     * archive has none.
+     *
+     * @return false if the archive cannot be indexed, in which case nothing was handed to the parser
+     */
+    boolean onSelectedEntries(ReadableArchive archive, ArchiveAdapter.Selector selector, ArchiveAdapter.EntryTask entryTask,
+            JarHandler jarHandler, Logger logger) throws IOException {
+        File jar = getJarFile(archive.getURI());
+        if (jar == null) {
+            return false;
+        }
+
+        File index;
+        try {
+            index = new File(directory, hash(jar) + SUFFIX);
+        } catch (IOException e) {
+            LOG.log(WARNING, scanIndexFailed, new Object[] { jar, e });
+            return false;
+        }
+
+        if (index.isFile()) {
+            byte[] content = read(index);
+            if (content != null) {
+                logger.log(FINE, () -> "Scanning " + jar + " from index " + index);
+                index.setLastModified(System.currentTimeMillis());
+                replay(archive, content, selector, entryTask, jarHandler, logger);
+                return true;
+            }
+        }
+
+        logger.log(FINE, () -> "Scanning " + jar + " into index " + index);
+        record(archive, index, selector, entryTask, jarHandler, logger);
+        return true;
+    }
+
+    private void replay(ReadableArchive archive, byte[] content, ArchiveAdapter.Selector selector, ArchiveAdapter.EntryTask entryTask,
+            JarHandler jarHandler, Logger logger) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        in.skipBytes(8);
+        for (byte type = in.readByte(); type != END; type = in.readByte()) {
+            String name = in.readUTF();
+            if (type == JAR) {
+                jarHandler.handleJar(name, logger);
+                continue;
+            }
+
+            int size = in.readInt();
+            InputStream entryContent = new ByteArrayInputStream(content, content.length - in.available(), size);
+            in.skipBytes(size);
+            ArchiveAdapter.Entry entry = new ArchiveAdapter.Entry(name, size, false);
+            if (selector.isSelected(entry)) {
+                handleEntry(entry, entryContent, entryTask, archive.getURI());
+            }
+        }
+    }
+
+    private void record(ReadableArchive archive, File index, ArchiveAdapter.Selector selector,
+            ArchiveAdapter.EntryTask entryTask, JarHandler jarHandler, Logger logger) throws IOException {
+        Path temp = null;
+        DataOutputStream out = null;
+        try {
+            if (directory.mkdirs() || directory.isDirectory()) {
+                temp = Files.createTempFile(directory.toPath(), "scan", ".tmp");
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            }
+        } catch (IOException e) {
+            LOG.log(WARNING, scanIndexFailed, new Object[] { archive.getURI(), e });
+            out = close(out, temp);
+        }
+
+        Enumeration<String> entries = archive.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement();
+            ArchiveAdapter.Entry entry = new ArchiveAdapter.Entry(name, archive.getEntrySize(name), false);
+            if (selector.isSelected(entry)) {
+                byte[] content = readEntry(archive, entry);
+                if (content == null) {
+                    // The parser never saw the entry, so the index would be incomplete
+                    out = close(out, temp);
+                    continue;
+                }
+
+                entry = new ArchiveAdapter.Entry(name, content.length, false);
+                handleEntry(entry, new ByteArrayInputStream(content), entryTask, archive.getURI());
+
+                if (out != null) {
+                    try {
+                        out.writeByte(ENTRY);
+                        out.writeUTF(name);
+                        out.writeInt(content.length);
+                        out.write(content);
+                    } catch (IOException e) {
+                        LOG.log(WARNING, scanIndexFailed, new Object[] { archive.getURI(), e });
+                        out = close(out, temp);
+                    }
+                }
+            }
+
+            // Check for non exploded jars.
+            if (name.endsWith(".jar")) {
+                jarHandler.handleJar(name, logger);
+
+                if (out != null) {
+                    try {
+                        out.writeByte(JAR);
+                        out.writeUTF(name);
+                    } catch (IOException e) {
+                        LOG.log(WARNING, scanIndexFailed, new Object[] { archive.getURI(), e });
+                        out = close(out, temp);
+                    }
+                }
+            }
+        }
+
+        if (out != null) {
+            try {
+                out.writeByte(END);
+                out.close();
+                Files.move(temp, index.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (IOException e) {
+                LOG.log(WARNING, scanIndexFailed, new Object[] { archive.getURI(), e });
+                close(out, temp);
+            }
+        }
+    }
+
+    /**
+     * Reads an entry as the parser would, stripping class files.
+     *
+     * @return the content, or null if the entry cannot be read
+     */
+    private static byte[] readEntry(ReadableArchive archive, ArchiveAdapter.Entry entry) {
+        byte[] content;
+        try (InputStream is = archive.getEntry(entry.name)) {
+            if (is == null) {
+                LOG.log(SEVERE, invalidInputStream, entry.name);
+                return null;
+            }
+            content = is.readAllBytes();
+        } catch (Exception e) {
+            LOG.log(SEVERE, exceptionWhileParsing, new Object[] { entry.name, archive.getURI(), entry.size, e });
+            return null;
+        }
+
+        if (entry.name.endsWith(".class")) {
+            try {
+                return ClassFileStripper.strip(content);
+            } catch (IOException e) {
+                // Let the parser report it
+                LOG.log(FINE, e, () -> "Cannot strip " + entry.name + " of " + archive.getURI());
+            }
+        }
+        return content;
+    }
+
+    private static void handleEntry(ArchiveAdapter.Entry entry, InputStream content, ArchiveAdapter.EntryTask entryTask, URI uri) {
+        try {
+            entryTask.on(entry, content);
+        } catch (Exception e) {
+            LOG.log(SEVERE, exceptionWhileParsing, new Object[] { entry.name, uri, entry.size, e });
+        }
+    }
+
+    /**
+     * Reads a complete index.
+     *
+     * @return the content, or null if the index is incomplete or of another version
+     */
+    private static byte[] read(File index) {
+        try {
+            byte[] content = Files.readAllBytes(index.toPath());
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+            if (content.length > 8 && in.readInt() == MAGIC && in.readInt() == VERSION && content[content.length - 1] == END) {
+                return content;
+            }
+        } catch (IOException e) {
+            LOG.log(FINE, e, () -> "Cannot read index " + index);
+        }
+        return null;
+    }
+
+    private static DataOutputStream close(OutputStream out, Path temp) {
+        try {
+            if (out != null) {
+                out.close();
+            }
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOG.log(FINE, e, () -> "Cannot delete " + temp);
+        }
+        return null;
+    }
+
+    private static File getJarFile(URI uri) {
+        if (uri == null || !"file".equals(uri.getScheme()) || !uri.getPath().endsWith(".jar")) {
+            return null;
+        }
+
+        File file = new File(uri);
+        return file.isFile() ? file : null;
+    }
+
+    private String hash(File jar) throws IOException {
+        String path = jar.getAbsolutePath();
+        long size = jar.length();
+        long lastModified = jar.lastModified();
+
+        Stamp stamp = stamps.get(path);
+        if (stamp != null && stamp.size == size && stamp.lastModified == lastModified) {
+            return stamp.hash;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(jar.toPath())) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        stamps.put(path, new Stamp(size, lastModified, hash.toString()));
+        return hash.toString();
+    }
+
+    private void deleteUnused() {
+        File[] indexes = directory.listFiles((dir, name) -> name.endsWith(SUFFIX) || name.endsWith(".tmp"));
+        if (indexes == null) {
+            return;
+        }
+
+        long oldest = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(UNUSED_DAYS);
+        for (File index : indexes) {
+            if (index.lastModified() < oldest || index.getName().endsWith(".tmp")) {
+                if (!index.delete()) {
+                    LOG.log(FINE, () -> "Cannot delete " + index);
+                }
+            }
+        }
+    }
+
+    private static final class Stamp {
+
+        final long size;
+        final long lastModified;
+        final String hash;
+
+        Stamp(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
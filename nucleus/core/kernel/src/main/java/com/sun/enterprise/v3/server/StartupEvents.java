@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import com.sun.enterprise.v3.server.StartupTimeline.Kind;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder events of the {@link StartupTimeline}.
+ *
+ * <p>
+ * Only used if the JVM has the {@code jdk.jfr} module. The events are recorded when enabled in the JFR settings, for
+ * instance with {@code -XX:StartFlightRecording=settings=profile} in the JVM options.
+ */
+final class StartupEvents {
+
+    private StartupEvents() {
+    }
+
+    /**
+     * @return the begun event, a {@link jdk.jfr.Event}
+     */
+    static Object begin(Kind kind, String name) {
+        Event event;
+        switch (kind) {
+            case RUN_LEVEL:
+                event = new RunLevelEvent(name);
+                break;
+            case SERVICE:
+                event = new ServiceEvent(name);
+                break;
+            case CONTAINER:
+                event = new ContainerEvent(name);
+                break;
+            default:
+                event = new ApplicationEvent(name);
+                break;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commit(Object event) {
+        Event jfrEvent = (Event) event;
+        jfrEvent.end();
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.commit();
+        }
+    }
+
+    @Name("org.glassfish.RunLevel")
+    @Label("Run Level")
+    @Category({ "GlassFish", "Startup" })
+    @Description("Activation of the services of a run level")
+    static final class RunLevelEvent extends Event {
+
+        @Label("Run Level")
+        String runLevel;
+
+        RunLevelEvent(String runLevel) {
+            this.runLevel = runLevel;
+        }
+    }
+
+    @Name("org.glassfish.Service")
+    @Label("Service Start")
+    @Category({ "GlassFish", "Startup" })
+    @Description("Creation of a run level service, including the services it injects")
+    static final class ServiceEvent extends Event {
+
+        @Label("Service")
+        String service;
+
+        ServiceEvent(String service) {
+            this.service = service;
+        }
+    }
+
+    @Name("org.glassfish.Container")
+    @Label("Container Start")
+    @Category({ "GlassFish", "Startup" })
+    @Description("Setup and creation of a container for the first application using it")
+    static final class ContainerEvent extends Event {
+
+        @Label("Container")
+        String container;
+
+        ContainerEvent(String container) {
+            this.container = container;
+        }
+    }
+
+    @Name("org.glassfish.Application")
+    @Label("Application Load")
+    @Category({ "GlassFish", "Startup" })
+    @Description("Loading of an application by the server")
+    static final class ApplicationEvent extends Event {
+
+        @Label("Application")
+        String application;
+
+        ApplicationEvent(String application) {
+            this.application = application;
+        }
+    }
+}
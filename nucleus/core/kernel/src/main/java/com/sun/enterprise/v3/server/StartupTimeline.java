@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.logging.Level.WARNING;
+
+import jakarta.inject.Singleton;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.glassfish.kernel.KernelLoggerInfo;
+import org.jvnet.hk2.annotations.Service;
+
+/**
+ * Timeline of the last start of the server.
+ *
+ * <p>
+ * Records how long each run level, each run level service, each container and each application took to start. Every
+ * step is also emitted as a Java Flight Recorder event, see {@link StartupEvents}, including the containers started and
+ * the applications loaded after the startup. The timeline itself stops recording once the server reached the post
+ * startup run level; it is then written to {@code logs/startup-timeline.csv} of the instance if the
+ * {@value #FILE_PROPERTY} system property is true, and shown by the {@code list-startup-times} command.
+ *
+ * <p>
+ * The steps are nested: the time of a service includes the time of the services it injects which were not started yet,
+ * and the time of a run level includes all of its services.
+ */
+@Service
+@Singleton
+public class StartupTimeline {
+
+    private static final Logger LOG = KernelLoggerInfo.getLogger();
+
+    /**
+     * Set to true to write the timeline of each start of the server to {@code logs/startup-timeline.csv}.
+     */
+    static final String FILE_PROPERTY = "org.glassfish.startupTimeline";
+
+    /** Whether the JVM has the jdk.jfr module, which a custom runtime image may leave out */
+    private static final boolean JFR = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private static final long JVM_START = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    /**
+     * The kind of a startup step.
+     */
+    public enum Kind {
+        RUN_LEVEL, SERVICE, CONTAINER, APPLICATION
+    }
+
+    private final List<Step> steps = new ArrayList<>();
+    private volatile boolean recording = true;
+
+    /**
+     * Starts a step of the startup.
+     *
+     * @param kind the kind of the step
+     * @param name the run level, service, container or application name
+     * @return the step, to end once done
+     */
+    public Span begin(Kind kind, String name) {
+        return new Span(kind, name);
+    }
+
+    /**
+     * Starts recording a new timeline, when the server starts again in the same JVM.
+     */
+    void reset() {
+        synchronized (steps) {
+            steps.clear();
+            recording = true;
+        }
+    }
+
+    /**
+     * Stops recording the timeline, the steps started later are only emitted as JFR events.
+     *
+     * @param instanceRoot the instance directory, the timeline file is written below
+     */
+    void complete(File instanceRoot) {
+        recording = false;
+        if (instanceRoot != null && Boolean.getBoolean(FILE_PROPERTY)) {
+            write(new File(instanceRoot, "logs/startup-timeline.csv"));
+        }
+    }
+
+    /**
+     * @return the steps of the last start, in the order they ended
+     */
+    public List<Step> getSteps() {
+        synchronized (steps) {
+            return Collections.unmodifiableList(new ArrayList<>(steps));
+        }
+    }
+
+    private void add(Step step) {
+        synchronized (steps) {
+            if (recording) {
+                steps.add(step);
+            }
+        }
+    }
+
+    private void write(File file) {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), UTF_8))) {
+            write(out);
+        } catch (IOException e) {
+            LOG.log(WARNING, KernelLoggerInfo.startupTimelineNotWritten, new Object[] { file, e });
+        }
+    }
+
+    /**
+     * Writes the steps as comma separated values, see RFC 4180.
+     */
+    void write(PrintWriter out) {
+        out.print("kind,name,thread,start_ms,duration_ms\r\n");
+        for (Step step : getSteps()) {
+            out.print(step.getKind() + "," + csv(step.getName()) + "," + csv(step.getThread()) + "," + step.getStart() + ","
+                + step.getDuration() + "\r\n");
+        }
+    }
+
+    /**
+     * @return the field, quoted if it contains a comma, a quote or a line break
+     */
+    private static String csv(String field) {
+        if (field == null) {
+            return "";
+        }
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\r') < 0 && field.indexOf('\n') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * A step in progress.
+     */
+    public final class Span {
+
+        private final Kind kind;
+        private final String name;
+        private final Object event;
+        private final long start;
+        private final long startNanos;
+
+        private Span(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+            this.event = JFR ? StartupEvents.begin(kind, name) : null;
+            this.start = System.currentTimeMillis();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Ends the step, on the thread which started it.
+         */
+        public void end() {
+            if (event != null) {
+                StartupEvents.commit(event);
+            }
+            if (recording) {
+                add(new Step(kind, name, Thread.currentThread().getName(), start - JVM_START,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+            }
+        }
+    }
+
+    /**
+     * A step of the startup.
+     */
+    public static final class Step {
+
+        private final Kind kind;
+        private final String name;
+        private final String thread;
+        private final long start;
+        private final long duration;
+
+        Step(Kind kind, String name, String thread, long start, long duration) {
+            this.kind = kind;
+            this.name = name;
+            this.thread = thread;
+            this.start = start;
+            this.duration = duration;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * @return the start of the step, in milliseconds since the start of the JVM
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return the duration of the step, in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+    }
+}
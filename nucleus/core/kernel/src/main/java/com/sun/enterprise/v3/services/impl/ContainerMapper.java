@@ -25,6 +25,7 @@ import java.util.logging.Logger;
 import java.io.CharConversionException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import com.sun.enterprise.v3.server.LazyApplications;
 import org.glassfish.api.container.Adapter;
 import org.glassfish.api.container.Sniffer;
 import org.glassfish.api.deployment.ApplicationContainer;
@@ -230,6 +231,9 @@ public class ContainerMapper extends ADBAwareHttpHandler {
             if (httpHandler == null || httpHandler instanceof ContainerMapper) {
 //                super.service(request, response);
                 return new SuperCallable(request, response);
+            } else if (httpHandler instanceof LazyApplications.Placeholder) {
+                return new ActivationCallable((LazyApplications.Placeholder) httpHandler,
+                        request, response);
             } else {
 //                httpHandler.service(request, response);
                 return new HttpHandlerCallable(httpHandler, request, response);
@@ -442,6 +446,37 @@ public class ContainerMapper extends ADBAwareHttpHandler {
         }
     }
 
+    /**
+     * Loads the application of a placeholder, out of the mapper lock, then maps
+     * the request again to the loaded application.
+     */
+    private final class ActivationCallable implements Callable {
+        private final LazyApplications.Placeholder placeholder;
+        private final Request request;
+        private final Response response;
+
+        public ActivationCallable(final LazyApplications.Placeholder placeholder,
+                final Request request, final Response response) {
+            this.placeholder = placeholder;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public Object call() throws Exception {
+            placeholder.activate();
+
+            final Callable handler = lookupHandler(request, response);
+            if (handler instanceof ActivationCallable) {
+                // the application did not replace its placeholder
+                placeholder.service(request, response);
+            } else {
+                handler.call();
+            }
+            return null;
+        }
+    }
+
     private final class SuperCallable implements Callable {
         final Request req;
         final Response res;
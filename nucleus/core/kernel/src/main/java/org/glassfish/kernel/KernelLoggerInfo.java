@@ -623,4 +623,68 @@ public class KernelLoggerInfo {
             level = "INFO")
     public static final String checkpointAutoResumeDone = LOGMSG_PREFIX + "-00096";
 
+    @LogMessageInfo(
+            message = "Cannot use the scan index of {0}, the archive is scanned without it: {1}",
+            cause = "The index could not be created or written in the generated directory of the domain.",
+            action = "Check the permissions and free space of the generated directory.",
+            level = "WARNING")
+    public static final String scanIndexFailed = LOGMSG_PREFIX + "-00097";
+
+    @LogMessageInfo(
+            message = "Invalid value {1} of system property {0}, applications are loaded one by one.",
+            cause = "The value is not a number.",
+            action = "Set the property to the number of applications to load at the same time.",
+            level = "WARNING")
+    public static final String invalidStartupThreads = LOGMSG_PREFIX + "-00098";
+
+    @LogMessageInfo(
+            message = "Loading of application {0} failed: {1}",
+            cause = "An unexpected exception occurred while loading the application at startup.",
+            action = "Check the system logs and redeploy the application.",
+            level = "SEVERE")
+    public static final String loadApplicationFailed = LOGMSG_PREFIX + "-00099";
+
+    @LogMessageInfo(
+            message = "Loading {0} applications with {1} threads done in {2} ms",
+            level = "INFO")
+    public static final String concurrentLoadingTime = LOGMSG_PREFIX + "-00100";
+
+    @LogMessageInfo(
+            message = "Application {0} is loaded on its first request at {1}",
+            level = "INFO")
+    public static final String lazyLoadingRegistered = LOGMSG_PREFIX + "-00101";
+
+    @LogMessageInfo(
+            message = "Application {0} has the lazy-load property but is loaded at startup: only web modules with a context root other than / can be loaded on their first request.",
+            cause = "The application is not a standalone web module, or it is deployed at the root context.",
+            action = "Remove the lazy-load property of the application.",
+            level = "WARNING")
+    public static final String lazyLoadingUnsupported = LOGMSG_PREFIX + "-00102";
+
+    @LogMessageInfo(
+            message = "Loading application {0} on its first request",
+            level = "INFO")
+    public static final String lazyLoadingActivation = LOGMSG_PREFIX + "-00103";
+
+    @LogMessageInfo(
+            message = "Loading of application {0} on its first request failed: {1}",
+            cause = "An unexpected exception occurred while loading the application.",
+            action = "Check the system logs and redeploy the application.",
+            level = "SEVERE")
+    public static final String lazyLoadingFailed = LOGMSG_PREFIX + "-00104";
+
+    @LogMessageInfo(
+            message = "Cannot register the placeholder of application {0}, the application is loaded now: {1}",
+            cause = "The context root could not be registered in the HTTP listeners.",
+            action = "Check the network listeners and virtual servers of the application.",
+            level = "WARNING")
+    public static final String lazyLoadingRegistrationFailed = LOGMSG_PREFIX + "-00105";
+
+    @LogMessageInfo(
+            message = "Cannot write the startup timeline to {0}: {1}",
+            cause = "The file could not be written.",
+            action = "Check the permissions and free space of the logs directory of the instance.",
+            level = "WARNING")
+    public static final String startupTimelineNotWritten = LOGMSG_PREFIX + "-00106";
+
 }
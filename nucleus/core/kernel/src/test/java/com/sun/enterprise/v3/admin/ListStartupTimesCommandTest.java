@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.admin;
+
+import com.sun.enterprise.v3.common.PlainTextActionReporter;
+import com.sun.enterprise.v3.server.StartupTimeline;
+import com.sun.enterprise.v3.server.StartupTimeline.Kind;
+import com.sun.enterprise.v3.server.StartupTimeline.Span;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.glassfish.api.ActionReport;
+import org.glassfish.api.admin.AdminCommandContextImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ListStartupTimesCommandTest {
+
+    private final StartupTimeline timeline = new StartupTimeline();
+    private ListStartupTimesCommand command;
+
+    @BeforeEach
+    public void recordStartup() throws Exception {
+        Span runLevel = timeline.begin(Kind.RUN_LEVEL, "startup");
+        Span slow = timeline.begin(Kind.SERVICE, "SlowService");
+        Thread.sleep(50L);
+        slow.end();
+        timeline.begin(Kind.SERVICE, "FastService").end();
+        timeline.begin(Kind.APPLICATION, "shop").end();
+        runLevel.end();
+
+        command = new ListStartupTimesCommand();
+        command.startupTimeline = timeline;
+        command.type = "service";
+        command.limit = 20;
+    }
+
+    @Test
+    public void listsTheSlowestStepsOfTheType() {
+        ActionReport report = execute();
+
+        assertEquals(List.of("SlowService", "FastService"), names(report));
+        String[] lines = report.getMessage().split("\\R");
+        assertTrue(lines[0].startsWith("Duration (ms)"), lines[0]);
+        assertTrue(lines[1].contains("service") && lines[1].contains("SlowService"), lines[1]);
+        assertTrue(lines[2].contains("FastService"), lines[2]);
+    }
+
+    @Test
+    public void listsAllTheSteps() {
+        command.type = "all";
+
+        assertEquals(4, names(execute()).size());
+    }
+
+    @Test
+    public void limitsTheSteps() {
+        command.limit = 1;
+
+        assertEquals(List.of("SlowService"), names(execute()));
+    }
+
+    @Test
+    public void listsNothingWithoutSteps() {
+        command.type = "container";
+
+        ActionReport report = execute();
+
+        assertEquals(ActionReport.ExitCode.SUCCESS, report.getActionExitCode());
+        assertEquals("Nothing to list.", report.getMessage());
+        assertEquals(List.of(), names(report));
+    }
+
+    private ActionReport execute() {
+        ActionReport report = new PlainTextActionReporter();
+        command.execute(new AdminCommandContextImpl(Logger.getLogger(getClass().getName()), report));
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> names(ActionReport report) {
+        List<Map<String, Object>> steps = (List<Map<String, Object>>) report.getExtraProperties().get("steps");
+        return steps.stream().map(step -> step.get("name")).collect(Collectors.toList());
+    }
+}
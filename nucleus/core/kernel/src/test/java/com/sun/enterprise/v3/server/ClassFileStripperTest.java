@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+
+import org.glassfish.hk2.classmodel.reflect.AnnotatedElement;
+import org.glassfish.hk2.classmodel.reflect.AnnotationModel;
+import org.glassfish.hk2.classmodel.reflect.AnnotationType;
+import org.glassfish.hk2.classmodel.reflect.Member;
+import org.glassfish.hk2.classmodel.reflect.Parameter;
+import org.glassfish.hk2.classmodel.reflect.Parser;
+import org.glassfish.hk2.classmodel.reflect.ParsingContext;
+import org.glassfish.hk2.classmodel.reflect.Type;
+import org.glassfish.hk2.classmodel.reflect.util.AbstractAdapter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassFileStripperTest {
+
+    @Test
+    public void testStrip() throws IOException {
+        byte[] classFile = readClassFile(ClassFileStripper.class);
+        byte[] stripped = ClassFileStripper.strip(classFile);
+
+        assertTrue(stripped.length < classFile.length, "method bodies not removed");
+        assertArrayEquals(Arrays.copyOf(classFile, 8), Arrays.copyOf(stripped, 8));
+
+        // Nothing left to remove
+        assertArrayEquals(stripped, ClassFileStripper.strip(stripped));
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        byte[] classFile = readClassFile(ClassFileStripper.class);
+
+        assertThrows(IOException.class, () -> ClassFileStripper.strip(Arrays.copyOf(classFile, classFile.length / 2)));
+        assertThrows(IOException.class, () -> ClassFileStripper.strip(new byte[] { 'P', 'K', 3, 4, 0, 0, 0, 0 }));
+        assertThrows(IOException.class, () -> ClassFileStripper.strip(new byte[0]));
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        Map<String, byte[]> classFiles = new LinkedHashMap<>();
+        Map<String, byte[]> strippedClassFiles = new LinkedHashMap<>();
+        for (Class<?> type : Arrays.asList(Marker.class, Annotated.class)) {
+            byte[] classFile = readClassFile(type);
+            classFiles.put(entryName(type), classFile);
+            strippedClassFiles.put(entryName(type), ClassFileStripper.strip(classFile));
+        }
+
+        Map<String, Object> annotated = annotatedElements(classFiles);
+        assertEquals(Set.of(Annotated.class.getName(), Annotated.class.getName() + "#field",
+            Annotated.class.getName() + "#method", Annotated.class.getName() + "#method(parameter)"), annotated.keySet());
+
+        // The class model sees the same declarations and annotation values without the method bodies
+        assertEquals(annotated, annotatedElements(strippedClassFiles));
+    }
+
+    private static byte[] readClassFile(Class<?> type) throws IOException {
+        String name = type.getName();
+        try (InputStream in = type.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static String entryName(Class<?> type) {
+        return type.getName().replace('.', '/') + ".class";
+    }
+
+    /**
+     * Parses the class files with the class model, as at deployment.
+     *
+     * @return the value of the {@link Marker} on each element annotated with it
+     */
+    private static Map<String, Object> annotatedElements(Map<String, byte[]> classFiles) throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Parser parser = new Parser(new ParsingContext.Builder().executorService(executorService).build());
+            parser.parse(new ClassFilesAdapter(classFiles), null);
+            parser.awaitTermination();
+
+            Type marker = parser.getContext().getTypes().getBy(Marker.class.getName());
+            assertTrue(marker instanceof AnnotationType, "annotation type not parsed");
+
+            Map<String, Object> annotated = new TreeMap<>();
+            for (AnnotatedElement element : ((AnnotationType) marker).allAnnotatedTypes()) {
+                String name;
+                if (element instanceof Parameter) {
+                    Member method = ((Parameter) element).getMethod();
+                    name = method.getDeclaringType().getName() + '#' + method.getName() + "(parameter)";
+                } else if (element instanceof Member) {
+                    name = ((Member) element).getDeclaringType().getName() + '#' + element.getName();
+                } else {
+                    name = element.getName();
+                }
+                for (AnnotationModel annotation : element.getAnnotations()) {
+                    if (annotation.getType() == marker) {
+                        annotated.put(name, annotation.getValues().get("value"));
+                    }
+                }
+            }
+            return annotated;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+        String value();
+    }
+
+    @Marker("type")
+    static class Annotated {
+
+        @Marker("field")
+        String field = "initialized in the constructor";
+
+        @Marker("method")
+        int method(@Marker("parameter") String parameter) {
+            int length = 0;
+            for (char c : parameter.toCharArray()) {
+                if (!Character.isWhitespace(c)) {
+                    length++;
+                }
+            }
+            return length;
+        }
+    }
+
+    private static class ClassFilesAdapter extends AbstractAdapter {
+
+        private final Map<String, byte[]> classFiles;
+
+        ClassFilesAdapter(Map<String, byte[]> classFiles) {
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        public URI getURI() {
+            return URI.create("file:/test/classes.jar");
+        }
+
+        @Override
+        public Manifest getManifest() {
+            return new Manifest();
+        }
+
+        @Override
+        public void onSelectedEntries(Selector selector, EntryTask entryTask, Logger logger) throws IOException {
+            for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+                Entry entry = new Entry(classFile.getKey(), classFile.getValue().length, false);
+                if (selector.isSelected(entry)) {
+                    entryTask.on(entry, new ByteArrayInputStream(classFile.getValue()));
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import com.sun.enterprise.config.serverbeans.Application;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConcurrentApplicationLoaderTest {
+
+    @Test
+    public void testStages() {
+        List<Application> applications = List.of(
+            application("system-admin", "admingui", "100", null),
+            application("user", "a", "100", null),
+            application("user", "b", "100", "lib1.jar"),
+            application("user", "c", "100", "lib2.jar"),
+            application("user", "d", "100", "lib2.jar,lib1.jar"),
+            application("user", "e", "100", null),
+            application("user", "f", "200", "lib1.jar"));
+
+        assertEquals("[[[admingui]], [[a], [b, c, d], [e]], [[f]]]",
+            toString(ConcurrentApplicationLoader.getStages(applications)));
+    }
+
+    @Test
+    public void testLoad() {
+        List<Application> applications = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            applications.add(application("user", "app" + i, "100", null));
+        }
+
+        Set<String> loaded = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            new ConcurrentApplicationLoader(executor, 4, app -> {
+                if (app.getName().equals("app3")) {
+                    throw new IllegalStateException("failed");
+                }
+                loaded.add(app.getName());
+            }).load(applications);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(19, loaded.size());
+    }
+
+    private static String toString(List<List<List<Application>>> stages) {
+        List<List<List<String>>> names = new ArrayList<>();
+        for (List<List<Application>> stage : stages) {
+            List<List<String>> chains = new ArrayList<>();
+            for (List<Application> chain : stage) {
+                List<String> chainNames = new ArrayList<>();
+                chain.forEach(app -> chainNames.add(app.getName()));
+                chains.add(chainNames);
+            }
+            names.add(chains);
+        }
+        return names.toString();
+    }
+
+    private static Application application(String objectType, String name, String deploymentOrder, String libraries) {
+        return (Application) Proxy.newProxyInstance(Application.class.getClassLoader(), new Class<?>[] { Application.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getObjectType":
+                        return objectType;
+                    case "getName":
+                        return name;
+                    case "getDeploymentOrder":
+                        return deploymentOrder;
+                    case "getLibraries":
+                        return libraries;
+                    case "toString":
+                        return name;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import com.sun.enterprise.v3.server.LazyApplications.Placeholder;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.glassfish.api.container.EndpointRegistrationException;
+import org.glassfish.api.container.RequestDispatcher;
+import org.glassfish.api.deployment.ApplicationContainer;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyApplicationsTest {
+
+    private static final String APP_NAME = "app";
+    private static final String CONTEXT_ROOT = "/app";
+    private static final int REQUESTS = 8;
+
+    private TestDispatcher dispatcher;
+    private LazyApplications lazyApplications;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void createLazyApplications() {
+        dispatcher = new TestDispatcher();
+        lazyApplications = new LazyApplications();
+        lazyApplications.dispatcher = () -> dispatcher;
+    }
+
+    @Test
+    public void concurrentFirstRequestsLoadTheApplicationOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        lazyApplications.register(APP_NAME, CONTEXT_ROOT, null, loader(() -> {
+            loading.countDown();
+            assertTrue(loaded.await(10, TimeUnit.SECONDS));
+            return true;
+        }));
+        Placeholder placeholder = dispatcher.placeholder();
+
+        List<Thread> requests = new ArrayList<>();
+        ConcurrentHashMap<Thread, Boolean> results = new ConcurrentHashMap<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(start(() -> results.put(Thread.currentThread(), placeholder.activate())));
+        }
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        awaitWaiting(requests);
+        loaded.countDown();
+        for (Thread request : requests) {
+            request.join(10_000L);
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(REQUESTS, results.size());
+        assertFalse(results.containsValue(Boolean.FALSE));
+        // The application replaced the placeholder in the mapper
+        assertEquals(0, dispatcher.unregistered.get());
+        lazyApplications.activate(APP_NAME);
+        assertTrue(placeholder.activate());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void failedActivationUnregistersThePlaceholder() throws Exception {
+        lazyApplications.register(APP_NAME, CONTEXT_ROOT, null, loader(() -> {
+            throw new IllegalStateException("load failed");
+        }));
+        Placeholder placeholder = dispatcher.placeholder();
+
+        assertFalse(placeholder.activate());
+        assertEquals(1, dispatcher.unregistered.get());
+
+        // The requests go to the normal mapping now, and are not held by another load
+        lazyApplications.activate(APP_NAME);
+        assertFalse(placeholder.activate());
+        assertEquals(1, loads.get());
+        assertEquals(1, dispatcher.unregistered.get());
+    }
+
+    @Test
+    public void applicationWhichIsNotLoadedUnregistersThePlaceholder() throws Exception {
+        lazyApplications.register(APP_NAME, CONTEXT_ROOT, null, loader(() -> false));
+
+        lazyApplications.activate(APP_NAME);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, dispatcher.unregistered.get());
+    }
+
+    @Test
+    public void discardDoesNotLoadTheApplication() throws Exception {
+        lazyApplications.register(APP_NAME, CONTEXT_ROOT, null, loader(() -> true));
+        Placeholder placeholder = dispatcher.placeholder();
+
+        lazyApplications.discard(APP_NAME);
+
+        assertEquals(0, loads.get());
+        assertEquals(1, dispatcher.unregistered.get());
+        // A request which got the placeholder before it was discarded
+        assertFalse(placeholder.activate());
+        lazyApplications.discard(APP_NAME);
+        assertEquals(0, loads.get());
+        assertEquals(1, dispatcher.unregistered.get());
+    }
+
+    @Test
+    public void discardWaitsForTheActivationInProgress() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        lazyApplications.register(APP_NAME, CONTEXT_ROOT, null, loader(() -> {
+            loading.countDown();
+            assertTrue(loaded.await(10, TimeUnit.SECONDS));
+            return true;
+        }));
+        Placeholder placeholder = dispatcher.placeholder();
+
+        Thread request = start(placeholder::activate);
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        Thread undeploy = start(() -> lazyApplications.discard(APP_NAME));
+        awaitWaiting(List.of(undeploy));
+        loaded.countDown();
+        undeploy.join(10_000L);
+        request.join(10_000L);
+
+        assertFalse(undeploy.isAlive());
+        assertEquals(1, loads.get());
+        // Left to the undeployment of the loaded application
+        assertEquals(0, dispatcher.unregistered.get());
+    }
+
+    @Test
+    public void failedRegistrationForgetsThePlaceholder() throws Exception {
+        dispatcher.fail = true;
+
+        assertThrows(EndpointRegistrationException.class,
+            () -> lazyApplications.register(APP_NAME, CONTEXT_ROOT, null, loader(() -> true)));
+
+        lazyApplications.activate(APP_NAME);
+        assertEquals(0, loads.get());
+    }
+
+    private Callable<Boolean> loader(Callable<Boolean> load) {
+        return () -> {
+            loads.incrementAndGet();
+            return load.call();
+        };
+    }
+
+    private static Thread start(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Waits until the threads wait, either for the activation or, for the thread which activates, in the loader.
+     */
+    private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (Thread thread : threads) {
+            while (thread.getState() == Thread.State.NEW || thread.getState() == Thread.State.RUNNABLE) {
+                assertTrue(System.nanoTime() < deadline, thread + " does not wait");
+                Thread.sleep(1L);
+            }
+        }
+    }
+
+    /**
+     * The HTTP mapper, which only knows the placeholder.
+     */
+    private static class TestDispatcher implements RequestDispatcher {
+
+        final AtomicInteger unregistered = new AtomicInteger();
+        volatile HttpHandler handler;
+        volatile boolean fail;
+
+        Placeholder placeholder() {
+            return (Placeholder) handler;
+        }
+
+        @Override
+        public void registerEndpoint(String contextRoot, HttpHandler endpointAdapter, ApplicationContainer container,
+                String virtualServers) throws EndpointRegistrationException {
+            if (fail) {
+                throw new EndpointRegistrationException("registration failed");
+            }
+            assertEquals(CONTEXT_ROOT, contextRoot);
+            handler = endpointAdapter;
+        }
+
+        @Override
+        public void unregisterEndpoint(String contextRoot, ApplicationContainer app) {
+            assertEquals(CONTEXT_ROOT, contextRoot);
+            unregistered.incrementAndGet();
+        }
+
+        @Override
+        public void registerEndpoint(String contextRoot, HttpHandler endpointAdapter, ApplicationContainer container) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void registerEndpoint(String contextRoot, Collection<String> vsServers, HttpHandler endpointAdapter,
+                ApplicationContainer container) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void registerEndpoint(String contextRoot, InetAddress address, int port, Collection<String> vsServers,
+                HttpHandler endpointAdapter, ApplicationContainer container) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unregisterEndpoint(String contextRoot) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
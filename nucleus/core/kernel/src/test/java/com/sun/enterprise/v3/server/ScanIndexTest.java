@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.logging.Logger;
+
+import org.glassfish.api.deployment.archive.ReadableArchive;
+import org.glassfish.hk2.classmodel.reflect.ArchiveAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScanIndexTest {
+
+    private static final Logger LOG = Logger.getLogger(ScanIndexTest.class.getName());
+
+    private static final String CLASS_ENTRY = "com/acme/Bean.class";
+    private static final String XML_ENTRY = "META-INF/beans.xml";
+    private static final String TEXT_ENTRY = "README.txt";
+    private static final String NESTED_JAR = "lib/nested.jar";
+
+    @TempDir
+    File directory;
+
+    private File indexDirectory;
+    private File jar;
+    private final Map<String, byte[]> content = new LinkedHashMap<>();
+
+    @BeforeEach
+    public void createJar() throws IOException {
+        indexDirectory = new File(directory, "scan-index");
+        jar = new File(directory, "app.jar");
+        try (InputStream in = ClassFileStripper.class.getResourceAsStream("ClassFileStripper.class")) {
+            content.put(CLASS_ENTRY, in.readAllBytes());
+        }
+        content.put(XML_ENTRY, "<beans/>".getBytes(StandardCharsets.UTF_8));
+        content.put(TEXT_ENTRY, "not selected".getBytes(StandardCharsets.UTF_8));
+        content.put(NESTED_JAR, new byte[] { 'P', 'K', 5, 6 });
+        writeJar();
+    }
+
+    @Test
+    public void replaysTheSelectedEntriesOfAnUnchangedJar() throws Exception {
+        Scan recorded = new Scan();
+        ReadableArchive archive = readableArchive();
+        assertTrue(new ScanIndex(indexDirectory).onSelectedEntries(archive, Scan::isSelected, recorded, recorded, LOG));
+        verify(archive);
+
+        assertEquals(List.of(CLASS_ENTRY, XML_ENTRY), new ArrayList<>(recorded.entries.keySet()));
+        assertArrayEquals(ClassFileStripper.strip(content.get(CLASS_ENTRY)), recorded.entries.get(CLASS_ENTRY));
+        assertArrayEquals(content.get(XML_ENTRY), recorded.entries.get(XML_ENTRY));
+        assertEquals(List.of(NESTED_JAR), recorded.jars);
+        assertEquals(1, indexes().length);
+
+        // A new index, as after a restart, never opens the archive
+        Scan replayed = new Scan();
+        ReadableArchive unopened = unopenedArchive();
+        assertTrue(new ScanIndex(indexDirectory).onSelectedEntries(unopened, Scan::isSelected, replayed, replayed, LOG));
+        verify(unopened);
+
+        assertEquals(recorded.entries.keySet(), replayed.entries.keySet());
+        for (String name : recorded.entries.keySet()) {
+            assertArrayEquals(recorded.entries.get(name), replayed.entries.get(name), name);
+        }
+        assertEquals(recorded.jars, replayed.jars);
+    }
+
+    @Test
+    public void indexesAChangedJarAgain() throws Exception {
+        ScanIndex scanIndex = new ScanIndex(indexDirectory);
+        scanIndex.onSelectedEntries(readableArchive(), Scan::isSelected, new Scan(), new Scan(), LOG);
+
+        content.put(XML_ENTRY, "<beans version=\"4.0\"/>".getBytes(StandardCharsets.UTF_8));
+        writeJar();
+        // The size differs, so the hash is computed again even within the time stamp resolution
+        Scan scan = new Scan();
+        ReadableArchive archive = readableArchive();
+        assertTrue(scanIndex.onSelectedEntries(archive, Scan::isSelected, scan, scan, LOG));
+        verify(archive);
+
+        assertArrayEquals(content.get(XML_ENTRY), scan.entries.get(XML_ENTRY));
+        assertEquals(2, indexes().length);
+    }
+
+    @Test
+    public void ignoresAnIncompleteIndex() throws Exception {
+        new ScanIndex(indexDirectory).onSelectedEntries(readableArchive(), Scan::isSelected, new Scan(), new Scan(), LOG);
+        File index = indexes()[0];
+        try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        Scan scan = new Scan();
+        ReadableArchive archive = readableArchive();
+        assertTrue(new ScanIndex(indexDirectory).onSelectedEntries(archive, Scan::isSelected, scan, scan, LOG));
+        verify(archive);
+
+        assertEquals(List.of(CLASS_ENTRY, XML_ENTRY), new ArrayList<>(scan.entries.keySet()));
+        assertEquals(List.of(NESTED_JAR), scan.jars);
+        // Written again in full
+        Scan replayed = new Scan();
+        new ScanIndex(indexDirectory).onSelectedEntries(unopenedArchive(), Scan::isSelected, replayed, replayed, LOG);
+        assertEquals(scan.entries.keySet(), replayed.entries.keySet());
+    }
+
+    @Test
+    public void leavesDirectoriesToTheParser() throws Exception {
+        ReadableArchive archive = createMock(ReadableArchive.class);
+        expect(archive.getURI()).andReturn(directory.toURI()).anyTimes();
+        replay(archive);
+
+        Scan scan = new Scan();
+        assertFalse(new ScanIndex(indexDirectory).onSelectedEntries(archive, Scan::isSelected, scan, scan, LOG));
+        verify(archive);
+        assertTrue(scan.entries.isEmpty());
+        assertFalse(indexDirectory.exists());
+    }
+
+    private void writeJar() throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (Map.Entry<String, byte[]> entry : content.entrySet()) {
+                out.putNextEntry(new JarEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * The archive of the jar, which the index may read.
+     */
+    private ReadableArchive readableArchive() throws IOException {
+        ReadableArchive archive = createMock(ReadableArchive.class);
+        expect(archive.getURI()).andReturn(jar.toURI()).anyTimes();
+        expect(archive.entries()).andAnswer(() -> Collections.enumeration(content.keySet()));
+        for (Map.Entry<String, byte[]> entry : content.entrySet()) {
+            expect(archive.getEntrySize(entry.getKey())).andReturn((long) entry.getValue().length).anyTimes();
+            expect(archive.getEntry(entry.getKey())).andAnswer(() -> new ByteArrayInputStream(entry.getValue())).anyTimes();
+        }
+        replay(archive);
+        return archive;
+    }
+
+    /**
+     * The archive of the jar, which the index must not read.
+     */
+    private ReadableArchive unopenedArchive() {
+        ReadableArchive archive = createMock(ReadableArchive.class);
+        expect(archive.getURI()).andReturn(jar.toURI()).anyTimes();
+        replay(archive);
+        return archive;
+    }
+
+    private File[] indexes() {
+        return indexDirectory.listFiles((dir, name) -> name.endsWith(".idx"));
+    }
+
+    /**
+     * Collects what the parser is handed.
+     */
+    private static class Scan implements ArchiveAdapter.EntryTask, ScanIndex.JarHandler {
+
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        final List<String> jars = new ArrayList<>();
+
+        static boolean isSelected(ArchiveAdapter.Entry entry) {
+            return entry.name.endsWith(".class") || entry.name.endsWith(".xml");
+        }
+
+        @Override
+        public void on(ArchiveAdapter.Entry entry, InputStream is) throws IOException {
+            entries.put(entry.name, is.readAllBytes());
+        }
+
+        @Override
+        public void handleJar(String name, Logger logger) {
+            jars.add(name);
+        }
+    }
+}
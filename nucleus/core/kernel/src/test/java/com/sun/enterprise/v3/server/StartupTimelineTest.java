@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.v3.server;
+
+import com.sun.enterprise.v3.server.StartupTimeline.Kind;
+import com.sun.enterprise.v3.server.StartupTimeline.Span;
+import com.sun.enterprise.v3.server.StartupTimeline.Step;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StartupTimelineTest {
+
+    private final StartupTimeline timeline = new StartupTimeline();
+
+    @Test
+    public void recordsNestedStepsWhenTheyEnd() throws Exception {
+        Span runLevel = timeline.begin(Kind.RUN_LEVEL, "10");
+        Span service = timeline.begin(Kind.SERVICE, "Outer");
+        Span injected = timeline.begin(Kind.SERVICE, "Injected");
+        Thread.sleep(20L);
+        injected.end();
+        service.end();
+        runLevel.end();
+
+        List<Step> steps = timeline.getSteps();
+        assertEquals(List.of("Injected", "Outer", "10"), names(steps));
+        Step inner = steps.get(0);
+        Step outer = steps.get(2);
+        assertEquals(Kind.SERVICE, inner.getKind());
+        assertEquals(Kind.RUN_LEVEL, outer.getKind());
+        assertEquals(Thread.currentThread().getName(), inner.getThread());
+        assertTrue(inner.getDuration() >= 20L, inner.getDuration() + " ms");
+        // The outer step includes the inner ones
+        assertTrue(outer.getStart() <= inner.getStart());
+        assertTrue(outer.getStart() + outer.getDuration() >= inner.getStart() + inner.getDuration());
+        assertThrows(UnsupportedOperationException.class, () -> steps.add(inner));
+    }
+
+    @Test
+    public void stopsRecordingWhenCompleted() {
+        timeline.begin(Kind.SERVICE, "Before").end();
+        Span inProgress = timeline.begin(Kind.SERVICE, "InProgress");
+
+        timeline.complete(null);
+        inProgress.end();
+        timeline.begin(Kind.APPLICATION, "After").end();
+        assertEquals(List.of("Before"), names(timeline.getSteps()));
+
+        // The server starts again in the same JVM
+        timeline.reset();
+        timeline.begin(Kind.SERVICE, "Restart").end();
+        assertEquals(List.of("Restart"), names(timeline.getSteps()));
+    }
+
+    @Test
+    public void writesQuotedCsv() throws Exception {
+        run("startup", () -> {
+            timeline.begin(Kind.CONTAINER, "web").end();
+            timeline.begin(Kind.APPLICATION, "shop,2").end();
+        });
+        run("worker \"1\"", () -> timeline.begin(Kind.SERVICE, "say \"hi\"\nbye").end());
+
+        StringWriter csv = new StringWriter();
+        timeline.write(new PrintWriter(csv));
+
+        List<Step> steps = timeline.getSteps();
+        assertEquals("kind,name,thread,start_ms,duration_ms\r\n"
+            + "CONTAINER,web,startup," + times(steps.get(0)) + "\r\n"
+            + "APPLICATION,\"shop,2\",startup," + times(steps.get(1)) + "\r\n"
+            + "SERVICE,\"say \"\"hi\"\"\nbye\",\"worker \"\"1\"\"\"," + times(steps.get(2)) + "\r\n", csv.toString());
+    }
+
+    private static void run(String threadName, Runnable steps) throws InterruptedException {
+        Thread thread = new Thread(steps, threadName);
+        thread.start();
+        thread.join();
+    }
+
+    private static List<String> names(List<Step> steps) {
+        return steps.stream().map(Step::getName).collect(Collectors.toList());
+    }
+
+    private static String times(Step step) {
+        return step.getStart() + "," + step.getDuration();
+    }
+}
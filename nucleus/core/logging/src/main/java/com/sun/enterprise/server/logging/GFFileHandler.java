@@ -16,6 +16,8 @@
 
 package com.sun.enterprise.server.logging;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
@@ -23,19 +25,24 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.text.FieldPosition;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.Vector;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.ErrorManager;
+import java.util.logging.Filter;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -98,6 +105,10 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
     // written out to the stream
     private MeteredStream meter;
 
+    // Last encodings of the handler found to be UTF-8 or not
+    private String utf8Encoding;
+    private String otherEncoding;
+
     private static final String LOGS_DIR = "logs";
     private static final String LOG_FILE_NAME = "server.log";
 
@@ -116,7 +127,40 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
     // Initially the LogRotation will be off until the domain.xml value is read.
     private int limitForFileRotation = 0;
 
-    private BlockingQueue<LogRecord> pendingRecords = new ArrayBlockingQueue<LogRecord>(5000);
+    // The records are encoded by the logging threads, and written by the
+    // pump in batches, each with one write to the channel of the file
+    private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    private static final int MAX_QUEUE_CAPACITY = 1 << 20;
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long OVERFLOW_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * What a logging thread does with a record when the queue is full.
+     */
+    enum OverflowPolicy {
+        /** Waits for the pump to free a slot */
+        BLOCK,
+        /** Drops the record if its level is below the overflowDropLevel, else waits */
+        DROP,
+        /** Writes the record to the file itself, before the records in the queue */
+        SPILL
+    }
+
+    private LogRecordRing pendingRecords = new LogRecordRing(DEFAULT_QUEUE_CAPACITY);
+    private final LogRecordRing.Slot[] batch = new LogRecordRing.Slot[MAX_BATCH_SIZE];
+    private final ByteBuffer[] batchBytes = new ByteBuffer[MAX_BATCH_SIZE];
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private Level overflowDropLevel = Level.WARNING;
+    private boolean latencyStatistics = false;
+
+    private final LongAdder droppedRecords = new LongAdder();
+    private final LongAdder spilledRecords = new LongAdder();
+    private final LongAdder blockedRecords = new LongAdder();
+    // Only updated by the pump
+    private volatile long measuredRecords;
+    private volatile long totalLatencyNanos;
+    private volatile long maxLatencyNanos;
 
     // Rotation can be done in 3 ways
     // 1. Based on the Size: Rotate when some Threshold number of bytes are
@@ -149,7 +193,7 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
     private String RECORD_FIELD_SEPARATOR = "|";
     private String RECORD_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
 
-    private List<LogEventListener> logEventListeners = new ArrayList<LogEventListener>();
+    private List<LogEventListener> logEventListeners = new CopyOnWriteArrayList<LogEventListener>();
 
     String recordBeginMarker;
     String recordEndMarker;
@@ -229,6 +273,7 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         }
 
         // start the Queue consumer thread.
+        configureQueue(manager, cname);
         initializePump();
 
         LogRecord lr = new LogRecord(Level.INFO, LogFacade.GF_VERSION_INFO);
@@ -508,10 +553,67 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         }
     }
 
+    private void configureQueue(LogManager manager, String cname) {
+        int capacity = DEFAULT_QUEUE_CAPACITY;
+        String propValue = manager.getProperty(cname + ".queueCapacity");
+        try {
+            if (propValue != null && Integer.parseInt(propValue.trim()) > 0) {
+                capacity = Integer.parseInt(propValue.trim());
+            }
+        } catch (NumberFormatException e) {
+            reportInvalidAttribute(propValue, "queueCapacity");
+        }
+
+        OverflowPolicy policy = OverflowPolicy.BLOCK;
+        propValue = manager.getProperty(cname + ".overflowPolicy");
+        try {
+            if (propValue != null && !propValue.trim().isEmpty()) {
+                policy = OverflowPolicy.valueOf(propValue.trim().toUpperCase(Locale.ROOT));
+            }
+        } catch (IllegalArgumentException e) {
+            reportInvalidAttribute(propValue, "overflowPolicy");
+        }
+
+        Level dropLevel = Level.WARNING;
+        propValue = manager.getProperty(cname + ".overflowDropLevel");
+        try {
+            if (propValue != null && !propValue.trim().isEmpty()) {
+                dropLevel = Level.parse(propValue.trim());
+            }
+        } catch (IllegalArgumentException e) {
+            reportInvalidAttribute(propValue, "overflowDropLevel");
+        }
+
+        propValue = manager.getProperty(cname + ".latencyStatistics");
+        configureQueue(capacity, policy, dropLevel, Boolean.parseBoolean(propValue));
+    }
+
+    /**
+     * Sets up the queue of the records, before the pump is started.
+     */
+    void configureQueue(int capacity, OverflowPolicy policy, Level dropLevel, boolean latencyStatistics) {
+        pendingRecords = new LogRecordRing(Math.min(capacity, MAX_QUEUE_CAPACITY));
+        overflowPolicy = policy;
+        overflowDropLevel = dropLevel;
+        this.latencyStatistics = latencyStatistics;
+    }
+
+    private void reportInvalidAttribute(String propValue, String attribute) {
+        LogRecord lr = new LogRecord(Level.WARNING, LogFacade.INVALID_ATTRIBUTE_VALUE);
+        lr.setParameters(new Object[]{propValue, attribute});
+        lr.setResourceBundle(ResourceBundle.getBundle(LogFacade.LOGGING_RB_NAME));
+        lr.setThreadID((int) Thread.currentThread().getId());
+        lr.setLoggerName(LogFacade.LOGGING_LOGGER_NAME);
+        EarlyLogHandler.earlyMessages.add(lr);
+    }
+
     void initializePump() {
         pump = new Thread() {
             public void run() {
                 while (!done.isSignalled()) {
+                    // The channel of the file is closed by a write of an
+                    // interrupted thread
+                    Thread.interrupted();
                     try {
                         log();
                     } catch (Exception e) {
@@ -519,6 +621,7 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
                         // Continue the loop without exiting
                     }
                 }
+                drain();
             }
         };
         pump.setDaemon(true);
@@ -528,23 +631,41 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
     public void preDestroy() {
         // stop the Queue consummer thread.
         if (LogFacade.LOGGING_LOGGER.isLoggable(Level.FINE)) {
-            LogFacade.LOGGING_LOGGER.fine("Logger handler killed");
+            LogFacade.LOGGING_LOGGER.fine("Logger handler killed, dropped records: " + getDroppedRecordCount()
+                    + ", spilled records: " + getSpilledRecordCount()
+                    + ", blocked records: " + getBlockedRecordCount());
         }
         done.tryReleaseShared(1);
-        pump.interrupt();
+        // The pump writes the records left. It is not interrupted, which would
+        // close the channel of the file if it is writing.
+        pendingRecords.close();
+        if (pump != null) {
+            try {
+                pump.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
 
         // drain and return
-        final int size = pendingRecords.size();
-        if (size > 0) {
-            Collection<LogRecord> records = new ArrayList<LogRecord>(size);
-            pendingRecords.drainTo(records, size);
-            for (LogRecord record : records) {
-                super.publish(record);
-            }
+        if (pump == null || !pump.isAlive()) {
+            drain();
         }
 
     }
 
+    /**
+     * Writes the records left in the queue.
+     */
+    private void drain() {
+        int count;
+        while ((count = pendingRecords.poll(batch)) > 0) {
+            write(batch, count);
+            pendingRecords.release(count);
+        }
+        flush();
+    }
+
     /**
      * This method is invoked from LogManager.reInitializeLoggers() to
      * change the location of the file.
@@ -605,10 +726,12 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         private volatile boolean isOpen = false;
 
         OutputStream out;
+        FileChannel channel;
         long written;
 
-        MeteredStream(OutputStream out, long written) {
+        MeteredStream(OutputStream out, FileChannel channel, long written) {
             this.out = out;
+            this.channel = channel;
             this.written = written;
             isOpen = true;
         }
@@ -628,6 +751,26 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
             written += len;
         }
 
+        /**
+         * Writes the buffers at once to the channel, after the bytes
+         * written to the stream.
+         */
+        void write(ByteBuffer[] buffers, int length) throws IOException {
+            out.flush();
+            long remaining = 0;
+            for (int i = 0; i < length; i++) {
+                remaining += buffers[i].remaining();
+            }
+            written += remaining;
+            int offset = 0;
+            while (remaining > 0) {
+                remaining -= channel.write(buffers, offset, length - offset);
+                while (!buffers[offset].hasRemaining() && offset < length - 1) {
+                    offset++;
+                }
+            }
+        }
+
         public void flush() throws IOException {
             out.flush();
         }
@@ -655,7 +798,7 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
         }
         FileOutputStream fout = new FileOutputStream(file, true);
         BufferedOutputStream bout = new BufferedOutputStream(fout);
-        meter = new MeteredStream(bout, file.length());
+        meter = new MeteredStream(bout, fout.getChannel(), file.length());
         setOutputStream(meter);
     }
 
@@ -794,21 +937,15 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
      */
     public void log() {
 
-        LogRecord record;
-
-        // take is blocking so we take one record off the queue
-        try {
-            record = pendingRecords.take();
-            super.publish(record);
-        } catch (InterruptedException e) {
+        // await is blocking so we take the records in the queue once there is one
+        int count = pendingRecords.await(batch);
+        if (count == 0) {
             return;
         }
-
-        // now try to read more.  we end up blocking on the above take call if nothing is in the queue
-        Vector<LogRecord> v = new Vector<LogRecord>();
-        int msgs = pendingRecords.drainTo(v, flushFrequency);
-        for (int j = 0; j < msgs; j++) {
-            super.publish(v.get(j));
+        try {
+            write(batch, count);
+        } finally {
+            pendingRecords.release(count);
         }
 
         flush();
@@ -827,7 +964,87 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
     }
 
     /**
-     * Publishes the logrecord storing it in our queue
+     * Writes a batch of records taken from the queue, the encoded records
+     * following each other with one write to the channel of the file, the
+     * others with the StreamHandler.
+     */
+    private void write(LogRecordRing.Slot[] slots, int count) {
+        int encoded = 0;
+        int streamed = 0;
+        for (int i = 0; i < count; i++) {
+            LogRecord record = slots[i].getRecord();
+            if (record == null) {
+                batchBytes[encoded++] = slots[i].getBytes();
+                continue;
+            }
+            if (encoded > 0) {
+                writeBytes(slots, i - encoded, encoded);
+                encoded = 0;
+            }
+            super.publish(record);
+            if (++streamed % flushFrequency == 0) {
+                super.flush();
+            }
+        }
+        if (encoded > 0) {
+            writeBytes(slots, count - encoded, encoded);
+        }
+    }
+
+    private void writeBytes(LogRecordRing.Slot[] slots, int start, int count) {
+        synchronized (rotationLock) {
+            synchronized (this) {
+                try {
+                    if (meter != null && meter.isOpen) {
+                        // after the records written by the StreamHandler
+                        flush();
+                        meter.write(batchBytes, count);
+                    }
+                } catch (IOException e) {
+                    reportError(null, e, ErrorManager.WRITE_FAILURE);
+                }
+            }
+        }
+        if (latencyStatistics) {
+            long now = System.nanoTime();
+            long total = totalLatencyNanos;
+            long max = maxLatencyNanos;
+            for (int i = start; i < start + count; i++) {
+                long latency = now - slots[i].getPublishedNanos();
+                total += latency;
+                max = Math.max(max, latency);
+            }
+            totalLatencyNanos = total;
+            maxLatencyNanos = max;
+            measuredRecords += count;
+        }
+        for (int i = 0; i < count; i++) {
+            batchBytes[i] = null;
+        }
+    }
+
+    /**
+     * @return true if the StreamHandler writes in UTF-8
+     */
+    private boolean isUtf8() {
+        String encoding = getEncoding();
+        if (encoding == null) {
+            return UTF_8.equals(Charset.defaultCharset());
+        }
+        if (!encoding.equals(utf8Encoding) && !encoding.equals(otherEncoding)) {
+            if (UTF_8.equals(Charset.forName(encoding))) {
+                utf8Encoding = encoding;
+            } else {
+                otherEncoding = encoding;
+            }
+        }
+        return encoding.equals(utf8Encoding);
+    }
+
+    /**
+     * Publishes the logrecord storing it in our queue. The records of the
+     * UniformLogFormatter and the ODLLogFormatter in UTF-8 are formatted and
+     * encoded by the logging thread, the others are formatted by the pump.
      */
     public void publish(LogRecord record) {
 
@@ -836,27 +1053,30 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
             return;
         }
 
-        // JUL LogRecord does not capture thread-name. Create a wrapper to
-        // capture the name of the logging thread so that a formatter can
-        // output correct thread-name if done asynchronously. Note that
-        // this fix is limited to records published through this handler only.
-        GFLogRecord recordWrapper = new GFLogRecord(record);
-        recordWrapper.setThreadName(Thread.currentThread().getName());
-
-        try {
-            // set the thread id to be the current thread that is logging the message
-//            record.setThreadID((int)Thread.currentThread().getId());
-            pendingRecords.add(recordWrapper);
-        } catch (IllegalStateException e) {
-            // queue is full, start waiting.
-            try {
-                pendingRecords.put(recordWrapper);
-            } catch (InterruptedException e1) {
-                // too bad, record is lost...
+        Formatter formatter = this.getFormatter();
+        Class<?> formatterClass = formatter == null ? null : formatter.getClass();
+        if ((formatterClass == UniformLogFormatter.class || formatterClass == ODLLogFormatter.class) && isUtf8()) {
+            if (isPublishable(record)) {
+                publishEncoded(record, formatter);
+            }
+        } else {
+            // JUL LogRecord does not capture thread-name. Create a wrapper to
+            // capture the name of the logging thread so that a formatter can
+            // output correct thread-name if done asynchronously. Note that
+            // this fix is limited to records published through this handler only.
+            GFLogRecord recordWrapper = new GFLogRecord(record);
+            recordWrapper.setThreadName(Thread.currentThread().getName());
+
+            long position = claim(recordWrapper);
+            if (position >= 0) {
+                pendingRecords.get(position).set(recordWrapper);
+                queue(position);
+            } else if (position == SPILLED) {
+                super.publish(recordWrapper);
+                super.flush();
             }
         }
 
-        Formatter formatter = this.getFormatter();
         if (!(formatter instanceof LogEventBroadcaster)) {
             LogEvent logEvent = new LogEventImpl(record);
             informLogEventListeners(logEvent);
@@ -864,6 +1084,144 @@ PostConstruct, PreDestroy, LogEventBroadcaster, LoggingRuntime {
 
     }
 
+    /**
+     * Formats the record in a reusable buffer of the logging thread, and
+     * queues the encoded record.
+     */
+    private void publishEncoded(LogRecord record, Formatter formatter) {
+        LogRecordBuffer buffer = LogRecordBuffer.acquire(true);
+        try {
+            if (formatter instanceof UniformLogFormatter) {
+                ((UniformLogFormatter) formatter).format(record, buffer);
+            } else {
+                ((ODLLogFormatter) formatter).format(record, buffer);
+            }
+            if (buffer.size() == 0) {
+                return;
+            }
+
+            long position = claim(record);
+            if (position >= 0) {
+                try {
+                    pendingRecords.get(position).set(buffer);
+                } finally {
+                    // The pump stops at the first slot not published, the
+                    // slot is published empty if the record cannot be set
+                    queue(position);
+                }
+            } else if (position == SPILLED) {
+                synchronized (rotationLock) {
+                    synchronized (this) {
+                        if (meter != null && meter.isOpen) {
+                            buffer.writeTo(meter);
+                            meter.flush();
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static final long DROPPED = -1;
+    private static final long SPILLED = -2;
+
+    /**
+     * Claims a slot of the queue for the record, applying the overflow
+     * policy if the queue is full.
+     *
+     * @return the position of the slot, DROPPED or SPILLED
+     */
+    private long claim(LogRecord record) {
+        long position = pendingRecords.claim();
+        if (position >= 0) {
+            return position;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP
+                && record.getLevel().intValue() < overflowDropLevel.intValue()) {
+            droppedRecords.increment();
+            return DROPPED;
+        }
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            spilledRecords.increment();
+            return SPILLED;
+        }
+        blockedRecords.increment();
+        while ((position = pendingRecords.claim()) < 0) {
+            if (done.isSignalled()) {
+                // too bad, record is lost...
+                droppedRecords.increment();
+                return DROPPED;
+            }
+            LockSupport.parkNanos(OVERFLOW_WAIT_NANOS);
+        }
+        return position;
+    }
+
+    private void queue(long position) {
+        if (latencyStatistics) {
+            pendingRecords.get(position).setPublishedNanos(System.nanoTime());
+        }
+        pendingRecords.publish(position);
+    }
+
+    /**
+     * The checks of the StreamHandler, which the records encoded by the
+     * logging threads skip.
+     */
+    private boolean isPublishable(LogRecord record) {
+        if (record == null) {
+            return false;
+        }
+        int levelValue = getLevel().intValue();
+        if (record.getLevel().intValue() < levelValue || levelValue == Level.OFF.intValue()) {
+            return false;
+        }
+        Filter filter = getFilter();
+        return filter == null || filter.isLoggable(record);
+    }
+
+    /**
+     * @return the number of records dropped because the queue was full
+     */
+    public long getDroppedRecordCount() {
+        return droppedRecords.sum();
+    }
+
+    /**
+     * @return the number of records written by the logging threads because the queue was full
+     */
+    public long getSpilledRecordCount() {
+        return spilledRecords.sum();
+    }
+
+    /**
+     * @return the number of records whose logging thread waited because the queue was full
+     */
+    public long getBlockedRecordCount() {
+        return blockedRecords.sum();
+    }
+
+    /**
+     * @return the average time between the queueing and the writing of the encoded records, in nanoseconds, if the
+     * latencyStatistics attribute is true
+     */
+    public long getAverageRecordLatency() {
+        long measured = measuredRecords;
+        return measured == 0 ? 0 : totalLatencyNanos / measured;
+    }
+
+    /**
+     * @return the longest time between the queueing and the writing of an encoded record, in nanoseconds, if the
+     * latencyStatistics attribute is true
+     */
+    public long getMaxRecordLatency() {
+        return maxLatencyNanos;
+    }
+
     protected File getLogFileName() {
 //        return new File(new File(env.getDomainRoot(),LOGS_DIR), logFileName);
         return new File(absoluteServerLogName);
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+
+/**
+ * Reusable buffer a log record is formatted into, by {@link UniformLogFormatter} and {@link ODLLogFormatter}.
+ *
+ * <p>
+ * Each thread has its own buffer. It either collects the characters of the record, for
+ * {@link java.util.logging.Formatter#format}, or encodes them as UTF-8 as they are appended, for {@link GFFileHandler},
+ * which writes the bytes to the log file without creating a string first. Strings found in most records, like the
+ * markers, the levels and the logger names, are encoded once. The bytes are the same as the ones a UTF-8
+ * {@link java.io.Writer} writes for the formatted string, malformed surrogates included.
+ *
+ * <p>
+ * The buffer also caches the timestamp of the last millisecond formatted by its thread.
+ */
+final class LogRecordBuffer {
+
+    static final String RFC_3339_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+    /**
+     * Formats the RFC 3339 timestamps like {@link SimpleDateFormat}, when the default locale has the gregorian calendar
+     * and ASCII digits. Otherwise the timestamps are formatted by a {@link SimpleDateFormat}, as they always were.
+     */
+    private static final DateTimeFormatter RFC_3339 = isIsoLocale() ? DateTimeFormatter.ofPattern(RFC_3339_DATE_FORMAT) : null;
+
+    /** Largest buffer kept for the next record of the thread */
+    private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private static final int MAX_CONSTANTS = 4096;
+
+    private static final ConcurrentMap<String, byte[]> CONSTANTS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<LogRecordBuffer> BUFFERS = ThreadLocal.withInitial(LogRecordBuffer::new);
+
+    private final StringBuilder chars = new StringBuilder(256);
+    private byte[] bytes = new byte[256];
+    private int length;
+
+    /** Whether the record is encoded as it is appended, else its chars are collected */
+    private boolean encoding;
+
+    /** High surrogate appended last, in case the next string starts with the low surrogate of the pair */
+    private char highSurrogate;
+
+    private boolean inUse;
+
+    private String timestampPattern;
+    private long timestampMillis;
+    private String timestamp;
+    private SimpleDateFormat dateFormat;
+    private final Date date = new Date();
+
+    private LogRecordBuffer() {
+    }
+
+    /**
+     * Gets the buffer of the current thread, to {@link #release()} once the record is written.
+     *
+     * @param encoding whether to encode the record as UTF-8, else its chars are collected
+     */
+    static LogRecordBuffer acquire(boolean encoding) {
+        LogRecordBuffer buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            // A record logged while formatting another one, by a toString() of a parameter
+            buffer = new LogRecordBuffer();
+        }
+        buffer.inUse = true;
+        buffer.encoding = encoding;
+        buffer.clear();
+        return buffer;
+    }
+
+    void release() {
+        if (bytes.length > MAX_RETAINED_SIZE) {
+            bytes = new byte[256];
+        }
+        if (chars.capacity() > MAX_RETAINED_SIZE) {
+            chars.setLength(0);
+            chars.trimToSize();
+        }
+        inUse = false;
+    }
+
+    /**
+     * Discards the record appended so far.
+     */
+    void clear() {
+        chars.setLength(0);
+        length = 0;
+        highSurrogate = 0;
+    }
+
+    /**
+     * Appends a string found in many records, which is encoded once. Values that vary from record to record must be
+     * appended with {@link #append(String)}, they would only fill the cache.
+     */
+    void appendConstant(String constant) {
+        if (!encoding) {
+            chars.append(constant);
+            return;
+        }
+        byte[] encoded = CONSTANTS.get(constant);
+        if (encoded == null) {
+            if (CONSTANTS.size() >= MAX_CONSTANTS) {
+                append(constant);
+                return;
+            }
+            encoded = constant.getBytes(UTF_8);
+            CONSTANTS.putIfAbsent(constant, encoded);
+        }
+        if (highSurrogate != 0 || encoded.length == 0) {
+            // Either nothing to append, or the string completes a surrogate pair
+            append(constant);
+            return;
+        }
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+    }
+
+    void append(String string) {
+        if (!encoding) {
+            chars.append(string);
+            return;
+        }
+        encode(string);
+    }
+
+    void append(char c) {
+        if (encoding && c < 0x80 && highSurrogate == 0) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) c;
+        } else if (encoding) {
+            encode(String.valueOf(c));
+        } else {
+            chars.append(c);
+        }
+    }
+
+    void append(long value) {
+        if (!encoding) {
+            chars.append(value);
+            return;
+        }
+        if (value == Long.MIN_VALUE || highSurrogate != 0) {
+            encode(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            bytes[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = digit;
+        }
+    }
+
+    /**
+     * Appends the fields of the delegate of a formatter.
+     */
+    void append(FormatterDelegate delegate, Level level) {
+        if (!encoding) {
+            delegate.format(chars, level);
+            return;
+        }
+        chars.setLength(0);
+        delegate.format(chars, level);
+        encode(chars);
+    }
+
+    /**
+     * @return the timestamp of the record, the same as the one of a {@link SimpleDateFormat} with the pattern
+     */
+    String getTimestamp(long millis, String pattern) {
+        if (timestamp != null && millis == timestampMillis && pattern.equals(timestampPattern)) {
+            return timestamp;
+        }
+        if (RFC_3339 != null && RFC_3339_DATE_FORMAT.equals(pattern)) {
+            timestamp = RFC_3339.format(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()));
+        } else {
+            if (dateFormat == null || !pattern.equals(timestampPattern)) {
+                dateFormat = new SimpleDateFormat(pattern);
+            }
+            dateFormat.setTimeZone(TimeZone.getDefault());
+            date.setTime(millis);
+            timestamp = dateFormat.format(date);
+        }
+        timestampPattern = pattern;
+        timestampMillis = millis;
+        return timestamp;
+    }
+
+    /**
+     * @return the record, if the chars were collected
+     */
+    @Override
+    public String toString() {
+        return chars.toString();
+    }
+
+    /**
+     * Writes the encoded record.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        completeEncoding();
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * @return the size of the encoded record
+     */
+    int size() {
+        completeEncoding();
+        return length;
+    }
+
+    /**
+     * Copies the encoded record.
+     *
+     * @param destination the array to copy the record to, if it is large enough
+     * @return the array holding the record, from its start
+     */
+    byte[] getBytes(byte[] destination) {
+        completeEncoding();
+        byte[] copy = destination.length >= length ? destination : new byte[length];
+        System.arraycopy(bytes, 0, copy, 0, length);
+        return copy;
+    }
+
+    private void completeEncoding() {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            ensureCapacity(1);
+            bytes[length++] = '?';
+        }
+    }
+
+    /**
+     * Encodes the chars as UTF-8, like the JDK encoder: a malformed surrogate is replaced by '?'.
+     */
+    private void encode(CharSequence string) {
+        int count = string.length();
+        ensureCapacity(3 * count + 1);
+        for (int i = 0; i < count; i++) {
+            char c = string.charAt(i);
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                    continue;
+                }
+                bytes[length++] = '?';
+            }
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xE0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (length + count > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+        }
+    }
+
+    private static boolean isIsoLocale() {
+        return "gregory".equals(Calendar.getInstance().getCalendarType())
+            && DecimalFormatSymbols.getInstance().getZeroDigit() == '0';
+    }
+}
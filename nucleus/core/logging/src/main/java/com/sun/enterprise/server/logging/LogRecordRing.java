@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.LogRecord;
+
+/**
+ * Bounded ring of the records waiting to be written by the pump of {@link GFFileHandler}.
+ *
+ * <p>
+ * The logging threads claim a slot with a compare and set, put the encoded record in it and publish it; the slots are
+ * taken in order by a single consumer, in batches, and released once written. Each slot keeps its byte array for the
+ * next records, unless a large record made it grow. A slot holds a {@link LogRecord} instead when the record is written
+ * by the {@link java.util.logging.StreamHandler}.
+ */
+final class LogRecordRing {
+
+    /** Largest array a slot keeps for the next records */
+    private static final int MAX_RETAINED_SIZE = 16 * 1024;
+
+    private final Slot[] slots;
+    private final int mask;
+
+    /** Position of the next slot to claim */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Position of the next slot to take, only used by the consumer */
+    private long head;
+
+    /** The consumer, while it waits for records */
+    private volatile Thread waitingConsumer;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    LogRecordRing(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i);
+        }
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Claims the next free slot, to {@link #publish} once filled.
+     *
+     * @return the position of the slot, or -1 if the ring is full
+     */
+    long claim() {
+        long position = tail.get();
+        while (true) {
+            long available = slots[(int) position & mask].sequence - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return -1;
+            } else {
+                // Claimed by another thread in the meantime
+                position = tail.get();
+            }
+        }
+    }
+
+    Slot get(long position) {
+        return slots[(int) position & mask];
+    }
+
+    /**
+     * Makes the filled slot available to the consumer.
+     */
+    void publish(long position) {
+        slots[(int) position & mask].sequence = position + 1;
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Takes the published slots following the last ones taken, waiting for one if there is none.
+     *
+     * @return the number of slots taken, 0 once the ring is closed and empty, or if the wait is interrupted
+     */
+    int await(Slot[] batch) {
+        int count = poll(batch);
+        if (count == 0 && !closed) {
+            waitingConsumer = Thread.currentThread();
+            count = poll(batch);
+            if (count == 0 && !closed) {
+                LockSupport.park(this);
+                count = poll(batch);
+            }
+            waitingConsumer = null;
+        }
+        return count;
+    }
+
+    /**
+     * Takes the published slots following the last ones taken, to {@link #release} once written.
+     *
+     * @return the number of slots taken
+     */
+    int poll(Slot[] batch) {
+        int count = 0;
+        while (count < batch.length) {
+            long position = head + count;
+            Slot slot = slots[(int) position & mask];
+            if (slot.sequence != position + 1) {
+                break;
+            }
+            batch[count++] = slot;
+        }
+        return count;
+    }
+
+    /**
+     * Frees the slots taken last, for the next records.
+     */
+    void release(int count) {
+        for (int i = 0; i < count; i++) {
+            long position = head + i;
+            Slot slot = slots[(int) position & mask];
+            slot.clear();
+            slot.sequence = position + slots.length;
+        }
+        head += count;
+    }
+
+    /**
+     * Wakes the consumer up for good, it then takes the records left.
+     */
+    void close() {
+        closed = true;
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Slot of the ring.
+     */
+    static final class Slot {
+
+        private volatile long sequence;
+
+        private byte[] bytes = new byte[256];
+        private int length;
+        private ByteBuffer view = ByteBuffer.wrap(bytes);
+        private LogRecord record;
+        private long publishedNanos;
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        /**
+         * Puts the encoded record in the slot.
+         */
+        void set(LogRecordBuffer buffer) {
+            byte[] encoded = buffer.getBytes(bytes);
+            if (encoded != bytes) {
+                bytes = encoded;
+                view = ByteBuffer.wrap(bytes);
+            }
+            length = buffer.size();
+        }
+
+        /**
+         * Puts a record to write with the StreamHandler in the slot.
+         */
+        void set(LogRecord record) {
+            this.record = record;
+        }
+
+        /**
+         * @return the record to write with the StreamHandler, or null if the slot holds an encoded record
+         */
+        LogRecord getRecord() {
+            return record;
+        }
+
+        /**
+         * @return the encoded record, to write once
+         */
+        ByteBuffer getBytes() {
+            view.clear().limit(length);
+            return view;
+        }
+
+        void setPublishedNanos(long publishedNanos) {
+            this.publishedNanos = publishedNanos;
+        }
+
+        long getPublishedNanos() {
+            return publishedNanos;
+        }
+
+        private void clear() {
+            record = null;
+            length = 0;
+            if (bytes.length > MAX_RETAINED_SIZE) {
+                bytes = new byte[256];
+                view = ByteBuffer.wrap(bytes);
+            }
+        }
+    }
+}
@@ -27,8 +27,8 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.*;
 import java.util.logging.Formatter;
 
@@ -86,7 +86,8 @@ public class ODLLogFormatter extends Formatter implements LogEventBroadcaster {
         ecID = System.getProperty("com.sun.aas.logging.ecID");
     }
 
-    private long recordNumber = 0;
+    // The records may be formatted by several threads at once
+    private final AtomicLong recordNumber = new AtomicLong();
 
     private String recordFieldSeparator;
     private String recordDateFormat;
@@ -101,12 +102,16 @@ public class ODLLogFormatter extends Formatter implements LogEventBroadcaster {
     private static final String FIELD_END_MARKER = "]";
 
     private static final char FIELD_SEPARATOR = ' ';
+    private static final String DEFAULT_FIELD_SEPARATOR = String.valueOf(FIELD_SEPARATOR);
 
-    private static final String RFC_3339_DATE_FORMAT =
-            "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    private static final String RFC_3339_DATE_FORMAT = LogRecordBuffer.RFC_3339_DATE_FORMAT;
 
     private static final String INDENT = "  ";
 
+    private static final String MULTI_LINE_BEGIN_MARKER = FIELD_BEGIN_MARKER + FIELD_BEGIN_MARKER + LINE_SEPARATOR + INDENT;
+    private static final String MULTI_LINE_END_MARKER = FIELD_END_MARKER + FIELD_END_MARKER;
+    private static final String RECORD_END_LINES = LINE_SEPARATOR + LINE_SEPARATOR;
+
     public ODLLogFormatter() {
         super();
         loggerResourceBundleTable = new HashMap<String,ResourceBundle>();
@@ -140,6 +145,13 @@ public class ODLLogFormatter extends Formatter implements LogEventBroadcaster {
         return odlLogFormat(record);
     }
 
+    /**
+     * Formats the record into the buffer, which is left empty if the record cannot be formatted.
+     */
+    void format(LogRecord record, LogRecordBuffer buffer) {
+        odlLogFormat(record, buffer);
+    }
+
 
     /**
      * GlassFish can override to specify their product version
@@ -152,11 +164,21 @@ public class ODLLogFormatter extends Formatter implements LogEventBroadcaster {
     }
 
 
+    private String odlLogFormat(LogRecord record) {
+        LogRecordBuffer buffer = LogRecordBuffer.acquire(false);
+        try {
+            odlLogFormat(record, buffer);
+            return buffer.toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
     /**
      * Note: This method is not synchronized, we are assuming that the
      * synchronization will happen at the Log Handler.publish( ) method.
      */
-    private String odlLogFormat(LogRecord record) {
+    private void odlLogFormat(LogRecord record, LogRecordBuffer buffer) {
 
         try {
 
@@ -165,65 +187,60 @@ public class ODLLogFormatter extends Formatter implements LogEventBroadcaster {
             // creating message from log record using resource bundle and appending parameters
             String message = getLogMessage(record);
             if (message == null || message.isEmpty()) {
-                return "";
+                return;
             }
             boolean multiLine = multiLineMode || isMultiLine(message);
 
-            // Starting formatting message
-            // Adding record begin marker
-            StringBuilder recordBuffer = new StringBuilder();
-
-            // A Dummy Container Date Object is used to format the date
-            Date date = new Date();
+            String fieldSeparator = getRecordFieldSeparator() != null ? getRecordFieldSeparator() : DEFAULT_FIELD_SEPARATOR;
 
-            // Adding timestamp
-            SimpleDateFormat dateFormatter = new SimpleDateFormat(getRecordDateFormat() != null ? getRecordDateFormat() : RFC_3339_DATE_FORMAT);
-            date.setTime(record.getMillis());
-            recordBuffer.append(FIELD_BEGIN_MARKER);
-            String timestamp=dateFormatter.format(date);
+            // Starting formatting message
+            // Adding timestamp, formatted once for all the records of the same millisecond
+            String timestamp = buffer.getTimestamp(record.getMillis(),
+                    getRecordDateFormat() != null ? getRecordDateFormat() : RFC_3339_DATE_FORMAT);
+            buffer.appendConstant(FIELD_BEGIN_MARKER);
             logEvent.setTimestamp(timestamp);
-            recordBuffer.append(timestamp);
-            recordBuffer.append(FIELD_END_MARKER);
-            recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.append(timestamp);
+            buffer.appendConstant(FIELD_END_MARKER);
+            buffer.appendConstant(fieldSeparator);
 
             // Adding organization ID
-            recordBuffer.append(FIELD_BEGIN_MARKER);
+            buffer.appendConstant(FIELD_BEGIN_MARKER);
             logEvent.setComponentId(uniformLogFormatter.getProductId());
-            recordBuffer.append(uniformLogFormatter.getProductId());
-            recordBuffer.append(FIELD_END_MARKER);
-            recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.appendConstant(uniformLogFormatter.getProductId());
+            buffer.appendConstant(FIELD_END_MARKER);
+            buffer.appendConstant(fieldSeparator);
 
             // Adding messageType
             Level logLevel = record.getLevel();
-            recordBuffer.append(FIELD_BEGIN_MARKER);
+            buffer.appendConstant(FIELD_BEGIN_MARKER);
             String odlLevel = logLevel.getName();
             logEvent.setLevel(odlLevel);
-            recordBuffer.append(odlLevel);
-            recordBuffer.append(FIELD_END_MARKER);
-            recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.appendConstant(odlLevel);
+            buffer.appendConstant(FIELD_END_MARKER);
+            buffer.appendConstant(fieldSeparator);
 
             // Adding message ID
-            recordBuffer.append(FIELD_BEGIN_MARKER);
+            buffer.appendConstant(FIELD_BEGIN_MARKER);
             String msgId  = UniformLogFormatter.getMessageId(record);
-            recordBuffer.append((msgId == null) ? "" : msgId);
+            buffer.append((msgId == null) ? "" : msgId);
             logEvent.setMessageId(msgId);
-            recordBuffer.append(FIELD_END_MARKER);
-            recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.appendConstant(FIELD_END_MARKER);
+            buffer.appendConstant(fieldSeparator);
 
             // Adding logger Name / module Name
-            recordBuffer.append(FIELD_BEGIN_MARKER);
+            buffer.appendConstant(FIELD_BEGIN_MARKER);
             String loggerName = record.getLoggerName();
             loggerName = (loggerName == null) ? "" : loggerName;
-            recordBuffer.append(loggerName);
+            buffer.appendConstant(loggerName);
             logEvent.setLogger(loggerName);
-            recordBuffer.append(FIELD_END_MARKER);
-            recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.appendConstant(FIELD_END_MARKER);
+            buffer.appendConstant(fieldSeparator);
 
             // Adding thread ID
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.TID)) {
-                recordBuffer.append(FIELD_BEGIN_MARKER);
-                recordBuffer.append("tid: _ThreadID=");
-                recordBuffer.append(record.getThreadID());
+                buffer.appendConstant(FIELD_BEGIN_MARKER);
+                buffer.appendConstant("tid: _ThreadID=");
+                buffer.append(record.getThreadID());
                 logEvent.setThreadId(record.getThreadID());
                 String threadName;
                 if (record instanceof GFLogRecord) {
@@ -231,66 +248,66 @@ public class ODLLogFormatter extends Formatter implements LogEventBroadcaster {
                 } else {
                     threadName = Thread.currentThread().getName();
                 }
-                recordBuffer.append(" _ThreadName=");
+                buffer.appendConstant(" _ThreadName=");
                 logEvent.setThreadName(threadName);
-                recordBuffer.append(threadName);
-                recordBuffer.append(FIELD_END_MARKER);
-                recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+                buffer.append(threadName);
+                buffer.appendConstant(FIELD_END_MARKER);
+                buffer.appendConstant(fieldSeparator);
             }
 
             // Adding user ID
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.USERID) &&
                     userID != null && !("").equals(userID.trim()))
             {
-                recordBuffer.append(FIELD_BEGIN_MARKER);
-                recordBuffer.append("userId: ");
+                buffer.appendConstant(FIELD_BEGIN_MARKER);
+                buffer.appendConstant("userId: ");
                 logEvent.setUser(userID);
-                recordBuffer.append(userID);
-                recordBuffer.append(FIELD_END_MARKER);
-                recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+                buffer.append(userID);
+                buffer.appendConstant(FIELD_END_MARKER);
+                buffer.appendConstant(fieldSeparator);
             }
 
             // Adding ec ID
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.ECID) &&
                     ecID != null && !("").equals(ecID.trim()))
             {
-                recordBuffer.append(FIELD_BEGIN_MARKER);
-                recordBuffer.append("ecid: ");
+                buffer.appendConstant(FIELD_BEGIN_MARKER);
+                buffer.appendConstant("ecid: ");
                 logEvent.setECId(ecID);
-                recordBuffer.append(ecID);
-                recordBuffer.append(FIELD_END_MARKER);
-                recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+                buffer.append(ecID);
+                buffer.appendConstant(FIELD_END_MARKER);
+                buffer.appendConstant(fieldSeparator);
             }
 
             // Include the raw time stamp
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.TIME_MILLIS)) {
-                recordBuffer.append(FIELD_BEGIN_MARKER);
-                recordBuffer.append("timeMillis: ");
+                buffer.appendConstant(FIELD_BEGIN_MARKER);
+                buffer.appendConstant("timeMillis: ");
                 logEvent.setTimeMillis(record.getMillis());
-                recordBuffer.append(record.getMillis());
-                recordBuffer.append(FIELD_END_MARKER);
-                recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+                buffer.append(record.getMillis());
+                buffer.appendConstant(FIELD_END_MARKER);
+                buffer.appendConstant(fieldSeparator);
             }
 
             // Include the level value
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.LEVEL_VALUE)) {
-                recordBuffer.append(FIELD_BEGIN_MARKER);
-                recordBuffer.append("levelValue: ");
+                buffer.appendConstant(FIELD_BEGIN_MARKER);
+                buffer.appendConstant("levelValue: ");
                 logEvent.setLevelValue(logLevel.intValue());
-                recordBuffer.append(logLevel.intValue());
-                recordBuffer.append(FIELD_END_MARKER);
-                recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+                buffer.append(logLevel.intValue());
+                buffer.appendConstant(FIELD_END_MARKER);
+                buffer.appendConstant(fieldSeparator);
             }
 
             // Adding extra Attributes - record number
             if (RECORD_NUMBER_IN_KEY_VALUE) {
-                recordBuffer.append(FIELD_BEGIN_MARKER);
-                recordNumber++;
-                recordBuffer.append("RECORDNUMBER: ");
-                logEvent.getSupplementalAttributes().put("RECORDNUMBER", recordNumber);
-                recordBuffer.append(recordNumber);
-                recordBuffer.append(FIELD_END_MARKER);
-                recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+                buffer.appendConstant(FIELD_BEGIN_MARKER);
+                long number = recordNumber.incrementAndGet();
+                buffer.appendConstant("RECORDNUMBER: ");
+                logEvent.getSupplementalAttributes().put("RECORDNUMBER", number);
+                buffer.append(number);
+                buffer.appendConstant(FIELD_END_MARKER);
+                buffer.appendConstant(fieldSeparator);
             }
 
             // Adding extra Attributes - class name and method name for FINE and higher level messages
@@ -299,48 +316,43 @@ public class ODLLogFormatter extends Formatter implements LogEventBroadcaster {
                     (level.intValue() <= Level.FINE.intValue())) {
                 String sourceClassName = record.getSourceClassName();
                 if (sourceClassName != null && !sourceClassName.isEmpty()) {
-                    recordBuffer.append(FIELD_BEGIN_MARKER);
-                    recordBuffer.append("CLASSNAME: ");
+                    buffer.appendConstant(FIELD_BEGIN_MARKER);
+                    buffer.appendConstant("CLASSNAME: ");
                     logEvent.getSupplementalAttributes().put("CLASSNAME", sourceClassName);
-                    recordBuffer.append(sourceClassName);
-                    recordBuffer.append(FIELD_END_MARKER);
-                    recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+                    buffer.append(sourceClassName);
+                    buffer.appendConstant(FIELD_END_MARKER);
+                    buffer.appendConstant(fieldSeparator);
                 }
                 String sourceMethodName = record.getSourceMethodName();
                 if (sourceMethodName != null && !sourceMethodName.isEmpty()) {
-                    recordBuffer.append(FIELD_BEGIN_MARKER);
-                    recordBuffer.append("METHODNAME: ");
+                    buffer.appendConstant(FIELD_BEGIN_MARKER);
+                    buffer.appendConstant("METHODNAME: ");
                     logEvent.getSupplementalAttributes().put("METHODNAME", sourceMethodName);
-                    recordBuffer.append(sourceMethodName);
-                    recordBuffer.append(FIELD_END_MARKER);
-                    recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+                    buffer.append(sourceMethodName);
+                    buffer.appendConstant(FIELD_END_MARKER);
+                    buffer.appendConstant(fieldSeparator);
                 }
             }
 
             if (_delegate != null) {
-                _delegate.format(recordBuffer, level);
+                buffer.append(_delegate, level);
             }
 
             if (multiLine) {
-                recordBuffer.append(FIELD_BEGIN_MARKER).append(FIELD_BEGIN_MARKER);
-                recordBuffer.append(LINE_SEPARATOR);
-                recordBuffer.append(INDENT);
+                buffer.appendConstant(MULTI_LINE_BEGIN_MARKER);
             }
-            recordBuffer.append(message);
+            buffer.append(message);
             logEvent.setMessage(message);
             if (multiLine) {
-                recordBuffer.append(FIELD_END_MARKER).append(FIELD_END_MARKER);
+                buffer.appendConstant(MULTI_LINE_END_MARKER);
             }
-            recordBuffer.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
+            buffer.appendConstant(RECORD_END_LINES);
             informLogEventListeners(logEvent);
-            return recordBuffer.toString();
         } catch (Exception ex) {
+            buffer.clear();
             new ErrorManager().error(
                     "Error in formatting Logrecord", ex,
                     ErrorManager.FORMAT_FAILURE);
-            // We've already notified the exception, the following
-            // return is to keep javac happy
-            return "";
         }
     }
 
@@ -20,12 +20,11 @@ package com.sun.enterprise.server.logging;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
 import java.util.Collection;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.ErrorManager;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -73,8 +72,6 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
     // and can be searched using the LoggerName as the key
     private HashMap loggerResourceBundleTable;
     private LogManager logManager;
-    // A Dummy Container Date Object is used to format the date
-    private Date date = new Date();
 
     private static boolean LOG_SOURCE_IN_KEY_VALUE = false;
 
@@ -98,7 +95,8 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
         }
     }
 
-    private long recordNumber = 0;
+    // The records may be formatted by several threads at once
+    private final AtomicLong recordNumber = new AtomicLong();
 
     private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
@@ -109,12 +107,25 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
 
     private static final String RECORD_BEGIN_MARKER = "[#|";
     private static final String RECORD_END_MARKER = "|#]" + LINE_SEPARATOR;
+    private static final String RECORD_END_LINES = LINE_SEPARATOR + LINE_SEPARATOR;
     private static final char FIELD_SEPARATOR = '|';
+    private static final String DEFAULT_FIELD_SEPARATOR = String.valueOf(FIELD_SEPARATOR);
     public static final char NVPAIR_SEPARATOR = ';';
     public static final char NV_SEPARATOR = '=';
 
-    private static final String RFC_3339_DATE_FORMAT =
-            "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    // The keys of the optional fields, with their separator
+    private static final String THREAD_ID_KEY = "_ThreadID" + NV_SEPARATOR;
+    private static final String THREAD_NAME_KEY = "_ThreadName" + NV_SEPARATOR;
+    private static final String USER_ID_KEY = "_UserId" + NV_SEPARATOR;
+    private static final String ECID_KEY = "_ECId" + NV_SEPARATOR;
+    private static final String TIME_MILLIS_KEY = "_TimeMillis" + NV_SEPARATOR;
+    private static final String LEVEL_VALUE_KEY = "_LevelValue" + NV_SEPARATOR;
+    private static final String MESSAGE_ID_KEY = "_MessageID" + NV_SEPARATOR;
+    private static final String CLASS_NAME_KEY = CLASS_NAME + NV_SEPARATOR;
+    private static final String METHOD_NAME_KEY = METHOD_NAME + NV_SEPARATOR;
+    private static final String RECORD_NUMBER_KEY = RECORD_NUMBER + NV_SEPARATOR;
+
+    private static final String RFC_3339_DATE_FORMAT = LogRecordBuffer.RFC_3339_DATE_FORMAT;
 
     private LogEventBroadcaster logEventBroadcasterDelegate;
 
@@ -159,6 +170,13 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
         return uniformLogFormat(record);
     }
 
+    /**
+     * Formats the record into the buffer, which is left empty if the record cannot be formatted.
+     */
+    void format(LogRecord record, LogRecordBuffer buffer) {
+        uniformLogFormat(record, buffer);
+    }
+
 
     /**
      * GlassFish can override to specify their product version
@@ -238,46 +256,57 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
         }
     }
 
+    private String uniformLogFormat(LogRecord record) {
+        LogRecordBuffer buffer = LogRecordBuffer.acquire(false);
+        try {
+            uniformLogFormat(record, buffer);
+            return buffer.toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
     /**
      * Note: This method is not synchronized, we are assuming that the
      * synchronization will happen at the Log Handler.publish( ) method.
      */
-    private String uniformLogFormat(LogRecord record) {
+    private void uniformLogFormat(LogRecord record, LogRecordBuffer buffer) {
 
         try {
 
             LogEventImpl logEvent = new LogEventImpl();
 
-            SimpleDateFormat dateFormatter = new SimpleDateFormat(getRecordDateFormat() != null ? getRecordDateFormat() : RFC_3339_DATE_FORMAT);
+            String fieldSeparator = getRecordFieldSeparator() != null ? getRecordFieldSeparator() : DEFAULT_FIELD_SEPARATOR;
 
-            StringBuilder recordBuffer = new StringBuilder(getRecordBeginMarker() != null ? getRecordBeginMarker() : RECORD_BEGIN_MARKER);
-            // The following operations are to format the date and time in a
-            // human readable  format.
-            // _REVISIT_: Use HiResolution timer to analyze the number of
-            // Microseconds spent on formatting date object
-            date.setTime(record.getMillis());
-            String timestamp = dateFormatter.format(date);
+            buffer.appendConstant(getRecordBeginMarker() != null ? getRecordBeginMarker() : RECORD_BEGIN_MARKER);
+            // The timestamp is formatted once for all the records of the same millisecond
+            String timestamp = buffer.getTimestamp(record.getMillis(),
+                    getRecordDateFormat() != null ? getRecordDateFormat() : RFC_3339_DATE_FORMAT);
             logEvent.setTimestamp(timestamp);
-            recordBuffer.append(timestamp);
-            recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.append(timestamp);
+            buffer.appendConstant(fieldSeparator);
 
             logEvent.setLevel(record.getLevel().getName());
-            recordBuffer.append(record.getLevel()).append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.appendConstant(record.getLevel().getName());
+            buffer.appendConstant(fieldSeparator);
 
             String compId = getProductId();
             logEvent.setComponentId(compId);
-            recordBuffer.append(compId).append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.appendConstant(compId);
+            buffer.appendConstant(fieldSeparator);
 
             String loggerName = record.getLoggerName();
             loggerName = (loggerName == null) ? "" : loggerName;
             logEvent.setLogger(loggerName);
-            recordBuffer.append(loggerName).append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.appendConstant(loggerName);
+            buffer.appendConstant(fieldSeparator);
 
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.TID)) {
-                recordBuffer.append("_ThreadID").append(NV_SEPARATOR);
+                buffer.appendConstant(THREAD_ID_KEY);
                 logEvent.setThreadId(record.getThreadID());
-                recordBuffer.append(record.getThreadID()).append(NVPAIR_SEPARATOR);
-                recordBuffer.append("_ThreadName").append(NV_SEPARATOR);
+                buffer.append(record.getThreadID());
+                buffer.append(NVPAIR_SEPARATOR);
+                buffer.appendConstant(THREAD_NAME_KEY);
                 String threadName;
                 if (record instanceof GFLogRecord) {
                   threadName = ((GFLogRecord)record).getThreadName();
@@ -285,49 +314,52 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
                     threadName = Thread.currentThread().getName();
                 }
                 logEvent.setThreadName(threadName);
-                recordBuffer.append(threadName);
-                recordBuffer.append(NVPAIR_SEPARATOR);
+                buffer.append(threadName);
+                buffer.append(NVPAIR_SEPARATOR);
             }
 
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.USERID)) {
                 String user = logEvent.getUser();
                 if (user != null && !user.isEmpty()) {
-                    recordBuffer.append("_UserId").append(NV_SEPARATOR);
-                    recordBuffer.append(user);
-                    recordBuffer.append(NVPAIR_SEPARATOR);
+                    buffer.appendConstant(USER_ID_KEY);
+                    buffer.append(user);
+                    buffer.append(NVPAIR_SEPARATOR);
                 }
             }
 
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.ECID)) {
                 String ecid = logEvent.getECId();
                 if (ecid != null && !ecid.isEmpty()) {
-                    recordBuffer.append("_ECId").append(NV_SEPARATOR);
-                    recordBuffer.append(ecid);
-                    recordBuffer.append(NVPAIR_SEPARATOR);
+                    buffer.appendConstant(ECID_KEY);
+                    buffer.append(ecid);
+                    buffer.append(NVPAIR_SEPARATOR);
                 }
             }
 
             // Include the raw long time stamp value in the log
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.TIME_MILLIS)) {
-                recordBuffer.append("_TimeMillis").append(NV_SEPARATOR);
+                buffer.appendConstant(TIME_MILLIS_KEY);
                 logEvent.setTimeMillis(record.getMillis());
-                recordBuffer.append(record.getMillis()).append(NVPAIR_SEPARATOR);
+                buffer.append(record.getMillis());
+                buffer.append(NVPAIR_SEPARATOR);
             }
 
             // Include the integer level value in the log
             Level level = record.getLevel();
             if (!excludeFieldsSupport.isSet(ExcludeFieldsSupport.SupplementalAttribute.LEVEL_VALUE)) {
-                recordBuffer.append("_LevelValue").append(NV_SEPARATOR);
+                buffer.appendConstant(LEVEL_VALUE_KEY);
                 int levelValue = level.intValue();
                 logEvent.setLevelValue(levelValue);
-                recordBuffer.append(levelValue).append(NVPAIR_SEPARATOR);
+                buffer.append(levelValue);
+                buffer.append(NVPAIR_SEPARATOR);
             }
 
             String msgId = getMessageId(record);
             if (msgId != null && !msgId.isEmpty()) {
                 logEvent.setMessageId(msgId);
-                recordBuffer.append("_MessageID").append(NV_SEPARATOR);
-                recordBuffer.append(msgId).append(NVPAIR_SEPARATOR);
+                buffer.appendConstant(MESSAGE_ID_KEY);
+                buffer.append(msgId);
+                buffer.append(NVPAIR_SEPARATOR);
             }
 
             // See 6316018. ClassName and MethodName information should be
@@ -337,41 +369,41 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
                 String sourceClassName = record.getSourceClassName();
                 // sourceClassName = (sourceClassName == null) ? "" : sourceClassName;
                 if (sourceClassName != null && !sourceClassName.isEmpty()) {
-                    recordBuffer.append(CLASS_NAME).append(NV_SEPARATOR);
+                    buffer.appendConstant(CLASS_NAME_KEY);
                     logEvent.getSupplementalAttributes().put(CLASS_NAME, sourceClassName);
-                    recordBuffer.append(sourceClassName);
-                    recordBuffer.append(NVPAIR_SEPARATOR);
+                    buffer.append(sourceClassName);
+                    buffer.append(NVPAIR_SEPARATOR);
                 }
 
                 String sourceMethodName = record.getSourceMethodName();
                 // sourceMethodName = (sourceMethodName == null) ? "" : sourceMethodName;
                 if (sourceMethodName != null && !sourceMethodName.isEmpty()) {
-                    recordBuffer.append(METHOD_NAME).append(NV_SEPARATOR);
+                    buffer.appendConstant(METHOD_NAME_KEY);
                     logEvent.getSupplementalAttributes().put(METHOD_NAME, sourceMethodName);
-                    recordBuffer.append(sourceMethodName);
-                    recordBuffer.append(NVPAIR_SEPARATOR);
+                    buffer.append(sourceMethodName);
+                    buffer.append(NVPAIR_SEPARATOR);
                 }
             }
 
             if (RECORD_NUMBER_IN_KEY_VALUE) {
-                recordNumber++;
-                recordBuffer.append(RECORD_NUMBER).append(NV_SEPARATOR);
-                logEvent.getSupplementalAttributes().put(RECORD_NUMBER, recordNumber);
-                recordBuffer.append(recordNumber).append(NVPAIR_SEPARATOR);
+                long number = recordNumber.incrementAndGet();
+                buffer.appendConstant(RECORD_NUMBER_KEY);
+                logEvent.getSupplementalAttributes().put(RECORD_NUMBER, number);
+                buffer.append(number);
+                buffer.append(NVPAIR_SEPARATOR);
             }
 
             // Not needed as per the current logging message format. Fixing bug 16849.
             // getNameValuePairs(recordBuffer, record);
 
             if (_delegate != null) {
-                _delegate.format(recordBuffer, level);
+                buffer.append(_delegate, level);
             }
 
-            recordBuffer.append(getRecordFieldSeparator() != null ? getRecordFieldSeparator() : FIELD_SEPARATOR);
+            buffer.appendConstant(fieldSeparator);
 
             if (multiLineMode) {
-                recordBuffer.append(LINE_SEPARATOR);
-                recordBuffer.append(INDENT);
+                buffer.appendConstant(LINE_SEPARATOR + INDENT);
             }
             String logMessage = record.getMessage();
             // in some case no msg is passed to the logger API. We assume that either:
@@ -392,7 +424,7 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
                     logMessage = "";
                 }
                 logEvent.setMessage(logMessage);
-                recordBuffer.append(logMessage);
+                buffer.append(logMessage);
             } else {
                 if (logMessage.indexOf("{0") >= 0 && logMessage.contains("}") && record.getParameters() != null) {
                     // If we find {0} or {1} etc., in the message, then it's most
@@ -413,34 +445,29 @@ public class UniformLogFormatter extends Formatter implements LogEventBroadcaste
                     }
                 }
 
-                StringBuffer logMessageBuffer = new StringBuffer();
-                logMessageBuffer.append(logMessage);
-
                 Throwable throwable = getThrowable(record);
                 if (throwable != null) {
-                    logMessageBuffer.append(LINE_SEPARATOR);
                     StringWriter sw = new StringWriter();
+                    sw.append(logMessage);
+                    sw.append(LINE_SEPARATOR);
                     PrintWriter pw = new PrintWriter(sw);
                     throwable.printStackTrace(pw);
                     pw.close();
-                    logMessageBuffer.append(sw.toString());
+                    logMessage = sw.toString();
                     sw.close();
                 }
-                logMessage = logMessageBuffer.toString();
                 logEvent.setMessage(logMessage);
-                recordBuffer.append(logMessage);
+                buffer.append(logMessage);
             }
-            recordBuffer.append(getRecordEndMarker() != null ? getRecordEndMarker() : RECORD_END_MARKER).append(LINE_SEPARATOR).append(LINE_SEPARATOR);
+            buffer.appendConstant(getRecordEndMarker() != null ? getRecordEndMarker() : RECORD_END_MARKER);
+            buffer.appendConstant(RECORD_END_LINES);
             informLogEventListeners(logEvent);
-            return recordBuffer.toString();
 
         } catch (Exception ex) {
+            buffer.clear();
             new ErrorManager().error(
                     "Error in formatting Logrecord", ex,
                     ErrorManager.FORMAT_FAILURE);
-            // We've already notified the exception, the following
-            // return is to keep javac happy
-            return "";
         }
     }
 
@@ -124,7 +124,11 @@ public class SetLogAttributes implements AdminCommand {
             "com.sun.enterprise.server.logging.GFFileHandler.rotationOnDateChange",
             "com.sun.enterprise.server.logging.GFFileHandler.logFormatDateFormat",
             "com.sun.enterprise.server.logging.GFFileHandler.excludeFields",
-            "com.sun.enterprise.server.logging.GFFileHandler.multiLineMode"};
+            "com.sun.enterprise.server.logging.GFFileHandler.multiLineMode",
+            "com.sun.enterprise.server.logging.GFFileHandler.queueCapacity",
+            "com.sun.enterprise.server.logging.GFFileHandler.overflowPolicy",
+            "com.sun.enterprise.server.logging.GFFileHandler.overflowDropLevel",
+            "com.sun.enterprise.server.logging.GFFileHandler.latencyStatistics"};
 
     final private static LocalStringManagerImpl localStrings = new LocalStringManagerImpl(SetLogLevel.class);
 
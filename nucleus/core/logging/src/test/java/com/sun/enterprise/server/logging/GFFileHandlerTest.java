@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging;
+
+import com.sun.enterprise.server.logging.GFFileHandler.OverflowPolicy;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The queue of the records is full after two records, as long as the pump is not started.
+ */
+public class GFFileHandlerTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void dropsRecordsBelowTheDropLevel() throws Exception {
+        File log = new File(tempDir, "drop.log");
+        GFFileHandler handler = createHandler(log, OverflowPolicy.DROP, new UniformLogFormatter());
+        handler.publish(record(Level.INFO, "first"));
+        handler.publish(record(Level.INFO, "second"));
+        handler.publish(record(Level.INFO, "dropped"));
+        assertEquals(1, handler.getDroppedRecordCount());
+
+        // at the drop level, the record waits for a free slot
+        Thread severe = publishInThread(handler, record(Level.SEVERE, "severe"));
+        awaitCondition(() -> handler.getBlockedRecordCount() == 1);
+        assertTrue(severe.isAlive());
+        handler.initializePump();
+        severe.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(severe.isAlive());
+
+        handler.preDestroy();
+        handler.close();
+        String content = read(log);
+        assertInOrder(content, "first", "second", "severe");
+        assertFalse(content.contains("dropped"));
+        assertEquals(1, handler.getDroppedRecordCount());
+        assertEquals(0, handler.getSpilledRecordCount());
+    }
+
+    @Test
+    public void spillsRecordsBeforeTheQueuedOnes() throws Exception {
+        File log = new File(tempDir, "spill.log");
+        GFFileHandler handler = createHandler(log, OverflowPolicy.SPILL, new UniformLogFormatter());
+        handler.publish(record(Level.INFO, "first"));
+        handler.publish(record(Level.INFO, "second"));
+        handler.publish(record(Level.INFO, "spilled"));
+
+        assertEquals(1, handler.getSpilledRecordCount());
+        String content = read(log);
+        assertTrue(content.contains("spilled"));
+        assertFalse(content.contains("first"));
+
+        handler.preDestroy();
+        handler.close();
+        assertInOrder(read(log), "spilled", "first", "second");
+        assertEquals(0, handler.getDroppedRecordCount());
+        assertEquals(0, handler.getBlockedRecordCount());
+    }
+
+    @Test
+    public void blocksUntilThePumpFreesASlot() throws Exception {
+        File log = new File(tempDir, "block.log");
+        GFFileHandler handler = createHandler(log, OverflowPolicy.BLOCK, new UniformLogFormatter());
+        handler.publish(record(Level.INFO, "first"));
+        handler.publish(record(Level.INFO, "second"));
+        Thread third = publishInThread(handler, record(Level.FINE, "third"));
+        awaitCondition(() -> handler.getBlockedRecordCount() == 1);
+        assertTrue(third.isAlive());
+
+        handler.initializePump();
+        third.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(third.isAlive());
+
+        handler.preDestroy();
+        handler.close();
+        assertInOrder(read(log), "first", "second", "third");
+        assertEquals(0, handler.getDroppedRecordCount());
+    }
+
+    @Test
+    public void writesRecordsLeftInTheQueueOnPreDestroy() throws Exception {
+        File log = new File(tempDir, "drain.log");
+        // written by the StreamHandler, not encoded by the logging thread
+        GFFileHandler handler = createHandler(log, OverflowPolicy.DROP, new SimpleFormatter());
+        handler.publish(record(Level.INFO, "first"));
+        handler.publish(record(Level.INFO, "second"));
+        handler.publish(record(Level.INFO, "dropped"));
+        assertFalse(read(log).contains("first"));
+
+        handler.preDestroy();
+        handler.close();
+        String content = read(log);
+        assertInOrder(content, "first", "second");
+        assertFalse(content.contains("dropped"));
+        assertEquals(1, handler.getDroppedRecordCount());
+    }
+
+    private static GFFileHandler createHandler(File log, OverflowPolicy policy, Formatter formatter) throws Exception {
+        GFFileHandler handler = new GFFileHandler();
+        handler.setEncoding("UTF-8");
+        handler.configureQueue(2, policy, Level.WARNING, true);
+        handler.changeFileName(log);
+        handler.setFormatter(formatter);
+        handler.setLevel(Level.ALL);
+        return handler;
+    }
+
+    private static LogRecord record(Level level, String message) {
+        LogRecord record = new LogRecord(level, message);
+        record.setLoggerName("jakarta.enterprise.test.logging.overflow");
+        return record;
+    }
+
+    private static Thread publishInThread(GFFileHandler handler, LogRecord record) {
+        Thread thread = new Thread(() -> handler.publish(record));
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10L);
+        }
+    }
+
+    private static String read(File log) throws Exception {
+        return new String(Files.readAllBytes(log.toPath()), UTF_8);
+    }
+
+    private static void assertInOrder(String content, String... messages) {
+        int position = -1;
+        for (String message : messages) {
+            int next = content.indexOf(message, position + 1);
+            assertTrue(next > position, message + " missing or out of order in:\n" + content);
+            position = next;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.TimeZone;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class LogRecordBufferTest {
+
+    private static final String[] MESSAGES = {
+        "plain", "café €", "emoji 😀", "lone \ud800 high", "lone \udc00 low", "multi\nline", ""
+    };
+
+    private static final ResourceBundle BUNDLE = new ListResourceBundle() {
+        @Override
+        protected Object[][] getContents() {
+            return new Object[][] {{"NCLS-TEST-00001", "Formatted {0} with id"}};
+        }
+    };
+
+    private static TimeZone timeZone;
+    private static Locale locale;
+
+    /**
+     * The expected output was written by the formatters of the release before the buffers, for the
+     * {@link #goldenRecords()} in this time zone and locale.
+     */
+    @BeforeAll
+    public static void setDefaults() {
+        timeZone = TimeZone.getDefault();
+        locale = Locale.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        Locale.setDefault(Locale.US);
+    }
+
+    @AfterAll
+    public static void restoreDefaults() {
+        TimeZone.setDefault(timeZone);
+        Locale.setDefault(locale);
+    }
+
+    @Test
+    public void uniformLogFormatterWritesSameBytes() throws Exception {
+        UniformLogFormatter formatter = new UniformLogFormatter();
+        assertSameBytes(formatter);
+
+        formatter.setMultiLineMode(true);
+        formatter.setRecordFieldSeparator("¦");
+        formatter.setRecordDateFormat("dd MMM yyyy HH:mm:ss,SSS zzz");
+        formatter.setDelegate((buffer, level) -> buffer.append("_Extra=\ud83d;"));
+        assertSameBytes(formatter);
+    }
+
+    @Test
+    public void odlLogFormatterWritesSameBytes() throws Exception {
+        ODLLogFormatter formatter = new ODLLogFormatter();
+        assertSameBytes(formatter);
+
+        formatter.setMultiLineMode(true);
+        formatter.setDelegate((buffer, level) -> buffer.append("_Extra=\ud83d;"));
+        assertSameBytes(formatter);
+    }
+
+    @Test
+    public void uniformLogFormatterWritesFormerOutput() throws Exception {
+        UniformLogFormatter formatter = new UniformLogFormatter();
+        assertGolden("uniform.log", formatter);
+
+        formatter.setMultiLineMode(true);
+        formatter.setRecordFieldSeparator("¦");
+        formatter.setRecordDateFormat("dd MMM yyyy HH:mm:ss,SSS zzz");
+        formatter.setDelegate((buffer, level) -> buffer.append("_Extra=\ud83d;"));
+        assertGolden("uniform-custom.log", formatter);
+    }
+
+    @Test
+    public void odlLogFormatterWritesFormerOutput() throws Exception {
+        ODLLogFormatter formatter = new ODLLogFormatter();
+        assertGolden("odl.log", formatter);
+
+        formatter.setMultiLineMode(true);
+        formatter.setRecordFieldSeparator(" ");
+        formatter.setRecordDateFormat("dd MMM yyyy HH:mm:ss,SSS zzz");
+        formatter.setDelegate((buffer, level) -> buffer.append("_Extra=\ud83d;"));
+        assertGolden("odl-custom.log", formatter);
+    }
+
+    @Test
+    public void formatsTimestampLikeSimpleDateFormat() {
+        LogRecordBuffer buffer = LogRecordBuffer.acquire(false);
+        try {
+            for (long millis : new long[] {0L, 1666195200123L, 1666195200123L, 1666195200999L, -86400001L}) {
+                assertEquals(new SimpleDateFormat(LogRecordBuffer.RFC_3339_DATE_FORMAT).format(new Date(millis)),
+                    buffer.getTimestamp(millis, LogRecordBuffer.RFC_3339_DATE_FORMAT));
+                assertEquals(new SimpleDateFormat("HH:mm:ss z").format(new Date(millis)),
+                    buffer.getTimestamp(millis, "HH:mm:ss z"));
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Records with a fixed thread, time and stack trace, so that the output does not depend on the test run.
+     */
+    static List<LogRecord> goldenRecords() {
+        List<LogRecord> records = new ArrayList<>();
+        long millis = 1656633600123L;
+        for (String message : MESSAGES) {
+            for (Level level : new Level[] {Level.SEVERE, Level.INFO, Level.FINEST}) {
+                records.add(goldenRecord(level, message, millis));
+                millis += 997L;
+            }
+        }
+        LogRecord withId = goldenRecord(Level.WARNING, "NCLS-TEST-00001", millis);
+        withId.setResourceBundle(BUNDLE);
+        withId.setParameters(new Object[] {"π"});
+        records.add(withId);
+        return records;
+    }
+
+    private static LogRecord goldenRecord(Level level, String message, long millis) {
+        GFLogRecord record = new GFLogRecord(level, message);
+        record.setThreadName("golden-thread");
+        record.setThreadID(42);
+        record.setLoggerName("jakarta.enterprise.test");
+        record.setSourceClassName("com.example.Café");
+        record.setSourceMethodName("run");
+        record.setMillis(millis);
+        if (level == Level.SEVERE) {
+            IllegalStateException thrown = new IllegalStateException("über");
+            thrown.setStackTrace(new StackTraceElement[] {new StackTraceElement("com.example.Café", "run", "Café.java", 42)});
+            record.setThrown(thrown);
+        }
+        return record;
+    }
+
+    private static void assertGolden(String name, java.util.logging.Formatter formatter) throws Exception {
+        String expected;
+        try (InputStream in = LogRecordBufferTest.class.getResourceAsStream("formatter/" + name)) {
+            assertNotNull(in, name);
+            expected = new String(in.readAllBytes(), UTF_8);
+        }
+
+        StringBuilder chars = new StringBuilder();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (LogRecord record : goldenRecords()) {
+            chars.append(formatter.format(record));
+            LogRecordBuffer buffer = LogRecordBuffer.acquire(true);
+            try {
+                if (formatter instanceof UniformLogFormatter) {
+                    ((UniformLogFormatter) formatter).format(record, buffer);
+                } else {
+                    ((ODLLogFormatter) formatter).format(record, buffer);
+                }
+                buffer.writeTo(bytes);
+            } finally {
+                buffer.release();
+            }
+        }
+        // The expected output was written with \n line separators, and malformed surrogates encoded as '?'
+        String lineSeparator = System.lineSeparator();
+        assertEquals(expected, new String(chars.toString().getBytes(UTF_8), UTF_8).replace(lineSeparator, "\n"), name);
+        assertEquals(expected, new String(bytes.toByteArray(), UTF_8).replace(lineSeparator, "\n"), name);
+    }
+
+    private static void assertSameBytes(java.util.logging.Formatter formatter) throws Exception {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(expected, UTF_8);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        int i = 0;
+        for (String message : MESSAGES) {
+            for (Level level : new Level[] {Level.SEVERE, Level.INFO, Level.FINEST}) {
+                LogRecord record = new LogRecord(level, message);
+                record.setLoggerName("jakarta.enterprise.test");
+                record.setSourceClassName("com.example.Café");
+                record.setSourceMethodName("run");
+                record.setMillis(1666195200123L + i++);
+                if (level == Level.SEVERE) {
+                    record.setThrown(new IllegalStateException("über"));
+                }
+
+                writer.write(formatter.format(record));
+                LogRecordBuffer buffer = LogRecordBuffer.acquire(true);
+                try {
+                    if (formatter instanceof UniformLogFormatter) {
+                        ((UniformLogFormatter) formatter).format(record, buffer);
+                    } else {
+                        ((ODLLogFormatter) formatter).format(record, buffer);
+                    }
+                    buffer.writeTo(actual);
+                } finally {
+                    buffer.release();
+                }
+            }
+        }
+        writer.flush();
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+}
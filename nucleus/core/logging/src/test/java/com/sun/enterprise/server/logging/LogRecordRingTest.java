@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.enterprise.server.logging;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class LogRecordRingTest {
+
+    @Test
+    public void roundsCapacityAndRefusesClaimsWhenFull() {
+        LogRecordRing ring = new LogRecordRing(3);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ring.claim());
+        }
+        assertEquals(-1, ring.claim());
+
+        ring.publish(1);
+        LogRecordRing.Slot[] batch = new LogRecordRing.Slot[8];
+        // the first slot is not published yet
+        assertEquals(0, ring.poll(batch));
+        ring.publish(0);
+        assertEquals(2, ring.poll(batch));
+        ring.release(2);
+        assertEquals(4, ring.claim());
+    }
+
+    @Test
+    public void keepsTheOrderOfEachProducer() throws Exception {
+        int producers = 4;
+        int records = 20_000;
+        LogRecordRing ring = new LogRecordRing(16);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            String name = Integer.toString(p);
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < records; i++) {
+                    long position;
+                    while ((position = ring.claim()) < 0) {
+                        LockSupport.parkNanos(1000);
+                    }
+                    LogRecord record = new LogRecord(Level.INFO, name);
+                    record.setSequenceNumber(i);
+                    ring.get(position).set(record);
+                    ring.publish(position);
+                }
+            });
+            threads[p].start();
+        }
+
+        long[] next = new long[producers];
+        LogRecordRing.Slot[] batch = new LogRecordRing.Slot[5];
+        int taken = 0;
+        while (taken < producers * records) {
+            int count = ring.await(batch);
+            for (int i = 0; i < count; i++) {
+                LogRecord record = batch[i].getRecord();
+                int producer = Integer.parseInt(record.getMessage());
+                assertEquals(next[producer]++, record.getSequenceNumber());
+            }
+            ring.release(count);
+            taken += count;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] expected = new long[producers];
+        Arrays.fill(expected, records);
+        assertEquals(Arrays.toString(expected), Arrays.toString(next));
+        ring.close();
+        assertEquals(0, ring.await(batch));
+        assertNull(ring.get(0).getRecord());
+    }
+}
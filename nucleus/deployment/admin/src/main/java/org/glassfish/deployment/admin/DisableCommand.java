@@ -23,6 +23,7 @@ import org.glassfish.api.admin.FailurePolicy;
 import com.sun.enterprise.util.LocalStringManagerImpl;
 import com.sun.enterprise.admin.util.ClusterOperationUtil;
 import com.sun.enterprise.config.serverbeans.*;
+import com.sun.enterprise.v3.server.LazyApplications;
 import java.util.ArrayList;
 import java.util.Collection;
 import org.glassfish.api.ActionReport;
@@ -116,6 +117,9 @@ public class DisableCommand extends UndeployCommandParameters implements AdminCo
     @Inject
     ServiceLocator habitat;
 
+    @Inject
+    LazyApplications lazyApplications;
+
     private ActionReport report;
     private Logger logger;
     private String appName;
@@ -345,6 +349,12 @@ public class DisableCommand extends UndeployCommandParameters implements AdminCo
             }
         }
 
+        if (!isundeploy && domain.isCurrentInstanceMatchingTarget(target, appName, server.getName(), null)) {
+            // an application waiting for its first request is not loaded
+            // to be disabled, only its configuration is updated
+            lazyApplications.discard(appName);
+        }
+
         ApplicationInfo appInfo = deployment.get(appName);
 
         try {
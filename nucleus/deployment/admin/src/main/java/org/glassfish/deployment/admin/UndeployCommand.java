@@ -26,6 +26,7 @@ import org.glassfish.internal.deployment.ExtendedDeploymentContext;
 import org.glassfish.internal.deployment.DeploymentTargetResolver;
 import com.sun.enterprise.deploy.shared.ArchiveFactory;
 import com.sun.enterprise.admin.util.ClusterOperationUtil;
+import com.sun.enterprise.v3.server.LazyApplications;
 import org.glassfish.deployment.common.DeploymentUtils;
 import org.glassfish.deployment.common.DeploymentProperties;
 import org.glassfish.api.ActionReport;
@@ -122,6 +123,9 @@ public class UndeployCommand extends UndeployCommandParameters implements AdminC
     @Inject
     Events events;
 
+    @Inject
+    LazyApplications lazyApplications;
+
     private ActionReport report;
     private Logger logger;
     private List<String> matchedVersions;
@@ -387,6 +391,12 @@ public class UndeployCommand extends UndeployCommandParameters implements AdminC
             final Artifacts generatedArtifacts = DeploymentUtils.generatedArtifacts(application);
             generatedArtifacts.record(deploymentContext);
 
+            if (info==null) {
+                // an application waiting for its first request is only known
+                // to the HTTP mapper, unless a request is loading it right now
+                lazyApplications.discard(appName);
+                info = deployment.get(appName);
+            }
             if (info!=null) {
                 deployment.undeploy(appName, deploymentContext);
             }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.deployment.admin;
+
+import com.sun.enterprise.config.serverbeans.ApplicationRef;
+import com.sun.enterprise.config.serverbeans.Applications;
+import com.sun.enterprise.config.serverbeans.Domain;
+import com.sun.enterprise.config.serverbeans.Server;
+import com.sun.enterprise.v3.common.PlainTextActionReporter;
+import com.sun.enterprise.v3.server.LazyApplications;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.glassfish.api.ActionReport;
+import org.glassfish.api.admin.AdminCommandContext;
+import org.glassfish.api.admin.AdminCommandContextImpl;
+import org.glassfish.api.admin.ServerEnvironment;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.internal.deployment.Deployment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DisableCommandTest {
+
+    private static final String APP_NAME = "app";
+    private static final String INSTANCE_NAME = "instance1";
+
+    private final List<String> deploymentCalls = new ArrayList<>();
+    private final List<Object> disabledAppInfos = new ArrayList<>();
+    private final TestLazyApplications lazyApplications = new TestLazyApplications();
+    private boolean currentInstanceMatchingTarget;
+    private DisableCommand command;
+
+    @BeforeEach
+    public void createCommand() {
+        command = new DisableCommand();
+        command.name = APP_NAME;
+        command.target = INSTANCE_NAME;
+        command.lazyApplications = lazyApplications;
+        command.env = fake(ServerEnvironment.class, (proxy, method, args) -> {
+            if (method.getName().equals("isDas")) {
+                return false;
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+        command.server = fake(Server.class, (proxy, method, args) -> {
+            if (method.getName().equals("getName")) {
+                return INSTANCE_NAME;
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+        command.habitat = fake(ServiceLocator.class, (proxy, method, args) -> {
+            if (method.getName().equals("getAllServices")) {
+                return Collections.emptyList();
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+        command.applications = fake(Applications.class, (proxy, method, args) -> {
+            if (method.getName().equals("getApplication")) {
+                return null;
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+        ApplicationRef ref = fake(ApplicationRef.class, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.toString());
+        });
+        command.domain = fake(Domain.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getApplicationRefInTarget":
+                    return ref;
+                case "isCurrentInstanceMatchingTarget":
+                    return currentInstanceMatchingTarget;
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+        command.deployment = fake(Deployment.class, (proxy, method, args) -> {
+            deploymentCalls.add(method.getName());
+            switch (method.getName()) {
+                case "isRegistered":
+                    return true;
+                case "disable":
+                    disabledAppInfos.add(args[2]);
+                    return null;
+                case "get":
+                case "validateSpecifiedTarget":
+                case "updateAppEnabledAttributeInDomainXML":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+    }
+
+    @Test
+    public void disablingALazyApplicationDoesNotLoadIt() {
+        currentInstanceMatchingTarget = true;
+
+        ActionReport report = disable();
+
+        assertEquals(ActionReport.ExitCode.SUCCESS, report.getActionExitCode(), report.getMessage());
+        assertEquals(List.of(APP_NAME), lazyApplications.discarded);
+        assertEquals(0, lazyApplications.activations);
+        // Nothing to unload, only the configuration changes
+        assertEquals(Collections.singletonList(null), disabledAppInfos);
+        assertTrue(deploymentCalls.contains("updateAppEnabledAttributeInDomainXML"), deploymentCalls.toString());
+    }
+
+    @Test
+    public void disablingOnAnotherTargetKeepsThePlaceholder() {
+        currentInstanceMatchingTarget = false;
+
+        ActionReport report = disable();
+
+        assertEquals(ActionReport.ExitCode.SUCCESS, report.getActionExitCode(), report.getMessage());
+        assertEquals(List.of(), lazyApplications.discarded);
+        assertEquals(0, lazyApplications.activations);
+        assertTrue(deploymentCalls.contains("updateAppEnabledAttributeInDomainXML"), deploymentCalls.toString());
+    }
+
+    private ActionReport disable() {
+        ActionReport report = new PlainTextActionReporter();
+        AdminCommandContext context = new AdminCommandContextImpl(Logger.getLogger(getClass().getName()), report);
+        assertTrue(command.preAuthorization(context));
+        command.execute(context);
+        return report;
+    }
+
+    private static <T> T fake(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(DisableCommandTest.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private static class TestLazyApplications extends LazyApplications {
+
+        final List<String> discarded = new ArrayList<>();
+        int activations;
+
+        @Override
+        public void activate(String appName) {
+            activations++;
+        }
+
+        @Override
+        public void discard(String appName) {
+            discarded.add(appName);
+        }
+    }
+}
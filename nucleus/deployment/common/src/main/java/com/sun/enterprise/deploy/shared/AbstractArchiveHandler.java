@@ -19,11 +19,15 @@ package com.sun.enterprise.deploy.shared;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.OutputStream;
 import java.net.URI;
 import org.glassfish.api.deployment.archive.ReadableArchive;
+import org.glassfish.api.deployment.archive.WritableArchive;
 import org.glassfish.api.deployment.DeploymentContext;
 import org.glassfish.deployment.common.DeploymentUtils;
+import org.glassfish.deployment.common.ModuleExploder;
 import java.io.IOException;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.List;
 import java.util.ArrayList;
@@ -67,6 +71,39 @@ public abstract class AbstractArchiveHandler extends GenericHandler {
             });
     }
 
+    /**
+     * Expands a jar file into a directory with {@link ModuleExploder}, which
+     * writes the files of large archives on several threads. Other archives,
+     * and directories which keep stale files of an earlier deployment, are
+     * expanded entry by entry.
+     */
+    @Override
+    public void expand(ReadableArchive source, WritableArchive target,
+        DeploymentContext context) throws IOException {
+
+        URI sourceURI = source.getURI();
+        if (source.getParentArchive() == null && target instanceof FileArchive
+                && sourceURI != null && "file".equals(sourceURI.getScheme())
+                && new File(sourceURI).isFile()) {
+            File directory = new File(target.getURI());
+            if (!FileArchive.StaleFileManager.Util.hasStaleFiles(directory)) {
+                // the same entries as the entry by entry expansion
+                ModuleExploder.explodeJar(new File(sourceURI), directory,
+                    entry -> !entry.isDirectory() && !entry.getName().equals(JarFile.MANIFEST_NAME));
+
+                // last is manifest is existing.
+                Manifest m = source.getManifest();
+                if (m != null) {
+                    OutputStream os = target.putNextEntry(JarFile.MANIFEST_NAME);
+                    m.write(os);
+                    target.closeEntry();
+                }
+                return;
+            }
+        }
+        super.expand(source, target, context);
+    }
+
     public List<URL> getManifestLibraries(DeploymentContext context) {
         try {
             Manifest manifest = getManifest(context.getSource());
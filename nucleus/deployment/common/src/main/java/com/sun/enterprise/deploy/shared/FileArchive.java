@@ -768,6 +768,16 @@ public class FileArchive extends AbstractReadableArchive implements WritableArch
                 return new File(archive, MARKER_FILE_PATH);
             }
 
+            /**
+             * Returns whether the archive directory contains stale files left over from an earlier archive.
+             *
+             * @param archive the directory of the archive
+             * @return true if the directory has a marker file
+             */
+            public static boolean hasStaleFiles(final File archive) {
+                return markerFile(archive).exists();
+            }
+
             /**
              * Creates a marker file in the archive directory - if it still exists and contains any stale files.
              *
@@ -551,6 +551,9 @@ public class DeploymentProperties extends Properties {
 
     public static final String SNIFFERS = "sniffers";
 
+    // load the application on its first request rather than at startup
+    public static final String LAZY_LOAD = "lazy-load";
+
     static Map keyMap;
 
     static {
@@ -23,6 +23,7 @@ import java.util.jar.Manifest;
 
 import org.glassfish.api.deployment.archive.ArchiveType;
 import org.glassfish.deployment.versioning.VersioningUtils;
+import org.glassfish.internal.api.Globals;
 
 /**
  * This class describes a module information for an applicaiton module
@@ -235,7 +236,7 @@ public class ModuleDescriptor<T extends RootDeploymentDescriptor> extends Descri
 
     /**
      * Implementation of the serializable interface since ModuleType is not
-     * serializable
+     * serializable, the module type is written as its name
      */
     private void writeObject(java.io.ObjectOutputStream out)
      throws IOException {
@@ -246,6 +247,8 @@ public class ModuleDescriptor<T extends RootDeploymentDescriptor> extends Descri
          out.writeObject(contextRoot);
          out.writeObject(descriptor);
          out.writeBoolean(standalone);
+         out.writeObject(type == null ? null : type.toString());
+         out.writeObject(moduleName);
     }
 
     private void readObject(java.io.ObjectInputStream in)
@@ -257,5 +260,10 @@ public class ModuleDescriptor<T extends RootDeploymentDescriptor> extends Descri
          contextRoot = (String) in.readObject();
          descriptor = (T) in.readObject();
          standalone = in.readBoolean();
+         String typeName = (String) in.readObject();
+         if (typeName != null && Globals.getDefaultHabitat() != null) {
+             type = Globals.getDefaultHabitat().getService(ArchiveType.class, typeName);
+         }
+         moduleName = (String) in.readObject();
     }
 }
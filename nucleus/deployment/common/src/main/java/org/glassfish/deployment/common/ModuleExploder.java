@@ -19,13 +19,27 @@ package org.glassfish.deployment.common;
 
 import org.glassfish.api.deployment.archive.Archive;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.jar.JarFile;
 import java.util.jar.JarEntry;
 import java.util.logging.Logger;
 import java.util.logging.LogRecord;
 import java.util.logging.Level;
+import java.util.zip.CRC32;
 
 import com.sun.enterprise.deploy.shared.FileArchive;
 import com.sun.enterprise.util.zip.ZipFile;
@@ -48,6 +62,9 @@ public class ModuleExploder {
     @LogMessageInfo(message = "Could not expand entry {0} into destination {1}", cause="An exception was caught when the entry was expanded", action="See the exception to determine how to fix the error", level="SEVERE")
     private static final String COULD_NOT_EXPAND_ENTRY = "NCLS-DEPLOYMENT-00005";
 
+    @LogMessageInfo(message = "Expanded {1} files of {0}, {2} of them unchanged, {3} KB in {4} ms ({5} MB/s) with {6} threads", level="FINE")
+    private static final String ARCHIVE_EXPANDED = "NCLS-DEPLOYMENT-00049";
+
     protected static final StringManager localStrings =
             StringManager.getManager(ModuleExploder.class );
 
@@ -56,14 +73,55 @@ public class ModuleExploder {
     protected static final String WEB_INF_PREFIX = "WEB-INF/";
 
 
+    /**
+     * Number of threads expanding the entries of an archive, 1 to expand them
+     * on the deploying thread.
+     */
+    static final String THREADS_PROPERTY = "org.glassfish.deployment.explodeThreads";
+
+    /** The entries are handed to the expanding threads in batches of about this many compressed bytes */
+    private static final long BATCH_SIZE = 1024 * 1024;
+
+    private static final int MAX_BATCH_ENTRIES = 256;
+
+    /** Seconds the expanding threads are kept once no archive is expanded */
+    private static final long KEEP_ALIVE = 60L;
+
+    private static ExecutorService executorService = null;
+
     public static void explodeJar(File source, File destination) throws IOException {
+        explodeJar(source, destination, entry -> true);
+    }
+
+    /**
+     * Expands the entries of a jar file selected by the filter into a
+     * directory.
+     *
+     * The files of a large archive are written by several threads. Stored
+     * entries are copied from the channel of the archive, and the files left
+     * by an earlier expansion with the size and the CRC of their entry are
+     * kept as they are.
+     *
+     * @param source the jar file
+     * @param destination the directory
+     * @param filter selects the entries to expand
+     * @throws IOException if the archive cannot be expanded
+     */
+    public static void explodeJar(File source, File destination, Predicate<? super JarEntry> filter) throws IOException {
+        long start = System.currentTimeMillis();
         JarFile jarFile = null;
         String fileSystemName = null; // declared outside the try block so it's available in the catch block
         try {
             jarFile = new JarFile(source);
+            List<JarEntry> files = new ArrayList<JarEntry>();
+            boolean signed = false;
             Enumeration<JarEntry> e = jarFile.entries();
             while (e.hasMoreElements()) {
                 JarEntry entry = e.nextElement();
+                signed |= isSignatureFile(entry.getName());
+                if (!filter.test(entry)) {
+                    continue;
+                }
                 fileSystemName = entry.getName().replace('/', File.separatorChar);
                 File out = new File(destination, fileSystemName);
 
@@ -72,15 +130,26 @@ public class ModuleExploder {
                       throw new IOException("Unable to create directories " + out.getAbsolutePath());
                     }
                 } else {
-                    if (!out.getParentFile().exists()) {
-                        out.getParentFile().mkdirs();
-                    }
-                    InputStream is = new BufferedInputStream(jarFile.getInputStream(entry));
-                    FileOutputStream fos = FileUtils.openFileOutputStream(out);
-                    FileUtils.copy(is, fos, entry.getSize());
+                    files.add(entry);
+                }
+            }
+            fileSystemName = null;
+
+            // The signatures are only verified when reading through the jar file
+            try (Expansion expansion = new Expansion(jarFile, signed ? null : source, destination)) {
+                int threads = expansion.expand(files);
+                if (deplLogger.isLoggable(Level.FINE)) {
+                    long time = Math.max(1, System.currentTimeMillis() - start);
+                    deplLogger.log(Level.FINE, ARCHIVE_EXPANDED, new Object[] { source.getAbsolutePath(),
+                        files.size(), expansion.unchanged.get(), expansion.bytes.get() / 1024, time,
+                        expansion.bytes.get() * 1000 / 1024 / 1024 / time, threads });
                 }
             }
         } catch(Throwable e) {
+            if (e instanceof EntryExpansionException) {
+                fileSystemName = ((EntryExpansionException) e).entryName.replace('/', File.separatorChar);
+                e = e.getCause();
+            }
             /*
              *Use the logger here, even though we rethrow the exception.  In
              *at least some cases the caller does not propagate this exception
@@ -108,6 +177,218 @@ public class ModuleExploder {
         }
     }
 
+    private static boolean isSignatureFile(String name) {
+        String upperCaseName = name.toUpperCase(Locale.US);
+        return upperCaseName.startsWith("META-INF/") && (upperCaseName.endsWith(".SF")
+            || upperCaseName.endsWith(".DSA") || upperCaseName.endsWith(".RSA") || upperCaseName.endsWith(".EC"));
+    }
+
+    /**
+     * @return the executor of the expanding threads, which terminate once idle,
+     * null to expand the entries on the deploying thread
+     */
+    static synchronized ExecutorService getExecutorService() {
+        if (executorService != null) {
+            return executorService;
+        }
+        int nThreads = Integer.getInteger(THREADS_PROPERTY,
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+        if (nThreads <= 1) {
+            return null;
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(nThreads, nThreads, KEEP_ALIVE, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), r -> {
+                Thread t = new Thread(r);
+                t.setName("archive-exploder");
+                t.setDaemon(true);
+                return t;
+            });
+        // archives are expanded on deployment, the threads are not kept in between
+        executor.allowCoreThreadTimeOut(true);
+        executorService = executor;
+        return executorService;
+    }
+
+    /**
+     * The expansion of the files of one archive.
+     */
+    private static final class Expansion implements AutoCloseable {
+
+        private final JarFile jarFile;
+        private final File destination;
+        private final FileChannel channel;
+        private final StoredEntryLocator storedEntries;
+
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicInteger unchanged = new AtomicInteger();
+
+        /**
+         * @param archive the archive file to copy the stored entries from,
+         * null to read all the entries through the jar file
+         */
+        Expansion(JarFile jarFile, File archive, File destination) throws IOException {
+            this.jarFile = jarFile;
+            this.destination = destination;
+            this.channel = archive == null ? null : FileChannel.open(archive.toPath(), StandardOpenOption.READ);
+            StoredEntryLocator locator = null;
+            if (channel != null) {
+                try {
+                    locator = new StoredEntryLocator(channel);
+                } catch (IOException | RuntimeException e) {
+                    deplLogger.log(Level.FINE, "Stored entries of " + archive + " not located", e);
+                }
+            }
+            this.storedEntries = locator;
+        }
+
+        /**
+         * @return the number of threads which expanded the entries
+         */
+        int expand(List<JarEntry> entries) throws IOException {
+            List<List<JarEntry>> batches = new ArrayList<List<JarEntry>>();
+            List<JarEntry> batch = new ArrayList<JarEntry>();
+            long batchSize = 0;
+            for (JarEntry entry : entries) {
+                batch.add(entry);
+                batchSize += Math.max(0, entry.getCompressedSize());
+                if (batchSize >= BATCH_SIZE || batch.size() >= MAX_BATCH_ENTRIES) {
+                    batches.add(batch);
+                    batch = new ArrayList<JarEntry>();
+                    batchSize = 0;
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
+
+            ExecutorService executor = batches.size() > 1 ? getExecutorService() : null;
+            if (executor == null) {
+                for (List<JarEntry> b : batches) {
+                    expandBatch(b);
+                }
+                return 1;
+            }
+
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(batches.size());
+            for (List<JarEntry> b : batches) {
+                futures.add(executor.submit(() -> {
+                    expandBatch(b);
+                    return null;
+                }));
+            }
+
+            // Wait for all the batches, even after a failure, before the
+            // caller cleans up the destination
+            Throwable failure = null;
+            boolean interrupted = false;
+            for (Future<Void> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                        }
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure != null) {
+                throw new IOException(failure);
+            }
+            return Math.min(batches.size(), ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+        }
+
+        private void expandBatch(List<JarEntry> entries) throws IOException {
+            for (JarEntry entry : entries) {
+                try {
+                    expandEntry(entry);
+                } catch (IOException | RuntimeException e) {
+                    throw new EntryExpansionException(entry.getName(), e);
+                }
+            }
+        }
+
+        private void expandEntry(JarEntry entry) throws IOException {
+            File out = new File(destination, entry.getName().replace('/', File.separatorChar));
+            if (!out.getParentFile().exists()) {
+                out.getParentFile().mkdirs();
+            }
+            if (isUnchanged(entry, out)) {
+                unchanged.incrementAndGet();
+                return;
+            }
+
+            long position = storedEntries == null ? -1 : storedEntries.getDataPosition(entry);
+            if (position < 0) {
+                FileUtils.copy(jarFile.getInputStream(entry), FileUtils.openFileOutputStream(out), entry.getSize());
+            } else {
+                try (FileChannel outChannel = FileChannel.open(out.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long size = entry.getSize();
+                    long transferred = 0;
+                    while (transferred < size) {
+                        long count = channel.transferTo(position + transferred, size - transferred, outChannel);
+                        if (count <= 0) {
+                            throw new EOFException(entry.getName());
+                        }
+                        transferred += count;
+                    }
+                }
+            }
+            bytes.addAndGet(Math.max(0, entry.getSize()));
+        }
+
+        /**
+         * @return true if the file has the size and the CRC of the entry
+         */
+        private static boolean isUnchanged(JarEntry entry, File file) throws IOException {
+            if (entry.getCrc() == -1 || !file.isFile() || file.length() != entry.getSize()) {
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            try (InputStream is = new FileInputStream(file)) {
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = is.read(buffer)) != -1) {
+                    crc.update(buffer, 0, count);
+                }
+            }
+            return crc.getValue() == entry.getCrc();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * The failure to expand an entry.
+     */
+    private static final class EntryExpansionException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        final String entryName;
+
+        EntryExpansionException(String entryName, Exception cause) {
+            super(cause);
+            this.entryName = entryName;
+        }
+    }
+
 
     public static void explodeModule(Archive source, File directory, boolean preserveManifest)
     throws IOException, DeploymentException {
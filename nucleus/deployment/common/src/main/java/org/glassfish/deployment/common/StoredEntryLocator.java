@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.deployment.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+/**
+ * Locates the data of the stored (uncompressed) entries of a zip file, so that they can be copied from the file
+ * channel of the archive, which the zip API does not allow.
+ *
+ * <p>
+ * The local headers are found in the central directory of the archive. Archives with a zip64 central directory, and
+ * encrypted entries, are not located.
+ */
+final class StoredEntryLocator {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+
+    private final FileChannel channel;
+
+    /** Position of the local header of each stored entry */
+    private final Map<String, Long> localHeaders = new HashMap<>();
+
+    StoredEntryLocator(FileChannel channel) throws IOException {
+        this.channel = channel;
+        readCentralDirectory();
+    }
+
+    /**
+     * @return the position of the data of the entry in the archive, or -1 if the entry is not a stored entry located
+     */
+    long getDataPosition(ZipEntry entry) throws IOException {
+        Long localHeader = entry.getMethod() == ZipEntry.STORED ? localHeaders.get(entry.getName()) : null;
+        if (localHeader == null) {
+            return -1;
+        }
+
+        // The extra field of the local header may differ from the one of the central directory
+        ByteBuffer header = read(localHeader, LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            return -1;
+        }
+        return localHeader + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+    }
+
+    private void readCentralDirectory() throws IOException {
+        long size = channel.size();
+        if (size < END_SIZE) {
+            return;
+        }
+
+        // The end record is followed by a comment of at most 64k
+        int tailSize = (int) Math.min(size, 0xFFFF + END_SIZE);
+        ByteBuffer tail = read(size - tailSize, tailSize);
+        int end = -1;
+        for (int i = tailSize - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            return;
+        }
+
+        long directorySize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+        if (directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL || directorySize > Integer.MAX_VALUE) {
+            return;
+        }
+
+        // Like java.util.zip, allow data prepended to the archive, which shifts all the offsets
+        long directoryPosition = size - tailSize + end - directorySize;
+        long prefix = directoryPosition - directoryOffset;
+        if (directoryPosition < 0 || prefix < 0) {
+            return;
+        }
+
+        ByteBuffer directory = read(directoryPosition, (int) directorySize);
+        int position = 0;
+        while (position + CENTRAL_HEADER_SIZE <= directorySize && directory.getInt(position) == CENTRAL_HEADER_SIGNATURE) {
+            int flags = directory.getShort(position + 8) & 0xFFFF;
+            int method = directory.getShort(position + 10) & 0xFFFF;
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localHeader = directory.getInt(position + 42) & 0xFFFFFFFFL;
+            if (position + CENTRAL_HEADER_SIZE + nameLength > directorySize) {
+                break;
+            }
+
+            if (method == ZipEntry.STORED && (flags & 1) == 0 && localHeader != 0xFFFFFFFFL) {
+                byte[] name = new byte[nameLength];
+                ((ByteBuffer) directory.duplicate().position(position + CENTRAL_HEADER_SIZE)).get(name);
+                localHeaders.put(new String(name, UTF_8), prefix + localHeader);
+            }
+            position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2022 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.deployment.common;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ModuleExploderTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void explodesStoredAndDeflatedEntries() throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        // enough entries for several batches
+        for (int i = 0; i < 600; i++) {
+            entries.put("WEB-INF/classes/p" + (i % 7) + "/C" + i + ".class", ("class " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        entries.put("index.html", "<html></html>".getBytes(StandardCharsets.UTF_8));
+        entries.put("WEB-INF/lib/empty.jar", new byte[0]);
+        File jar = createJar(entries);
+        File destination = new File(tempDir, "exploded");
+
+        ModuleExploder.explodeJar(jar, destination);
+
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            Path file = destination.toPath().resolve(entry.getKey());
+            assertArrayEquals(entry.getValue(), Files.readAllBytes(file), entry.getKey());
+        }
+        assertTrue(new File(destination, "META-INF").isDirectory());
+    }
+
+    @Test
+    public void keepsUnchangedFiles() throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        entries.put("b.txt", "b".getBytes(StandardCharsets.UTF_8));
+        File jar = createJar(entries);
+        File destination = new File(tempDir, "exploded");
+        ModuleExploder.explodeJar(jar, destination);
+
+        File a = new File(destination, "a.txt");
+        File b = new File(destination, "b.txt");
+        assertTrue(a.setLastModified(1000L));
+        Files.write(b.toPath(), "c".getBytes(StandardCharsets.UTF_8));
+        assertTrue(b.setLastModified(1000L));
+
+        ModuleExploder.explodeJar(jar, destination);
+
+        assertEquals(1000L, a.lastModified());
+        assertFalse(b.lastModified() == 1000L);
+        assertEquals("b", new String(Files.readAllBytes(b.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void filtersEntries() throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        File jar = createJar(entries);
+        File destination = new File(tempDir, "exploded");
+
+        ModuleExploder.explodeJar(jar, destination, entry -> !entry.isDirectory() && !entry.getName().startsWith("META-INF/"));
+
+        assertTrue(new File(destination, "a.txt").isFile());
+        assertFalse(new File(destination, "META-INF").exists());
+    }
+
+    @Test
+    public void expandingThreadsTerminateWhenIdle() {
+        ExecutorService executor = ModuleExploder.getExecutorService();
+        assumeTrue(executor != null, "archives are expanded on the deploying thread");
+
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        assertTrue(pool.allowsCoreThreadTimeOut());
+        assertTrue(pool.getKeepAliveTime(TimeUnit.SECONDS) > 0);
+    }
+
+    /**
+     * Creates a jar with a manifest, storing the entries with an even number of bytes and deflating the others.
+     */
+    private File createJar(Map<String, byte[]> entries) throws Exception {
+        File jar = new File(tempDir, "test.jar");
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar), new Manifest())) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                byte[] content = entry.getValue();
+                if (content.length % 2 == 0) {
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(content.length);
+                    zipEntry.setCompressedSize(content.length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                jos.putNextEntry(zipEntry);
+                jos.write(content);
+                jos.closeEntry();
+            }
+        }
+        return jar;
+    }
+}